@@ -37,6 +37,7 @@ import io.crate.execution.engine.collect.InputCollectExpression;
 import io.crate.execution.engine.join.HashInnerJoinBatchIterator;
 import io.crate.execution.engine.window.WindowFunction;
 import io.crate.execution.engine.window.WindowFunctionBatchIterator;
+import io.crate.execution.engine.window.WindowFunctions;
 import io.crate.metadata.Functions;
 import io.crate.metadata.functions.Signature;
 import io.crate.module.EnterpriseFunctionsModule;
@@ -209,9 +210,7 @@ public class RowsBatchIteratorBenchmark {
             1,
             () -> 1,
             Runnable::run,
-            List.of(lastValueIntFunction),
-            List.of(),
-            new Input[]{input}
+            new WindowFunctions(List.of(lastValueIntFunction), List.of(), new Input[]{input})
         );
         BatchIterators.collect(batchIterator, Collectors.summingInt(x -> { blackhole.consume(x); return 1; })).get();
     }
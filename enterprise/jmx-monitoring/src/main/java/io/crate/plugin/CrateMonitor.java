@@ -43,6 +43,7 @@ import io.crate.beans.Connections;
 import io.crate.beans.NodeInfo;
 import io.crate.beans.NodeStatus;
 import io.crate.beans.QueryStats;
+import io.crate.beans.StatementCache;
 import io.crate.beans.ThreadPools;
 import io.crate.execution.engine.collect.stats.JobsLogs;
 import io.crate.protocols.ConnectionStats;
@@ -73,6 +74,7 @@ public class CrateMonitor {
         ));
         registerMBean(ThreadPools.NAME, new ThreadPools(threadPool));
         registerMBean(CircuitBreakers.NAME, new CircuitBreakers(breakerService));
+        registerMBean(StatementCache.NAME, new StatementCache(sqlOperations.parsedStatementCache()));
     }
 
     private void registerMBean(String name, Object bean) {
@@ -0,0 +1,41 @@
+/*
+ * This file is part of a module with proprietary Enterprise Features.
+ *
+ * Licensed to Crate.io Inc. ("Crate.io") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited.
+ *
+ * To use this file, Crate.io must have given you permission to enable and
+ * use such Enterprise Features and you must have a valid Enterprise or
+ * Subscription Agreement with Crate.io.  If you enable or use the Enterprise
+ * Features, you represent and warrant that you have a valid Enterprise or
+ * Subscription Agreement with Crate.io.  Your use of the Enterprise Features
+ * if governed by the terms and conditions of your Enterprise or Subscription
+ * Agreement with Crate.io.
+ */
+
+package io.crate.beans;
+
+import io.crate.action.sql.ParsedStatementCache;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class StatementCacheTest {
+
+    @Test
+    public void testStatementCacheStats() {
+        ParsedStatementCache parsedStatementCache = new ParsedStatementCache(10);
+        StatementCache statementCache = new StatementCache(parsedStatementCache);
+        parsedStatementCache.parse("select 1");
+        parsedStatementCache.parse("select 1");
+        parsedStatementCache.parse("select 2");
+
+        assertThat(statementCache.getHitCount(), is(1L));
+        assertThat(statementCache.getMissCount(), is(2L));
+        assertThat(statementCache.getSize(), is(2L));
+    }
+}
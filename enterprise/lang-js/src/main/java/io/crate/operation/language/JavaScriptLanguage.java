@@ -62,8 +62,8 @@ public class JavaScriptLanguage implements UDFLanguage {
 
     @Nullable
     public String validate(UserDefinedFunctionMetadata meta) {
-        try {
-            resolvePolyglotFunctionValue(meta.name(), meta.definition());
+        try (Context context = newContext()) {
+            resolvePolyglotFunctionValue(context, meta.name(), meta.definition());
             return null;
         } catch (IllegalArgumentException | IOException | PolyglotException t) {
             return String.format(Locale.ENGLISH, "Invalid JavaScript in function '%s.%s(%s)' AS '%s': %s",
@@ -76,11 +76,14 @@ public class JavaScriptLanguage implements UDFLanguage {
         }
     }
 
-    static Value resolvePolyglotFunctionValue(String functionName, String script) throws IOException {
-        var context = Context.newBuilder("js")
+    static Context newContext() {
+        return Context.newBuilder("js")
             .engine(ENGINE)
             .allowHostAccess(HOST_ACCESS)
             .build();
+    }
+
+    static Value resolvePolyglotFunctionValue(Context context, String functionName, String script) throws IOException {
         var source = Source.newBuilder("js", script, functionName).build();
         context.eval(source);
         var polyglotFunctionValue = context.getBindings("js").getMember(functionName);
@@ -18,65 +18,147 @@
 
 package io.crate.operation.language;
 
+import io.crate.common.annotations.VisibleForTesting;
 import io.crate.data.Input;
 import io.crate.expression.symbol.Symbol;
 import io.crate.metadata.Scalar;
 import io.crate.metadata.TransactionContext;
 import io.crate.metadata.functions.Signature;
 import io.crate.types.DataType;
+import org.graalvm.polyglot.Context;
 import org.graalvm.polyglot.PolyglotException;
 import org.graalvm.polyglot.Value;
 
+import javax.annotation.Nullable;
+import java.io.Closeable;
 import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
+import static io.crate.operation.language.JavaScriptLanguage.newContext;
 import static io.crate.operation.language.JavaScriptLanguage.resolvePolyglotFunctionValue;
 
-public class JavaScriptUserDefinedFunction extends Scalar<Object, Object> {
+public class JavaScriptUserDefinedFunction extends Scalar<Object, Object> implements Closeable {
+
+    /**
+     * A context must not be accessed concurrently, so there is no point in keeping more idle contexts
+     * than threads which can evaluate the function at the same time.
+     */
+    private static final int MAX_IDLE_CONTEXTS = Runtime.getRuntime().availableProcessors();
+
+    private static final Cleaner CLEANER = Cleaner.create();
 
     private final Signature signature;
     private final String script;
 
+    /**
+     * Contexts with the resolved function which are not in use.
+     * The instance lives as long as the function definition, so contexts are re-used across queries.
+     * Contexts which don't fit into the pool are closed.
+     */
+    private final BlockingQueue<FunctionContext> idleContexts = new ArrayBlockingQueue<>(MAX_IDLE_CONTEXTS);
+    private volatile boolean closed = false;
+
     JavaScriptUserDefinedFunction(Signature signature, String script) {
         this.signature = signature;
         this.script = script;
     }
 
+    /**
+     * Takes a context out of the pool for each evaluation.
+     * Only used if the function isn't compiled, e.g. while normalizing a function call with literal arguments.
+     */
+    @Override
+    public Object evaluate(TransactionContext txnCtx, Input<Object>[] args) {
+        FunctionContext functionContext = acquire();
+        try {
+            return evaluate(functionContext, args);
+        } finally {
+            release(functionContext);
+        }
+    }
+
+    /**
+     * Returns an instance which takes a context out of the pool on the first evaluation and keeps it for all
+     * evaluations of the query, so the globals are only reset once the query is done.
+     */
     @Override
     public Scalar<Object, Object> compile(List<Symbol> arguments) {
+        return new BoundFunction();
+    }
+
+    private Object evaluate(FunctionContext functionContext, Input<Object>[] args) {
         try {
-            return new CompiledFunction(
-                resolvePolyglotFunctionValue(
-                    signature.getName().name(),
-                    script));
-        } catch (PolyglotException | IOException e) {
-            // this should not happen if the script was validated upfront
+            var polyglotValueArgs = PolyglotValuesConverter.toPolyglotValues(args);
+            return toCrateObject(
+                functionContext.function.execute(polyglotValueArgs),
+                signature.getReturnType().createType());
+        } catch (PolyglotException e) {
             throw new io.crate.exceptions.ScriptException(
-                "compile error",
+                e.getLocalizedMessage(),
                 e,
                 JavaScriptLanguage.NAME
             );
         }
     }
 
+    private FunctionContext acquire() {
+        FunctionContext functionContext = idleContexts.poll();
+        return functionContext == null ? newFunctionContext() : functionContext;
+    }
+
+    private void release(FunctionContext functionContext) {
+        if (closed || functionContext.resetGlobals() == false || idleContexts.offer(functionContext) == false) {
+            functionContext.close();
+        } else if (closed) {
+            // the function was closed concurrently, the context may have been added after the pool was cleared
+            closeIdleContexts();
+        }
+    }
+
+    /**
+     * Closes all idle contexts, contexts which are in use are closed once the evaluation is done.
+     * Called once the function is dropped or replaced.
+     */
     @Override
-    public Object evaluate(TransactionContext txnCtx, Input<Object>[] args) {
+    public void close() {
+        closed = true;
+        closeIdleContexts();
+    }
+
+    private void closeIdleContexts() {
+        FunctionContext functionContext;
+        while ((functionContext = idleContexts.poll()) != null) {
+            functionContext.close();
+        }
+    }
+
+    @VisibleForTesting
+    int numIdleContexts() {
+        return idleContexts.size();
+    }
+
+    private FunctionContext newFunctionContext() {
+        Context context = newContext();
         try {
-            var function = resolvePolyglotFunctionValue(signature.getName().name(), script);
-            var polyglotValueArgs = PolyglotValuesConverter.toPolyglotValues(args);
-            return PolyglotValuesConverter.toCrateObject(
-                function.execute(polyglotValueArgs),
-                signature.getReturnType().createType());
+            Value function = resolvePolyglotFunctionValue(context, signature.getName().name(), script);
+            return new FunctionContext(context, function);
         } catch (PolyglotException | IOException e) {
+            context.close();
+            // this should not happen if the script was validated upfront
             throw new io.crate.exceptions.ScriptException(
-                e.getLocalizedMessage(),
+                "compile error",
                 e,
                 JavaScriptLanguage.NAME
             );
         }
     }
 
-
     @Override
     public Signature signature() {
         return signature;
@@ -87,28 +169,37 @@ public class JavaScriptUserDefinedFunction extends Scalar<Object, Object> {
         return signature();
     }
 
-    private class CompiledFunction extends Scalar<Object, Object> {
+    private static Object toCrateObject(Value value, DataType<?> type) {
+        if ("undefined".equalsIgnoreCase(value.getClass().getSimpleName())) {
+            return null;
+        } else {
+            return PolyglotValuesConverter.toCrateObject(value, type);
+        }
+    }
+
+    /**
+     * The function compiled for a single query, bound to one context of the pool.
+     * There is no hook once a query finished, so the context is returned to the pool if the instance is closed or
+     * once it became unreachable together with the expressions of the query.
+     */
+    private final class BoundFunction extends Scalar<Object, Object> implements Closeable {
 
-        private final Value function;
+        private final Lease lease = new Lease();
+        private final Cleaner.Cleanable cleanable;
 
-        private CompiledFunction(Value function) {
-            this.function = function;
+        BoundFunction() {
+            // the lease must not reference this instance, otherwise it would never become unreachable
+            this.cleanable = CLEANER.register(this, lease);
         }
 
         @Override
-        public final Object evaluate(TransactionContext txnCtx, Input<Object>[] args) {
-            var polyglotValueArgs = PolyglotValuesConverter.toPolyglotValues(args);
-            try {
-                return toCrateObject(
-                    function.execute(polyglotValueArgs),
-                    signature.getReturnType().createType());
-            } catch (PolyglotException e) {
-                throw new io.crate.exceptions.ScriptException(
-                    e.getLocalizedMessage(),
-                    e,
-                    JavaScriptLanguage.NAME
-                );
+        public Object evaluate(TransactionContext txnCtx, Input<Object>[] args) {
+            FunctionContext functionContext = lease.functionContext;
+            if (functionContext == null) {
+                functionContext = acquire();
+                lease.functionContext = functionContext;
             }
+            return JavaScriptUserDefinedFunction.this.evaluate(functionContext, args);
         }
 
         @Override
@@ -120,14 +211,93 @@ public class JavaScriptUserDefinedFunction extends Scalar<Object, Object> {
         public Signature boundSignature() {
             return signature;
         }
+
+        @Override
+        public void close() {
+            cleanable.clean();
+        }
     }
 
+    /**
+     * The context bound to a {@link BoundFunction}, returned to the pool at most once.
+     */
+    private final class Lease implements Runnable {
 
-    private static Object toCrateObject(Value value, DataType<?> type) {
-        if ("undefined".equalsIgnoreCase(value.getClass().getSimpleName())) {
-            return null;
-        } else {
-            return PolyglotValuesConverter.toCrateObject(value, type);
+        @Nullable
+        private volatile FunctionContext functionContext;
+
+        @Override
+        public void run() {
+            FunctionContext leased = functionContext;
+            if (leased != null) {
+                functionContext = null;
+                release(leased);
+            }
+        }
+    }
+
+    /**
+     * A context in which the script has been evaluated, together with the resolved function.
+     */
+    private static final class FunctionContext {
+
+        private final Context context;
+        private final Value function;
+        private final Value globals;
+        private final Map<String, Value> initialGlobals = new HashMap<>();
+        private final boolean reusable;
+
+        FunctionContext(Context context, Value function) {
+            this.context = context;
+            this.function = function;
+            this.globals = context.getBindings("js");
+            boolean onlyImmutableGlobals = true;
+            for (String key : globals.getMemberKeys()) {
+                Value value = globals.getMember(key);
+                initialGlobals.put(key, value);
+                onlyImmutableGlobals &= isImmutable(value);
+            }
+            // Objects referenced by global variables could be modified in place, which can't be reset
+            this.reusable = onlyImmutableGlobals;
+        }
+
+        private static boolean isImmutable(Value value) {
+            return value.isNull()
+                   || value.isBoolean()
+                   || value.isNumber()
+                   || value.isString()
+                   || value.canExecute();
+        }
+
+        /**
+         * Resets the global variables to the values they had after the script was evaluated,
+         * so an evaluation can't see the global state left behind by the previous one.
+         *
+         * @return false if the globals couldn't be reset and the context must not be re-used.
+         */
+        boolean resetGlobals() {
+            if (reusable == false) {
+                return false;
+            }
+            try {
+                for (String key : new ArrayList<>(globals.getMemberKeys())) {
+                    Value initialValue = initialGlobals.get(key);
+                    if (initialValue == null) {
+                        if (globals.removeMember(key) == false) {
+                            return false;
+                        }
+                    } else if (initialValue.equals(globals.getMember(key)) == false) {
+                        globals.putMember(key, initialValue);
+                    }
+                }
+                return true;
+            } catch (PolyglotException | UnsupportedOperationException | IllegalStateException e) {
+                return false;
+            }
+        }
+
+        void close() {
+            context.close();
         }
     }
 }
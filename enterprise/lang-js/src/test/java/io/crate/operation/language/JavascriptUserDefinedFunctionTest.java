@@ -19,6 +19,7 @@
 package io.crate.operation.language;
 
 import io.crate.analyze.FunctionArgumentDefinition;
+import io.crate.data.Input;
 import io.crate.expression.scalar.AbstractScalarFunctionsTest;
 import io.crate.expression.symbol.Literal;
 import io.crate.expression.udf.UserDefinedFunctionMetadata;
@@ -26,6 +27,7 @@ import io.crate.expression.udf.UserDefinedFunctionService;
 import io.crate.metadata.FunctionProvider;
 import io.crate.metadata.FunctionName;
 import io.crate.metadata.Schemas;
+import io.crate.metadata.functions.Signature;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 import org.elasticsearch.cluster.service.ClusterService;
@@ -36,6 +38,7 @@ import org.locationtech.spatial4j.context.jts.JtsSpatialContext;
 import org.locationtech.spatial4j.shape.impl.PointImpl;
 
 import javax.script.ScriptException;
+import java.io.Closeable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -99,6 +102,77 @@ public class JavascriptUserDefinedFunctionTest extends AbstractScalarFunctionsTe
         functionImplementations.clear();
     }
 
+    private static JavaScriptUserDefinedFunction createFunction(String script) {
+        var signature = Signature.scalar(
+            new FunctionName(Schemas.DOC_SCHEMA_NAME, "f"),
+            DataTypes.LONG.getTypeSignature(),
+            DataTypes.LONG.getTypeSignature());
+        return new JavaScriptUserDefinedFunction(signature, script);
+    }
+
+    @Test
+    public void testContextIsReusedAcrossEvaluations() {
+        var function = createFunction("function f(a) { return a + 1; }");
+        assertThat(function.numIdleContexts(), is(0));
+
+        Input<Object>[] args = new Input[] { Literal.of(1L) };
+        assertThat(function.evaluate(txnCtx, args), is(2L));
+        assertThat(function.evaluate(txnCtx, args), is(2L));
+        assertThat(function.numIdleContexts(), is(1));
+    }
+
+    @Test
+    public void testGlobalVariablesAreResetAfterEachEvaluation() {
+        var function = createFunction(
+            "var counter = 0; function f(a) { counter = counter + a; leaked = a; return counter; }");
+
+        Input<Object>[] args = new Input[] { Literal.of(5L) };
+        assertThat(function.evaluate(txnCtx, args), is(5L));
+        assertThat(function.evaluate(txnCtx, args), is(5L));
+        assertThat(function.numIdleContexts(), is(1));
+    }
+
+    @Test
+    public void testContextIsNotReusedIfGlobalVariablesReferenceObjects() {
+        var function = createFunction("var seen = []; function f(a) { seen.push(a); return seen.length; }");
+
+        Input<Object>[] args = new Input[] { Literal.of(5L) };
+        assertThat(function.evaluate(txnCtx, args), is(1L));
+        assertThat(function.evaluate(txnCtx, args), is(1L));
+        assertThat(function.numIdleContexts(), is(0));
+    }
+
+    @Test
+    public void testCompiledFunctionKeepsContextAndGlobalsUntilClosed() throws Exception {
+        var function = createFunction("var counter = 0; function f(a) { counter = counter + a; return counter; }");
+        var compiled = function.compile(List.of(Literal.of(5L)));
+
+        Input<Object>[] args = new Input[] { Literal.of(5L) };
+        assertThat(compiled.evaluate(txnCtx, args), is(5L));
+        assertThat(compiled.evaluate(txnCtx, args), is(10L));
+        assertThat(function.numIdleContexts(), is(0));
+
+        ((Closeable) compiled).close();
+        assertThat(function.numIdleContexts(), is(1));
+
+        var compiledForNextQuery = function.compile(List.of(Literal.of(5L)));
+        assertThat(compiledForNextQuery.evaluate(txnCtx, args), is(5L));
+        assertThat(function.numIdleContexts(), is(0));
+    }
+
+    @Test
+    public void testCloseReleasesIdleContexts() {
+        var function = createFunction("function f(a) { return a + 1; }");
+        Input<Object>[] args = new Input[] { Literal.of(1L) };
+        function.evaluate(txnCtx, args);
+        assertThat(function.numIdleContexts(), is(1));
+
+        function.close();
+        assertThat(function.numIdleContexts(), is(0));
+        assertThat(function.evaluate(txnCtx, args), is(2L));
+        assertThat(function.numIdleContexts(), is(0));
+    }
+
     @Test
     public void testObjectReturnType() throws Exception {
         registerUserDefinedFunction(
@@ -78,6 +78,13 @@ public final class BlockBasedRamAccounting implements RamAccounting {
                 throw e;
             }
             reservedBytes += reserveBytes;
+        } else if (bytes < 0) {
+            // hand back what exceeds a block, so that memory freed by the user becomes available to others
+            long surplusBytes = reservedBytes - usedBytes - blockSizeInBytes;
+            if (surplusBytes > 0) {
+                reserveMemory.accept(- surplusBytes);
+                reservedBytes -= surplusBytes;
+            }
         }
         assert reservedBytes >= usedBytes : "reservedBytes must be >= usedBytes: " + toString();
     }
@@ -22,15 +22,30 @@
 
 package io.crate.data;
 
+import java.util.ArrayDeque;
 import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 
 import io.crate.exceptions.Exceptions;
 
+/**
+ * A BatchIterator which asynchronously maps each element of the source to zero or more elements.
+ *
+ * <p>
+ * With {@code maxInFlight > 1} the mapper is also applied to the following elements of the source
+ * while the mapped elements of the current one are consumed (read ahead).
+ * Only source elements available without loading another batch of the source are read ahead,
+ * and at most {@code maxInFlight} mapper calls are pending at a time.
+ * A mapper call that is issued while others are pending is never marked as last call.
+ * </p>
+ */
 public final class AsyncFlatMapBatchIterator<I, O> implements BatchIterator<O> {
 
     private final BatchIterator<I> source;
     private final AsyncFlatMapper<I, O> mapper;
+    private final int maxInFlight;
+    private final ArrayDeque<CompletableFuture<? extends Iterator<O>>> readAhead = new ArrayDeque<>();
 
     private NextAction nextAction = NextAction.SOURCE;
     private O current = null;
@@ -43,8 +58,14 @@ public final class AsyncFlatMapBatchIterator<I, O> implements BatchIterator<O> {
     }
 
     public AsyncFlatMapBatchIterator(BatchIterator<I> source, AsyncFlatMapper<I, O> mapper) {
+        this(source, mapper, 1);
+    }
+
+    public AsyncFlatMapBatchIterator(BatchIterator<I> source, AsyncFlatMapper<I, O> mapper, int maxInFlight) {
+        assert maxInFlight > 0 : "maxInFlight must be greater than 0";
         this.source = source;
         this.mapper = mapper;
+        this.maxInFlight = maxInFlight;
     }
 
     @Override
@@ -72,12 +93,16 @@ public final class AsyncFlatMapBatchIterator<I, O> implements BatchIterator<O> {
                     sourceExhausted = source.allLoaded();
                 }
                 return false;
+            } else if (mappedElements == null) {
+                return false;
             } else {
                 if (mappedElements.hasNext()) {
                     current = mappedElements.next();
                     return true;
                 } else {
-                    nextAction = NextAction.SOURCE;
+                    mappedElements = null;
+                    // Read ahead elements are mapped already, the source is positioned after them
+                    nextAction = readAhead.isEmpty() ? NextAction.SOURCE : NextAction.MAPPER;
                     continue;
                 }
             }
@@ -87,6 +112,17 @@ public final class AsyncFlatMapBatchIterator<I, O> implements BatchIterator<O> {
     @Override
     public void close() {
         source.close();
+        if (readAhead.isEmpty()) {
+            closeMapper();
+        } else {
+            // Pending mapper calls must finish before the mapper can release its resources
+            CompletableFuture.allOf(readAhead.toArray(new CompletableFuture[0]))
+                .whenComplete((res, err) -> closeMapper());
+            readAhead.clear();
+        }
+    }
+
+    private void closeMapper() {
         try {
             mapper.close();
         } catch (Exception e) {
@@ -99,7 +135,19 @@ public final class AsyncFlatMapBatchIterator<I, O> implements BatchIterator<O> {
         if (nextAction == NextAction.SOURCE) {
             return source.loadNextBatch();
         } else {
-            return mapper.apply(source.currentElement(), sourceExhausted).thenAccept(rows -> {
+            CompletableFuture<? extends Iterator<O>> next = readAhead.poll();
+            if (next == null) {
+                next = mapper.apply(source.currentElement(), sourceExhausted);
+            }
+            while (readAhead.size() + 1 < maxInFlight && !sourceExhausted) {
+                if (source.moveNext()) {
+                    readAhead.add(mapper.apply(source.currentElement(), false));
+                } else {
+                    sourceExhausted = source.allLoaded();
+                    break;
+                }
+            }
+            return next.thenAccept(rows -> {
                 mappedElements = rows;
             });
         }
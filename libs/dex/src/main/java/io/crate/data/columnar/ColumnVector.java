@@ -0,0 +1,57 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.data.columnar;
+
+/**
+ * A single column of a {@link ColumnarBatch}.
+ *
+ * Values are stored in typed primitive arrays where possible so that operations over a column can be
+ * expressed as tight loops instead of going through {@link io.crate.data.Input#value()} per row.
+ * {@link #get(int)} and {@link #set(int, Object)} exist as row-at-a-time adapters.
+ */
+public abstract class ColumnVector {
+
+    protected final boolean[] nulls;
+
+    protected ColumnVector(int capacity) {
+        this.nulls = new boolean[capacity];
+    }
+
+    public int capacity() {
+        return nulls.length;
+    }
+
+    public boolean isNull(int position) {
+        return nulls[position];
+    }
+
+    /**
+     * Returns the (boxed) value at the given position or null.
+     */
+    public abstract Object get(int position);
+
+    /**
+     * Sets the value at the given position. {@code value} may be null.
+     */
+    public abstract void set(int position, Object value);
+}
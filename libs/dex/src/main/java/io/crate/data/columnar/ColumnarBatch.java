@@ -0,0 +1,156 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.data.columnar;
+
+import io.crate.data.Row;
+
+import java.util.function.DoublePredicate;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+
+/**
+ * A batch of rows stored column-wise in {@link ColumnVector}s plus a selection vector.
+ *
+ * <p>
+ * Rows are appended at physical positions {@code 0..numRows()}. Filters don't move any data,
+ * they only shrink the selection vector which holds the physical positions of the rows that are still "alive".
+ * Consumers must iterate over {@code position(0)..position(size() - 1)}.
+ * </p>
+ *
+ * <pre>
+ * {@code
+ *     batch.filterLongs(0, x -> x > 10);
+ *     for (int i = 0; i < batch.size(); i++) {
+ *         int position = batch.position(i);
+ *         // read column values at position
+ *     }
+ * }
+ * </pre>
+ */
+public final class ColumnarBatch {
+
+    private final ColumnVector[] columns;
+    private final int[] selection;
+    private int numRows = 0;
+    private int size = 0;
+
+    public ColumnarBatch(ColumnVector... columns) {
+        if (columns.length == 0) {
+            throw new IllegalArgumentException("ColumnarBatch requires at least one column");
+        }
+        int capacity = columns[0].capacity();
+        for (ColumnVector column : columns) {
+            if (column.capacity() != capacity) {
+                throw new IllegalArgumentException("All columns of a ColumnarBatch must have the same capacity");
+            }
+        }
+        this.columns = columns;
+        this.selection = new int[capacity];
+    }
+
+    public int numColumns() {
+        return columns.length;
+    }
+
+    public ColumnVector column(int index) {
+        return columns[index];
+    }
+
+    public int capacity() {
+        return selection.length;
+    }
+
+    /**
+     * @return the number of physical rows written into the batch, including rows which have been filtered out.
+     */
+    public int numRows() {
+        return numRows;
+    }
+
+    /**
+     * @return the number of selected rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the physical position of the i-th selected row
+     */
+    public int position(int i) {
+        return selection[i];
+    }
+
+    public boolean isFull() {
+        return numRows == selection.length;
+    }
+
+    /**
+     * Appends the values of {@code row} to the columns.
+     * This must not be used once a filter has been applied to the batch.
+     */
+    public void append(Row row) {
+        assert size == numRows : "Cannot append rows to a filtered ColumnarBatch";
+        int position = numRows;
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].set(position, row.get(i));
+        }
+        selection[position] = position;
+        numRows++;
+        size++;
+    }
+
+    public void clear() {
+        numRows = 0;
+        size = 0;
+    }
+
+    public void filterLongs(int column, LongPredicate predicate) {
+        size = ((LongColumnVector) columns[column]).filter(selection, size, predicate);
+    }
+
+    public void filterInts(int column, IntPredicate predicate) {
+        size = ((IntColumnVector) columns[column]).filter(selection, size, predicate);
+    }
+
+    public void filterDoubles(int column, DoublePredicate predicate) {
+        size = ((DoubleColumnVector) columns[column]).filter(selection, size, predicate);
+    }
+
+    /**
+     * Row-at-a-time fallback for predicates which cannot be expressed on a single typed column.
+     */
+    public void filter(Predicate<Row> predicate) {
+        ColumnarBatchRow row = new ColumnarBatchRow(this);
+        int numSelected = 0;
+        for (int i = 0; i < size; i++) {
+            int position = selection[i];
+            row.position(position);
+            if (predicate.test(row)) {
+                selection[numSelected++] = position;
+            }
+        }
+        size = numSelected;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.data.columnar;
+
+import io.crate.data.BatchIterator;
+import io.crate.data.BatchIterators;
+import io.crate.data.FilteringBatchIterator;
+import io.crate.data.FlatMapBatchIterator;
+import io.crate.data.ForwardingBatchIterator;
+import io.crate.data.Row;
+
+import javax.annotation.Nullable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Adapters between row-at-a-time {@link BatchIterator}s and {@link ColumnarBatch} based ones.
+ */
+public final class ColumnarBatches {
+
+    private ColumnarBatches() {
+    }
+
+    /**
+     * Groups the rows of {@code source} into {@link ColumnarBatch}es.
+     * A batch is emitted once it is full or once the source is exhausted.
+     *
+     * @param batchFactory creates a new, empty batch. The column vectors must match the row layout of {@code source}.
+     */
+    public static BatchIterator<ColumnarBatch> fromRows(BatchIterator<Row> source,
+                                                        Supplier<ColumnarBatch> batchFactory) {
+        return BatchIterators.partition(
+            source,
+            Integer.MAX_VALUE,
+            batchFactory,
+            ColumnarBatch::append,
+            ColumnarBatch::isFull
+        );
+    }
+
+    /**
+     * Exposes the selected rows of each batch as {@link Row}s.
+     * Like with other BatchIterators the returned row instance is shared.
+     *
+     * <p>
+     * Consumers which can operate on batches can get them back using {@link #unwrap(BatchIterator)}
+     * </p>
+     */
+    public static BatchIterator<Row> toRows(BatchIterator<ColumnarBatch> batches) {
+        return new RowsOfBatches(batches);
+    }
+
+    /**
+     * @return the batches of a BatchIterator created by {@link #toRows(BatchIterator)} or null if {@code rows} isn't
+     *         backed by batches. The rows iterator must not be used anymore once the batches are consumed.
+     */
+    @Nullable
+    public static BatchIterator<ColumnarBatch> unwrap(BatchIterator<Row> rows) {
+        if (rows instanceof RowsOfBatches) {
+            return ((RowsOfBatches) rows).batches;
+        }
+        return null;
+    }
+
+    /**
+     * Applies {@code filter} to each batch. The filter is expected to shrink the selection vector of the batch,
+     * for example via {@link ColumnarBatch#filterLongs(int, java.util.function.LongPredicate)}.
+     * Batches without any selected rows are skipped.
+     */
+    public static BatchIterator<ColumnarBatch> filter(BatchIterator<ColumnarBatch> batches,
+                                                      Consumer<ColumnarBatch> filter) {
+        return new FilteringBatchIterator<>(batches, batch -> {
+            filter.accept(batch);
+            return batch.size() > 0;
+        });
+    }
+
+    private static final class RowsOfBatches extends ForwardingBatchIterator<Row> {
+
+        private final BatchIterator<ColumnarBatch> batches;
+        private final BatchIterator<Row> rows;
+
+        RowsOfBatches(BatchIterator<ColumnarBatch> batches) {
+            this.batches = batches;
+            this.rows = new FlatMapBatchIterator<>(batches, SelectedRowsIterator::new);
+        }
+
+        @Override
+        protected BatchIterator<Row> delegate() {
+            return rows;
+        }
+    }
+
+    private static class SelectedRowsIterator implements Iterator<Row> {
+
+        private final ColumnarBatch batch;
+        private final ColumnarBatchRow row;
+        private int idx = 0;
+
+        SelectedRowsIterator(ColumnarBatch batch) {
+            this.batch = batch;
+            this.row = new ColumnarBatchRow(batch);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return idx < batch.size();
+        }
+
+        @Override
+        public Row next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("ColumnarBatch has no more selected rows");
+            }
+            row.position(batch.position(idx));
+            idx++;
+            return row;
+        }
+    }
+}
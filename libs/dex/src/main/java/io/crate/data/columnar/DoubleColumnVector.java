@@ -0,0 +1,74 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.data.columnar;
+
+import java.util.function.DoublePredicate;
+
+public final class DoubleColumnVector extends ColumnVector {
+
+    final double[] values;
+
+    public DoubleColumnVector(int capacity) {
+        super(capacity);
+        this.values = new double[capacity];
+    }
+
+    public double getDouble(int position) {
+        return values[position];
+    }
+
+    public void setDouble(int position, double value) {
+        values[position] = value;
+        nulls[position] = false;
+    }
+
+    @Override
+    public Object get(int position) {
+        return nulls[position] ? null : values[position];
+    }
+
+    @Override
+    public void set(int position, Object value) {
+        if (value == null) {
+            nulls[position] = true;
+        } else {
+            setDouble(position, ((Number) value).doubleValue());
+        }
+    }
+
+    /**
+     * Keeps the positions of the selection vector for which the value is not null and matches {@code predicate}.
+     *
+     * @return the new number of selected positions
+     */
+    int filter(int[] selection, int size, DoublePredicate predicate) {
+        int numSelected = 0;
+        for (int i = 0; i < size; i++) {
+            int position = selection[i];
+            if (!nulls[position] && predicate.test(values[position])) {
+                selection[numSelected++] = position;
+            }
+        }
+        return numSelected;
+    }
+}
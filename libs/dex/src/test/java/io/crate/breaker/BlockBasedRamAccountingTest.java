@@ -61,4 +61,18 @@ public class BlockBasedRamAccountingTest {
         ramAccounting.addBytes(5432);
         assertThat(accountedBytes.get(), is(5432L));
     }
+
+    @Test
+    public void test_removing_bytes_releases_reserved_bytes_exceeding_a_block() {
+        var accountedBytes = new AtomicLong(0L);
+        var ramAccounting = new BlockBasedRamAccounting(accountedBytes::addAndGet, 200);
+
+        ramAccounting.addBytes(5432);
+        ramAccounting.addBytes(-5400);
+        assertThat(ramAccounting.totalBytes(), is(32L));
+        assertThat(accountedBytes.get(), is(232L));
+
+        ramAccounting.addBytes(100);
+        assertThat(accountedBytes.get(), is(232L));
+    }
 }
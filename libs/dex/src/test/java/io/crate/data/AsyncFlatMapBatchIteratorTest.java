@@ -23,8 +23,10 @@
 package io.crate.data;
 
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
@@ -113,4 +115,56 @@ public class AsyncFlatMapBatchIteratorTest {
             )
         );
     }
+
+    @Test
+    public void test_read_ahead_maps_next_element_while_current_is_pending() throws Exception {
+        InMemoryBatchIterator<Integer> source = new InMemoryBatchIterator<>(Arrays.asList(1, 2, 3), null, false);
+        List<CompletableFuture<Iterator<Integer>>> calls = new ArrayList<>();
+        List<Boolean> isLastCalls = new ArrayList<>();
+        AsyncFlatMapBatchIterator<Integer, Integer> it = new AsyncFlatMapBatchIterator<>(
+            source,
+            (x, isLast) -> {
+                isLastCalls.add(isLast);
+                CompletableFuture<Iterator<Integer>> future = new CompletableFuture<>();
+                calls.add(future);
+                return future.thenApply(ignored -> List.of(x, x).iterator());
+            },
+            2
+        );
+        CompletableFuture<List<Integer>> result = BatchIterators.collect(it, Collectors.toList());
+        assertThat(calls.size(), is(2));
+        calls.get(1).complete(null);
+        assertThat(result.isDone(), is(false));
+        calls.get(0).complete(null);
+        assertThat(calls.size(), is(3));
+        calls.get(2).complete(null);
+
+        assertThat(result.get(1, TimeUnit.SECONDS), contains(1, 1, 2, 2, 3, 3));
+        // the read ahead call overlaps with others, so none of the calls can be the last one
+        assertThat(isLastCalls, contains(false, false, false));
+    }
+
+    @Test
+    public void test_async_flat_map_with_read_ahead_fulfills_contracts() throws Exception {
+        AsyncFlatMapper<Row, Row> duplicateRow = (row, isLast) ->
+            CompletableFuture.completedFuture(Arrays.<Row>asList(
+                new RowN(row.materialize()),
+                new RowN(row.materialize())
+            ).iterator()
+        );
+        BatchIteratorTester tester = new BatchIteratorTester(() -> {
+            BatchIterator<Row> source = TestingBatchIterators.range(1, 4);
+            return new AsyncFlatMapBatchIterator<Row, Row>(source, duplicateRow, 3);
+        });
+        tester.verifyResultAndEdgeCaseBehaviour(
+            Arrays.asList(
+                new Object[] { 1 },
+                new Object[] { 1 },
+                new Object[] { 2 },
+                new Object[] { 2 },
+                new Object[] { 3 },
+                new Object[] { 3 }
+            )
+        );
+    }
 }
@@ -0,0 +1,106 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.data.columnar;
+
+import io.crate.data.BatchIterator;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.testing.BatchIteratorTester;
+import io.crate.testing.BatchSimulatingIterator;
+import io.crate.testing.TestingBatchIterators;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class ColumnarBatchesTest {
+
+    private static ColumnarBatch newIntBatch() {
+        return new ColumnarBatch(new IntColumnVector(3));
+    }
+
+    @Test
+    public void testRowsRoundTripThroughColumnarBatches() throws Exception {
+        List<Object[]> expectedResult = IntStream.range(0, 10)
+            .mapToObj(i -> new Object[]{i})
+            .collect(Collectors.toList());
+
+        BatchIteratorTester tester = new BatchIteratorTester(
+            () -> ColumnarBatches.toRows(
+                ColumnarBatches.fromRows(TestingBatchIterators.range(0, 10), ColumnarBatchesTest::newIntBatch))
+        );
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
+
+    @Test
+    public void testFilterOnColumnVectorSkipsEmptyBatches() throws Exception {
+        List<Object[]> expectedResult = IntStream.iterate(0, i -> i + 4).limit(5)
+            .mapToObj(i -> new Object[]{i})
+            .collect(Collectors.toList());
+
+        BatchIteratorTester tester = new BatchIteratorTester(
+            () -> {
+                BatchIterator<Row> source = new BatchSimulatingIterator<>(
+                    TestingBatchIterators.range(0, 20), 4, 5, null);
+                return ColumnarBatches.toRows(
+                    ColumnarBatches.filter(
+                        ColumnarBatches.fromRows(source, ColumnarBatchesTest::newIntBatch),
+                        batch -> batch.filterInts(0, x -> x % 4 == 0)
+                    )
+                );
+            }
+        );
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
+
+    @Test
+    public void testFiltersOnlyConsiderSelectedPositionsAndSkipNulls() {
+        ColumnarBatch batch = new ColumnarBatch(new LongColumnVector(8), new ObjectColumnVector(8));
+        for (Object[] cells : Arrays.asList(
+            new Object[]{1L, "a"},
+            new Object[]{null, "b"},
+            new Object[]{3L, null},
+            new Object[]{4L, "d"},
+            new Object[]{5L, "e"})) {
+            batch.append(new RowN(cells));
+        }
+        batch.filterLongs(0, x -> x > 1);
+        batch.filter(row -> row.get(1) != null);
+
+        assertThat(batch.numRows(), is(5));
+        assertThat(batch.size(), is(2));
+        assertThat(batch.position(0), is(3));
+        assertThat(batch.position(1), is(4));
+
+        List<Object[]> rows = IntStream.range(0, batch.size())
+            .mapToObj(i -> new Object[]{batch.column(0).get(batch.position(i)), batch.column(1).get(batch.position(i))})
+            .collect(Collectors.toList());
+        assertThat(rows, contains(new Object[]{4L, "d"}, new Object[]{5L, "e"}));
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.xcontent.support;
+
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentLocation;
+import org.elasticsearch.common.xcontent.XContentType;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A parser that emits the tokens of an in-memory map as if it had been serialized to and parsed from {@code xContentType}.
+ *
+ * Values are handed out as they are, without a round-trip through their textual representation.
+ * Only maps, lists, arrays, strings, booleans, primitive number wrappers and nulls are supported,
+ * use {@link #isSupported(Object)} to check a value upfront.
+ */
+public class MapXContentParser extends AbstractXContentParser {
+
+    private final XContentType xContentType;
+    private final Map<String, Object> map;
+    private final ArrayDeque<Frame> frames = new ArrayDeque<>();
+
+    private boolean started = false;
+    private boolean closed = false;
+    private Token currentToken;
+    private Object currentValue;
+
+    public MapXContentParser(NamedXContentRegistry xContentRegistry,
+                             DeprecationHandler deprecationHandler,
+                             Map<String, Object> map,
+                             XContentType xContentType) {
+        super(xContentRegistry, deprecationHandler);
+        this.map = map;
+        this.xContentType = xContentType;
+    }
+
+    /**
+     * @return true if the value, including all nested values, can be emitted by this parser.
+     */
+    public static boolean isSupported(@Nullable Object value) {
+        if (value == null
+            || value instanceof String
+            || value instanceof Boolean
+            || value instanceof Integer
+            || value instanceof Long
+            || value instanceof Double
+            || value instanceof Float
+            || value instanceof Short
+            || value instanceof Byte) {
+            return true;
+        }
+        if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (!(entry.getKey() instanceof String) || !isSupported(entry.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (value instanceof List) {
+            for (Object item : (List<?>) value) {
+                if (!isSupported(item)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (value instanceof Object[]) {
+            for (Object item : (Object[]) value) {
+                if (!isSupported(item)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public XContentType contentType() {
+        return xContentType;
+    }
+
+    @Override
+    public Token nextToken() throws IOException {
+        if (started == false) {
+            started = true;
+            return startValue(null, map);
+        }
+        Frame frame = frames.peek();
+        if (frame == null) {
+            currentValue = null;
+            currentToken = null;
+            return null;
+        }
+        if (frame.pendingValue) {
+            frame.pendingValue = false;
+            return startValue(frame.fieldName, frame.value);
+        }
+        if (frame.items.hasNext()) {
+            Object next = frame.items.next();
+            if (frame.isObject) {
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) next;
+                frame.fieldName = (String) entry.getKey();
+                frame.value = entry.getValue();
+                frame.pendingValue = true;
+                currentValue = null;
+                currentToken = Token.FIELD_NAME;
+                return currentToken;
+            }
+            return startValue(null, next);
+        }
+        frames.pop();
+        currentValue = null;
+        currentToken = frame.isObject ? Token.END_OBJECT : Token.END_ARRAY;
+        return currentToken;
+    }
+
+    private Token startValue(@Nullable String parentName, Object value) {
+        currentValue = value;
+        if (value == null) {
+            currentToken = Token.VALUE_NULL;
+        } else if (value instanceof Map) {
+            frames.push(new Frame(parentName, true, ((Map<?, ?>) value).entrySet().iterator()));
+            currentToken = Token.START_OBJECT;
+        } else if (value instanceof List) {
+            frames.push(new Frame(parentName, false, ((List<?>) value).iterator()));
+            currentToken = Token.START_ARRAY;
+        } else if (value instanceof Object[]) {
+            frames.push(new Frame(parentName, false, Arrays.asList((Object[]) value).iterator()));
+            currentToken = Token.START_ARRAY;
+        } else if (value instanceof String) {
+            currentToken = Token.VALUE_STRING;
+        } else if (value instanceof Number) {
+            currentToken = Token.VALUE_NUMBER;
+        } else if (value instanceof Boolean) {
+            currentToken = Token.VALUE_BOOLEAN;
+        } else {
+            throw new IllegalArgumentException("Cannot parse value of type [" + value.getClass().getName() + "]");
+        }
+        return currentToken;
+    }
+
+    @Override
+    public void skipChildren() throws IOException {
+        if (currentToken == Token.START_OBJECT || currentToken == Token.START_ARRAY) {
+            Frame frame = frames.pop();
+            currentValue = null;
+            currentToken = frame.isObject ? Token.END_OBJECT : Token.END_ARRAY;
+        }
+    }
+
+    @Override
+    public Token currentToken() {
+        return currentToken;
+    }
+
+    @Override
+    public String currentName() throws IOException {
+        Frame frame = frames.peek();
+        if (currentToken == Token.START_OBJECT || currentToken == Token.START_ARRAY) {
+            // like the JSON parser, report the name of the field which contains the container
+            return frame.parentName;
+        }
+        return frame == null ? null : frame.fieldName;
+    }
+
+    @Override
+    protected boolean doBooleanValue() throws IOException {
+        return (Boolean) currentValue;
+    }
+
+    @Override
+    public String text() throws IOException {
+        if (currentToken != null && currentToken.isValue()) {
+            return currentValue.toString();
+        }
+        throw new IllegalStateException("Can't get text on a " + currentToken);
+    }
+
+    @Override
+    public CharBuffer charBuffer() throws IOException {
+        return CharBuffer.wrap(text());
+    }
+
+    @Override
+    public Object objectText() throws IOException {
+        if (currentToken == Token.VALUE_STRING) {
+            return text();
+        } else if (currentToken == Token.VALUE_NUMBER || currentToken == Token.VALUE_BOOLEAN) {
+            return currentValue;
+        } else if (currentToken == Token.VALUE_NULL) {
+            return null;
+        }
+        return text();
+    }
+
+    @Override
+    public boolean hasTextCharacters() {
+        return false;
+    }
+
+    @Override
+    public char[] textCharacters() throws IOException {
+        return text().toCharArray();
+    }
+
+    @Override
+    public int textLength() throws IOException {
+        return text().length();
+    }
+
+    @Override
+    public int textOffset() throws IOException {
+        return 0;
+    }
+
+    @Override
+    public Number numberValue() throws IOException {
+        return (Number) currentValue;
+    }
+
+    @Override
+    public NumberType numberType() throws IOException {
+        Number number = (Number) currentValue;
+        if (number instanceof Long) {
+            return NumberType.LONG;
+        } else if (number instanceof Double) {
+            return NumberType.DOUBLE;
+        } else if (number instanceof Float) {
+            return NumberType.FLOAT;
+        }
+        return NumberType.INT;
+    }
+
+    @Override
+    protected short doShortValue() throws IOException {
+        return ((Number) currentValue).shortValue();
+    }
+
+    @Override
+    protected int doIntValue() throws IOException {
+        return ((Number) currentValue).intValue();
+    }
+
+    @Override
+    protected long doLongValue() throws IOException {
+        return ((Number) currentValue).longValue();
+    }
+
+    @Override
+    protected float doFloatValue() throws IOException {
+        return ((Number) currentValue).floatValue();
+    }
+
+    @Override
+    protected double doDoubleValue() throws IOException {
+        return ((Number) currentValue).doubleValue();
+    }
+
+    @Override
+    public byte[] binaryValue() throws IOException {
+        return Base64.getDecoder().decode(text());
+    }
+
+    @Override
+    public XContentLocation getTokenLocation() {
+        return null;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    private static class Frame {
+
+        @Nullable
+        private final String parentName;
+        private final boolean isObject;
+        private final Iterator<?> items;
+
+        @Nullable
+        private String fieldName;
+        private Object value;
+        private boolean pendingValue = false;
+
+        Frame(@Nullable String parentName, boolean isObject, Iterator<?> items) {
+            this.parentName = parentName;
+            this.isObject = isObject;
+            this.items = items;
+        }
+    }
+}
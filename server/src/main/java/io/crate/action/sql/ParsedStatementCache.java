@@ -0,0 +1,75 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.action.sql;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import io.crate.sql.parser.SqlParser;
+import io.crate.sql.tree.Statement;
+
+/**
+ * Node wide cache of parsed statements, keyed by the SQL text.
+ *
+ * Parsing is a pure function of the statement string, so the resulting AST can be shared between sessions.
+ * Analysis and planning depend on the user, the session settings and the cluster state and are not cached.
+ * Statements which fail to parse are not cached.
+ * Statements longer than {@link #MAX_STATEMENT_LENGTH} are not cached either, as they are likely to be unique
+ * (e.g. an INSERT with many literal values) and would take up a lot of memory.
+ */
+public final class ParsedStatementCache {
+
+    public static final int MAX_STATEMENT_LENGTH = 4096;
+
+    private final Cache<String, Statement> cache;
+
+    public ParsedStatementCache(long maxSize) {
+        this.cache = CacheBuilder.newBuilder()
+            .maximumSize(maxSize)
+            .recordStats()
+            .build();
+    }
+
+    public Statement parse(String query) {
+        if (query.length() > MAX_STATEMENT_LENGTH) {
+            return SqlParser.createStatement(query);
+        }
+        Statement statement = cache.getIfPresent(query);
+        if (statement == null) {
+            statement = SqlParser.createStatement(query);
+            cache.put(query, statement);
+        }
+        return statement;
+    }
+
+    /**
+     * Hit/miss counters of the cache
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+}
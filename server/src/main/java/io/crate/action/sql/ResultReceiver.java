@@ -26,6 +26,8 @@ import io.crate.concurrent.CompletionListenable;
 import io.crate.data.Row;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Used via {@link RowConsumerToResultReceiver} to receive results from the execution of a plan
@@ -34,6 +36,17 @@ public interface ResultReceiver<T> extends CompletionListenable<T> {
 
     void setNextRow(Row row);
 
+    /**
+     * Called after each {@link #setNextRow(Row)} call.
+     *
+     * @return null if more rows can be pushed right away, or a future that completes once the receiver
+     *         is ready to receive more rows. Until then no more rows are pulled from the source.
+     */
+    @Nullable
+    default CompletableFuture<?> readyForMoreRows() {
+        return null;
+    }
+
     void batchFinished();
 
     /**
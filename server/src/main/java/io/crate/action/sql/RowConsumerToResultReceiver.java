@@ -76,22 +76,18 @@ public class RowConsumerToResultReceiver implements RowConsumer {
                     resultReceiver.batchFinished();
                     return; // resumed via postgres protocol, close is done later
                 }
+                CompletableFuture<?> ready = resultReceiver.readyForMoreRows();
+                if (ready != null && (!ready.isDone() || ready.isCompletedExceptionally())) {
+                    ready.whenComplete((r, f) -> continueOrFail(iterator, f));
+                    return;
+                }
             }
             if (iterator.allLoaded()) {
                 completionFuture.complete(null);
                 iterator.close();
                 resultReceiver.allFinished(false);
             } else {
-                iterator.loadNextBatch().whenComplete((r, f) -> {
-                    if (f == null) {
-                        consumeIt(iterator);
-                    } else {
-                        Throwable t = SQLExceptions.unwrap(f);
-                        iterator.close();
-                        completionFuture.completeExceptionally(t);
-                        resultReceiver.fail(t);
-                    }
-                });
+                iterator.loadNextBatch().whenComplete((r, f) -> continueOrFail(iterator, f));
             }
         } catch (Throwable t) {
             iterator.close();
@@ -100,6 +96,17 @@ public class RowConsumerToResultReceiver implements RowConsumer {
         }
     }
 
+    private void continueOrFail(BatchIterator<Row> iterator, @Nullable Throwable failure) {
+        if (failure == null) {
+            consumeIt(iterator);
+        } else {
+            Throwable t = SQLExceptions.unwrap(failure);
+            iterator.close();
+            completionFuture.completeExceptionally(t);
+            resultReceiver.fail(t);
+        }
+    }
+
     /**
      * If this consumer suspended itself (due to {@code maxRows} being > 0, it will close the BatchIterator
      * and finish the ResultReceiver with interrupted=true.
@@ -48,6 +48,12 @@ public class SQLOperations {
         false,
         Setting.Property.NodeScope);
 
+    public static final Setting<Integer> NODE_STATEMENT_CACHE_SIZE_SETTING = Setting.intSetting(
+        "node.sql.statement_cache_size",
+        1000,
+        0,
+        Setting.Property.NodeScope);
+
     private final Analyzer analyzer;
     private final Planner planner;
     private final Provider<DependencyCarrier> executorProvider;
@@ -55,6 +61,7 @@ public class SQLOperations {
     private final ClusterService clusterService;
     private final UserManager userManager;
     private final boolean isReadOnly;
+    private final ParsedStatementCache parsedStatementCache;
     private volatile boolean disabled;
 
     @Inject
@@ -72,6 +79,7 @@ public class SQLOperations {
         this.clusterService = clusterService;
         this.userManager = userManagerProvider.get();
         this.isReadOnly = NODE_READ_ONLY_SETTING.get(settings);
+        this.parsedStatementCache = new ParsedStatementCache(NODE_STATEMENT_CACHE_SIZE_SETTING.get(settings));
     }
 
     private Session createSession(SessionContext sessionContext) {
@@ -85,7 +93,12 @@ public class SQLOperations {
             isReadOnly,
             executorProvider.get(),
             userManager.getAccessControl(sessionContext),
-            sessionContext);
+            sessionContext,
+            parsedStatementCache::parse);
+    }
+
+    public ParsedStatementCache parsedStatementCache() {
+        return parsedStatementCache;
     }
 
     public Session newSystemSession() {
@@ -30,6 +30,7 @@ import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import javax.annotation.Nullable;
 
@@ -122,8 +123,12 @@ public class Session implements AutoCloseable {
     @VisibleForTesting
     final Map<String, Portal> portals = new HashMap<>();
 
+    /**
+     * Deferred executions, grouped by consecutive executions of the same statement.
+     * Each group is executed as a single (bulk) operation on sync.
+     */
     @VisibleForTesting
-    final Map<Statement, List<DeferredExecution>> deferredExecutionsByStmt = new HashMap<>();
+    final List<List<DeferredExecution>> deferredExecutions = new ArrayList<>();
 
     @VisibleForTesting
     @Nullable
@@ -134,6 +139,7 @@ public class Session implements AutoCloseable {
     private final JobsLogs jobsLogs;
     private final boolean isReadOnly;
     private final ParameterTypeExtractor parameterTypeExtractor;
+    private final Function<String, Statement> parser;
 
     private TransactionState currentTransactionState = TransactionState.IDLE;
 
@@ -144,6 +150,28 @@ public class Session implements AutoCloseable {
                    DependencyCarrier executor,
                    AccessControl accessControl,
                    SessionContext sessionContext) {
+        this(analyzer,
+             planner,
+             jobsLogs,
+             isReadOnly,
+             executor,
+             accessControl,
+             sessionContext,
+             SqlParser::createStatement);
+    }
+
+    /**
+     * @param parser used to parse statements passed to {@link #parse(String, String, List)} and
+     *               {@link #quickExec(String, ResultReceiver, Row)}; Allows to share parsed statements between sessions.
+     */
+    public Session(Analyzer analyzer,
+                   Planner planner,
+                   JobsLogs jobsLogs,
+                   boolean isReadOnly,
+                   DependencyCarrier executor,
+                   AccessControl accessControl,
+                   SessionContext sessionContext,
+                   Function<String, Statement> parser) {
         this.analyzer = analyzer;
         this.planner = planner;
         this.jobsLogs = jobsLogs;
@@ -152,13 +180,14 @@ public class Session implements AutoCloseable {
         this.accessControl = accessControl;
         this.sessionContext = sessionContext;
         this.parameterTypeExtractor = new ParameterTypeExtractor();
+        this.parser = parser;
     }
 
     /**
      * See {@link #quickExec(String, Function, ResultReceiver, Row)}
      */
     public void quickExec(String statement, ResultReceiver<?> resultReceiver, Row params) {
-        quickExec(statement, SqlParser::createStatement, resultReceiver, params);
+        quickExec(statement, parser, resultReceiver, params);
     }
 
     /**
@@ -166,7 +195,7 @@ public class Session implements AutoCloseable {
      * Opposed to using parse/bind/execute/sync this method is thread-safe.
      *
      * @param parse A function to parse the statement; This can be used to cache the parsed statement.
-     *              Use {@link #quickExec(String, ResultReceiver, Row)} to use the regular parser
+     *              Use {@link #quickExec(String, ResultReceiver, Row)} to use the parser of the session
      */
     public void quickExec(String statement, Function<String, Statement> parse, ResultReceiver<?> resultReceiver, Row params) {
         CoordinatorTxnCtx txnCtx = new CoordinatorTxnCtx(sessionContext);
@@ -256,7 +285,7 @@ public class Session implements AutoCloseable {
 
         Statement statement;
         try {
-            statement = SqlParser.createStatement(query);
+            statement = parser.apply(query);
         } catch (Throwable t) {
             if ("".equals(query)) {
                 statement = EMPTY_STMT;
@@ -411,21 +440,20 @@ public class Session implements AutoCloseable {
              *          preparedStatement.execute(args)
              *      conn.commit()
              */
-            deferredExecutionsByStmt.compute(
-                portal.preparedStmt().parsedStatement(), (key, oldValue) -> {
-                    DeferredExecution deferredExecution = new DeferredExecution(portal, maxRows, resultReceiver);
-                    if (oldValue == null) {
-                        ArrayList<DeferredExecution> deferredExecutions = new ArrayList<>();
-                        deferredExecutions.add(deferredExecution);
-                        return deferredExecutions;
-                    } else {
-                        oldValue.add(deferredExecution);
-                        return oldValue;
-                    }
-                }
-            );
+            DeferredExecution deferredExecution = new DeferredExecution(portal, maxRows, resultReceiver);
+            Statement statement = portal.preparedStmt().parsedStatement();
+            List<DeferredExecution> lastGroup = deferredExecutions.isEmpty()
+                ? null
+                : deferredExecutions.get(deferredExecutions.size() - 1);
+            if (lastGroup != null && lastGroup.get(0).portal().preparedStmt().parsedStatement().equals(statement)) {
+                lastGroup.add(deferredExecution);
+            } else {
+                ArrayList<DeferredExecution> group = new ArrayList<>();
+                group.add(deferredExecution);
+                deferredExecutions.add(group);
+            }
         } else {
-            if (!deferredExecutionsByStmt.isEmpty()) {
+            if (!deferredExecutions.isEmpty()) {
                 throw new UnsupportedOperationException(
                     "Only write operations are allowed in Batch statements");
             }
@@ -451,33 +479,74 @@ public class Session implements AutoCloseable {
     }
 
     private CompletableFuture<?> triggerDeferredExecutions() {
-        switch (deferredExecutionsByStmt.size()) {
+        switch (deferredExecutions.size()) {
             case 0:
                 LOGGER.debug("method=sync deferredExecutions=0");
                 return CompletableFuture.completedFuture(null);
             case 1: {
-                var entry = deferredExecutionsByStmt.entrySet().iterator().next();
-                deferredExecutionsByStmt.clear();
-                return exec(entry.getKey(), entry.getValue());
+                var group = deferredExecutions.get(0);
+                deferredExecutions.clear();
+                return exec(group);
             }
             default: {
-                var futures = Lists2.map(deferredExecutionsByStmt.entrySet(), x -> exec(x.getKey(), x.getValue()));
-                deferredExecutionsByStmt.clear();
+                // The groups run one after another to keep the order of the statements.
+                // Each group is planned as soon as its predecessor is started,
+                // so planning overlaps with the execution of the previous groups.
+                var groups = new ArrayList<>(deferredExecutions);
+                deferredExecutions.clear();
+                List<CompletableFuture<?>> futures = new ArrayList<>(groups.size());
+                CompletableFuture<?> previous = CompletableFuture.completedFuture(null);
+                for (var group : groups) {
+                    Supplier<CompletableFuture<?>> execution = planExecOrFail(group);
+                    previous = previous
+                        .handle((result, err) -> null) // failures are reported per group, continue with the next one
+                        .thenCompose(ignored -> execution.get());
+                    futures.add(previous);
+                }
                 return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
             }
         }
     }
 
-    private CompletableFuture<?> exec(Statement statement, List<DeferredExecution> executions) {
+    private CompletableFuture<?> exec(List<DeferredExecution> executions) {
         if (executions.size() == 1) {
             var toExec = executions.get(0);
             return singleExec(toExec.portal(), toExec.resultReceiver(), toExec.maxRows());
         } else {
-            return bulkExec(statement, executions);
+            return planBulkExec(executions).get();
         }
     }
 
-    private CompletableFuture<?> bulkExec(Statement statement, List<DeferredExecution> toExec) {
+    /**
+     * Like {@link #planExec(List)}, but if planning fails the returned supplier fails the result receivers of the
+     * executions instead, so that the failure is reported in order and the following groups still run.
+     */
+    private Supplier<CompletableFuture<?>> planExecOrFail(List<DeferredExecution> executions) {
+        try {
+            return planExec(executions);
+        } catch (Throwable t) {
+            return () -> {
+                for (DeferredExecution execution : executions) {
+                    execution.resultReceiver().fail(t);
+                }
+                return CompletableFuture.failedFuture(t);
+            };
+        }
+    }
+
+    /**
+     * Plans the executions; the returned supplier starts them.
+     */
+    private Supplier<CompletableFuture<?>> planExec(List<DeferredExecution> executions) {
+        if (executions.size() == 1) {
+            var toExec = executions.get(0);
+            return planSingleExec(toExec.portal(), toExec.resultReceiver(), toExec.maxRows());
+        } else {
+            return planBulkExec(executions);
+        }
+    }
+
+    private Supplier<CompletableFuture<?>> planBulkExec(List<DeferredExecution> toExec) {
         assert toExec.size() >= 1 : "Must have at least 1 deferred execution for bulk exec";
         var jobId = UUID.randomUUID();
         var routingProvider = new RoutingProvider(Randomness.get().nextInt(), planner.getAwarenessAttributes());
@@ -506,28 +575,30 @@ public class Session implements AutoCloseable {
                 sessionContext.user());
             throw t;
         }
-        jobsLogs.logExecutionStart(
-            jobId,
-            firstPreparedStatement.rawStatement(),
-            sessionContext.user(),
-            StatementClassifier.classify(plan)
-        );
+        return () -> {
+            jobsLogs.logExecutionStart(
+                jobId,
+                firstPreparedStatement.rawStatement(),
+                sessionContext.user(),
+                StatementClassifier.classify(plan)
+            );
 
-        var bulkArgs = Lists2.map(toExec, x -> (Row) new RowN(x.portal().params().toArray()));
-        List<CompletableFuture<Long>> rowCounts = plan.executeBulk(
-            executor,
-            plannerContext,
-            bulkArgs,
-            SubQueryResults.EMPTY
-        );
-        CompletableFuture<Void> allRowCounts = CompletableFuture.allOf(rowCounts.toArray(new CompletableFuture[0]));
-        List<CompletableFuture<?>> resultReceiverFutures = Lists2.map(toExec, x -> x.resultReceiver().completionFuture());
-        CompletableFuture<Void> allResultReceivers = CompletableFuture.allOf(resultReceiverFutures.toArray(new CompletableFuture[0]));
-
-        return allRowCounts
-            .exceptionally(t -> null) // swallow exception - failures are set per item in emitResults
-            .thenAccept(ignored -> emitRowCountsToResultReceivers(jobId, jobsLogs, toExec, rowCounts))
-            .runAfterBoth(allResultReceivers, () -> {});
+            var bulkArgs = Lists2.map(toExec, x -> (Row) new RowN(x.portal().params().toArray()));
+            List<CompletableFuture<Long>> rowCounts = plan.executeBulk(
+                executor,
+                plannerContext,
+                bulkArgs,
+                SubQueryResults.EMPTY
+            );
+            CompletableFuture<Void> allRowCounts = CompletableFuture.allOf(rowCounts.toArray(new CompletableFuture[0]));
+            List<CompletableFuture<?>> resultReceiverFutures = Lists2.map(toExec, x -> x.resultReceiver().completionFuture());
+            CompletableFuture<Void> allResultReceivers = CompletableFuture.allOf(resultReceiverFutures.toArray(new CompletableFuture[0]));
+
+            return allRowCounts
+                .exceptionally(t -> null) // swallow exception - failures are set per item in emitResults
+                .thenAccept(ignored -> emitRowCountsToResultReceivers(jobId, jobsLogs, toExec, rowCounts))
+                .runAfterBoth(allResultReceivers, () -> {});
+        };
     }
 
     private static void emitRowCountsToResultReceivers(UUID jobId,
@@ -559,7 +630,13 @@ public class Session implements AutoCloseable {
             activeConsumer.resume();
             return resultReceiver.completionFuture();
         }
+        return planSingleExec(portal, resultReceiver, maxRows).get();
+    }
 
+    /**
+     * Plans the statement of the portal; the returned supplier starts the execution.
+     */
+    private Supplier<CompletableFuture<?>> planSingleExec(Portal portal, ResultReceiver<?> resultReceiver, int maxRows) {
         var jobId = UUID.randomUUID();
         var routingProvider = new RoutingProvider(Randomness.get().nextInt(), planner.getAwarenessAttributes());
         var clusterState = executor.clusterService().state();
@@ -581,8 +658,11 @@ public class Session implements AutoCloseable {
             jobsLogs.logPreExecutionFailure(jobId, rawStatement, SQLExceptions.messageOf(t), sessionContext.user());
             throw t;
         }
-        if (!analyzedStmt.isWriteOperation()) {
-            resultReceiver = new RetryOnFailureResultReceiver(
+        final ResultReceiver<?> receiver;
+        if (analyzedStmt.isWriteOperation()) {
+            receiver = resultReceiver;
+        } else {
+            receiver = new RetryOnFailureResultReceiver(
                 executor.clusterService(),
                 clusterState,
                 indexName -> executor.clusterService().state().metadata().hasIndex(indexName),
@@ -601,13 +681,15 @@ public class Session implements AutoCloseable {
                 )
             );
         }
-        jobsLogs.logExecutionStart(
-            jobId, rawStatement, sessionContext.user(), StatementClassifier.classify(plan));
-        RowConsumerToResultReceiver consumer = new RowConsumerToResultReceiver(
-            resultReceiver, maxRows, new JobsLogsUpdateListener(jobId, jobsLogs));
-        portal.setActiveConsumer(consumer);
-        plan.execute(executor, plannerContext, consumer, params, SubQueryResults.EMPTY);
-        return resultReceiver.completionFuture();
+        return () -> {
+            jobsLogs.logExecutionStart(
+                jobId, rawStatement, sessionContext.user(), StatementClassifier.classify(plan));
+            RowConsumerToResultReceiver consumer = new RowConsumerToResultReceiver(
+                receiver, maxRows, new JobsLogsUpdateListener(jobId, jobsLogs));
+            portal.setActiveConsumer(consumer);
+            plan.execute(executor, plannerContext, consumer, params, SubQueryResults.EMPTY);
+            return receiver.completionFuture();
+        };
     }
 
     @Nullable
@@ -706,17 +788,17 @@ public class Session implements AutoCloseable {
     }
 
     public boolean hasDeferredExecutions() {
-        return !deferredExecutionsByStmt.isEmpty();
+        return !deferredExecutions.isEmpty();
     }
 
     public void resetDeferredExecutions() {
-        for (var deferredExecutions : deferredExecutionsByStmt.values()) {
-            for (DeferredExecution deferredExecution : deferredExecutions) {
+        for (var group : deferredExecutions) {
+            for (DeferredExecution deferredExecution : group) {
                 deferredExecution.portal().closeActiveConsumer();
                 portals.remove(deferredExecution.portal().name());
             }
         }
-        deferredExecutionsByStmt.clear();
+        deferredExecutions.clear();
     }
 
     public TransactionState transactionState() {
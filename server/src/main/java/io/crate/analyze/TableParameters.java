@@ -39,6 +39,7 @@ import io.crate.common.unit.TimeValue;
 import org.elasticsearch.index.IndexModule;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.IndexSortConfig;
 import org.elasticsearch.index.MergeSchedulerConfig;
 import org.elasticsearch.index.engine.EngineConfig;
 import org.elasticsearch.index.mapper.MapperService;
@@ -102,6 +103,7 @@ public class TableParameters {
             EngineConfig.INDEX_CODEC_SETTING,
             IndexModule.INDEX_STORE_TYPE_SETTING,
             MergeSchedulerConfig.MAX_THREAD_COUNT_SETTING,
+            IndexSortConfig.INDEX_SORT_BY_SETTING,
 
                 // this setting is needed for tests and is not documented. see ClusterDisruptionIT for usages.
                 IndexService.GLOBAL_CHECKPOINT_SYNC_INTERVAL_SETTING
@@ -114,7 +116,8 @@ public class TableParameters {
         IndexMetadata.INDEX_NUMBER_OF_ROUTING_SHARDS_SETTING,
         IndexSettings.INDEX_WARMER_ENABLED_SETTING,
         IndexService.GLOBAL_CHECKPOINT_SYNC_INTERVAL_SETTING,
-        MergeSchedulerConfig.MAX_THREAD_COUNT_SETTING
+        MergeSchedulerConfig.MAX_THREAD_COUNT_SETTING,
+        IndexSortConfig.INDEX_SORT_BY_SETTING
     );
 
     private static final Map<String, Setting<?>> SUPPORTED_SETTINGS_DEFAULT
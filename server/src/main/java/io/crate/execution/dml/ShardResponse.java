@@ -111,6 +111,13 @@ public class ShardResponse extends ReplicationResponse implements WriteResponse
     @Nullable
     private Exception failure;
 
+    /**
+     * Number of queued tasks and capacity of the write thread pool queue of the node which executed the request.
+     * The capacity is 0 if it is unknown or unbounded.
+     */
+    private int writeQueueSize = 0;
+    private int writeQueueCapacity = 0;
+
 
     public ShardResponse() {
     }
@@ -157,6 +164,19 @@ public class ShardResponse extends ReplicationResponse implements WriteResponse
         return failure;
     }
 
+    public void writeQueue(int size, int capacity) {
+        this.writeQueueSize = size;
+        this.writeQueueCapacity = capacity;
+    }
+
+    public int writeQueueSize() {
+        return writeQueueSize;
+    }
+
+    public int writeQueueCapacity() {
+        return writeQueueCapacity;
+    }
+
     public ShardResponse(StreamInput in) throws IOException {
         super(in);
         int size = in.readVInt();
@@ -196,6 +216,10 @@ public class ShardResponse extends ReplicationResponse implements WriteResponse
                 }
             }
         }
+        if (in.getVersion().onOrAfter(Version.V_4_3_0)) {
+            writeQueueSize = in.readVInt();
+            writeQueueCapacity = in.readVInt();
+        }
     }
 
     @Override
@@ -237,6 +261,10 @@ public class ShardResponse extends ReplicationResponse implements WriteResponse
                 out.writeVInt(0);
             }
         }
+        if (out.getVersion().onOrAfter(Version.V_4_3_0)) {
+            out.writeVInt(writeQueueSize);
+            out.writeVInt(writeQueueCapacity);
+        }
     }
 
 
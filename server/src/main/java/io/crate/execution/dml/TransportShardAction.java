@@ -55,6 +55,9 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
@@ -116,7 +119,25 @@ public abstract class TransportShardAction<Request extends ShardRequest<Request,
                     return processRequestItems(indexShard, shardRequest, killed);
                 }
         };
-        return wrapOperationInKillable(shardRequest, callable);
+        WritePrimaryResult<Request, ShardResponse> result = wrapOperationInKillable(shardRequest, callable);
+        if (result.finalResponseIfSuccessful != null) {
+            setWriteQueue(result.finalResponseIfSuccessful);
+        }
+        return result;
+    }
+
+    /**
+     * Adds the state of the write thread pool queue to the response,
+     * the sender uses it to adapt the size and number of concurrent requests.
+     */
+    private void setWriteQueue(ShardResponse response) {
+        ExecutorService executor = threadPool.executor(ThreadPool.Names.WRITE);
+        if (executor instanceof ThreadPoolExecutor) {
+            BlockingQueue<Runnable> queue = ((ThreadPoolExecutor) executor).getQueue();
+            int size = queue.size();
+            long capacity = (long) size + queue.remainingCapacity();
+            response.writeQueue(size, capacity >= Integer.MAX_VALUE ? 0 : (int) capacity);
+        }
     }
 
 
@@ -55,6 +55,7 @@ import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.elasticsearch.common.xcontent.support.MapXContentParser;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.engine.DocumentMissingException;
 import org.elasticsearch.index.engine.DocumentSourceMissingException;
@@ -333,7 +334,7 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
         long seqNo = SequenceNumbers.UNASSIGNED_SEQ_NO;
         long primaryTerm = SequenceNumbers.UNASSIGNED_PRIMARY_TERM;
 
-        Engine.IndexResult indexResult = index(item, indexShard, isRetry, seqNo, primaryTerm, version);
+        Engine.IndexResult indexResult = index(item, source, indexShard, isRetry, seqNo, primaryTerm, version);
         Object[] returnvalues = null;
         if (returnGen != null) {
             // This optimizes for the case where the insert value is already string-based, so only parse the source
@@ -380,7 +381,7 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
         long primaryTerm = item.primaryTerm();
         long version = Versions.MATCH_ANY;
 
-        Engine.IndexResult indexResult = index(item, indexShard, isRetry, seqNo, primaryTerm, version);
+        Engine.IndexResult indexResult = index(item, source, indexShard, isRetry, seqNo, primaryTerm, version);
         Object[] returnvalues = null;
         if (returnGen != null) {
             returnvalues = returnGen.generateReturnValues(
@@ -399,7 +400,13 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
         return new IndexItemResponse(indexResult.getTranslogLocation(), returnvalues);
     }
 
+    /**
+     * @param source the map the raw source of the item was generated from, if available.
+     *               It is used to create the Lucene fields from the typed values directly,
+     *               instead of parsing the generated JSON again.
+     */
     private Engine.IndexResult index(ShardUpsertRequest.Item item,
+                                     @Nullable Map<String, Object> source,
                                      IndexShard indexShard,
                                      boolean isRetry,
                                      long seqNo,
@@ -409,7 +416,9 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
             indexShard.shardId().getIndexName(),
             item.id(),
             item.source(),
-            XContentType.JSON
+            source != null && MapXContentParser.isSupported(source) ? source : null,
+            XContentType.JSON,
+            null
         );
 
         Engine.IndexResult indexResult = executeOnPrimaryHandlingMappingUpdate(
@@ -98,7 +98,8 @@ public class WriterProjection extends Projection {
 
     public enum OutputFormat {
         JSON_OBJECT,
-        JSON_ARRAY
+        JSON_ARRAY,
+        COLUMNAR
     }
 
     private final CompressionType compressionType;
@@ -0,0 +1,178 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import io.crate.Streamer;
+import io.crate.types.ByteType;
+import io.crate.types.DataType;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.TimestampType;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Group key consisting of up to 64 fixed-width integral columns (byte, short, integer, long, timestamp),
+ * stored as primitive longs plus a bitmask of null columns.
+ *
+ * <p>
+ * A single instance is re-used for every row while collecting;
+ * {@link CompositeLongKeyMap} copies the values into its own arrays once a new group is added.
+ * </p>
+ */
+public final class CompositeLongKey {
+
+    final long[] values;
+    long nulls = 0L;
+
+    public CompositeLongKey(int numColumns) {
+        this.values = new long[numColumns];
+    }
+
+    public static boolean supportsTypes(List<? extends DataType> types) {
+        if (types.size() < 2 || types.size() > Long.SIZE) {
+            return false;
+        }
+        for (DataType<?> type : types) {
+            switch (type.id()) {
+                case ByteType.ID:
+                case ShortType.ID:
+                case IntegerType.ID:
+                case LongType.ID:
+                case TimestampType.ID_WITH_TZ:
+                case TimestampType.ID_WITHOUT_TZ:
+                    break;
+
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    public int numColumns() {
+        return values.length;
+    }
+
+    public void set(int column, Object value) {
+        if (value == null) {
+            nulls |= 1L << column;
+            values[column] = 0L;
+        } else {
+            nulls &= ~(1L << column);
+            values[column] = ((Number) value).longValue();
+        }
+    }
+
+    boolean isNull(int column) {
+        return (nulls & (1L << column)) != 0;
+    }
+
+    /**
+     * @return the value of the column converted back to the java type used by {@code type}.
+     */
+    public Object get(int column, DataType<?> type) {
+        if (isNull(column)) {
+            return null;
+        }
+        long value = values[column];
+        switch (type.id()) {
+            case ByteType.ID:
+                return (byte) value;
+            case ShortType.ID:
+                return (short) value;
+            case IntegerType.ID:
+                return (int) value;
+            default:
+                return value;
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return hash(values, 0, values.length, nulls);
+    }
+
+    static int hash(long[] values, int offset, int length, long nulls) {
+        long h = nulls;
+        for (int i = offset; i < offset + length; i++) {
+            h = 31 * h + values[i];
+        }
+        // murmur3 fmix64
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CompositeLongKey that = (CompositeLongKey) o;
+        return nulls == that.nulls && Arrays.equals(values, that.values);
+    }
+
+    @Override
+    public String toString() {
+        return "CompositeLongKey{values=" + Arrays.toString(values) + ", nulls=" + Long.toBinaryString(nulls) + '}';
+    }
+
+    static class KeyStreamer implements Streamer<CompositeLongKey> {
+
+        private final int numColumns;
+
+        KeyStreamer(int numColumns) {
+            this.numColumns = numColumns;
+        }
+
+        @Override
+        public CompositeLongKey readValueFrom(StreamInput in) throws IOException {
+            CompositeLongKey key = new CompositeLongKey(numColumns);
+            key.nulls = in.readLong();
+            for (int i = 0; i < numColumns; i++) {
+                key.values[i] = in.readZLong();
+            }
+            return key;
+        }
+
+        @Override
+        public void writeValueTo(StreamOutput out, CompositeLongKey key) throws IOException {
+            out.writeLong(key.nulls);
+            for (int i = 0; i < numColumns; i++) {
+                out.writeZLong(key.values[i]);
+            }
+        }
+    }
+}
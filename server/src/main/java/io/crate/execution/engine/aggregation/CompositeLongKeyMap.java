@@ -0,0 +1,214 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Open addressing hash map with {@link CompositeLongKey} keys.
+ *
+ * <p>
+ * The key columns of all entries are stored in a single flat {@code long[]}, so looking up a group
+ * with a re-used key instance doesn't allocate. Keys are only copied when a new entry is added.
+ * </p>
+ *
+ * Only the operations used by {@link GroupingCollector} are optimized, {@code null} values are not supported.
+ */
+public final class CompositeLongKeyMap<V> extends AbstractMap<CompositeLongKey, V> {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private final int numColumns;
+
+    private long[] keys;
+    private long[] nulls;
+    private Object[] values;
+    private int mask;
+    private int size = 0;
+    private int resizeThreshold;
+
+    public CompositeLongKeyMap(int numColumns) {
+        this.numColumns = numColumns;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity * numColumns];
+        nulls = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Bytes allocated per slot; used for memory accounting.
+     */
+    public static long bytesPerSlot(int numColumns) {
+        return Long.BYTES * (numColumns + 1L) + 8L;
+    }
+
+    /**
+     * @return the slot of {@code key} or {@code -(slot + 1)} of the free slot where it would be inserted.
+     */
+    private int findSlot(CompositeLongKey key) {
+        int slot = key.hashCode() & mask;
+        while (values[slot] != null) {
+            if (nulls[slot] == key.nulls && keyEquals(slot, key.values)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -(slot + 1);
+    }
+
+    private boolean keyEquals(int slot, long[] keyValues) {
+        int offset = slot * numColumns;
+        for (int i = 0; i < numColumns; i++) {
+            if (keys[offset + i] != keyValues[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int slot = findSlot((CompositeLongKey) key);
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return findSlot((CompositeLongKey) key) >= 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(CompositeLongKey key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("CompositeLongKeyMap doesn't support null values");
+        }
+        int slot = findSlot(key);
+        if (slot >= 0) {
+            V previous = (V) values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        slot = -(slot + 1);
+        System.arraycopy(key.values, 0, keys, slot * numColumns, numColumns);
+        nulls[slot] = key.nulls;
+        values[slot] = value;
+        size++;
+        if (size > resizeThreshold) {
+            resize();
+        }
+        return null;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldNulls = nulls;
+        Object[] oldValues = values;
+        allocate(oldValues.length * 2);
+        for (int oldSlot = 0; oldSlot < oldValues.length; oldSlot++) {
+            Object value = oldValues[oldSlot];
+            if (value == null) {
+                continue;
+            }
+            int oldOffset = oldSlot * numColumns;
+            int slot = CompositeLongKey.hash(oldKeys, oldOffset, numColumns, oldNulls[oldSlot]) & mask;
+            while (values[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            System.arraycopy(oldKeys, oldOffset, keys, slot * numColumns, numColumns);
+            nulls[slot] = oldNulls[oldSlot];
+            values[slot] = value;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        allocate(INITIAL_CAPACITY);
+        size = 0;
+    }
+
+    @Override
+    public Set<Entry<CompositeLongKey, V>> entrySet() {
+        return new AbstractSet<>() {
+
+            @Override
+            public Iterator<Entry<CompositeLongKey, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private class EntryIterator implements Iterator<Entry<CompositeLongKey, V>> {
+
+        private int slot = nextSlot(0);
+
+        private int nextSlot(int from) {
+            for (int i = from; i < values.length; i++) {
+                if (values[i] != null) {
+                    return i;
+                }
+            }
+            return values.length;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return slot < values.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry<CompositeLongKey, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more entries in CompositeLongKeyMap");
+            }
+            CompositeLongKey key = new CompositeLongKey(numColumns);
+            System.arraycopy(keys, slot * numColumns, key.values, 0, numColumns);
+            key.nulls = nulls[slot];
+            Entry<CompositeLongKey, V> entry = new SimpleImmutableEntry<>(key, (V) values[slot]);
+            slot = nextSlot(slot + 1);
+            return entry;
+        }
+    }
+}
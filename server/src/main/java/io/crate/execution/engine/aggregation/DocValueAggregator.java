@@ -36,6 +36,33 @@ public interface DocValueAggregator<T> {
 
     public void apply(T state, int doc) throws IOException;
 
+    /**
+     * Aggregates all documents of a segment without visiting them, for example by using the points index.
+     * Only called if all documents of the segment match and none of them is deleted.
+     *
+     * @return false if the segment must be aggregated document by document using {@link #apply(Object, int)}
+     */
+    public default boolean applyAll(T state, LeafReader reader) throws IOException {
+        return false;
+    }
+
+    /**
+     * @return false if none of the values of the segment can change the state,
+     *         for example because they are all above the current minimum.
+     */
+    public default boolean isCompetitive(T state, LeafReader reader) throws IOException {
+        return true;
+    }
+
+    /**
+     * @return the estimated number of bytes used by a state whose partial type isn't a
+     *         {@link io.crate.types.FixedWidthType}. Called again after applying documents,
+     *         as states like a TDigest or a string grow while aggregating.
+     */
+    public default long ramBytesUsed(T state) {
+        return 0L;
+    }
+
     // Aggregations are executed on shard level,
     // that means there is always a final reduce step necessary
     // → never return final value, but always partial result
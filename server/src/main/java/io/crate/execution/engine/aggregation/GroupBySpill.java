@@ -0,0 +1,233 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import io.crate.Streamer;
+import io.crate.common.io.IOUtils;
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * Temporary on-disk storage for the groups of a {@link GroupingCollector}.
+ *
+ * <p>
+ * Entries are hash partitioned by key into {@link #NUM_PARTITIONS} files.
+ * A key always ends up in the same partition, so the partitions can be merged independently from each other,
+ * which bounds the memory required to finish an aggregation to roughly the size of the largest partition.
+ * If a partition still doesn't fit into memory it can be split further using {@link #repartition()},
+ * which partitions by the next bits of the hash.
+ * </p>
+ *
+ * States are written using the streamer of the {@link AggregationFunction#partialType()},
+ * the same format that is used to transfer partial aggregation results between nodes.
+ */
+final class GroupBySpill<K> implements Closeable {
+
+    static final int NUM_PARTITIONS = 16;
+
+    private static final int BITS_PER_LEVEL = 4;
+
+    /**
+     * Each level uses {@link #BITS_PER_LEVEL} bits of the 32 bit hash
+     */
+    static final int MAX_LEVEL = Integer.SIZE / BITS_PER_LEVEL - 1;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final int level;
+    private final Streamer<K> keyStreamer;
+    private final Streamer[] stateStreamers;
+    private final Path[] files = new Path[NUM_PARTITIONS];
+    private final long[] numEntries = new long[NUM_PARTITIONS];
+    @SuppressWarnings("unchecked")
+    private final GroupBySpill<K>[] subPartitions = new GroupBySpill[NUM_PARTITIONS];
+
+    /**
+     * @param directory directory in which the spill files are created
+     */
+    GroupBySpill(Path directory, Streamer<K> keyStreamer, Streamer[] stateStreamers) {
+        this(directory, 0, keyStreamer, stateStreamers);
+    }
+
+    private GroupBySpill(Path directory, int level, Streamer<K> keyStreamer, Streamer[] stateStreamers) {
+        this.directory = directory;
+        this.level = level;
+        this.keyStreamer = keyStreamer;
+        this.stateStreamers = stateStreamers;
+    }
+
+    /**
+     * @return true if the entries of a partition can be split further using {@link #repartition()}
+     */
+    boolean canRepartition() {
+        return level < MAX_LEVEL;
+    }
+
+    /**
+     * Creates an empty spill for the entries of a single partition of this spill.
+     * It partitions by the next bits of the hash, so that entries of the same partition are distributed.
+     */
+    GroupBySpill<K> repartition() {
+        assert canRepartition() : "Cannot repartition beyond level " + MAX_LEVEL;
+        return new GroupBySpill<>(directory, level + 1, keyStreamer, stateStreamers);
+    }
+
+    /**
+     * @return the sub-partitions which replaced a partition that didn't fit into memory, or null.
+     */
+    @Nullable
+    GroupBySpill<K> subPartitions(int partition) {
+        return subPartitions[partition];
+    }
+
+    /**
+     * Registers the sub-partitions holding all entries of a partition, and removes the file of the partition.
+     */
+    void subPartitions(int partition, GroupBySpill<K> subPartitions) {
+        assert subPartitions.level == level + 1 : "subPartitions must be created with repartition()";
+        delete(partition);
+        this.subPartitions[partition] = subPartitions;
+    }
+
+    /**
+     * Appends all entries of {@code statesByKey} to their partition files.
+     */
+    @SuppressWarnings("unchecked")
+    void write(Map<K, Object[]> statesByKey) throws IOException {
+        StreamOutput[] outputs = new StreamOutput[NUM_PARTITIONS];
+        try {
+            for (Map.Entry<K, Object[]> entry : statesByKey.entrySet()) {
+                K key = entry.getKey();
+                int partition = partition(key, level);
+                StreamOutput out = outputs[partition];
+                if (out == null) {
+                    out = openForAppend(partition);
+                    outputs[partition] = out;
+                }
+                keyStreamer.writeValueTo(out, key);
+                Object[] states = entry.getValue();
+                for (int i = 0; i < states.length; i++) {
+                    stateStreamers[i].writeValueTo(out, states[i]);
+                }
+                numEntries[partition]++;
+            }
+        } finally {
+            IOUtils.close(outputs);
+        }
+    }
+
+    /**
+     * @return the partitions which contain at least one entry.
+     */
+    List<Integer> partitions() {
+        ArrayList<Integer> partitions = new ArrayList<>(NUM_PARTITIONS);
+        for (int i = 0; i < NUM_PARTITIONS; i++) {
+            if (numEntries[i] > 0 || subPartitions[i] != null) {
+                partitions.add(i);
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * Reads all entries of a partition. The same key can be emitted more than once
+     * if it has been spilled several times.
+     */
+    void read(int partition, BiConsumer<K, Object[]> consumer) throws IOException {
+        long entries = numEntries[partition];
+        if (entries == 0) {
+            return;
+        }
+        try (StreamInput in = new InputStreamStreamInput(
+            new BufferedInputStream(Files.newInputStream(files[partition]), BUFFER_SIZE))) {
+
+            for (long e = 0; e < entries; e++) {
+                K key = keyStreamer.readValueFrom(in);
+                Object[] states = new Object[stateStreamers.length];
+                for (int i = 0; i < states.length; i++) {
+                    states[i] = stateStreamers[i].readValueFrom(in);
+                }
+                consumer.accept(key, states);
+            }
+        }
+    }
+
+    /**
+     * Removes the file of a partition.
+     */
+    private void delete(int partition) {
+        if (files[partition] != null) {
+            IOUtils.deleteFilesIgnoringExceptions(files[partition]);
+            files[partition] = null;
+            numEntries[partition] = 0;
+        }
+    }
+
+    private StreamOutput openForAppend(int partition) throws IOException {
+        Path file = files[partition];
+        if (file == null) {
+            Files.createDirectories(directory);
+            file = Files.createTempFile(directory, "group-by-", ".spill");
+            files[partition] = file;
+        }
+        return new OutputStreamStreamOutput(new BufferedOutputStream(
+            Files.newOutputStream(file, StandardOpenOption.APPEND), BUFFER_SIZE));
+    }
+
+    /**
+     * Takes {@link #BITS_PER_LEVEL} bits of the mixed hash, starting with the upper bits on level 0.
+     */
+    static int partition(Object key, int level) {
+        int h = Objects.hashCode(key);
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return (h >>> (Integer.SIZE - BITS_PER_LEVEL * (level + 1))) & (NUM_PARTITIONS - 1);
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0; i < NUM_PARTITIONS; i++) {
+            delete(i);
+        }
+    }
+}
@@ -23,6 +23,7 @@
 package io.crate.execution.engine.aggregation;
 
 import com.google.common.collect.Iterables;
+import io.crate.Streamer;
 import io.crate.breaker.RamAccounting;
 import io.crate.breaker.SizeEstimator;
 import io.crate.breaker.SizeEstimatorFactory;
@@ -35,8 +36,15 @@ import io.crate.expression.symbol.AggregateMode;
 import io.crate.memory.MemoryManager;
 import io.crate.types.DataType;
 import org.elasticsearch.Version;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.io.PathUtils;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
 
 import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -53,6 +61,16 @@ import java.util.stream.Collector;
  * Collector implementation which uses {@link AggregateMode}s and {@code keyInputs}
  * to group rows by key and aggregate the grouped values.
  *
+ * <p>
+ * If adding a new group or growing the state of an existing group trips the circuit breaker,
+ * the groups collected so far are spilled to disk (see {@link GroupBySpill}) and the collector continues
+ * with an empty map.
+ * The spilled groups are merged one partition at a time whenever the result is iterated,
+ * so the result can be iterated more than once.
+ * A partition which doesn't fit into memory while it is merged is spilled again into sub-partitions.
+ * {@link #close()} must be called to remove the spill files.
+ * </p>
+ *
  * @param <K> type of the key
  */
 public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, Iterable<Row>> {
@@ -62,7 +80,7 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
     private final AggregateMode mode;
     private final Input[][] inputs;
     private final Input<Boolean>[] filters;
-    private final RamAccounting ramAccounting;
+    private final GroupingRamAccounting ramAccounting;
     private final MemoryManager memoryManager;
     private final BiConsumer<K, Object[]> applyKeyToCells;
     private final int numKeyColumns;
@@ -72,6 +90,11 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
     private final BiConsumer<Map<K, Object[]>, Row> accumulator;
     private final Supplier<Map<K, Object[]>> supplier;
     private final Version minNodeVersion;
+    private final Streamer<K> keyStreamer;
+    private final Streamer[] stateStreamers;
+    @Nullable
+    private final Path spillDirectory;
+    private final List<GroupBySpill<K>> spills = new ArrayList<>();
 
     static GroupingCollector<Object> singleKey(CollectExpression<Row, ?>[] expressions,
                                                AggregateMode mode,
@@ -83,26 +106,30 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
                                                Version minNodeVersion,
                                                Input<?> keyInput,
                                                DataType keyType,
-                                               Version indexVersionCreated) {
+                                               Version indexVersionCreated,
+                                               @Nullable Path spillDirectory) {
+        GroupingRamAccounting groupingRamAccounting = new GroupingRamAccounting(ramAccounting);
         return new GroupingCollector<>(
             expressions,
             aggregations,
             mode,
             inputs,
             filters,
-            ramAccounting,
+            groupingRamAccounting,
             memoryManager,
             minNodeVersion,
             (key, cells) -> cells[0] = key,
             1,
             GroupByMaps.accountForNewEntry(
-                ramAccounting,
+                groupingRamAccounting,
                 SizeEstimatorFactory.create(keyType),
                 keyType
             ),
             row -> keyInput.value(),
             indexVersionCreated,
-            GroupByMaps.mapForType(keyType)
+            GroupByMaps.mapForType(keyType),
+            keyType.streamer(),
+            spillDirectory
         );
     }
 
@@ -116,29 +143,151 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
                                                     Version minNodeVersion,
                                                     List<Input<?>> keyInputs,
                                                     List<? extends DataType> keyTypes,
-                                                    Version indexVersionCreated) {
+                                                    Version indexVersionCreated,
+                                                    @Nullable Path spillDirectory) {
+        GroupingRamAccounting groupingRamAccounting = new GroupingRamAccounting(ramAccountingContext);
         return new GroupingCollector<>(
             expressions,
             aggregations,
             mode,
             inputs,
             filters,
-            ramAccountingContext,
+            groupingRamAccounting,
             memoryManager,
             minNodeVersion,
             GroupingCollector::applyKeysToCells,
             keyInputs.size(),
             GroupByMaps.accountForNewEntry(
-                ramAccountingContext,
+                groupingRamAccounting,
                 new MultiSizeEstimator(keyTypes),
                 null
             ),
             row -> evalKeyInputs(keyInputs),
             indexVersionCreated,
-            HashMap::new
+            HashMap::new,
+            new MultiKeyStreamer(keyTypes),
+            spillDirectory
+        );
+    }
+
+    /**
+     * Like {@link #manyKeys}, but for keys where all types are supported by {@link CompositeLongKey}.
+     * Doesn't allocate a key per row.
+     */
+    static GroupingCollector<CompositeLongKey> compositeLongKeys(CollectExpression<Row, ?>[] expressions,
+                                                                AggregateMode mode,
+                                                                AggregationFunction[] aggregations,
+                                                                Input[][] inputs,
+                                                                Input<Boolean>[] filters,
+                                                                RamAccounting ramAccounting,
+                                                                MemoryManager memoryManager,
+                                                                Version minNodeVersion,
+                                                                List<Input<?>> keyInputs,
+                                                                List<? extends DataType> keyTypes,
+                                                                Version indexVersionCreated,
+                                                                @Nullable Path spillDirectory) {
+        assert CompositeLongKey.supportsTypes(keyTypes) : "keyTypes must be supported by CompositeLongKey";
+        int numKeys = keyInputs.size();
+        CompositeLongKey key = new CompositeLongKey(numKeys);
+        long bytesPerEntry = CompositeLongKeyMap.bytesPerSlot(numKeys) * 2;
+        GroupingRamAccounting groupingRamAccounting = new GroupingRamAccounting(ramAccounting);
+        return new GroupingCollector<>(
+            expressions,
+            aggregations,
+            mode,
+            inputs,
+            filters,
+            groupingRamAccounting,
+            memoryManager,
+            minNodeVersion,
+            (k, cells) -> {
+                for (int i = 0; i < numKeys; i++) {
+                    cells[i] = k.get(i, keyTypes.get(i));
+                }
+            },
+            numKeys,
+            (map, k) -> groupingRamAccounting.addBytes(bytesPerEntry),
+            row -> {
+                for (int i = 0; i < numKeys; i++) {
+                    key.set(i, keyInputs.get(i).value());
+                }
+                return key;
+            },
+            indexVersionCreated,
+            () -> new CompositeLongKeyMap<Object[]>(numKeys),
+            new CompositeLongKey.KeyStreamer(numKeys),
+            spillDirectory
         );
     }
 
+    /**
+     * Creates a collector which doesn't aggregate any rows itself, but merges groups of partial states
+     * which were aggregated elsewhere and handed over using {@link #spillPartialStates(Map)}.
+     * The keys of the groups must be of the type used by the other factory methods for {@code keyTypes}:
+     * The value itself for a single key, a {@link CompositeLongKey} if supported by all key types,
+     * otherwise a {@code List<Object>}.
+     */
+    public static GroupingCollector<Object> forPartialStates(AggregateMode mode,
+                                                             AggregationFunction[] aggregations,
+                                                             RamAccounting ramAccounting,
+                                                             List<? extends DataType> keyTypes,
+                                                             @Nullable Path spillDirectory) {
+        CollectExpression<Row, ?>[] expressions = new CollectExpression[0];
+        Input[][] inputs = new Input[aggregations.length][0];
+        Input<Boolean>[] filters = new Input[aggregations.length];
+        // never evaluated, the collector doesn't accumulate rows
+        Input<?> noInput = () -> null;
+        List<Input<?>> keyInputs = Collections.nCopies(keyTypes.size(), noInput);
+        if (keyTypes.size() == 1) {
+            return singleKey(
+                expressions,
+                mode,
+                aggregations,
+                inputs,
+                filters,
+                ramAccounting,
+                null,
+                Version.CURRENT,
+                noInput,
+                keyTypes.get(0),
+                Version.CURRENT,
+                spillDirectory
+            );
+        } else if (CompositeLongKey.supportsTypes(keyTypes)) {
+            //noinspection unchecked
+            return (GroupingCollector<Object>) (GroupingCollector) compositeLongKeys(
+                expressions,
+                mode,
+                aggregations,
+                inputs,
+                filters,
+                ramAccounting,
+                null,
+                Version.CURRENT,
+                keyInputs,
+                keyTypes,
+                Version.CURRENT,
+                spillDirectory
+            );
+        } else {
+            //noinspection unchecked
+            return (GroupingCollector<Object>) (GroupingCollector) manyKeys(
+                expressions,
+                mode,
+                aggregations,
+                inputs,
+                filters,
+                ramAccounting,
+                null,
+                Version.CURRENT,
+                keyInputs,
+                keyTypes,
+                Version.CURRENT,
+                spillDirectory
+            );
+        }
+    }
+
     private static List<Object> evalKeyInputs(List<Input<?>> keyInputs) {
         List<Object> key = new ArrayList<>(keyInputs.size());
         for (Input<?> keyInput : keyInputs) {
@@ -158,7 +307,7 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
                               AggregateMode mode,
                               Input[][] inputs,
                               Input<Boolean>[] filters,
-                              RamAccounting ramAccounting,
+                              GroupingRamAccounting ramAccounting,
                               MemoryManager memoryManager,
                               Version minNodeVersion,
                               BiConsumer<K, Object[]> applyKeyToCells,
@@ -166,7 +315,9 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
                               BiConsumer<Map<K, Object[]>, K> accountForNewEntry,
                               Function<Row, K> keyExtractor,
                               Version indexVersionCreated,
-                              Supplier<Map<K, Object[]>> supplier) {
+                              Supplier<Map<K, Object[]>> supplier,
+                              Streamer<K> keyStreamer,
+                              @Nullable Path spillDirectory) {
         this.expressions = expressions;
         this.aggregations = aggregations;
         this.mode = mode;
@@ -182,6 +333,12 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
         this.accumulator = mode == AggregateMode.PARTIAL_FINAL ? this::reduce : this::iter;
         this.supplier = supplier;
         this.minNodeVersion = minNodeVersion;
+        this.keyStreamer = keyStreamer;
+        this.spillDirectory = spillDirectory;
+        this.stateStreamers = new Streamer[aggregations.length];
+        for (int i = 0; i < aggregations.length; i++) {
+            stateStreamers[i] = aggregations[i].partialType().streamer();
+        }
     }
 
     @Override
@@ -203,7 +360,7 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
 
     @Override
     public Function<Map<K, Object[]>, Iterable<Row>> finisher() {
-        return this::mapToRows;
+        return this::finish;
     }
 
     @Override
@@ -218,16 +375,30 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
         K key = keyExtractor.apply(row);
         Object[] states = statesByKey.get(key);
         if (states == null) {
-            states = new Object[aggregations.length];
-            for (int i = 0; i < aggregations.length; i++) {
-                states[i] = inputs[i][0].value();
+            try {
+                addReducedEntry(statesByKey, key);
+            } catch (CircuitBreakingException e) {
+                spill(statesByKey, e);
+                addReducedEntry(statesByKey, key);
             }
-            addWithAccounting(statesByKey, key, states);
         } else {
+            ramAccounting.deferTrips();
             for (int i = 0; i < aggregations.length; i++) {
                 states[i] = aggregations[i].reduce(ramAccounting, states[i], inputs[i][0].value());
             }
+            CircuitBreakingException e = ramAccounting.stopDeferringTrips();
+            if (e != null) {
+                spill(statesByKey, e);
+            }
+        }
+    }
+
+    private void addReducedEntry(Map<K, Object[]> statesByKey, K key) {
+        Object[] states = new Object[aggregations.length];
+        for (int i = 0; i < aggregations.length; i++) {
+            states[i] = inputs[i][0].value();
         }
+        addWithAccounting(statesByKey, key, states);
     }
 
     private void addWithAccounting(Map<K, Object[]> statesByKey, K key, Object[] states) {
@@ -242,14 +413,24 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
         K key = keyExtractor.apply(row);
         Object[] states = statesByKey.get(key);
         if (states == null) {
-            addNewEntry(statesByKey, key);
+            try {
+                addNewEntry(statesByKey, key);
+            } catch (CircuitBreakingException e) {
+                spill(statesByKey, e);
+                addNewEntry(statesByKey, key);
+            }
         } else {
+            ramAccounting.deferTrips();
             for (int i = 0; i < aggregations.length; i++) {
                 if (InputCondition.matches(filters[i])) {
                     //noinspection unchecked
                     states[i] = aggregations[i].iterate(ramAccounting, memoryManager, states[i], inputs[i]);
                 }
             }
+            CircuitBreakingException e = ramAccounting.stopDeferringTrips();
+            if (e != null) {
+                spill(statesByKey, e);
+            }
         }
     }
 
@@ -270,6 +451,152 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
         addWithAccounting(statesByKey, key, states);
     }
 
+    /**
+     * Writes the in-memory groups to disk and stops accounting for them.
+     * Re-throws {@code e} if there is nothing that could be spilled.
+     */
+    private void spill(Map<K, Object[]> statesByKey, CircuitBreakingException e) {
+        if (statesByKey.isEmpty()) {
+            throw e;
+        }
+        if (spills.isEmpty()) {
+            spills.add(newSpill());
+        }
+        writeToSpill(spills.get(0), statesByKey);
+    }
+
+    /**
+     * Writes groups of partial states to disk and clears {@code partialStatesByKey}.
+     * They're merged with the other spilled groups by the {@link #finisher()}.
+     */
+    public void spillPartialStates(Map<K, Object[]> partialStatesByKey) {
+        if (spills.isEmpty()) {
+            spills.add(newSpill());
+        }
+        writeToSpill(spills.get(0), partialStatesByKey);
+    }
+
+    private GroupBySpill<K> newSpill() {
+        Path directory = spillDirectory == null ? PathUtils.get(System.getProperty("java.io.tmpdir")) : spillDirectory;
+        return new GroupBySpill<>(directory, keyStreamer, stateStreamers);
+    }
+
+    private void writeToSpill(GroupBySpill<K> spill, Map<K, Object[]> statesByKey) {
+        try {
+            spill.write(statesByKey);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        statesByKey.clear();
+        ramAccounting.release();
+    }
+
+    private Iterable<Row> finish(Map<K, Object[]> statesByKey) {
+        if (spills.isEmpty()) {
+            return mapToRows(statesByKey);
+        }
+        GroupBySpill<K> spill = spills.get(0);
+        if (!statesByKey.isEmpty()) {
+            writeToSpill(spill, statesByKey);
+        }
+        return spilledRows(spill);
+    }
+
+    private Iterable<Row> spilledRows(GroupBySpill<K> spill) {
+        return Iterables.concat(Iterables.transform(
+            spill.partitions(),
+            partition -> mergePartition(spill, partition)
+        ));
+    }
+
+    /**
+     * Merges all spilled entries of a partition into a new map.
+     * The memory accounted for the previously merged partition is released first.
+     * The partition is kept, so that it can be merged again if the result is iterated once more.
+     *
+     * If the circuit breaker trips while merging, the partition is split into sub-partitions which are merged
+     * one after another. They replace the partition, later iterations merge the sub-partitions right away.
+     */
+    private Iterable<Row> mergePartition(GroupBySpill<K> spill, int partition) {
+        ramAccounting.release();
+        GroupBySpill<K> subPartitions = spill.subPartitions(partition);
+        if (subPartitions != null) {
+            return spilledRows(subPartitions);
+        }
+        PartitionMerge merge = new PartitionMerge(spill);
+        try {
+            spill.read(partition, merge);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (merge.subPartitions == null) {
+            return mapToRows(merge.statesByKey);
+        }
+        if (!merge.statesByKey.isEmpty()) {
+            writeToSpill(merge.subPartitions, merge.statesByKey);
+        }
+        spill.subPartitions(partition, merge.subPartitions);
+        return spilledRows(merge.subPartitions);
+    }
+
+    private class PartitionMerge implements BiConsumer<K, Object[]> {
+
+        private final GroupBySpill<K> spill;
+        private final Map<K, Object[]> statesByKey = supplier.get();
+
+        @Nullable
+        private GroupBySpill<K> subPartitions;
+
+        PartitionMerge(GroupBySpill<K> spill) {
+            this.spill = spill;
+        }
+
+        @Override
+        public void accept(K key, Object[] states) {
+            Object[] existingStates = statesByKey.get(key);
+            if (existingStates == null) {
+                try {
+                    addWithAccounting(statesByKey, key, states);
+                } catch (CircuitBreakingException e) {
+                    spillToSubPartitions(e);
+                    addWithAccounting(statesByKey, key, states);
+                }
+            } else {
+                ramAccounting.deferTrips();
+                for (int i = 0; i < aggregations.length; i++) {
+                    //noinspection unchecked
+                    existingStates[i] = aggregations[i].reduce(ramAccounting, existingStates[i], states[i]);
+                }
+                CircuitBreakingException e = ramAccounting.stopDeferringTrips();
+                if (e != null) {
+                    spillToSubPartitions(e);
+                }
+            }
+        }
+
+        private void spillToSubPartitions(CircuitBreakingException e) {
+            if (statesByKey.isEmpty() || !spill.canRepartition()) {
+                throw e;
+            }
+            if (subPartitions == null) {
+                subPartitions = spill.repartition();
+                spills.add(subPartitions);
+            }
+            writeToSpill(subPartitions, statesByKey);
+        }
+    }
+
+    /**
+     * Removes any files that were used to spill groups to disk.
+     */
+    public void close() {
+        for (GroupBySpill<K> spill : spills) {
+            spill.close();
+        }
+        spills.clear();
+        ramAccounting.release();
+    }
+
     private Iterable<Row> mapToRows(Map<K, Object[]> statesByKey) {
         return Iterables.transform(statesByKey.entrySet(), new com.google.common.base.Function<>() {
 
@@ -298,6 +625,35 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
     }
 
 
+    private static class MultiKeyStreamer implements Streamer<List<Object>> {
+
+        private final Streamer[] streamers;
+
+        MultiKeyStreamer(List<? extends DataType> keyTypes) {
+            streamers = new Streamer[keyTypes.size()];
+            for (int i = 0; i < streamers.length; i++) {
+                streamers[i] = keyTypes.get(i).streamer();
+            }
+        }
+
+        @Override
+        public List<Object> readValueFrom(StreamInput in) throws IOException {
+            List<Object> key = new ArrayList<>(streamers.length);
+            for (Streamer streamer : streamers) {
+                key.add(streamer.readValueFrom(in));
+            }
+            return key;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void writeValueTo(StreamOutput out, List<Object> key) throws IOException {
+            for (int i = 0; i < streamers.length; i++) {
+                streamers[i].writeValueTo(out, key.get(i));
+            }
+        }
+    }
+
     private static class MultiSizeEstimator extends SizeEstimator<List<Object>> {
 
         private final List<SizeEstimator<Object>> subEstimators;
@@ -321,4 +677,75 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
             return size;
         }
     }
+
+    /**
+     * Keeps track of the bytes accounted for the groups of a single collector,
+     * so that exactly those can be released once the groups are spilled to disk or emitted.
+     * The delegate may be shared with other operations.
+     *
+     * While the states of an existing group are updated, a tripped circuit breaker is only recorded,
+     * so that the update of the states isn't interrupted halfway. The caller spills the groups afterwards.
+     */
+    private static final class GroupingRamAccounting implements RamAccounting {
+
+        private final RamAccounting delegate;
+        private long bytes = 0;
+        private boolean deferTrips = false;
+        @Nullable
+        private CircuitBreakingException deferredTrip;
+
+        GroupingRamAccounting(RamAccounting delegate) {
+            this.delegate = delegate;
+        }
+
+        void deferTrips() {
+            deferTrips = true;
+        }
+
+        /**
+         * @return the exception of the circuit breaker if it tripped since {@link #deferTrips()} was called
+         */
+        @Nullable
+        CircuitBreakingException stopDeferringTrips() {
+            CircuitBreakingException e = deferredTrip;
+            deferTrips = false;
+            deferredTrip = null;
+            return e;
+        }
+
+        @Override
+        public void addBytes(long bytes) {
+            try {
+                delegate.addBytes(bytes);
+            } catch (CircuitBreakingException e) {
+                if (!deferTrips) {
+                    throw e;
+                }
+                // the bytes are not accounted, the groups holding them are spilled right after the update
+                if (deferredTrip == null) {
+                    deferredTrip = e;
+                }
+                return;
+            }
+            this.bytes += bytes;
+        }
+
+        @Override
+        public long totalBytes() {
+            return bytes;
+        }
+
+        @Override
+        public void release() {
+            if (bytes != 0) {
+                delegate.addBytes(-bytes);
+                bytes = 0;
+            }
+        }
+
+        @Override
+        public void close() {
+            release();
+        }
+    }
 }
@@ -0,0 +1,127 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import io.crate.types.ByteType;
+import io.crate.types.DataType;
+import io.crate.types.DoubleType;
+import io.crate.types.FloatType;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.TimestampType;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.common.CheckedBiConsumer;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.function.LongToDoubleFunction;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * A {@link DocValueAggregator} for single valued numeric columns which uses the state as partial result.
+ */
+public class SortedNumericDocValueAggregator<T> implements DocValueAggregator<T> {
+
+    private final String columnName;
+    private final Supplier<T> stateInitializer;
+    private final CheckedBiConsumer<SortedNumericDocValues, T, IOException> docValuesConsumer;
+    private final ToLongFunction<T> stateSize;
+    private SortedNumericDocValues values;
+
+    public SortedNumericDocValueAggregator(String columnName,
+                                           Supplier<T> stateInitializer,
+                                           CheckedBiConsumer<SortedNumericDocValues, T, IOException> docValuesConsumer) {
+        this(columnName, stateInitializer, docValuesConsumer, state -> 0L);
+    }
+
+    /**
+     * @param stateSize estimates the bytes used by a state which grows while aggregating
+     */
+    public SortedNumericDocValueAggregator(String columnName,
+                                           Supplier<T> stateInitializer,
+                                           CheckedBiConsumer<SortedNumericDocValues, T, IOException> docValuesConsumer,
+                                           ToLongFunction<T> stateSize) {
+        this.columnName = columnName;
+        this.stateInitializer = stateInitializer;
+        this.docValuesConsumer = docValuesConsumer;
+        this.stateSize = stateSize;
+    }
+
+    @Override
+    public T initialState() {
+        return stateInitializer.get();
+    }
+
+    @Override
+    public void loadDocValues(LeafReader reader) throws IOException {
+        values = DocValues.getSortedNumeric(reader, columnName);
+    }
+
+    @Override
+    public void apply(T state, int doc) throws IOException {
+        if (values.advanceExact(doc) && values.docValueCount() == 1) {
+            docValuesConsumer.accept(values, state);
+        }
+    }
+
+    @Override
+    public long ramBytesUsed(T state) {
+        return stateSize.applyAsLong(state);
+    }
+
+    @Override
+    public Object partialResult(T state) {
+        return state;
+    }
+
+    /**
+     * @return a function to decode the doc values of a column of the given type to a double
+     *         or null if the type isn't stored as numeric doc values.
+     */
+    @Nullable
+    public static LongToDoubleFunction toDouble(DataType<?> type) {
+        switch (type.id()) {
+            case ByteType.ID:
+            case ShortType.ID:
+            case IntegerType.ID:
+            case LongType.ID:
+            case TimestampType.ID_WITH_TZ:
+            case TimestampType.ID_WITHOUT_TZ:
+                return value -> (double) value;
+
+            case FloatType.ID:
+                return value -> NumericUtils.sortableIntToFloat((int) value);
+
+            case DoubleType.ID:
+                return NumericUtils::sortableLongToDouble;
+
+            default:
+                return null;
+        }
+    }
+}
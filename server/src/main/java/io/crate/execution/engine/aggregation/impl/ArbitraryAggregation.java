@@ -24,15 +24,35 @@ package io.crate.execution.engine.aggregation.impl;
 import io.crate.breaker.RamAccounting;
 import io.crate.breaker.SizeEstimator;
 import io.crate.breaker.SizeEstimatorFactory;
+import io.crate.breaker.StringSizeEstimator;
 import io.crate.data.Input;
 import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.execution.engine.aggregation.DocValueAggregator;
+import io.crate.expression.symbol.Literal;
 import io.crate.memory.MemoryManager;
 import io.crate.metadata.functions.Signature;
+import io.crate.types.ByteType;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
+import io.crate.types.DoubleType;
+import io.crate.types.FloatType;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.StringType;
+import io.crate.types.TimestampType;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.util.NumericUtils;
 import org.elasticsearch.Version;
+import org.elasticsearch.index.mapper.MappedFieldType;
 
 import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.LongFunction;
 
 public class ArbitraryAggregation extends AggregationFunction<Object, Object> {
 
@@ -108,4 +128,116 @@ public class ArbitraryAggregation extends AggregationFunction<Object, Object> {
     public Object terminatePartial(RamAccounting ramAccounting, Object state) {
         return state;
     }
+
+    @Nullable
+    @Override
+    public DocValueAggregator<?> getDocValueAggregator(List<DataType<?>> argumentTypes,
+                                                       List<MappedFieldType> fieldTypes,
+                                                       List<Literal<?>> optionalParams) {
+        DataType<?> arg = argumentTypes.get(0);
+        switch (arg.id()) {
+            case ByteType.ID:
+            case ShortType.ID:
+            case IntegerType.ID:
+            case LongType.ID:
+            case TimestampType.ID_WITH_TZ:
+            case TimestampType.ID_WITHOUT_TZ:
+                return new ArbitraryNumeric(fieldTypes.get(0).name(), arg::value);
+
+            case FloatType.ID:
+                return new ArbitraryNumeric(
+                    fieldTypes.get(0).name(),
+                    value -> NumericUtils.sortableIntToFloat((int) value)
+                );
+
+            case DoubleType.ID:
+                return new ArbitraryNumeric(fieldTypes.get(0).name(), NumericUtils::sortableLongToDouble);
+
+            case StringType.ID:
+                return new ArbitraryString(fieldTypes.get(0).name());
+
+            default:
+                return null;
+        }
+    }
+
+    static class ArbitraryState {
+
+        @Nullable
+        Object value;
+    }
+
+    static class ArbitraryNumeric implements DocValueAggregator<ArbitraryState> {
+
+        private final String columnName;
+        private final LongFunction<Object> decode;
+        private SortedNumericDocValues values;
+
+        ArbitraryNumeric(String columnName, LongFunction<Object> decode) {
+            this.columnName = columnName;
+            this.decode = decode;
+        }
+
+        @Override
+        public ArbitraryState initialState() {
+            return new ArbitraryState();
+        }
+
+        @Override
+        public void loadDocValues(LeafReader reader) throws IOException {
+            values = DocValues.getSortedNumeric(reader, columnName);
+        }
+
+        @Override
+        public void apply(ArbitraryState state, int doc) throws IOException {
+            if (state.value == null && values.advanceExact(doc) && values.docValueCount() == 1) {
+                state.value = decode.apply(values.nextValue());
+            }
+        }
+
+        @Override
+        public Object partialResult(ArbitraryState state) {
+            return state.value;
+        }
+    }
+
+    static class ArbitraryString implements DocValueAggregator<ArbitraryState> {
+
+        private final String columnName;
+        private SortedSetDocValues values;
+
+        ArbitraryString(String columnName) {
+            this.columnName = columnName;
+        }
+
+        @Override
+        public ArbitraryState initialState() {
+            return new ArbitraryState();
+        }
+
+        @Override
+        public void loadDocValues(LeafReader reader) throws IOException {
+            values = DocValues.getSortedSet(reader, columnName);
+        }
+
+        @Override
+        public void apply(ArbitraryState state, int doc) throws IOException {
+            if (state.value == null && values.advanceExact(doc)) {
+                long ord = values.nextOrd();
+                if (values.nextOrd() == SortedSetDocValues.NO_MORE_ORDS) {
+                    state.value = values.lookupOrd(ord).utf8ToString();
+                }
+            }
+        }
+
+        @Override
+        public long ramBytesUsed(ArbitraryState state) {
+            return StringSizeEstimator.estimate((String) state.value);
+        }
+
+        @Override
+        public Object partialResult(ArbitraryState state) {
+            return state.value;
+        }
+    }
 }
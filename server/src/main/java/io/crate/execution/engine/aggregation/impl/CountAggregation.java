@@ -25,18 +25,34 @@ import io.crate.Streamer;
 import io.crate.breaker.RamAccounting;
 import io.crate.data.Input;
 import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.execution.engine.aggregation.DocValueAggregator;
+import io.crate.execution.engine.aggregation.SortedNumericDocValueAggregator;
 import io.crate.expression.symbol.Function;
 import io.crate.expression.symbol.Literal;
 import io.crate.expression.symbol.Symbol;
 import io.crate.memory.MemoryManager;
 import io.crate.metadata.TransactionContext;
 import io.crate.metadata.functions.Signature;
+import io.crate.types.BooleanType;
+import io.crate.types.ByteType;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
+import io.crate.types.DoubleType;
 import io.crate.types.FixedWidthType;
+import io.crate.types.FloatType;
+import io.crate.types.IntegerType;
+import io.crate.types.IpType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.StringType;
+import io.crate.types.TimestampType;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.SortedSetDocValues;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.index.mapper.MappedFieldType;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
@@ -150,6 +166,99 @@ public class CountAggregation extends AggregationFunction<CountAggregation.LongS
         return state.value;
     }
 
+    @Nullable
+    @Override
+    public DocValueAggregator<?> getDocValueAggregator(List<DataType<?>> argumentTypes,
+                                                       List<MappedFieldType> fieldTypes,
+                                                       List<Literal<?>> optionalParams) {
+        if (!hasArgs) {
+            return new CountAll();
+        }
+        switch (argumentTypes.get(0).id()) {
+            case BooleanType.ID:
+            case ByteType.ID:
+            case ShortType.ID:
+            case IntegerType.ID:
+            case LongType.ID:
+            case FloatType.ID:
+            case DoubleType.ID:
+            case TimestampType.ID_WITH_TZ:
+            case TimestampType.ID_WITHOUT_TZ:
+                return new SortedNumericDocValueAggregator<>(
+                    fieldTypes.get(0).name(),
+                    LongState::new,
+                    (values, state) -> state.add(1L)
+                );
+
+            case StringType.ID:
+            case IpType.ID:
+                return new CountSortedSetValues(fieldTypes.get(0).name());
+
+            default:
+                return null;
+        }
+    }
+
+    static class CountAll implements DocValueAggregator<LongState> {
+
+        @Override
+        public LongState initialState() {
+            return new LongState();
+        }
+
+        @Override
+        public void loadDocValues(LeafReader reader) {
+        }
+
+        @Override
+        public void apply(LongState state, int doc) {
+            state.add(1L);
+        }
+
+        @Override
+        public boolean applyAll(LongState state, LeafReader reader) {
+            state.add(reader.numDocs());
+            return true;
+        }
+
+        @Override
+        public Object partialResult(LongState state) {
+            return state;
+        }
+    }
+
+    static class CountSortedSetValues implements DocValueAggregator<LongState> {
+
+        private final String columnName;
+        private SortedSetDocValues values;
+
+        CountSortedSetValues(String columnName) {
+            this.columnName = columnName;
+        }
+
+        @Override
+        public LongState initialState() {
+            return new LongState();
+        }
+
+        @Override
+        public void loadDocValues(LeafReader reader) throws IOException {
+            values = DocValues.getSortedSet(reader, columnName);
+        }
+
+        @Override
+        public void apply(LongState state, int doc) throws IOException {
+            if (values.advanceExact(doc)) {
+                state.add(1L);
+            }
+        }
+
+        @Override
+        public Object partialResult(LongState state) {
+            return state;
+        }
+    }
+
     public static class LongState implements Comparable<CountAggregation.LongState> {
 
         long value = 0L;
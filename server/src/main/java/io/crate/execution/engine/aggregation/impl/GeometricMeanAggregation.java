@@ -27,6 +27,9 @@ import io.crate.breaker.RamAccounting;
 import io.crate.common.collections.Lists2;
 import io.crate.data.Input;
 import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.execution.engine.aggregation.DocValueAggregator;
+import io.crate.execution.engine.aggregation.SortedNumericDocValueAggregator;
+import io.crate.expression.symbol.Literal;
 import io.crate.memory.MemoryManager;
 import io.crate.metadata.functions.Signature;
 import io.crate.types.DataType;
@@ -38,10 +41,12 @@ import org.elasticsearch.common.breaker.CircuitBreakingException;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.index.mapper.MappedFieldType;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.List;
+import java.util.function.LongToDoubleFunction;
 
 public class GeometricMeanAggregation extends AggregationFunction<GeometricMeanAggregation.GeometricMeanState, Double> {
 
@@ -227,6 +232,22 @@ public class GeometricMeanAggregation extends AggregationFunction<GeometricMeanA
         return state.value();
     }
 
+    @Nullable
+    @Override
+    public DocValueAggregator<?> getDocValueAggregator(List<DataType<?>> argumentTypes,
+                                                       List<MappedFieldType> fieldTypes,
+                                                       List<Literal<?>> optionalParams) {
+        LongToDoubleFunction toDouble = SortedNumericDocValueAggregator.toDouble(argumentTypes.get(0));
+        if (toDouble == null) {
+            return null;
+        }
+        return new SortedNumericDocValueAggregator<>(
+            fieldTypes.get(0).name(),
+            GeometricMeanState::new,
+            (values, state) -> state.addValue(toDouble.applyAsDouble(values.nextValue()))
+        );
+    }
+
     @Override
     public boolean isRemovableCumulative() {
         return true;
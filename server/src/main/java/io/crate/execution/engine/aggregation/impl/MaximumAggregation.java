@@ -23,11 +23,13 @@ package io.crate.execution.engine.aggregation.impl;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.function.LongToDoubleFunction;
 
 import javax.annotation.Nullable;
 
 import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.PointValues;
 import org.apache.lucene.index.SortedNumericDocValues;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
@@ -41,6 +43,9 @@ import io.crate.common.MutableLong;
 import io.crate.data.Input;
 import io.crate.execution.engine.aggregation.AggregationFunction;
 import io.crate.execution.engine.aggregation.DocValueAggregator;
+import io.crate.execution.engine.aggregation.SortedNumericDocValueAggregator;
+import io.crate.expression.symbol.Literal;
+import io.crate.lucene.PointValuesRange;
 import io.crate.memory.MemoryManager;
 import io.crate.metadata.functions.Signature;
 import io.crate.types.DataType;
@@ -105,6 +110,28 @@ public abstract class MaximumAggregation extends AggregationFunction<Comparable,
             }
         }
 
+        @Override
+        public boolean applyAll(MutableLong state, LeafReader reader) throws IOException {
+            PointValues points = PointValuesRange.get(reader, columnName);
+            if (points == null) {
+                return false;
+            }
+            long value = PointValuesRange.toLong(points, points.getMaxPackedValue());
+            if (value > state.value()) {
+                state.setValue(value);
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isCompetitive(MutableLong state, LeafReader reader) throws IOException {
+            if (!state.hasValue()) {
+                return true;
+            }
+            PointValues points = PointValuesRange.get(reader, columnName);
+            return points == null || PointValuesRange.toLong(points, points.getMaxPackedValue()) > state.value();
+        }
+
         @Override
         public Object partialResult(MutableLong state) {
             if (state.hasValue()) {
@@ -120,16 +147,18 @@ public abstract class MaximumAggregation extends AggregationFunction<Comparable,
 
         private final String columnName;
         private final DataType<?> partialType;
+        private final LongToDoubleFunction toDouble;
         private SortedNumericDocValues values;
 
         public DoubleMax(String columnName, DataType<?> partialType) {
             this.columnName = columnName;
             this.partialType = partialType;
+            this.toDouble = SortedNumericDocValueAggregator.toDouble(partialType);
         }
 
         @Override
         public MutableDouble initialState() {
-            return new MutableDouble(Double.MIN_VALUE);
+            return new MutableDouble(Double.NEGATIVE_INFINITY);
         }
 
         @Override
@@ -140,13 +169,35 @@ public abstract class MaximumAggregation extends AggregationFunction<Comparable,
         @Override
         public void apply(MutableDouble state, int doc) throws IOException {
             if (values.advanceExact(doc) && values.docValueCount() == 1) {
-                long value = values.nextValue();
+                double value = toDouble.applyAsDouble(values.nextValue());
                 if (value > state.value()) {
                     state.setValue(value);
                 }
             }
         }
 
+        @Override
+        public boolean applyAll(MutableDouble state, LeafReader reader) throws IOException {
+            PointValues points = PointValuesRange.get(reader, columnName);
+            if (points == null) {
+                return false;
+            }
+            double value = PointValuesRange.toDouble(points, points.getMaxPackedValue());
+            if (value > state.value()) {
+                state.setValue(value);
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isCompetitive(MutableDouble state, LeafReader reader) throws IOException {
+            if (!state.hasValue()) {
+                return true;
+            }
+            PointValues points = PointValuesRange.get(reader, columnName);
+            return points == null || PointValuesRange.toDouble(points, points.getMaxPackedValue()) > state.value();
+        }
+
         @Override
         public Object partialResult(MutableDouble state) {
             if (state.hasValue()) {
@@ -169,7 +220,8 @@ public abstract class MaximumAggregation extends AggregationFunction<Comparable,
 
         @Override
         public DocValueAggregator<?> getDocValueAggregator(List<DataType<?>> argumentTypes,
-                                                           List<MappedFieldType> fieldTypes) {
+                                                           List<MappedFieldType> fieldTypes,
+                                                           List<Literal<?>> optionalParams) {
             DataType<?> arg = argumentTypes.get(0);
             switch (arg.id()) {
                 case ShortType.ID:
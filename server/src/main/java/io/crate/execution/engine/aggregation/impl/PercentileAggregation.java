@@ -25,16 +25,21 @@ import io.crate.breaker.RamAccounting;
 import io.crate.data.Input;
 import io.crate.exceptions.CircuitBreakingException;
 import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.execution.engine.aggregation.DocValueAggregator;
+import io.crate.execution.engine.aggregation.SortedNumericDocValueAggregator;
+import io.crate.expression.symbol.Literal;
 import io.crate.memory.MemoryManager;
 import io.crate.metadata.functions.Signature;
 import io.crate.types.ArrayType;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 import org.elasticsearch.Version;
+import org.elasticsearch.index.mapper.MappedFieldType;
 
 import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.LongToDoubleFunction;
 
 class PercentileAggregation extends AggregationFunction<TDigestState, Object> {
 
@@ -175,4 +180,26 @@ class PercentileAggregation extends AggregationFunction<TDigestState, Object> {
     public DataType<?> partialType() {
         return TDigestStateType.INSTANCE;
     }
+
+    @Nullable
+    @Override
+    public DocValueAggregator<?> getDocValueAggregator(List<DataType<?>> argumentTypes,
+                                                       List<MappedFieldType> fieldTypes,
+                                                       List<Literal<?>> optionalParams) {
+        LongToDoubleFunction toDouble = SortedNumericDocValueAggregator.toDouble(argumentTypes.get(0));
+        Literal<?> fraction = optionalParams.get(1);
+        if (toDouble == null || fieldTypes.get(0) == null || fraction == null) {
+            return null;
+        }
+        return new SortedNumericDocValueAggregator<>(
+            fieldTypes.get(0).name(),
+            () -> {
+                TDigestState state = TDigestState.createEmptyState();
+                initState(state, fraction.value());
+                return state;
+            },
+            (values, state) -> state.add(toDouble.applyAsDouble(values.nextValue())),
+            TDigestState::ramBytesUsed
+        );
+    }
 }
@@ -24,6 +24,7 @@ package io.crate.execution.engine.aggregation.impl;
 
 import com.tdunning.math.stats.AVLTreeDigest;
 import com.tdunning.math.stats.Centroid;
+import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 
@@ -32,6 +33,10 @@ import java.io.IOException;
 class TDigestState extends AVLTreeDigest {
 
     private static final int DEFAULT_COMPRESSION = 100;
+    private static final long SHALLOW_SIZE = RamUsageEstimator.shallowSizeOfInstance(TDigestState.class);
+    // mean, count, aggregated count and the tree links (parent, left, right, depth) of a centroid,
+    // plus some slack for the over-allocated arrays holding them
+    private static final long BYTES_PER_CENTROID = 40L;
     private final double compression;
     private double[] fractions;
 
@@ -49,6 +54,10 @@ class TDigestState extends AVLTreeDigest {
         return fractions.length == 0;
     }
 
+    long ramBytesUsed() {
+        return SHALLOW_SIZE + RamUsageEstimator.sizeOf(fractions) + centroidCount() * BYTES_PER_CENTROID;
+    }
+
     @Override
     public double compression() {
         return compression;
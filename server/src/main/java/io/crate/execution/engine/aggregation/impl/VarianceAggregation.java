@@ -26,7 +26,10 @@ import io.crate.breaker.RamAccounting;
 import io.crate.common.collections.Lists2;
 import io.crate.data.Input;
 import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.execution.engine.aggregation.DocValueAggregator;
+import io.crate.execution.engine.aggregation.SortedNumericDocValueAggregator;
 import io.crate.execution.engine.aggregation.statistics.Variance;
+import io.crate.expression.symbol.Literal;
 import io.crate.memory.MemoryManager;
 import io.crate.metadata.functions.Signature;
 import io.crate.types.DataType;
@@ -36,10 +39,12 @@ import org.elasticsearch.Version;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.index.mapper.MappedFieldType;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.List;
+import java.util.function.LongToDoubleFunction;
 
 public class VarianceAggregation extends AggregationFunction<Variance, Double> {
 
@@ -184,6 +189,22 @@ public class VarianceAggregation extends AggregationFunction<Variance, Double> {
         return Double.isNaN(result) ? null : result;
     }
 
+    @Nullable
+    @Override
+    public DocValueAggregator<?> getDocValueAggregator(List<DataType<?>> argumentTypes,
+                                                       List<MappedFieldType> fieldTypes,
+                                                       List<Literal<?>> optionalParams) {
+        LongToDoubleFunction toDouble = SortedNumericDocValueAggregator.toDouble(argumentTypes.get(0));
+        if (toDouble == null) {
+            return null;
+        }
+        return new SortedNumericDocValueAggregator<>(
+            fieldTypes.get(0).name(),
+            Variance::new,
+            (values, state) -> state.increment(toDouble.applyAsDouble(values.nextValue()))
+        );
+    }
+
     @Override
     public DataType<?> partialType() {
         return VarianceStateType.INSTANCE;
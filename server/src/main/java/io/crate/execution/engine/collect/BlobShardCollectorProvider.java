@@ -69,7 +69,8 @@ public class BlobShardCollectorProvider extends ShardCollectorProvider {
             settings,
             transportActionProvider,
             blobShard.indexShard(),
-            new ShardRowContext(blobShard, clusterService)
+            new ShardRowContext(blobShard, clusterService),
+            null
         );
         inputFactory = new InputFactory(functions);
         this.blobShard = blobShard;
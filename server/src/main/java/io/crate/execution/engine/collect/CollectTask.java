@@ -95,7 +95,10 @@ public class CollectTask extends AbstractTask {
 
         synchronized (subContextLock) {
             Engine.Searcher replacedSearcher = searchers.put(searcherId, searcher);
-            if (replacedSearcher != null) {
+            if (replacedSearcher == searcher) {
+                // the shared searcher of the shard was acquired again, e.g. after checking if the shard can match
+                searcher.close();
+            } else if (replacedSearcher != null) {
                 replacedSearcher.close();
                 searcher.close();
                 throw new IllegalArgumentException(String.format(Locale.ENGLISH,
@@ -22,7 +22,6 @@
 
 package io.crate.execution.engine.collect;
 
-import io.crate.common.collections.Lists2;
 import io.crate.data.BatchIterator;
 import io.crate.data.CollectingBatchIterator;
 import io.crate.data.Row;
@@ -47,9 +46,11 @@ import io.crate.metadata.Functions;
 import io.crate.metadata.Reference;
 import io.crate.metadata.SearchPath;
 import io.crate.metadata.doc.DocTableInfo;
+import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Scorer;
@@ -66,7 +67,6 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
@@ -88,7 +88,7 @@ public class DocValuesAggregates {
         }
         var aggregators = createAggregators(
             functions,
-            aggregateProjection,
+            aggregateProjection.aggregations(),
             fieldTypeLookup,
             phase.toCollect(),
             collectTask.txnCtx().sessionSettings().searchPath()
@@ -156,12 +156,11 @@ public class DocValuesAggregates {
 
     @Nullable
     @SuppressWarnings("rawtypes")
-    private static List<DocValueAggregator> createAggregators(Functions functions,
-                                                              AggregationProjection aggregateProjection,
-                                                              FieldTypeLookup fieldTypeLookup,
-                                                              List<Symbol> toCollect,
-                                                              SearchPath searchPath) {
-        List<Aggregation> aggregations = aggregateProjection.aggregations();
+    static List<DocValueAggregator> createAggregators(Functions functions,
+                                                      List<Aggregation> aggregations,
+                                                      FieldTypeLookup fieldTypeLookup,
+                                                      List<Symbol> toCollect,
+                                                      SearchPath searchPath) {
         ArrayList<DocValueAggregator> aggregator = new ArrayList<>(aggregations.size());
         Function<Symbol, MappedFieldType> resolveFieldType =
             symbol -> resolveInputToFieldType(fieldTypeLookup, toCollect, symbol);
@@ -171,9 +170,27 @@ public class DocValuesAggregates {
             if (!aggregation.filter().equals(Literal.BOOLEAN_TRUE)) {
                 return null;
             }
-            List<MappedFieldType> fieldTypes = Lists2.map(aggregation.inputs(), resolveFieldType);
-            if (fieldTypes.stream().anyMatch(Objects::isNull)) {
-                // We can extend this to instead return an adapter to the normal aggregation implementation
+            List<Symbol> inputs = aggregation.inputs();
+            List<MappedFieldType> fieldTypes = new ArrayList<>(inputs.size());
+            List<Literal<?>> optionalParams = new ArrayList<>(inputs.size());
+            boolean hasColumnInput = inputs.isEmpty();
+            for (Symbol input : inputs) {
+                if (input instanceof Literal) {
+                    // Constant arguments like the fraction of `percentile` are passed on as they are
+                    fieldTypes.add(null);
+                    optionalParams.add((Literal<?>) input);
+                    continue;
+                }
+                MappedFieldType fieldType = resolveFieldType.apply(input);
+                if (fieldType == null) {
+                    // We can extend this to instead return an adapter to the normal aggregation implementation
+                    return null;
+                }
+                fieldTypes.add(fieldType);
+                optionalParams.add(null);
+                hasColumnInput = true;
+            }
+            if (!hasColumnInput) {
                 return null;
             }
 
@@ -183,8 +200,9 @@ public class DocValuesAggregates {
                     "Expected an aggregationFunction for " + aggregation + " got: " + func);
             }
             DocValueAggregator<?> docValueAggregator = ((AggregationFunction<?, ?>) func).getDocValueAggregator(
-                Symbols.typeView(aggregation.inputs()),
-                fieldTypes
+                Symbols.typeView(inputs),
+                fieldTypes,
+                optionalParams
             );
             if (docValueAggregator == null) {
                 return null;
@@ -197,27 +215,47 @@ public class DocValuesAggregates {
 
 
     @SuppressWarnings({"unchecked", "rawtypes"})
-    private static Iterable<Row> getRow(AtomicReference<Throwable> killed,
-                                        Searcher searcher,
-                                        Query query,
-                                        List<DocValueAggregator> aggregators) throws IOException {
+    static Iterable<Row> getRow(AtomicReference<Throwable> killed,
+                                Searcher searcher,
+                                Query query,
+                                List<DocValueAggregator> aggregators) throws IOException {
         IndexSearcher indexSearcher = searcher.searcher();
-        Weight weight = indexSearcher.createWeight(indexSearcher.rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1f);
+        Query rewrittenQuery = indexSearcher.rewrite(query);
+        boolean matchesAll = rewrittenQuery instanceof MatchAllDocsQuery;
+        Weight weight = indexSearcher.createWeight(rewrittenQuery, ScoreMode.COMPLETE_NO_SCORES, 1f);
         List<LeafReaderContext> leaves = indexSearcher.getTopReaderContext().leaves();
         Object[] cells = new Object[aggregators.size()];
         for (int i = 0; i < aggregators.size(); i++) {
             cells[i] = aggregators.get(i).initialState();
         }
+        // Indices of the aggregators which have to visit the documents of the current segment
+        int[] docAggregators = new int[aggregators.size()];
         for (var leaf : leaves) {
+            LeafReader reader = leaf.reader();
+            Bits liveDocs = reader.getLiveDocs();
+            boolean allDocsMatch = matchesAll && liveDocs == null;
+            int numDocAggregators = 0;
+            for (int i = 0; i < aggregators.size(); i++) {
+                DocValueAggregator aggregator = aggregators.get(i);
+                if (!aggregator.isCompetitive(cells[i], reader)) {
+                    continue;
+                }
+                if (allDocsMatch && aggregator.applyAll(cells[i], reader)) {
+                    continue;
+                }
+                docAggregators[numDocAggregators++] = i;
+            }
+            if (numDocAggregators == 0) {
+                continue;
+            }
             Scorer scorer = weight.scorer(leaf);
             if (scorer == null) {
                 continue;
             }
-            for (int i = 0; i < aggregators.size(); i++) {
-                aggregators.get(i).loadDocValues(leaf.reader());
+            for (int i = 0; i < numDocAggregators; i++) {
+                aggregators.get(docAggregators[i]).loadDocValues(reader);
             }
             DocIdSetIterator docs = scorer.iterator();
-            Bits liveDocs = leaf.reader().getLiveDocs();
             for (int doc = docs.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = docs.nextDoc()) {
                 if (liveDocs != null && !liveDocs.get(doc)) {
                     continue;
@@ -226,8 +264,9 @@ public class DocValuesAggregates {
                 if (killCause != null) {
                     Exceptions.rethrowUnchecked(killCause);
                 }
-                for (int i = 0; i < aggregators.size(); i++) {
-                    aggregators.get(i).apply(cells[i], doc);
+                for (int i = 0; i < numDocAggregators; i++) {
+                    int idx = docAggregators[i];
+                    aggregators.get(idx).apply(cells[idx], doc);
                 }
             }
         }
@@ -0,0 +1,536 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect;
+
+import static io.crate.execution.dsl.projection.Projections.shardProjections;
+import static io.crate.execution.engine.collect.GroupByOptimizedIterator.HASH_MAP_ENTRY_OVERHEAD;
+import static io.crate.execution.engine.collect.GroupByOptimizedIterator.docDeleted;
+import static io.crate.execution.engine.collect.GroupByOptimizedIterator.getKeyRef;
+import static io.crate.execution.engine.collect.GroupByOptimizedIterator.raiseIfClosedOrKilled;
+import static io.crate.execution.engine.collect.LuceneShardCollectorProvider.formatSource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+import javax.annotation.Nullable;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.Bits;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.query.QueryShardContext;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
+
+import io.crate.breaker.RamAccounting;
+import io.crate.breaker.SizeEstimator;
+import io.crate.breaker.SizeEstimatorFactory;
+import io.crate.data.BatchIterator;
+import io.crate.data.CollectingBatchIterator;
+import io.crate.data.Input;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.execution.dsl.phases.RoutedCollectPhase;
+import io.crate.execution.dsl.projection.GroupProjection;
+import io.crate.execution.dsl.projection.Projection;
+import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.execution.engine.aggregation.CompositeLongKey;
+import io.crate.execution.engine.aggregation.CompositeLongKeyMap;
+import io.crate.execution.engine.aggregation.DocValueAggregator;
+import io.crate.execution.engine.aggregation.GroupingCollector;
+import io.crate.execution.jobs.SharedShardContext;
+import io.crate.expression.InputFactory;
+import io.crate.expression.reference.doc.lucene.CollectorContext;
+import io.crate.expression.reference.doc.lucene.LuceneCollectorExpression;
+import io.crate.expression.symbol.AggregateMode;
+import io.crate.expression.symbol.Aggregation;
+import io.crate.expression.symbol.Symbol;
+import io.crate.expression.symbol.Symbols;
+import io.crate.lucene.FieldTypeLookup;
+import io.crate.lucene.LuceneQueryBuilder;
+import io.crate.metadata.DocReferences;
+import io.crate.metadata.FunctionImplementation;
+import io.crate.metadata.Functions;
+import io.crate.metadata.Reference;
+import io.crate.metadata.SearchPath;
+import io.crate.metadata.doc.DocSysColumns;
+import io.crate.metadata.doc.DocTableInfo;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import io.crate.types.FixedWidthType;
+
+/**
+ * Group by on one or more primitive columns with doc values where all aggregations
+ * provide a {@link DocValueAggregator}.
+ *
+ * Unlike the generic group-by, the aggregations read their arguments straight from the doc values
+ * of each segment instead of going through {@link io.crate.execution.engine.collect.CollectExpression}s
+ * and {@link io.crate.data.Input}s.
+ *
+ * If the circuit breaker trips, the groups collected so far are spilled to disk
+ * using a {@link GroupingCollector}, which also merges them once all documents are aggregated.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+final class DocValuesGroupByOptimizedIterator {
+
+    @Nullable
+    static BatchIterator<Row> tryOptimize(Functions functions,
+                                          IndexShard indexShard,
+                                          DocTableInfo table,
+                                          LuceneQueryBuilder luceneQueryBuilder,
+                                          FieldTypeLookup fieldTypeLookup,
+                                          DocInputFactory docInputFactory,
+                                          RoutedCollectPhase collectPhase,
+                                          CollectTask collectTask,
+                                          @Nullable Path spillDirectory) {
+        Collection<? extends Projection> shardProjections = shardProjections(collectPhase.projections());
+        GroupProjection groupProjection = getSingleGroupProjection(shardProjections);
+        if (groupProjection == null) {
+            return null;
+        }
+        List<Reference> keyRefs = getKeyRefs(collectPhase.toCollect(), groupProjection.keys(), fieldTypeLookup);
+        if (keyRefs == null) {
+            return null;
+        }
+        if (Symbols.containsColumn(collectPhase.toCollect(), DocSysColumns.SCORE)
+            || Symbols.containsColumn(collectPhase.where(), DocSysColumns.SCORE)) {
+            return null;
+        }
+        SearchPath searchPath = collectTask.txnCtx().sessionSettings().searchPath();
+        List<DocValueAggregator> aggregators = DocValuesAggregates.createAggregators(
+            functions,
+            groupProjection.values(),
+            fieldTypeLookup,
+            collectPhase.toCollect(),
+            searchPath
+        );
+        if (aggregators == null) {
+            return null;
+        }
+        List<AggregationFunction> aggregationFunctions = new ArrayList<>(groupProjection.values().size());
+        for (Aggregation aggregation : groupProjection.values()) {
+            FunctionImplementation func = functions.getQualified(aggregation, searchPath);
+            aggregationFunctions.add((AggregationFunction) func);
+        }
+
+        ShardId shardId = indexShard.shardId();
+        SharedShardContext sharedShardContext = collectTask.sharedShardContexts().getOrCreateContext(shardId);
+        Engine.Searcher searcher = sharedShardContext.acquireSearcher(formatSource(collectPhase));
+        try {
+            QueryShardContext queryShardContext = sharedShardContext.indexService().newQueryShardContext();
+            collectTask.addSearcher(sharedShardContext.readerId(), searcher);
+
+            InputFactory.Context<? extends LuceneCollectorExpression<?>> docCtx = docInputFactory.getCtx(collectTask.txnCtx());
+            docCtx.add(keyRefs);
+
+            LuceneQueryBuilder.Context queryContext = luceneQueryBuilder.convert(
+                collectPhase.where(),
+                collectTask.txnCtx(),
+                indexShard.mapperService(),
+                indexShard.shardId().getIndexName(),
+                queryShardContext,
+                table,
+                sharedShardContext.indexService().cache()
+            );
+
+            return getIterator(
+                aggregators,
+                aggregationFunctions,
+                searcher.searcher(),
+                docCtx.topLevelInputs(),
+                Symbols.typeView(keyRefs),
+                docCtx.expressions(),
+                collectTask.getRamAccounting(),
+                queryContext.query(),
+                new CollectorContext(sharedShardContext.readerId()),
+                groupProjection.mode(),
+                spillDirectory
+            );
+        } catch (Throwable t) {
+            searcher.close();
+            throw t;
+        }
+    }
+
+    static BatchIterator<Row> getIterator(List<DocValueAggregator> aggregators,
+                                          List<AggregationFunction> aggregationFunctions,
+                                          IndexSearcher indexSearcher,
+                                          List<? extends Input<?>> keyInputs,
+                                          List<DataType<?>> keyTypes,
+                                          List<? extends LuceneCollectorExpression<?>> expressions,
+                                          RamAccounting ramAccounting,
+                                          Query query,
+                                          CollectorContext collectorContext,
+                                          AggregateMode aggregateMode,
+                                          @Nullable Path spillDirectory) {
+        for (int i = 0, expressionsSize = expressions.size(); i < expressionsSize; i++) {
+            expressions.get(i).startCollect(collectorContext);
+        }
+
+        AtomicReference<Throwable> killed = new AtomicReference<>();
+        AtomicReference<GroupingCollector<Object>> spilledGroups = new AtomicReference<>();
+        Supplier<GroupingCollector<Object>> getOrCreateSpill = () -> {
+            GroupingCollector<Object> collector = spilledGroups.get();
+            if (collector == null) {
+                collector = GroupingCollector.forPartialStates(
+                    aggregateMode,
+                    aggregationFunctions.toArray(new AggregationFunction[0]),
+                    ramAccounting,
+                    keyTypes,
+                    spillDirectory
+                );
+                spilledGroups.set(collector);
+            }
+            return collector;
+        };
+        return CollectingBatchIterator.newInstance(
+            () -> {
+                killed.set(BatchIterator.CLOSED);
+                GroupingCollector<Object> collector = spilledGroups.getAndSet(null);
+                if (collector != null) {
+                    collector.close();
+                }
+            },
+            killed::set,
+            () -> {
+                try {
+                    Map<Object, Object[]> statesByKey = applyAggregatesGroupedByKeys(
+                        aggregators,
+                        aggregationFunctions,
+                        indexSearcher,
+                        keyInputs,
+                        keyTypes,
+                        expressions,
+                        ramAccounting,
+                        query,
+                        killed,
+                        getOrCreateSpill
+                    );
+                    GroupingCollector<Object> collector = spilledGroups.get();
+                    if (collector != null) {
+                        // all groups are on disk, the collector merges them one partition at a time
+                        return CompletableFuture.completedFuture(collector.finisher().apply(statesByKey));
+                    }
+                    return CompletableFuture.completedFuture(
+                        getRows(
+                            statesByKey,
+                            keyTypes,
+                            aggregators,
+                            aggregationFunctions,
+                            ramAccounting,
+                            aggregateMode
+                        )
+                    );
+                } catch (Throwable t) {
+                    return CompletableFuture.failedFuture(t);
+                }
+            },
+            true
+        );
+    }
+
+    private static Iterable<Row> getRows(Map<Object, Object[]> groupedStates,
+                                         List<DataType<?>> keyTypes,
+                                         List<DocValueAggregator> aggregators,
+                                         List<AggregationFunction> aggregationFunctions,
+                                         RamAccounting ramAccounting,
+                                         AggregateMode mode) {
+        int numKeys = keyTypes.size();
+        return () -> groupedStates.entrySet().stream()
+            .map(new Function<Map.Entry<Object, Object[]>, Row>() {
+
+                final Object[] cells = new Object[numKeys + aggregators.size()];
+                final RowN row = new RowN(cells);
+
+                @Override
+                public Row apply(Map.Entry<Object, Object[]> entry) {
+                    Object key = entry.getKey();
+                    if (numKeys == 1) {
+                        cells[0] = key;
+                    } else if (key instanceof CompositeLongKey) {
+                        CompositeLongKey compositeKey = (CompositeLongKey) key;
+                        for (int i = 0; i < numKeys; i++) {
+                            cells[i] = compositeKey.get(i, keyTypes.get(i));
+                        }
+                    } else {
+                        List<Object> keys = (List<Object>) key;
+                        for (int i = 0; i < numKeys; i++) {
+                            cells[i] = keys.get(i);
+                        }
+                    }
+                    Object[] states = entry.getValue();
+                    for (int i = 0, c = numKeys; i < states.length; i++, c++) {
+                        cells[c] = mode.finishCollect(
+                            ramAccounting,
+                            aggregationFunctions.get(i),
+                            aggregators.get(i).partialResult(states[i])
+                        );
+                    }
+                    return row;
+                }
+            })
+            .iterator();
+    }
+
+    private static Map<Object, Object[]> applyAggregatesGroupedByKeys(List<DocValueAggregator> aggregators,
+                                                                      List<AggregationFunction> aggregationFunctions,
+                                                                      IndexSearcher indexSearcher,
+                                                                      List<? extends Input<?>> keyInputs,
+                                                                      List<DataType<?>> keyTypes,
+                                                                      List<? extends LuceneCollectorExpression<?>> expressions,
+                                                                      RamAccounting ramAccounting,
+                                                                      Query query,
+                                                                      AtomicReference<Throwable> killed,
+                                                                      Supplier<GroupingCollector<Object>> getOrCreateSpill) throws IOException {
+        final int numKeys = keyInputs.size();
+        final Map<Object, Object[]> statesByKey;
+        final Supplier<Object> readKey;
+        final UnaryOperator<Object> copyKey;
+        final ToLongFunction<Object> estimateGroupSize;
+        if (numKeys == 1) {
+            Input<?> keyInput = keyInputs.get(0);
+            SizeEstimator<Object> keySizeEstimator = SizeEstimatorFactory.create(keyTypes.get(0));
+            statesByKey = new HashMap<>();
+            readKey = keyInput::value;
+            copyKey = key -> key;
+            estimateGroupSize = key -> keySizeEstimator.estimateSize(key) + HASH_MAP_ENTRY_OVERHEAD;
+        } else if (CompositeLongKey.supportsTypes(keyTypes)) {
+            // the map copies the values of the re-used key once a new group is added
+            CompositeLongKey keyHolder = new CompositeLongKey(numKeys);
+            long bytesPerGroup = CompositeLongKeyMap.bytesPerSlot(numKeys) * 2;
+            statesByKey = (Map) new CompositeLongKeyMap<Object[]>(numKeys);
+            readKey = () -> {
+                for (int i = 0; i < numKeys; i++) {
+                    keyHolder.set(i, keyInputs.get(i).value());
+                }
+                return keyHolder;
+            };
+            copyKey = key -> key;
+            estimateGroupSize = key -> bytesPerGroup;
+        } else {
+            List<SizeEstimator<Object>> keySizeEstimators = new ArrayList<>(numKeys);
+            ArrayList<Object> keyHolder = new ArrayList<>(numKeys);
+            for (DataType<?> keyType : keyTypes) {
+                keySizeEstimators.add(SizeEstimatorFactory.create(keyType));
+                keyHolder.add(null);
+            }
+            statesByKey = new HashMap<>();
+            readKey = () -> {
+                for (int i = 0; i < numKeys; i++) {
+                    keyHolder.set(i, keyInputs.get(i).value());
+                }
+                return keyHolder;
+            };
+            copyKey = key -> new ArrayList<>((List<Object>) key);
+            estimateGroupSize = key -> estimateKeySize(keySizeEstimators, (List<Object>) key) + HASH_MAP_ENTRY_OVERHEAD;
+        }
+        final Weight weight = indexSearcher.createWeight(indexSearcher.rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1f);
+        final List<LeafReaderContext> leaves = indexSearcher.getTopReaderContext().leaves();
+        final long statesSize = estimateStatesSize(aggregationFunctions);
+        final boolean[] growingStates = new boolean[aggregators.size()];
+        for (int i = 0; i < growingStates.length; i++) {
+            growingStates[i] = !(aggregationFunctions.get(i).partialType() instanceof FixedWidthType);
+        }
+        // bytes accounted for the groups which are still in memory
+        long accountedBytes = 0;
+        boolean spilled = false;
+
+        for (LeafReaderContext leaf : leaves) {
+            raiseIfClosedOrKilled(killed);
+            Scorer scorer = weight.scorer(leaf);
+            if (scorer == null) {
+                continue;
+            }
+            for (int i = 0, expressionsSize = expressions.size(); i < expressionsSize; i++) {
+                expressions.get(i).setNextReader(leaf);
+            }
+            for (int i = 0; i < aggregators.size(); i++) {
+                aggregators.get(i).loadDocValues(leaf.reader());
+            }
+            DocIdSetIterator docs = scorer.iterator();
+            Bits liveDocs = leaf.reader().getLiveDocs();
+            for (int doc = docs.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = docs.nextDoc()) {
+                raiseIfClosedOrKilled(killed);
+                if (docDeleted(liveDocs, doc)) {
+                    continue;
+                }
+                for (int i = 0, expressionsSize = expressions.size(); i < expressionsSize; i++) {
+                    expressions.get(i).setNextDocId(doc);
+                }
+                Object key = readKey.get();
+                Object[] states = statesByKey.get(key);
+                if (states == null) {
+                    long groupSize = estimateGroupSize.applyAsLong(key) + statesSize;
+                    states = new Object[aggregators.size()];
+                    for (int i = 0; i < aggregators.size(); i++) {
+                        DocValueAggregator aggregator = aggregators.get(i);
+                        states[i] = aggregator.initialState();
+                        if (growingStates[i]) {
+                            groupSize += aggregator.ramBytesUsed(states[i]);
+                        }
+                    }
+                    try {
+                        ramAccounting.addBytes(groupSize);
+                    } catch (CircuitBreakingException e) {
+                        if (statesByKey.isEmpty()) {
+                            throw e;
+                        }
+                        spill(statesByKey, aggregators, getOrCreateSpill.get());
+                        ramAccounting.addBytes(-accountedBytes);
+                        accountedBytes = 0;
+                        spilled = true;
+                        ramAccounting.addBytes(groupSize);
+                    }
+                    accountedBytes += groupSize;
+                    statesByKey.put(copyKey.apply(key), states);
+                }
+                // a trip while growing a state is handled once all states of the group are updated,
+                // the growth is covered by spilling the group
+                boolean tripped = false;
+                for (int i = 0; i < aggregators.size(); i++) {
+                    DocValueAggregator aggregator = aggregators.get(i);
+                    if (growingStates[i]) {
+                        long sizeBefore = aggregator.ramBytesUsed(states[i]);
+                        aggregator.apply(states[i], doc);
+                        long growth = aggregator.ramBytesUsed(states[i]) - sizeBefore;
+                        if (growth != 0 && !tripped) {
+                            try {
+                                ramAccounting.addBytes(growth);
+                                accountedBytes += growth;
+                            } catch (CircuitBreakingException e) {
+                                tripped = true;
+                            }
+                        }
+                    } else {
+                        aggregator.apply(states[i], doc);
+                    }
+                }
+                if (tripped) {
+                    spill(statesByKey, aggregators, getOrCreateSpill.get());
+                    ramAccounting.addBytes(-accountedBytes);
+                    accountedBytes = 0;
+                    spilled = true;
+                }
+            }
+        }
+        if (spilled && !statesByKey.isEmpty()) {
+            spill(statesByKey, aggregators, getOrCreateSpill.get());
+            ramAccounting.addBytes(-accountedBytes);
+        }
+        return statesByKey;
+    }
+
+    /**
+     * Converts the states to their partial results and writes the groups to disk.
+     * {@code statesByKey} is empty afterwards.
+     */
+    private static void spill(Map<Object, Object[]> statesByKey,
+                              List<DocValueAggregator> aggregators,
+                              GroupingCollector<Object> spilledGroups) {
+        for (Object[] states : statesByKey.values()) {
+            for (int i = 0; i < states.length; i++) {
+                states[i] = aggregators.get(i).partialResult(states[i]);
+            }
+        }
+        spilledGroups.spillPartialStates(statesByKey);
+    }
+
+    private static long estimateKeySize(List<SizeEstimator<Object>> keySizeEstimators, List<Object> keys) {
+        long size = 0;
+        for (int i = 0; i < keySizeEstimators.size(); i++) {
+            size += keySizeEstimators.get(i).estimateSize(keys.get(i));
+        }
+        return size;
+    }
+
+    /**
+     * @return the size of the states with a fixed width partial type; the others are accounted
+     *         using {@link DocValueAggregator#ramBytesUsed(Object)} as they grow.
+     */
+    private static long estimateStatesSize(List<AggregationFunction> aggregationFunctions) {
+        long size = 0;
+        for (AggregationFunction function : aggregationFunctions) {
+            DataType<?> partialType = function.partialType();
+            if (partialType instanceof FixedWidthType) {
+                size += ((FixedWidthType) partialType).fixedSize();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the references of the group keys or null if any of the keys isn't a primitive column with doc values
+     */
+    @Nullable
+    private static List<Reference> getKeyRefs(List<Symbol> toCollect,
+                                              List<Symbol> keys,
+                                              FieldTypeLookup fieldTypeLookup) {
+        ArrayList<Reference> keyRefs = new ArrayList<>(keys.size());
+        for (Symbol key : keys) {
+            Reference keyRef = getKeyRef(toCollect, key);
+            if (keyRef == null) {
+                return null; // group by on non-reference
+            }
+            keyRef = (Reference) DocReferences.inverseSourceLookup(keyRef);
+            if (!DataTypes.isPrimitive(keyRef.valueType())) {
+                return null;
+            }
+            MappedFieldType keyFieldType = fieldTypeLookup.get(keyRef.column().fqn());
+            if (keyFieldType == null || !keyFieldType.hasDocValues()) {
+                return null;
+            }
+            keyRefs.add(keyRef);
+        }
+        return keyRefs;
+    }
+
+    @Nullable
+    private static GroupProjection getSingleGroupProjection(Collection<? extends Projection> shardProjections) {
+        if (shardProjections.size() != 1) {
+            return null;
+        }
+        Projection shardProjection = shardProjections.iterator().next();
+        if (!(shardProjection instanceof GroupProjection)) {
+            return null;
+        }
+        return (GroupProjection) shardProjection;
+    }
+}
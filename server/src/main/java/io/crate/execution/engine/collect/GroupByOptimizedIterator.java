@@ -108,7 +108,7 @@ final class GroupByOptimizedIterator {
      * (+ being faster, - being slower)
      */
     private static final double CARDINALITY_RATIO_THRESHOLD = 0.5;
-    private static final long HASH_MAP_ENTRY_OVERHEAD = 32; // see private RamUsageEstimator.shallowSizeOfInstance(HashMap.Node.class)
+    static final long HASH_MAP_ENTRY_OVERHEAD = 32; // see private RamUsageEstimator.shallowSizeOfInstance(HashMap.Node.class)
 
     @Nullable
     static BatchIterator<Row> tryOptimizeSingleStringKey(IndexShard indexShard,
@@ -387,7 +387,7 @@ final class GroupByOptimizedIterator {
         return false;
     }
 
-    private static boolean docDeleted(@Nullable Bits liveDocs, int doc) {
+    static boolean docDeleted(@Nullable Bits liveDocs, int doc) {
         return liveDocs != null && !liveDocs.get(doc);
     }
 
@@ -435,7 +435,7 @@ final class GroupByOptimizedIterator {
 
 
     @Nullable
-    private static Reference getKeyRef(List<Symbol> toCollect, Symbol key) {
+    static Reference getKeyRef(List<Symbol> toCollect, Symbol key) {
         if (key instanceof InputColumn) {
             Symbol keyRef = toCollect.get(((InputColumn) key).index());
             if (keyRef instanceof Reference) {
@@ -460,7 +460,7 @@ final class GroupByOptimizedIterator {
         return groupProjection;
     }
 
-    private static void raiseIfClosedOrKilled(AtomicReference<Throwable> killed) {
+    static void raiseIfClosedOrKilled(AtomicReference<Throwable> killed) {
         Throwable killedException = killed.get();
         if (killedException != null) {
             Exceptions.rethrowUnchecked(killedException);
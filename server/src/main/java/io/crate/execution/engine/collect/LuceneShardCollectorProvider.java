@@ -23,12 +23,16 @@ package io.crate.execution.engine.collect;
 
 import io.crate.data.BatchIterator;
 import io.crate.data.Row;
+import io.crate.data.columnar.ColumnarBatches;
 import io.crate.execution.TransportActionProvider;
 import io.crate.execution.dsl.phases.RoutedCollectPhase;
+import io.crate.execution.dsl.projection.FilterProjection;
+import io.crate.execution.dsl.projection.Projection;
 import io.crate.execution.engine.collect.collectors.LuceneBatchIterator;
 import io.crate.execution.engine.collect.collectors.LuceneOrderedDocCollector;
 import io.crate.execution.engine.collect.collectors.OptimizeQueryForSearchAfter;
 import io.crate.execution.engine.collect.collectors.OrderedDocCollector;
+import io.crate.execution.engine.pipeline.ColumnarFilter;
 import io.crate.execution.engine.sort.LuceneSortGenerator;
 import io.crate.execution.jobs.NodeJobsCounter;
 import io.crate.execution.jobs.SharedShardContext;
@@ -37,9 +41,12 @@ import io.crate.expression.reference.doc.lucene.CollectorContext;
 import io.crate.expression.reference.doc.lucene.LuceneCollectorExpression;
 import io.crate.expression.reference.doc.lucene.LuceneReferenceResolver;
 import io.crate.expression.reference.sys.shard.ShardRowContext;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.Symbol;
 import io.crate.expression.symbol.Symbols;
 import io.crate.lucene.FieldTypeLookup;
 import io.crate.lucene.LuceneQueryBuilder;
+import io.crate.lucene.PointValuesFilter;
 import io.crate.metadata.Functions;
 import io.crate.metadata.RelationName;
 import io.crate.metadata.Schemas;
@@ -51,6 +58,7 @@ import org.apache.logging.log4j.Logger;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.query.QueryShardContext;
@@ -59,8 +67,15 @@ import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.IntSupplier;
 import java.util.function.Supplier;
 
+import static io.crate.execution.support.ThreadPools.numIdleThreads;
+
 public class LuceneShardCollectorProvider extends ShardCollectorProvider {
 
     private static final Logger LOGGER = LogManager.getLogger(LuceneShardCollectorProvider.class);
@@ -73,6 +88,10 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
     private final BigArrays bigArrays;
     private final FieldTypeLookup fieldTypeLookup;
     private final DocTableInfo table;
+    private final Executor searchExecutor;
+    private final IntSupplier availableThreads;
+    @Nullable
+    private final Path spillDirectory;
 
     public LuceneShardCollectorProvider(Schemas schemas,
                                         LuceneQueryBuilder luceneQueryBuilder,
@@ -83,7 +102,8 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
                                         Settings settings,
                                         TransportActionProvider transportActionProvider,
                                         IndexShard indexShard,
-                                        BigArrays bigArrays) {
+                                        BigArrays bigArrays,
+                                        @Nullable Path spillDirectory) {
         super(
             clusterService,
             schemas,
@@ -93,7 +113,8 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
             settings,
             transportActionProvider,
             indexShard,
-            new ShardRowContext(indexShard, clusterService)
+            new ShardRowContext(indexShard, clusterService),
+            spillDirectory
         );
         this.luceneQueryBuilder = luceneQueryBuilder;
         this.functions = functions;
@@ -112,6 +133,10 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
             )
         );
         this.bigArrays = bigArrays;
+        this.spillDirectory = spillDirectory;
+        ThreadPoolExecutor searchExecutor = (ThreadPoolExecutor) threadPool.executor(ThreadPool.Names.SEARCH);
+        this.searchExecutor = searchExecutor;
+        this.availableThreads = numIdleThreads(searchExecutor, EsExecutors.numberOfProcessors(settings));
     }
 
     @Override
@@ -137,7 +162,7 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
             InputFactory.Context<? extends LuceneCollectorExpression<?>> docCtx =
                 docInputFactory.extractImplementations(collectTask.txnCtx(), collectPhase);
 
-            return new LuceneBatchIterator(
+            LuceneBatchIterator batchIterator = new LuceneBatchIterator(
                 searcher.searcher(),
                 queryContext.query(),
                 queryContext.minScore(),
@@ -146,12 +171,30 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
                 docCtx.topLevelInputs(),
                 docCtx.expressions()
             );
+            if (!requiresScroll && startsWithVectorizableFilter(collectPhase)) {
+                // The FilterProjector evaluates simple comparisons directly on the column vectors
+                return ColumnarBatches.toRows(ColumnarBatches.fromRows(
+                    batchIterator,
+                    ColumnarFilter.batchFactory(Symbols.typeView(collectPhase.toCollect()))
+                ));
+            }
+            return batchIterator;
         } catch (Throwable t) {
             searcher.close();
             throw t;
         }
     }
 
+    private static boolean startsWithVectorizableFilter(RoutedCollectPhase collectPhase) {
+        for (Projection projection : collectPhase.projections()) {
+            if (Projection.IS_SHARD_PROJECTION.test(projection)) {
+                return projection instanceof FilterProjection
+                       && ColumnarFilter.canVectorize(((FilterProjection) projection).query());
+            }
+        }
+        return false;
+    }
+
     @Nullable
     @Override
     protected BatchIterator<Row> getProjectionFusedIterator(RoutedCollectPhase normalizedPhase, CollectTask collectTask) {
@@ -169,6 +212,20 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
         if (it != null) {
             return it;
         }
+        it = DocValuesGroupByOptimizedIterator.tryOptimize(
+            functions,
+            indexShard,
+            table,
+            luceneQueryBuilder,
+            fieldTypeLookup,
+            docInputFactory,
+            normalizedPhase,
+            collectTask,
+            spillDirectory
+        );
+        if (it != null) {
+            return it;
+        }
         return DocValuesAggregates.tryOptimize(
             functions,
             indexShard,
@@ -180,6 +237,22 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
         );
     }
 
+    @Override
+    protected boolean canMatchShard(Symbol query, CollectTask collectTask) {
+        if (!(query instanceof Function)) {
+            return true;
+        }
+        SharedShardContext sharedShardContext = collectTask.sharedShardContexts().getOrCreateContext(indexShard.shardId());
+        Engine.Searcher searcher = sharedShardContext.acquireSearcher("point-values-filter");
+        // the collector acquires the same searcher afterwards; the task keeps a single reference
+        collectTask.addSearcher(sharedShardContext.readerId(), searcher);
+        try {
+            return PointValuesFilter.canMatch(query, searcher.reader(), fieldTypeLookup);
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
     @Override
     public OrderedDocCollector getOrderedCollector(RoutedCollectPhase phase,
                                                    SharedShardContext sharedShardContext,
@@ -237,7 +310,9 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
             optimizeQueryForSearchAfter,
             LuceneSortGenerator.generateLuceneSort(collectTask.txnCtx(), collectorContext, collectPhase.orderBy(), docInputFactory, fieldTypeLookup),
             ctx.topLevelInputs(),
-            ctx.expressions()
+            ctx.expressions(),
+            searchExecutor,
+            availableThreads
         );
     }
 
@@ -25,6 +25,7 @@ package io.crate.execution.engine.collect;
 import io.crate.breaker.RamAccounting;
 import io.crate.data.BatchIterator;
 import io.crate.data.CompositeBatchIterator;
+import io.crate.data.ForwardingBatchIterator;
 import io.crate.data.InMemoryBatchIterator;
 import io.crate.data.Row;
 import io.crate.data.RowN;
@@ -39,14 +40,19 @@ import io.crate.memory.MemoryManager;
 import io.crate.metadata.TransactionContext;
 import io.crate.planner.operators.PKAndVersion;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.lucene.uid.VersionsAndSeqNoResolver;
+import org.elasticsearch.common.lucene.uid.VersionsAndSeqNoResolver.DocIdAndVersion;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.IndexNotFoundException;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.engine.VersionConflictEngineException;
 import org.elasticsearch.index.mapper.IdFieldMapper;
 import org.elasticsearch.index.mapper.Uid;
+import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.ShardNotFoundException;
@@ -57,6 +63,7 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -119,23 +126,64 @@ public final class PKLookupOperation {
                                      boolean requiresScroll,
                                      Function<Doc, Row> resultToRow) {
         ArrayList<BatchIterator<Row>> iterators = new ArrayList<>(idsByShard.size());
-        for (Map.Entry<ShardId, List<PKAndVersion>> idsByShardEntry : idsByShard.entrySet()) {
-            ShardId shardId = idsByShardEntry.getKey();
-            IndexService indexService = indicesService.indexService(shardId.getIndex());
-            if (indexService == null) {
-                if (ignoreMissing) {
-                    continue;
+        try {
+            for (Map.Entry<ShardId, List<PKAndVersion>> idsByShardEntry : idsByShard.entrySet()) {
+                ShardId shardId = idsByShardEntry.getKey();
+                IndexService indexService = indicesService.indexService(shardId.getIndex());
+                if (indexService == null) {
+                    if (ignoreMissing) {
+                        continue;
+                    }
+                    throw new IndexNotFoundException(shardId.getIndex());
                 }
-                throw new IndexNotFoundException(shardId.getIndex());
-            }
-            IndexShard shard = indexService.getShardOrNull(shardId.id());
-            if (shard == null) {
-                if (ignoreMissing) {
-                    continue;
+                IndexShard shard = indexService.getShardOrNull(shardId.id());
+                if (shard == null) {
+                    if (ignoreMissing) {
+                        continue;
+                    }
+                    throw new ShardNotFoundException(shardId);
+                }
+                if (projections.isEmpty()) {
+                    iterators.add(lookupRows(shard, idsByShardEntry.getValue(), resultToRow, requiresScroll));
+                } else {
+                    ProjectorFactory projectorFactory;
+                    try {
+                        projectorFactory = shardCollectSource.getProjectorFactory(shardId);
+                    } catch (ShardNotFoundException e) {
+                        if (ignoreMissing) {
+                            continue;
+                        }
+                        throw e;
+                    }
+                    Projectors projectors = new Projectors(
+                        projections,
+                        jobId,
+                        txnCtx,
+                        ramAccountingSupplier.get(),
+                        memoryManagerSupplier.get(),
+                        projectorFactory);
+                    boolean materialize = requiresScroll && !projectors.providesIndependentScroll();
+                    iterators.add(projectors.wrap(lookupRows(shard, idsByShardEntry.getValue(), resultToRow, materialize)));
                 }
-                throw new ShardNotFoundException(shardId);
             }
-            Stream<Row> rowStream = idsByShardEntry.getValue().stream()
+        } catch (Throwable t) {
+            // iterators of a batched lookup hold a searcher
+            for (BatchIterator<Row> iterator : iterators) {
+                iterator.close();
+            }
+            throw t;
+        }
+        //noinspection unchecked
+        return CompositeBatchIterator.seqComposite(iterators.toArray(new BatchIterator[0]));
+    }
+
+    private static BatchIterator<Row> lookupRows(IndexShard shard,
+                                                 List<PKAndVersion> pkAndVersions,
+                                                 Function<Doc, Row> resultToRow,
+                                                 boolean materialize) {
+        Engine.Searcher searcher = pkAndVersions.size() > 1 ? shard.acquireRealtimeGetSearcher("pk_lookup") : null;
+        if (searcher == null) {
+            Stream<Row> rowStream = pkAndVersions.stream()
                 .map(pkAndVersion -> lookupDoc(
                     shard,
                     pkAndVersion.id(),
@@ -145,36 +193,120 @@ public final class PKLookupOperation {
                     pkAndVersion.primaryTerm()))
                 .filter(Objects::nonNull)
                 .map(resultToRow);
+            return rowsIterator(rowStream, materialize);
+        }
+        if (materialize) {
+            try (searcher) {
+                return rowsIterator(lookupDocs(shard.shardId(), searcher, pkAndVersions).map(resultToRow), true);
+            }
+        }
+        BatchIterator<Row> rows;
+        try {
+            rows = rowsIterator(lookupDocs(shard.shardId(), searcher, pkAndVersions).map(resultToRow), false);
+        } catch (Throwable t) {
+            searcher.close();
+            throw t;
+        }
+        return new ForwardingBatchIterator<>() {
+
+            @Override
+            protected BatchIterator<Row> delegate() {
+                return rows;
+            }
 
-            if (projections.isEmpty()) {
-                final Iterable<Row> rowIterable = requiresScroll
-                    ? rowStream.map(row -> new RowN(row.materialize())).collect(Collectors.toList())
-                    : rowStream::iterator;
-                iterators.add(InMemoryBatchIterator.of(rowIterable, SentinelRow.SENTINEL, true));
-            } else {
-                ProjectorFactory projectorFactory;
+            @Override
+            public void close() {
                 try {
-                    projectorFactory = shardCollectSource.getProjectorFactory(shardId);
-                } catch (ShardNotFoundException e) {
-                    if (ignoreMissing) {
-                        continue;
-                    }
-                    throw e;
+                    super.close();
+                } finally {
+                    searcher.close();
                 }
-                Projectors projectors = new Projectors(
-                    projections,
-                    jobId,
-                    txnCtx,
-                    ramAccountingSupplier.get(),
-                    memoryManagerSupplier.get(),
-                    projectorFactory);
-                final Iterable<Row> rowIterable = requiresScroll && !projectors.providesIndependentScroll()
-                    ? rowStream.map(row -> new RowN(row.materialize())).collect(Collectors.toList())
-                    : rowStream::iterator;
-                iterators.add(projectors.wrap(InMemoryBatchIterator.of(rowIterable, SentinelRow.SENTINEL, true)));
+            }
+        };
+    }
+
+    private static BatchIterator<Row> rowsIterator(Stream<Row> rowStream, boolean materialize) {
+        final Iterable<Row> rowIterable = materialize
+            ? rowStream.map(row -> new RowN(row.materialize())).collect(Collectors.toList())
+            : rowStream::iterator;
+        return InMemoryBatchIterator.of(rowIterable, SentinelRow.SENTINEL, true);
+    }
+
+    /**
+     * Looks up many docs of a shard with the given searcher.
+     * The ids are resolved with one pass over the sorted {@code _id} terms of each segment,
+     * the sources are loaded lazily and in doc id order.
+     */
+    private static Stream<Doc> lookupDocs(ShardId shardId, Engine.Searcher searcher, List<PKAndVersion> pkAndVersions) {
+        ArrayList<PKAndVersion> sortedPKs = new ArrayList<>(pkAndVersions.size());
+        ArrayList<BytesRef> uids = new ArrayList<>(pkAndVersions.size());
+        pkAndVersions.stream()
+            .map(pkAndVersion -> Map.entry(Uid.encodeId(pkAndVersion.id()), pkAndVersion))
+            .sorted(Map.Entry.comparingByKey())
+            .forEach(entry -> {
+                uids.add(entry.getKey());
+                sortedPKs.add(entry.getValue());
+            });
+        DocIdAndVersion[] docIdAndVersions;
+        try {
+            docIdAndVersions = VersionsAndSeqNoResolver.loadDocIdAndVersions(searcher.reader(), IdFieldMapper.NAME, uids, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ArrayList<Map.Entry<PKAndVersion, DocIdAndVersion>> found = new ArrayList<>(docIdAndVersions.length);
+        for (int i = 0; i < docIdAndVersions.length; i++) {
+            DocIdAndVersion docIdAndVersion = docIdAndVersions[i];
+            if (docIdAndVersion != null) {
+                PKAndVersion pkAndVersion = sortedPKs.get(i);
+                ensureNoVersionConflict(shardId, pkAndVersion, docIdAndVersion);
+                found.add(Map.entry(pkAndVersion, docIdAndVersion));
             }
         }
-        //noinspection unchecked
-        return CompositeBatchIterator.seqComposite(iterators.toArray(new BatchIterator[0]));
+        found.sort(Comparator.comparingInt(entry -> entry.getValue().docBase + entry.getValue().docId));
+        return found.stream().map(entry -> {
+            PKAndVersion pkAndVersion = entry.getKey();
+            DocIdAndVersion docIdAndVersion = entry.getValue();
+            SourceFieldVisitor visitor = new SourceFieldVisitor();
+            try {
+                docIdAndVersion.reader.document(docIdAndVersion.docId, visitor);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return new Doc(
+                docIdAndVersion.docId,
+                shardId.getIndexName(),
+                pkAndVersion.id(),
+                docIdAndVersion.version,
+                docIdAndVersion.seqNo,
+                docIdAndVersion.primaryTerm,
+                XContentHelper.toMap(visitor.source(), XContentType.JSON),
+                () -> visitor.source().utf8ToString()
+            );
+        });
+    }
+
+    /**
+     * Same checks as a get with {@link VersionType#EXTERNAL} does in {@link Engine#get}
+     */
+    private static void ensureNoVersionConflict(ShardId shardId, PKAndVersion pkAndVersion, DocIdAndVersion docIdAndVersion) {
+        if (VersionType.EXTERNAL.isVersionConflictForReads(docIdAndVersion.version, pkAndVersion.version())) {
+            throw new VersionConflictEngineException(
+                shardId,
+                pkAndVersion.id(),
+                VersionType.EXTERNAL.explainConflictForReads(docIdAndVersion.version, pkAndVersion.version())
+            );
+        }
+        if (pkAndVersion.seqNo() != SequenceNumbers.UNASSIGNED_SEQ_NO && (
+            pkAndVersion.seqNo() != docIdAndVersion.seqNo || pkAndVersion.primaryTerm() != docIdAndVersion.primaryTerm)) {
+
+            throw new VersionConflictEngineException(
+                shardId,
+                pkAndVersion.id(),
+                pkAndVersion.seqNo(),
+                pkAndVersion.primaryTerm(),
+                docIdAndVersion.seqNo,
+                docIdAndVersion.primaryTerm
+            );
+        }
     }
 }
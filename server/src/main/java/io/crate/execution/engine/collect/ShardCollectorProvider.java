@@ -39,6 +39,7 @@ import io.crate.execution.jobs.SharedShardContext;
 import io.crate.expression.InputFactory;
 import io.crate.expression.eval.EvaluatingNormalizer;
 import io.crate.expression.reference.sys.shard.ShardRowContext;
+import io.crate.expression.symbol.Symbol;
 import io.crate.metadata.Functions;
 import io.crate.metadata.RowGranularity;
 import io.crate.metadata.Schemas;
@@ -49,6 +50,7 @@ import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import javax.annotation.Nullable;
+import java.nio.file.Path;
 
 public abstract class ShardCollectorProvider {
 
@@ -64,7 +66,8 @@ public abstract class ShardCollectorProvider {
                            Settings settings,
                            TransportActionProvider transportActionProvider,
                            IndexShard indexShard,
-                           ShardRowContext shardRowContext) {
+                           ShardRowContext shardRowContext,
+                           @Nullable Path spillDirectory) {
         this.shardRowContext = shardRowContext;
         shardNormalizer = new EvaluatingNormalizer(
             functions,
@@ -84,7 +87,8 @@ public abstract class ShardCollectorProvider {
             t -> null,
             t -> null,
             indexShard.indexSettings().getIndexVersionCreated(),
-            indexShard.shardId()
+            indexShard.shardId(),
+            spillDirectory
         );
     }
 
@@ -101,12 +105,16 @@ public abstract class ShardCollectorProvider {
             "granularity must be DOC";
 
         RoutedCollectPhase normalizedCollectNode = collectPhase.normalize(shardNormalizer, collectTask.txnCtx());
-        BatchIterator<Row> fusedIterator = getProjectionFusedIterator(normalizedCollectNode, collectTask);
-        if (fusedIterator != null) {
-            return fusedIterator;
+        boolean canMatch = WhereClause.canMatch(normalizedCollectNode.where())
+                           && canMatchShard(normalizedCollectNode.where(), collectTask);
+        if (canMatch) {
+            BatchIterator<Row> fusedIterator = getProjectionFusedIterator(normalizedCollectNode, collectTask);
+            if (fusedIterator != null) {
+                return fusedIterator;
+            }
         }
         final BatchIterator<Row> iterator;
-        if (WhereClause.canMatch(normalizedCollectNode.where())) {
+        if (canMatch) {
             iterator = getUnorderedIterator(normalizedCollectNode, requiresScroll, collectTask);
         } else {
             iterator = InMemoryBatchIterator.empty(SentinelRow.SENTINEL);
@@ -122,6 +130,17 @@ public abstract class ShardCollectorProvider {
         );
     }
 
+    /**
+     * @return false if the data of the shard can't match the query, for example because the values of the shard
+     *         lie outside of the ranges in the query. In that case the shard isn't read at all.
+     *         The check runs once the collect phase has reached the shard, it doesn't change the routing.
+     *         A searcher used for the check should come from the shared shard context of the collectTask,
+     *         so that the check and the collector see the same segments.
+     */
+    protected boolean canMatchShard(Symbol query, CollectTask collectTask) {
+        return true;
+    }
+
     /**
      * @return A BatchIterator which already applies the transformation described in the shardProjections of the collectPhase.
      *         This can be used to return a specialized BatchIterator for certain projections. If this returns null
@@ -24,6 +24,7 @@ package io.crate.execution.engine.collect.collectors;
 
 import com.google.common.collect.Iterables;
 import io.crate.breaker.RamAccounting;
+import io.crate.common.annotations.VisibleForTesting;
 import io.crate.data.Input;
 import io.crate.data.Row;
 import io.crate.exceptions.Exceptions;
@@ -35,7 +36,10 @@ import org.apache.logging.log4j.Logger;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BulkScorer;
+import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.CollectorManager;
 import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.LeafCollector;
@@ -44,7 +48,10 @@ import org.apache.lucene.search.Scorable;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TopFieldCollector;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.common.lucene.MinimumScoreCollector;
 import org.elasticsearch.index.shard.ShardId;
@@ -52,11 +59,18 @@ import org.elasticsearch.index.shard.ShardId;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
+import java.util.function.IntSupplier;
 
 public class LuceneOrderedDocCollector extends OrderedDocCollector {
 
@@ -64,6 +78,12 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
     private static final int OPTIMIZE_BATCH_SIZE_THRESHOLD = 1000;
     private static final long FIELD_DOC_SIZE = RamUsageEstimator.shallowSizeOfInstance(FieldDoc.class);
 
+    /**
+     * Minimum number of documents a slice of a shard must contain to be searched in a separate thread.
+     * Smaller shards are searched sequentially as the overhead of forking outweighs the gain.
+     */
+    static final int MIN_DOCS_PER_SLICE = 250_000;
+
     private final Query query;
     private final Float minScore;
     private final boolean doDocsScores;
@@ -76,9 +96,12 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
     private final DummyScorer scorer;
     private final IndexSearcher searcher;
     private final AtomicReference<Throwable> killed = new AtomicReference<>();
+    private final Executor executor;
+    private final IntSupplier availableThreads;
 
     private int batchSize;
     private boolean batchSizeReduced = false;
+    private int minDocsPerSlice = MIN_DOCS_PER_SLICE;
 
     @Nullable
     private FieldDoc lastDoc = null;
@@ -94,9 +117,13 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
                                      Function<FieldDoc, Query> searchAfterQueryOptimize,
                                      Sort sort,
                                      List<? extends Input<?>> inputs,
-                                     Collection<? extends LuceneCollectorExpression<?>> expressions) {
+                                     Collection<? extends LuceneCollectorExpression<?>> expressions,
+                                     Executor executor,
+                                     IntSupplier availableThreads) {
         super(shardId);
         this.searcher = searcher;
+        this.executor = executor;
+        this.availableThreads = availableThreads;
         this.query = query;
         this.minScore = minScore;
         this.doDocsScores = doDocsScores;
@@ -140,6 +167,11 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
         }
     }
 
+    @VisibleForTesting
+    void minDocsPerSlice(int minDocsPerSlice) {
+        this.minDocsPerSlice = minDocsPerSlice;
+    }
+
     @Override
     public void close() {
     }
@@ -159,13 +191,7 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
             expression.startCollect(collectorContext);
             expression.setScorer(scorer);
         }
-        ramAccounting.addBytes(batchSize * FIELD_DOC_SIZE);
-        TopFieldCollector topFieldCollector = TopFieldCollector.create(
-            sort,
-            batchSize,
-            0 // do not process any hits
-        );
-        return doSearch(topFieldCollector, minScore, query);
+        return doSearch(null, query);
     }
 
     private KeyIterable<ShardId, Row> searchMore() throws IOException {
@@ -176,30 +202,160 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("searchMore from [{}]", lastDoc);
         }
-        ramAccounting.addBytes(batchSize * FIELD_DOC_SIZE);
-        TopFieldCollector topFieldCollector = TopFieldCollector.create(
-            sort,
-            batchSize,
-            lastDoc,
-            0 // do not process any hits
+        return doSearch(lastDoc, query(lastDoc));
+    }
+
+    private KeyIterable<ShardId, Row> doSearch(@Nullable FieldDoc after, Query query) throws IOException {
+        List<List<LeafReaderContext>> slices = slices(
+            searcher.getIndexReader().leaves(),
+            availableThreads.getAsInt(),
+            minDocsPerSlice
         );
-        return doSearch(topFieldCollector, minScore, query(lastDoc));
+        ScoreDoc[] scoreDocs;
+        if (slices.size() <= 1) {
+            TopFieldCollector topFieldCollector = TopFieldCollector.create(
+                sort,
+                batchSize,
+                after,
+                0 // do not process any hits
+            );
+            searcher.search(query, wrap(topFieldCollector));
+            scoreDocs = topFieldCollector.topDocs().scoreDocs;
+        } else {
+            scoreDocs = searchSlices(slices, after, query).scoreDocs;
+        }
+        // only the (merged) result is retained, the collectors of the slices are released after the search
+        ramAccounting.addBytes(scoreDocs.length * FIELD_DOC_SIZE);
+        if (doDocsScores) {
+            TopFieldCollector.populateScores(scoreDocs, searcher, query);
+        }
+        return scoreDocToIterable(scoreDocs);
     }
 
-    private KeyIterable<ShardId, Row> doSearch(TopFieldCollector topFieldCollector,
-                                               Float minScore,
-                                               Query query) throws IOException {
+    private Collector wrap(TopFieldCollector topFieldCollector) {
         Collector collector = topFieldCollector;
         if (minScore != null) {
             collector = new MinimumScoreCollector(collector, minScore);
         }
-        collector = new KillableCollector(collector, this::raiseIfKilled);
-        searcher.search(query, collector);
-        ScoreDoc[] scoreDocs = topFieldCollector.topDocs().scoreDocs;
-        if (doDocsScores) {
-            TopFieldCollector.populateScores(scoreDocs, searcher, query);
+        return new KillableCollector(collector, this::raiseIfKilled);
+    }
+
+    /**
+     * Searches the slices concurrently and merges their results.
+     * The calling thread takes part in the search, additional threads are only used if the executor accepts
+     * the task. Because slices are only claimed by running threads, the caller never waits for a queued task
+     * and the search can't dead-lock even if it's invoked from a thread of a saturated executor.
+     */
+    private TopFieldDocs searchSlices(List<List<LeafReaderContext>> slices,
+                                      @Nullable FieldDoc after,
+                                      Query query) throws IOException {
+        // The shared manager lets the collectors of all slices skip non-competitive hits once
+        // the minimum competitive score is known to one of them
+        CollectorManager<TopFieldCollector, TopFieldDocs> manager = TopFieldCollector.createSharedManager(
+            sort,
+            batchSize,
+            after,
+            0 // do not process any hits
+        );
+        int numSlices = slices.size();
+        TopFieldCollector[] topFieldCollectors = new TopFieldCollector[numSlices];
+        Collector[] collectors = new Collector[numSlices];
+        for (int i = 0; i < numSlices; i++) {
+            topFieldCollectors[i] = manager.newCollector();
+            collectors[i] = wrap(topFieldCollectors[i]);
         }
-        return scoreDocToIterable(scoreDocs);
+        Weight weight = searcher.createWeight(searcher.rewrite(query), collectors[0].scoreMode(), 1f);
+
+        AtomicInteger nextSlice = new AtomicInteger(0);
+        AtomicInteger remaining = new AtomicInteger(numSlices);
+        CompletableFuture<Void> allDone = new CompletableFuture<>();
+        Runnable worker = () -> {
+            int idx;
+            while (!allDone.isDone() && (idx = nextSlice.getAndIncrement()) < numSlices) {
+                try {
+                    searchLeaves(slices.get(idx), weight, collectors[idx]);
+                } catch (Throwable t) {
+                    allDone.completeExceptionally(t);
+                    return;
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    allDone.complete(null);
+                }
+            }
+        };
+        int numForks = Math.min(availableThreads.getAsInt(), numSlices) - 1;
+        for (int i = 0; i < numForks; i++) {
+            try {
+                executor.execute(worker);
+            } catch (RejectedExecutionException e) {
+                break;
+            }
+        }
+        worker.run();
+        try {
+            allDone.join();
+        } catch (CompletionException e) {
+            Exceptions.rethrowUnchecked(e.getCause());
+        }
+
+        TopFieldDocs[] topDocs = new TopFieldDocs[numSlices];
+        for (int i = 0; i < numSlices; i++) {
+            topDocs[i] = topFieldCollectors[i].topDocs();
+        }
+        // Slices are consecutive ranges of the leaves and the merge breaks ties by the slice index,
+        // the merged docs are therefore ordered like the result of a sequential search, which keeps
+        // paging via `searchAfter` correct.
+        return TopDocs.merge(sort, batchSize, topDocs);
+    }
+
+    private static void searchLeaves(List<LeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
+        for (LeafReaderContext leaf : leaves) {
+            LeafCollector leafCollector;
+            try {
+                leafCollector = collector.getLeafCollector(leaf);
+            } catch (CollectionTerminatedException e) {
+                continue;
+            }
+            BulkScorer scorer = weight.bulkScorer(leaf);
+            if (scorer != null) {
+                try {
+                    scorer.score(leafCollector, leaf.reader().getLiveDocs());
+                } catch (CollectionTerminatedException e) {
+                    // collection for this leaf was terminated early, continue with the next one
+                }
+            }
+        }
+    }
+
+    /**
+     * Groups the leaves into up to {@code maxSlices} slices of consecutive leaves,
+     * each containing at least {@code minDocsPerSlice} documents (except for the last one).
+     */
+    static List<List<LeafReaderContext>> slices(List<LeafReaderContext> leaves, int maxSlices, int minDocsPerSlice) {
+        if (maxSlices <= 1 || leaves.size() <= 1) {
+            return List.of(leaves);
+        }
+        long maxDoc = 0;
+        for (LeafReaderContext leaf : leaves) {
+            maxDoc += leaf.reader().maxDoc();
+        }
+        long docsPerSlice = Math.max(minDocsPerSlice, (maxDoc + maxSlices - 1) / maxSlices);
+        ArrayList<List<LeafReaderContext>> slices = new ArrayList<>();
+        ArrayList<LeafReaderContext> currentSlice = new ArrayList<>();
+        long docsInSlice = 0;
+        for (LeafReaderContext leaf : leaves) {
+            currentSlice.add(leaf);
+            docsInSlice += leaf.reader().maxDoc();
+            if (docsInSlice >= docsPerSlice) {
+                slices.add(currentSlice);
+                currentSlice = new ArrayList<>();
+                docsInSlice = 0;
+            }
+        }
+        if (!currentSlice.isEmpty()) {
+            slices.add(currentSlice);
+        }
+        return slices;
     }
 
     private KeyIterable<ShardId, Row> scoreDocToIterable(ScoreDoc[] scoreDocs) {
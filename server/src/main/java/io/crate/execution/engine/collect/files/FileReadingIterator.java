@@ -27,19 +27,17 @@ import io.crate.data.Input;
 import io.crate.data.Row;
 import io.crate.exceptions.Exceptions;
 import io.crate.execution.dsl.phases.FileUriCollectPhase;
+import io.crate.execution.engine.export.ColumnarFormat;
 import io.crate.expression.InputRow;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.net.SocketTimeoutException;
 import java.net.URI;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -79,7 +77,8 @@ public class FileReadingIterator implements BatchIterator<Row> {
     private Tuple<FileInput, UriWithGlob> currentInput = null;
     private Iterator<URI> currentInputIterator = null;
     private URI currentUri;
-    private BufferedReader currentReader = null;
+    private LineReader currentReader = null;
+    private ColumnarFormat.Reader currentColumnarReader = null;
     private long currentLineNumber;
     private final Row row;
     private LineProcessor lineProcessor;
@@ -150,8 +149,16 @@ public class FileReadingIterator implements BatchIterator<Row> {
     public boolean moveNext() {
         raiseIfKilled();
         try {
-            if (currentReader != null) {
-                String line = getLine(currentReader, currentLineNumber, 0);
+            if (currentColumnarReader != null) {
+                Map<String, Object> row = getColumnarRow(currentColumnarReader);
+                if (row == null) {
+                    closeCurrentReader();
+                    return moveNext();
+                }
+                lineProcessor.process(row);
+                return true;
+            } else if (currentReader != null) {
+                byte[] line = getLine(currentReader, currentLineNumber, 0);
                 if (line == null) {
                     closeCurrentReader();
                     return moveNext();
@@ -198,12 +205,28 @@ public class FileReadingIterator implements BatchIterator<Row> {
     private void initCurrentReader(FileInput fileInput, URI uri) throws IOException {
         lineProcessor.startWithUri(uri);
         InputStream stream = fileInput.getStream(uri);
-        currentReader = createBufferedReader(stream);
+        if (compressed) {
+            stream = new GZIPInputStream(stream);
+        }
         currentLineNumber = 0;
-        lineProcessor.readFirstLine(currentUri, inputFormat, currentReader);
+        if (inputFormat == FileUriCollectPhase.InputFormat.COLUMNAR) {
+            // rows are passed on as they are decoded; there are no lines to parse
+            currentColumnarReader = new ColumnarFormat.Reader(stream);
+        } else {
+            currentReader = new LineReader(stream);
+            lineProcessor.readFirstLine(currentUri, inputFormat, currentReader);
+        }
     }
 
     private void closeCurrentReader() {
+        if (currentColumnarReader != null) {
+            try {
+                currentColumnarReader.close();
+            } catch (IOException e) {
+                LOGGER.error("Unable to close reader for {}", e, currentUri);
+            }
+            currentColumnarReader = null;
+        }
         if (currentReader != null) {
             try {
                 currentReader.close();
@@ -214,15 +237,28 @@ public class FileReadingIterator implements BatchIterator<Row> {
         }
     }
 
-    private String getLine(BufferedReader reader, long startFrom, int retry) throws IOException {
-        String line = null;
+    @Nullable
+    private Map<String, Object> getColumnarRow(ColumnarFormat.Reader reader) throws IOException {
+        try {
+            return reader.next();
+        } catch (IOException e) {
+            URI uri = currentInput.v2().uri;
+            LOGGER.info("Error during COPY FROM '{}'", e, uri.toString());
+            // the rest of the input can't be decoded, continue with the next URI
+            closeCurrentReader();
+            throw e;
+        }
+    }
+
+    private byte[] getLine(LineReader reader, long startFrom, int retry) throws IOException {
+        byte[] line = null;
         try {
             while ((line = reader.readLine()) != null) {
                 currentLineNumber++;
                 if (currentLineNumber < startFrom) {
                     continue;
                 }
-                if (line.length() == 0) {
+                if (line.length == 0) {
                     continue;
                 }
                 break;
@@ -359,17 +395,6 @@ public class FileReadingIterator implements BatchIterator<Row> {
         return new URLFileInput(fileUri);
     }
 
-    private BufferedReader createBufferedReader(InputStream inputStream) throws IOException {
-        BufferedReader reader;
-        if (compressed) {
-            reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(inputStream),
-                StandardCharsets.UTF_8));
-        } else {
-            reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
-        }
-        return reader;
-    }
-
     private static List<URI> getUris(FileInput fileInput, URI fileUri, URI preGlobUri, Predicate<URI> uriPredicate) throws IOException {
         List<URI> uris;
         if (preGlobUri != null) {
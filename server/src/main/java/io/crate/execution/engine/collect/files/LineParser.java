@@ -24,10 +24,8 @@ package io.crate.execution.engine.collect.files;
 import io.crate.execution.dsl.phases.FileUriCollectPhase;
 import io.crate.operation.collect.files.CSVLineParser;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.net.URI;
-import java.nio.charset.StandardCharsets;
 
 public class LineParser {
 
@@ -40,7 +38,7 @@ public class LineParser {
         JSON
     }
 
-    public void readFirstLine(URI currentUri, FileUriCollectPhase.InputFormat inputFormat, BufferedReader currentReader) throws IOException {
+    public void readFirstLine(URI currentUri, FileUriCollectPhase.InputFormat inputFormat, LineReader currentReader) throws IOException {
         if (isInputCsv(inputFormat, currentUri)) {
             csvLineParser = new CSVLineParser();
             csvLineParser.parseHeader(currentReader.readLine());
@@ -50,15 +48,16 @@ public class LineParser {
         }
     }
 
-    public byte[] getByteArray(String line) throws IOException {
+    public byte[] getByteArray(byte[] line) throws IOException {
         if (inputType == InputType.CSV) {
             return csvLineParser.parse(line);
         } else {
-            return line.getBytes(StandardCharsets.UTF_8);
+            return line;
         }
     }
 
     private boolean isInputCsv(FileUriCollectPhase.InputFormat inputFormat, URI currentUri) {
-        return (inputFormat == FileUriCollectPhase.InputFormat.CSV) || currentUri.toString().endsWith(".csv");
+        return (inputFormat == FileUriCollectPhase.InputFormat.CSV)
+               || (inputFormat == FileUriCollectPhase.InputFormat.JSON && currentUri.toString().endsWith(".csv"));
     }
 }
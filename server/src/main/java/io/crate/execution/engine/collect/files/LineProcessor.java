@@ -24,9 +24,9 @@ package io.crate.execution.engine.collect.files;
 import io.crate.execution.dsl.phases.FileUriCollectPhase.InputFormat;
 import io.crate.expression.reference.file.LineContext;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.net.URI;
+import java.util.Map;
 
 public final class LineProcessor {
 
@@ -44,16 +44,21 @@ public final class LineProcessor {
         lineContext.currentUri(currentUri);
     }
 
-    void readFirstLine(URI currentUri, InputFormat inputFormat, BufferedReader currentReader) throws IOException {
+    void readFirstLine(URI currentUri, InputFormat inputFormat, LineReader currentReader) throws IOException {
         lineParser.readFirstLine(currentUri, inputFormat, currentReader);
     }
 
-    public void process(String line) throws IOException {
+    public void process(byte[] line) throws IOException {
         lineContext.incrementCurrentLineNumber();
         byte[] jsonByteArray = lineParser.getByteArray(line);
         lineContext.rawSource(jsonByteArray);
     }
 
+    public void process(Map<String, Object> row) {
+        lineContext.incrementCurrentLineNumber();
+        lineContext.parsedSource(row);
+    }
+
     public void setFailure(String failure) {
         lineContext.setCurrentUriFailure(failure);
     }
@@ -0,0 +1,178 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect.files;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads lines from an {@link InputStream} as raw bytes.
+ *
+ * Unlike {@link java.io.BufferedReader#readLine()} the lines are not decoded into Strings. The input is expected to
+ * be UTF-8 encoded; Multi-byte UTF-8 sequences never contain the line terminator bytes,
+ * so the lines can be split on the byte level and passed on without decoding and re-encoding them.
+ *
+ * A line is terminated by a line feed ('\n'), a carriage return ('\r') or a carriage return followed by a line feed.
+ * The terminator is not part of the returned line.
+ *
+ * Like a {@link java.io.InputStreamReader} malformed UTF-8 sequences are replaced with U+FFFD, so that invalid
+ * input results in the same values as before instead of parsing errors.
+ */
+public final class LineReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private final byte[] buffer;
+    private int pos = 0;
+    private int limit = 0;
+    private boolean skipLF = false;
+
+    private byte[] partialLine = new byte[128];
+    private int partialLineLength = 0;
+
+    public LineReader(InputStream in) {
+        this(in, BUFFER_SIZE);
+    }
+
+    public LineReader(InputStream in, int bufferSize) {
+        this.in = in;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * @return the next line without the line terminator or null if the end of the stream has been reached.
+     */
+    @Nullable
+    public byte[] readLine() throws IOException {
+        byte[] line = readRawLine();
+        if (line == null || isValidUtf8(line)) {
+            return line;
+        }
+        return new String(line, StandardCharsets.UTF_8).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Nullable
+    private byte[] readRawLine() throws IOException {
+        boolean hasPartialLine = false;
+        partialLineLength = 0;
+        while (true) {
+            if (pos >= limit && !fill()) {
+                return hasPartialLine ? Arrays.copyOf(partialLine, partialLineLength) : null;
+            }
+            if (skipLF) {
+                skipLF = false;
+                if (buffer[pos] == '\n') {
+                    pos++;
+                    continue;
+                }
+            }
+            int start = pos;
+            while (pos < limit) {
+                byte b = buffer[pos];
+                if (b == '\n' || b == '\r') {
+                    int end = pos;
+                    pos++;
+                    skipLF = b == '\r';
+                    if (hasPartialLine) {
+                        appendToPartialLine(start, end);
+                        return Arrays.copyOf(partialLine, partialLineLength);
+                    }
+                    return Arrays.copyOfRange(buffer, start, end);
+                }
+                pos++;
+            }
+            // The line continues beyond the current buffer
+            appendToPartialLine(start, pos);
+            hasPartialLine = true;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        pos = 0;
+        limit = read;
+        return true;
+    }
+
+    private void appendToPartialLine(int start, int end) {
+        int length = end - start;
+        int required = partialLineLength + length;
+        if (required > partialLine.length) {
+            partialLine = Arrays.copyOf(partialLine, Math.max(required, partialLine.length * 2));
+        }
+        System.arraycopy(buffer, start, partialLine, partialLineLength, length);
+        partialLineLength = required;
+    }
+
+    static boolean isValidUtf8(byte[] bytes) {
+        int i = 0;
+        while (i < bytes.length) {
+            int lead = bytes[i] & 0xFF;
+            if (lead < 0x80) {
+                i++;
+                continue;
+            }
+            final int numContinuationBytes;
+            if (lead >= 0xC2 && lead <= 0xDF) {
+                numContinuationBytes = 1;
+            } else if (lead >= 0xE0 && lead <= 0xEF) {
+                numContinuationBytes = 2;
+            } else if (lead >= 0xF0 && lead <= 0xF4) {
+                numContinuationBytes = 3;
+            } else {
+                return false;
+            }
+            if (i + numContinuationBytes >= bytes.length) {
+                return false;
+            }
+            int second = bytes[i + 1] & 0xFF;
+            // Reject overlong encodings, surrogates and code points above U+10FFFF
+            if ((lead == 0xE0 && second < 0xA0)
+                || (lead == 0xED && second > 0x9F)
+                || (lead == 0xF0 && second < 0x90)
+                || (lead == 0xF4 && second > 0x8F)) {
+                return false;
+            }
+            for (int j = 1; j <= numContinuationBytes; j++) {
+                if ((bytes[i + j] & 0xC0) != 0x80) {
+                    return false;
+                }
+            }
+            i += numContinuationBytes + 1;
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
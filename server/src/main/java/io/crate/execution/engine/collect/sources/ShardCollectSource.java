@@ -81,6 +81,7 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.PageCacheRecycler;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexNotFoundException;
 import org.elasticsearch.index.IndexService;
@@ -172,7 +173,8 @@ public class ShardCollectSource implements CollectSource {
                               IndexEventListenerProxy indexEventListenerProxy,
                               BlobIndicesService blobIndicesService,
                               PageCacheRecycler pageCacheRecycler,
-                              CircuitBreakerService circuitBreakerService) {
+                              CircuitBreakerService circuitBreakerService,
+                              NodeEnvironment nodeEnvironment) {
         this.unassignedShardReferenceResolver = new StaticTableReferenceResolver<>(
             SysShardsTableInfo.unassignedShardsExpressions());
         this.shardReferenceResolver = new StaticTableReferenceResolver<>(SysShardsTableInfo.create().expressions());
@@ -194,7 +196,8 @@ public class ShardCollectSource implements CollectSource {
             functions,
             luceneQueryBuilder,
             nodeJobsCounter,
-            bigArrays);
+            bigArrays,
+            nodeEnvironment.spillPath());
         EvaluatingNormalizer nodeNormalizer = new EvaluatingNormalizer(
             functions,
             RowGranularity.DOC,
@@ -211,7 +214,8 @@ public class ShardCollectSource implements CollectSource {
             inputFactory,
             nodeNormalizer,
             systemCollectSource::getRowUpdater,
-            systemCollectSource::tableDefinition
+            systemCollectSource::tableDefinition,
+            nodeEnvironment.spillPath()
         );
 
         indexEventListenerProxy.addLast(new LifecycleListener());
@@ -38,6 +38,9 @@ import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import javax.annotation.Nullable;
+import java.nio.file.Path;
+
 import static io.crate.blob.v2.BlobIndex.isBlobIndex;
 
 public class ShardCollectorProviderFactory {
@@ -53,6 +56,8 @@ public class ShardCollectorProviderFactory {
     private final NodeJobsCounter nodeJobsCounter;
     private final BigArrays bigArrays;
     private final Settings settings;
+    @Nullable
+    private final Path spillDirectory;
 
     ShardCollectorProviderFactory(ClusterService clusterService,
                                   Settings settings,
@@ -63,7 +68,8 @@ public class ShardCollectorProviderFactory {
                                   Functions functions,
                                   LuceneQueryBuilder luceneQueryBuilder,
                                   NodeJobsCounter nodeJobsCounter,
-                                  BigArrays bigArrays) {
+                                  BigArrays bigArrays,
+                                  @Nullable Path spillDirectory) {
         this.settings = settings;
         this.schemas = schemas;
         this.clusterService = clusterService;
@@ -74,6 +80,7 @@ public class ShardCollectorProviderFactory {
         this.luceneQueryBuilder = luceneQueryBuilder;
         this.nodeJobsCounter = nodeJobsCounter;
         this.bigArrays = bigArrays;
+        this.spillDirectory = spillDirectory;
     }
 
     public ShardCollectorProvider create(IndexShard indexShard) {
@@ -100,7 +107,8 @@ public class ShardCollectorProviderFactory {
                 settings,
                 transportActionProvider,
                 indexShard,
-                bigArrays);
+                bigArrays,
+                spillDirectory);
         }
     }
 }
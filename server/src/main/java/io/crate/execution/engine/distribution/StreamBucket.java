@@ -27,7 +27,12 @@ import io.crate.breaker.RamAccounting;
 import io.crate.data.Bucket;
 import io.crate.data.Row;
 import io.crate.data.RowN;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteArrayDataOutput;
 import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.compress.LZ4;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -45,6 +50,14 @@ import static java.util.Objects.requireNonNull;
 
 public class StreamBucket implements Bucket, Writeable {
 
+    /**
+     * Buckets smaller than this are sent uncompressed, as the compression wouldn't pay off.
+     */
+    static final int COMPRESSION_THRESHOLD_IN_BYTES = 4 * 1024;
+
+    private static final byte ENCODING_PLAIN = 0;
+    private static final byte ENCODING_LZ4 = 1;
+
     private Streamer<?>[] streamers;
     private int size = -1;
     private BytesReference bytes;
@@ -201,7 +214,12 @@ public class StreamBucket implements Bucket, Writeable {
     public StreamBucket(StreamInput in) throws IOException {
         size = in.readVInt();
         if (size > 0) {
-            bytes = in.readBytesReference();
+            if (in.getVersion().onOrAfter(Version.V_4_3_0) && in.readByte() == ENCODING_LZ4) {
+                int uncompressedLength = in.readVInt();
+                bytes = decompress(in.readBytesReference(), uncompressedLength);
+            } else {
+                bytes = in.readBytesReference();
+            }
         }
     }
 
@@ -217,7 +235,42 @@ public class StreamBucket implements Bucket, Writeable {
         assert size > -1 : "size must be > -1";
         out.writeVInt(size);
         if (size > 0) {
-            out.writeBytesReference(bytes);
+            if (out.getVersion().onOrAfter(Version.V_4_3_0)) {
+                BytesReference compressed = bytes.length() < COMPRESSION_THRESHOLD_IN_BYTES ? null : compress(bytes);
+                if (compressed == null) {
+                    out.writeByte(ENCODING_PLAIN);
+                    out.writeBytesReference(bytes);
+                } else {
+                    out.writeByte(ENCODING_LZ4);
+                    out.writeVInt(bytes.length());
+                    out.writeBytesReference(compressed);
+                }
+            } else {
+                out.writeBytesReference(bytes);
+            }
         }
     }
+
+    /**
+     * @return the LZ4 compressed bytes or null if compressing doesn't reduce the size.
+     */
+    @Nullable
+    private static BytesReference compress(BytesReference bytes) throws IOException {
+        byte[] uncompressed = BytesReference.toBytes(bytes);
+        // LZ4 worst case for incompressible input
+        byte[] compressed = new byte[uncompressed.length + uncompressed.length / 255 + 16];
+        ByteArrayDataOutput out = new ByteArrayDataOutput(compressed);
+        LZ4.compress(uncompressed, 0, uncompressed.length, out, new LZ4.FastCompressionHashTable());
+        if (out.getPosition() >= uncompressed.length) {
+            return null;
+        }
+        return new BytesArray(compressed, 0, out.getPosition());
+    }
+
+    private static BytesReference decompress(BytesReference compressed, int uncompressedLength) throws IOException {
+        byte[] compressedBytes = BytesReference.toBytes(compressed);
+        byte[] uncompressed = new byte[uncompressedLength];
+        LZ4.decompress(new ByteArrayDataInput(compressedBytes), uncompressedLength, uncompressed, 0);
+        return new BytesArray(uncompressed);
+    }
 }
@@ -0,0 +1,286 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.export;
+
+import io.crate.Streamer;
+import io.crate.common.annotations.VisibleForTesting;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteArrayDataOutput;
+import org.apache.lucene.util.compress.LZ4;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A self-describing, columnar binary file format used by `COPY TO` and `COPY FROM` with `format = 'columnar'`.
+ *
+ * <pre>
+ * file         := MAGIC VERSION rowGroup* numRows(vint = 0)
+ * rowGroup     := numRows(vint > 0) numColumns(vint) columnChunk*
+ * columnChunk  := name(string) type encoding(byte) length(vint) [compressedLength(vint)] bytes
+ * </pre>
+ *
+ * Rows are buffered and written in row groups of {@link #ROWS_PER_ROW_GROUP} rows.
+ * Each row group contains the union of the top-level columns of its rows.
+ * Within a column chunk every row is written as a presence flag followed by the value, using the
+ * {@link Streamer} of the column type. This preserves the types of the values and distinguishes a
+ * missing column from a `null` value.
+ * The column type is either provided by the writer or derived from the values of the row group.
+ * Column chunks are LZ4 compressed if that reduces their size.
+ */
+public final class ColumnarFormat {
+
+    private static final byte[] MAGIC = new byte[] {'C', 'R', 'C', 'F'};
+    private static final byte VERSION = 1;
+
+    @VisibleForTesting
+    static final int ROWS_PER_ROW_GROUP = 8192;
+
+    private static final byte ENCODING_PLAIN = 0;
+    private static final byte ENCODING_LZ4 = 1;
+
+    private ColumnarFormat() {
+    }
+
+    public static final class Writer implements Closeable {
+
+        private final StreamOutput out;
+        private final Map<String, DataType<?>> columnTypes;
+        private final List<Map<String, Object>> rows = new ArrayList<>();
+        private final BytesStreamOutput chunk = new BytesStreamOutput();
+        private final LZ4.FastCompressionHashTable hashTable = new LZ4.FastCompressionHashTable();
+
+        public Writer(OutputStream outputStream) throws IOException {
+            this(outputStream, Map.of());
+        }
+
+        /**
+         * @param columnTypes the types of the columns that are known upfront.
+         *                    The types of other columns are derived from their values.
+         */
+        public Writer(OutputStream outputStream, Map<String, DataType<?>> columnTypes) throws IOException {
+            this.out = new OutputStreamStreamOutput(outputStream);
+            this.columnTypes = columnTypes;
+            out.writeBytes(MAGIC);
+            out.writeByte(VERSION);
+        }
+
+        public void write(Map<String, Object> row) throws IOException {
+            rows.add(row);
+            if (rows.size() >= ROWS_PER_ROW_GROUP) {
+                writeRowGroup();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void writeRowGroup() throws IOException {
+            if (rows.isEmpty()) {
+                return;
+            }
+            LinkedHashSet<String> columns = new LinkedHashSet<>();
+            for (Map<String, Object> row : rows) {
+                columns.addAll(row.keySet());
+            }
+            out.writeVInt(rows.size());
+            out.writeVInt(columns.size());
+            for (String column : columns) {
+                DataType<Object> type = (DataType<Object>) columnTypes.get(column);
+                boolean convert = type == null;
+                if (convert) {
+                    type = (DataType<Object>) guessType(column);
+                }
+                Streamer<Object> streamer = type.streamer();
+                chunk.reset();
+                for (Map<String, Object> row : rows) {
+                    boolean present = row.containsKey(column);
+                    chunk.writeBoolean(present);
+                    if (present) {
+                        Object value = row.get(column);
+                        streamer.writeValueTo(chunk, convert ? type.value(value) : value);
+                    }
+                }
+                out.writeString(column);
+                DataTypes.toStream(type, out);
+                writeChunk(BytesReference.toBytes(chunk.bytes()));
+            }
+            rows.clear();
+        }
+
+        /**
+         * @return the type of all non-null values of the column within the current row group or
+         *         {@link DataTypes#UNDEFINED} if the values are of different or unknown types.
+         */
+        private DataType<?> guessType(String column) {
+            DataType<?> type = DataTypes.UNDEFINED;
+            for (Map<String, Object> row : rows) {
+                Object value = row.get(column);
+                if (value == null) {
+                    continue;
+                }
+                DataType<?> valueType;
+                try {
+                    valueType = DataTypes.guessType(value);
+                } catch (IllegalArgumentException e) {
+                    // arrays with mixed types
+                    return DataTypes.UNDEFINED;
+                }
+                if (valueType == null) {
+                    return DataTypes.UNDEFINED;
+                }
+                if (type.id() == DataTypes.UNDEFINED.id()) {
+                    type = valueType;
+                } else if (!type.equals(valueType)) {
+                    return DataTypes.UNDEFINED;
+                }
+            }
+            return type;
+        }
+
+        private void writeChunk(byte[] bytes) throws IOException {
+            // LZ4 worst case for incompressible input
+            byte[] compressed = new byte[bytes.length + bytes.length / 255 + 16];
+            ByteArrayDataOutput compressedOut = new ByteArrayDataOutput(compressed);
+            LZ4.compress(bytes, 0, bytes.length, compressedOut, hashTable);
+            if (compressedOut.getPosition() < bytes.length) {
+                out.writeByte(ENCODING_LZ4);
+                out.writeVInt(bytes.length);
+                out.writeVInt(compressedOut.getPosition());
+                out.writeBytes(compressed, 0, compressedOut.getPosition());
+            } else {
+                out.writeByte(ENCODING_PLAIN);
+                out.writeVInt(bytes.length);
+                out.writeBytes(bytes);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            writeRowGroup();
+            out.writeVInt(0);
+            out.close();
+        }
+    }
+
+    public static final class Reader implements Closeable {
+
+        private final StreamInput in;
+        private String[] columns = new String[0];
+        private Streamer<?>[] streamers = new Streamer<?>[0];
+        private StreamInput[] chunks = new StreamInput[0];
+        private int rowsInGroup = 0;
+        private int rowInGroup = 0;
+        private boolean exhausted = false;
+
+        public Reader(InputStream inputStream) throws IOException {
+            this.in = new InputStreamStreamInput(inputStream);
+            byte[] magic = new byte[MAGIC.length];
+            in.readBytes(magic, 0, magic.length);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Input is not in the columnar format");
+            }
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported columnar format version: " + version);
+            }
+        }
+
+        /**
+         * @return the next row or null if all rows have been read.
+         */
+        @Nullable
+        public Map<String, Object> next() throws IOException {
+            if (rowInGroup >= rowsInGroup && !readRowGroup()) {
+                return null;
+            }
+            LinkedHashMap<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < columns.length; i++) {
+                StreamInput chunk = chunks[i];
+                if (chunk.readBoolean()) {
+                    row.put(columns[i], streamers[i].readValueFrom(chunk));
+                }
+            }
+            rowInGroup++;
+            return row;
+        }
+
+        private boolean readRowGroup() throws IOException {
+            if (exhausted) {
+                return false;
+            }
+            int numRows = in.readVInt();
+            if (numRows == 0) {
+                exhausted = true;
+                return false;
+            }
+            int numColumns = in.readVInt();
+            columns = new String[numColumns];
+            streamers = new Streamer<?>[numColumns];
+            chunks = new StreamInput[numColumns];
+            for (int i = 0; i < numColumns; i++) {
+                columns[i] = in.readString();
+                streamers[i] = DataTypes.fromStream(in).streamer();
+                chunks[i] = StreamInput.wrap(readChunk());
+            }
+            rowsInGroup = numRows;
+            rowInGroup = 0;
+            return true;
+        }
+
+        private byte[] readChunk() throws IOException {
+            byte encoding = in.readByte();
+            int length = in.readVInt();
+            if (encoding == ENCODING_LZ4) {
+                byte[] compressed = new byte[in.readVInt()];
+                in.readBytes(compressed, 0, compressed.length);
+                byte[] uncompressed = new byte[length];
+                LZ4.decompress(new ByteArrayDataInput(compressed), length, uncompressed, 0);
+                return uncompressed;
+            }
+            byte[] bytes = new byte[length];
+            in.readBytes(bytes, 0, length);
+            return bytes;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -33,9 +33,12 @@ import io.crate.exceptions.UnsupportedFeatureException;
 import io.crate.execution.dsl.projection.WriterProjection;
 import io.crate.execution.engine.collect.CollectExpression;
 import io.crate.metadata.ColumnIdent;
+import io.crate.types.DataType;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
@@ -45,6 +48,7 @@ import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
@@ -67,6 +71,8 @@ public class FileWriterCountCollector implements Collector<Row, long[], Iterable
 
     private final Iterable<CollectExpression<Row, ?>> collectExpressions;
     private final List<Input<?>> inputs;
+    @Nullable
+    private final List<DataType<?>> inputTypes;
     private final Map<String, Object> overwrites;
     @Nullable
     private final List<String> outputNames;
@@ -79,12 +85,14 @@ public class FileWriterCountCollector implements Collector<Row, long[], Iterable
                              String uri,
                              @Nullable WriterProjection.CompressionType compressionType,
                              @Nullable List<Input<?>> inputs,
+                             @Nullable List<DataType<?>> inputTypes,
                              Iterable<CollectExpression<Row, ?>> collectExpressions,
                              Map<ColumnIdent, Object> overwrites,
                              @Nullable List<String> outputNames,
                              WriterProjection.OutputFormat outputFormat) {
         this.collectExpressions = collectExpressions;
         this.inputs = inputs;
+        this.inputTypes = inputTypes;
         this.overwrites = toNestedStringObjectMap(overwrites);
         this.outputNames = outputNames;
         this.outputFormat = outputFormat;
@@ -144,7 +152,10 @@ public class FileWriterCountCollector implements Collector<Row, long[], Iterable
 
     private RowWriter initWriter() {
         try {
-            if (!overwrites.isEmpty()) {
+            if (outputFormat.equals(WriterProjection.OutputFormat.COLUMNAR)) {
+                return new ColumnarRowWriter(
+                    output.acquireOutputStream(), collectExpressions, inputs, inputTypes, outputNames, overwrites);
+            } else if (!overwrites.isEmpty()) {
                 return new DocWriter(
                     output.acquireOutputStream(), collectExpressions, overwrites);
             } else if (outputFormat.equals(WriterProjection.OutputFormat.JSON_ARRAY)) {
@@ -352,4 +363,73 @@ public class FileWriterCountCollector implements Collector<Row, long[], Iterable
             }
         }
     }
+
+    static class ColumnarRowWriter implements RowWriter {
+
+        private final Iterable<CollectExpression<Row, ?>> collectExpressions;
+        @Nullable
+        private final List<Input<?>> inputs;
+        @Nullable
+        private final List<String> outputNames;
+        private final Map<String, Object> overwrites;
+        private final ColumnarFormat.Writer writer;
+
+        ColumnarRowWriter(OutputStream outputStream,
+                          Iterable<CollectExpression<Row, ?>> collectExpressions,
+                          @Nullable List<Input<?>> inputs,
+                          @Nullable List<DataType<?>> inputTypes,
+                          @Nullable List<String> outputNames,
+                          Map<String, Object> overwrites) throws IOException {
+            assert inputs == null || (outputNames != null && outputNames.size() == inputs.size())
+                : "Each input must have an output name";
+            assert inputs == null || (inputTypes != null && inputTypes.size() == inputs.size())
+                : "Each input must have a type";
+            this.collectExpressions = collectExpressions;
+            this.inputs = inputs;
+            this.outputNames = outputNames;
+            this.overwrites = overwrites;
+            Map<String, DataType<?>> columnTypes = new HashMap<>();
+            if (inputs != null) {
+                for (int i = 0; i < inputs.size(); i++) {
+                    columnTypes.put(outputNames.get(i), inputTypes.get(i));
+                }
+            }
+            this.writer = new ColumnarFormat.Writer(outputStream, columnTypes);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void write(Row row) {
+            for (CollectExpression<Row, ?> collectExpression : collectExpressions) {
+                collectExpression.setNextRow(row);
+            }
+            Map<String, Object> values;
+            if (inputs != null) {
+                values = new LinkedHashMap<>();
+                for (int i = 0; i < inputs.size(); i++) {
+                    values.put(outputNames.get(i), inputs.get(i).value());
+                }
+            } else {
+                Object source = row.get(0);
+                if (source instanceof Map) {
+                    values = new LinkedHashMap<>((Map<String, Object>) source);
+                } else {
+                    values = XContentHelper.convertToMap(new BytesArray((String) source), true, XContentType.JSON).v2();
+                }
+                if (!overwrites.isEmpty()) {
+                    XContentHelper.update(values, overwrites, false);
+                }
+            }
+            try {
+                writer.write(values);
+            } catch (IOException e) {
+                throw new UnhandledServerException("Failed to write row to output", e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
 }
@@ -30,6 +30,7 @@ import io.crate.data.Row;
 import io.crate.execution.dsl.projection.WriterProjection;
 import io.crate.execution.engine.collect.CollectExpression;
 import io.crate.metadata.ColumnIdent;
+import io.crate.types.DataType;
 
 import javax.annotation.Nullable;
 import java.util.List;
@@ -41,6 +42,8 @@ public class FileWriterProjector implements Projector {
     private final String uri;
     private final Iterable<CollectExpression<Row, ?>> collectExpressions;
     private final List<Input<?>> inputs;
+    @Nullable
+    private final List<DataType<?>> inputTypes;
     private final Map<ColumnIdent, Object> overwrites;
     @Nullable
     private final List<String> outputNames;
@@ -55,11 +58,13 @@ public class FileWriterProjector implements Projector {
      *               That raw source is then written to the output
      *               <p/>
      *               If inputs is not null the inputs are consumed to write a JSON array to the output.
+     * @param inputTypes the types of the inputs; must be provided if inputs is not null.
      */
     public FileWriterProjector(Executor executor,
                                String uri,
                                @Nullable WriterProjection.CompressionType compressionType,
                                @Nullable List<Input<?>> inputs,
+                               @Nullable List<DataType<?>> inputTypes,
                                Iterable<CollectExpression<Row, ?>> collectExpressions,
                                Map<ColumnIdent, Object> overwrites,
                                @Nullable List<String> outputNames,
@@ -67,6 +72,7 @@ public class FileWriterProjector implements Projector {
         this.collectExpressions = collectExpressions;
         this.executor = executor;
         this.inputs = inputs;
+        this.inputTypes = inputTypes;
         this.overwrites = overwrites;
         this.outputNames = outputNames;
         this.outputFormat = outputFormat;
@@ -83,6 +89,7 @@ public class FileWriterProjector implements Projector {
                 uri,
                 compressionType,
                 inputs,
+                inputTypes,
                 collectExpressions,
                 overwrites,
                 outputNames,
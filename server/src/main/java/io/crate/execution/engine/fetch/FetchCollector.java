@@ -25,9 +25,14 @@ package io.crate.execution.engine.fetch;
 import java.io.IOException;
 import java.util.List;
 
+import javax.annotation.Nullable;
+
 import com.carrotsearch.hppc.IntContainer;
-import com.carrotsearch.hppc.cursors.IntCursor;
 
+import org.apache.lucene.codecs.StoredFieldsReader;
+import org.apache.lucene.index.CodecReader;
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.ReaderUtil;
 import org.elasticsearch.index.engine.Engine;
@@ -39,14 +44,22 @@ import io.crate.execution.engine.distribution.StreamBucket;
 import io.crate.expression.InputRow;
 import io.crate.expression.reference.doc.lucene.CollectorContext;
 import io.crate.expression.reference.doc.lucene.LuceneCollectorExpression;
+import io.crate.expression.reference.doc.lucene.SourceLookup;
 
 class FetchCollector {
 
+    /**
+     * Minimum number of ascending docs within a segment to read their stored fields
+     * with a sequential reader; see {@link #useSequentialReader(int[], int, int)}
+     */
+    private static final int SEQUENTIAL_READER_MIN_DOCS = 10;
+
     private final LuceneCollectorExpression[] collectorExpressions;
     private final InputRow row;
     private final Streamer<?>[] streamers;
     private final List<LeafReaderContext> readerContexts;
     private final RamAccounting ramAccounting;
+    private final SourceLookup sourceLookup;
 
     FetchCollector(List<LuceneCollectorExpression<?>> collectorExpressions,
                    Streamer<?>[] streamers,
@@ -62,30 +75,79 @@ class FetchCollector {
         for (LuceneCollectorExpression<?> collectorExpression : this.collectorExpressions) {
             collectorExpression.startCollect(collectorContext);
         }
+        this.sourceLookup = collectorContext.sourceLookup();
         this.row = new InputRow(collectorExpressions);
 
     }
 
-    private void setNextDocId(LeafReaderContext readerContext, int doc) throws IOException {
+    private void setNextReader(LeafReaderContext readerContext) throws IOException {
         for (LuceneCollectorExpression<?> e : collectorExpressions) {
             e.setNextReader(readerContext);
+        }
+    }
+
+    private void setNextDocId(int doc) {
+        for (LuceneCollectorExpression<?> e : collectorExpressions) {
             e.setNextDocId(doc);
         }
     }
 
+    /**
+     * Collects the docs in the order of {@code docIds}.
+     * Ascending docs of the same segment are collected as one run, so that the expressions
+     * switch to each segment once if all docs are in ascending order (as requested by {@link ReaderBucket}).
+     */
     public StreamBucket collect(IntContainer docIds) {
         StreamBucket.Builder builder = new StreamBucket.Builder(streamers, ramAccounting);
-        for (IntCursor cursor : docIds) {
-            int docId = cursor.value;
-            int readerIndex = ReaderUtil.subIndex(docId, readerContexts);
-            LeafReaderContext subReaderContext = readerContexts.get(readerIndex);
+        int[] docs = docIds.toArray();
+        int runStart = 0;
+        while (runStart < docs.length) {
+            LeafReaderContext subReaderContext = readerContexts.get(ReaderUtil.subIndex(docs[runStart], readerContexts));
+            int docBase = subReaderContext.docBase;
+            int docEnd = docBase + subReaderContext.reader().maxDoc();
+            int runEnd = runStart + 1;
+            while (runEnd < docs.length && docs[runEnd] > docs[runEnd - 1] && docs[runEnd] < docEnd) {
+                runEnd++;
+            }
             try {
-                setNextDocId(subReaderContext, docId - subReaderContext.docBase);
+                setNextReader(subReaderContext);
+                sourceLookup.setStoredFieldsReader(
+                    subReaderContext,
+                    useSequentialReader(docs, runStart, runEnd) ? sequentialReader(subReaderContext.reader()) : null
+                );
             } catch (IOException e) {
                 Exceptions.rethrowRuntimeException(e);
             }
-            builder.add(row);
+            for (int i = runStart; i < runEnd; i++) {
+                setNextDocId(docs[i] - docBase);
+                builder.add(row);
+            }
+            runStart = runEnd;
         }
+        sourceLookup.setStoredFieldsReader(null, null);
         return builder.build();
     }
+
+    /**
+     * A sequential reader decompresses whole blocks of stored fields and keeps the last one around.
+     * This pays off if most blocks contain several of the (ascending) docs,
+     * but is wasteful for a few docs spread over the segment.
+     */
+    private static boolean useSequentialReader(int[] docs, int from, int to) {
+        int numDocs = to - from;
+        if (numDocs < SEQUENTIAL_READER_MIN_DOCS) {
+            return false;
+        }
+        int span = docs[to - 1] - docs[from] + 1;
+        return span <= numDocs * 2;
+    }
+
+    @Nullable
+    private static StoredFieldsReader sequentialReader(LeafReader reader) {
+        LeafReader unwrapped = FilterLeafReader.unwrap(reader);
+        if (unwrapped instanceof CodecReader) {
+            return ((CodecReader) unwrapped).getFieldsReader().getMergeInstance();
+        }
+        return null;
+    }
 }
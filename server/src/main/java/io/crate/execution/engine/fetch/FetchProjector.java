@@ -33,6 +33,12 @@ import io.crate.metadata.TransactionContext;
 
 public final class FetchProjector {
 
+    /**
+     * Number of pages that are fetched concurrently.
+     * While the rows of one page are consumed, the next page is already fetched from all nodes.
+     */
+    private static final int MAX_PAGES_IN_FLIGHT = 2;
+
     public static Projector create(FetchProjection projection,
                                    TransactionContext txnCtx,
                                    Functions functions,
@@ -53,7 +59,8 @@ public final class FetchProjector {
             );
             return new AsyncFlatMapBatchIterator<>(
                 buckets,
-                new FetchMapper(fetchOperation, projection.nodeReaders())
+                new FetchMapper(fetchOperation, projection.nodeReaders()),
+                MAX_PAGES_IN_FLIGHT
             );
         };
     }
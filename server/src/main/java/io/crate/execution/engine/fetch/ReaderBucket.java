@@ -22,11 +22,13 @@
 
 package io.crate.execution.engine.fetch;
 
+import com.carrotsearch.hppc.IntArrayList;
 import com.carrotsearch.hppc.IntObjectHashMap;
-import com.carrotsearch.hppc.cursors.IntCursor;
 import io.crate.data.Bucket;
 import io.crate.data.Row;
 
+import javax.annotation.Nullable;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Locale;
 
@@ -34,11 +36,30 @@ class ReaderBucket {
 
     final IntObjectHashMap<Object[]> docs = new IntObjectHashMap<>();
 
+    @Nullable
+    private IntArrayList sortedDocs;
+
     ReaderBucket() {
     }
 
     void require(int doc) {
-        docs.putIfAbsent(doc, null);
+        if (docs.putIfAbsent(doc, null)) {
+            sortedDocs = null;
+        }
+    }
+
+    /**
+     * The required docs in ascending order. Fetching them in this order allows the
+     * collector to visit every segment once and to read its stored fields sequentially.
+     * The fetched rows must be provided to {@link #fetched(Bucket)} in the same order.
+     */
+    IntArrayList sortedDocs() {
+        if (sortedDocs == null) {
+            int[] keys = docs.keys().toArray();
+            Arrays.sort(keys);
+            sortedDocs = IntArrayList.from(keys);
+        }
+        return sortedDocs;
     }
 
     Object[] get(int doc) {
@@ -50,8 +71,9 @@ class ReaderBucket {
             : String.format(Locale.ENGLISH, "requested %d docs but got %d", docs.size(), bucket.size());
 
         Iterator<Row> rowIterator = bucket.iterator();
-        for (IntCursor intCursor : docs.keys()) {
-            docs.indexReplace(intCursor.index, rowIterator.next().materialize());
+        IntArrayList sortedDocs = sortedDocs();
+        for (int i = 0; i < sortedDocs.elementsCount; i++) {
+            docs.put(sortedDocs.buffer[i], rowIterator.next().materialize());
         }
         assert !rowIterator.hasNext() : "no more rows should exist";
     }
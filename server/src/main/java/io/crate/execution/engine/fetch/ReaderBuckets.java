@@ -122,7 +122,7 @@ public class ReaderBuckets {
         for (IntCursor readerIdCursor : readerIds) {
             ReaderBucket readerBucket = readerBuckets.get(readerIdCursor.value);
             if (readerBucket != null && readerBucket.docs.size() > 0) {
-                toFetch.put(readerIdCursor.value, readerBucket.docs.keys());
+                toFetch.put(readerIdCursor.value, readerBucket.sortedDocs());
             }
         }
         return toFetch;
@@ -0,0 +1,218 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.indexing;
+
+import io.crate.common.annotations.VisibleForTesting;
+import io.crate.execution.jobs.NodeJobsCounter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Adapts the number of items per bulk and the number of concurrent requests per target node to the observed
+ * behaviour of the target nodes.
+ *
+ * Uses additive increase / multiplicative decrease:
+ * Responses of a target node which is not congested increase the limits step by step,
+ * responses of a congested node and rejected executions (the write thread pool queue of the target node is full)
+ * cut them.
+ *
+ * A target node is congested if
+ * <ul>
+ *     <li>the response time per item exceeds the baseline of the node by {@link #LATENCY_TOLERANCE}.
+ *     The baseline is the lowest observed response time per item, which slowly follows the observed values,
+ *     so that it adapts to the row sizes and the hardware.</li>
+ *     <li>or the write thread pool queue of the node is filled above {@link #WRITE_QUEUE_HIGH_WATERMARK}.</li>
+ * </ul>
+ * Responses within {@link #MIN_TARGET_RESPONSE_TIME_NANOS} are never considered slow, small bulks are dominated by
+ * the fixed costs of a request.
+ *
+ * The requests that are in flight when the limits are cut all observe the same overload, so the limits are
+ * cut at most once per decrease window, which is the average response time but at least
+ * {@link #MIN_DECREASE_WINDOW_NANOS}.
+ *
+ * The bulk size stays within [{@link #MIN_BULK_SIZE}, configured bulk size],
+ * the concurrency per node within [1, {@link NodeJobsCounter#MAX_NODE_CONCURRENT_OPERATIONS}].
+ */
+public class AdaptiveBulkLimiter implements Predicate<ShardedRequests<?, ?>> {
+
+    private static final Logger LOGGER = LogManager.getLogger(AdaptiveBulkLimiter.class);
+
+    @VisibleForTesting
+    static final double LATENCY_TOLERANCE = 2.0;
+
+    /**
+     * Weight of a response time per item above the baseline in the baseline.
+     */
+    private static final double BASELINE_DRIFT = 0.01;
+
+    /**
+     * Weight of a response time in the average response time.
+     */
+    private static final double RESPONSE_TIME_SMOOTHING = 0.1;
+
+    @VisibleForTesting
+    static final double WRITE_QUEUE_HIGH_WATERMARK = 0.5;
+
+    @VisibleForTesting
+    static final long MIN_TARGET_RESPONSE_TIME_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @VisibleForTesting
+    static final long MIN_DECREASE_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @VisibleForTesting
+    static final int MIN_BULK_SIZE = 100;
+
+    private static final int MAX_CONCURRENCY = (int) NodeJobsCounter.MAX_NODE_CONCURRENT_OPERATIONS;
+
+    private final int maxBulkSize;
+    private final int minBulkSize;
+    private final int bulkSizeIncrement;
+    private final LongSupplier nanoClock;
+    private final Map<String, Integer> concurrencyByNode = new HashMap<>();
+    private final Map<String, Long> lastDecreaseByNode = new HashMap<>();
+    private final Map<String, Double> baselineNanosPerItemByNode = new HashMap<>();
+    private volatile int bulkSize;
+    private long lastBulkSizeDecreaseNanos;
+    private double avgResponseNanos = 0.0;
+
+    AdaptiveBulkLimiter(int maxBulkSize) {
+        this(maxBulkSize, System::nanoTime);
+    }
+
+    @VisibleForTesting
+    AdaptiveBulkLimiter(int maxBulkSize, LongSupplier nanoClock) {
+        this.maxBulkSize = maxBulkSize;
+        this.minBulkSize = Math.min(MIN_BULK_SIZE, maxBulkSize);
+        this.bulkSizeIncrement = Math.max(1, maxBulkSize / 10);
+        this.bulkSize = maxBulkSize;
+        this.nanoClock = nanoClock;
+        this.lastBulkSizeDecreaseNanos = Long.MIN_VALUE;
+    }
+
+    /**
+     * @return true if the requests reached the current bulk size
+     */
+    @Override
+    public boolean test(ShardedRequests<?, ?> requests) {
+        return requests.numItems() >= bulkSize;
+    }
+
+    int bulkSize() {
+        return bulkSize;
+    }
+
+    /**
+     * @return the number of requests that may be in progress towards the node
+     */
+    synchronized int maxConcurrency(@Nullable String nodeId) {
+        return concurrencyByNode.getOrDefault(nodeId, MAX_CONCURRENCY);
+    }
+
+    /**
+     * @param numItems number of items processed by the request
+     * @param writeQueueSize number of queued tasks in the write thread pool of the node
+     * @param writeQueueCapacity capacity of the write thread pool queue of the node, 0 if unknown or unbounded
+     */
+    synchronized void onResponse(@Nullable String nodeId,
+                                 long tookNanos,
+                                 int numItems,
+                                 int writeQueueSize,
+                                 int writeQueueCapacity) {
+        boolean congested = isSlow(nodeId, tookNanos, numItems)
+                            || (writeQueueCapacity > 0 && writeQueueSize >= writeQueueCapacity * WRITE_QUEUE_HIGH_WATERMARK);
+        int concurrency = concurrencyByNode.getOrDefault(nodeId, MAX_CONCURRENCY);
+        if (congested) {
+            long nowNanos = nanoClock.getAsLong();
+            maybeDecreaseBulkSize(nowNanos);
+            if (mayDecreaseConcurrency(nodeId, nowNanos)) {
+                concurrencyByNode.put(nodeId, Math.max(1, concurrency - 1));
+            }
+        } else {
+            bulkSize = Math.min(maxBulkSize, bulkSize + bulkSizeIncrement);
+            concurrencyByNode.put(nodeId, Math.min(MAX_CONCURRENCY, concurrency + 1));
+        }
+        avgResponseNanos = avgResponseNanos == 0.0
+            ? tookNanos
+            : avgResponseNanos + RESPONSE_TIME_SMOOTHING * (tookNanos - avgResponseNanos);
+    }
+
+    /**
+     * Must be called if a request towards the node got rejected and is going to be retried.
+     */
+    synchronized void onRejection(@Nullable String nodeId) {
+        long nowNanos = nanoClock.getAsLong();
+        maybeDecreaseBulkSize(nowNanos);
+        if (mayDecreaseConcurrency(nodeId, nowNanos)) {
+            int concurrency = concurrencyByNode.getOrDefault(nodeId, MAX_CONCURRENCY);
+            concurrencyByNode.put(nodeId, Math.max(1, concurrency / 2));
+        }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Request to node {} rejected, bulk size is {} and concurrency is {}",
+                nodeId, bulkSize, maxConcurrency(nodeId));
+        }
+    }
+
+    /**
+     * Compares the response time per item against the baseline of the node and updates the baseline.
+     */
+    private boolean isSlow(@Nullable String nodeId, long tookNanos, int numItems) {
+        double nanosPerItem = (double) tookNanos / Math.max(1, numItems);
+        Double baseline = baselineNanosPerItemByNode.get(nodeId);
+        if (baseline == null || nanosPerItem < baseline) {
+            baselineNanosPerItemByNode.put(nodeId, nanosPerItem);
+        } else {
+            baselineNanosPerItemByNode.put(nodeId, baseline + BASELINE_DRIFT * (nanosPerItem - baseline));
+        }
+        return baseline != null
+               && tookNanos > MIN_TARGET_RESPONSE_TIME_NANOS
+               && nanosPerItem > baseline * LATENCY_TOLERANCE;
+    }
+
+    @VisibleForTesting
+    long decreaseWindowNanos() {
+        return Math.max(MIN_DECREASE_WINDOW_NANOS, (long) avgResponseNanos);
+    }
+
+    private void maybeDecreaseBulkSize(long nowNanos) {
+        if (lastBulkSizeDecreaseNanos == Long.MIN_VALUE || nowNanos - lastBulkSizeDecreaseNanos >= decreaseWindowNanos()) {
+            bulkSize = Math.max(minBulkSize, bulkSize / 2);
+            lastBulkSizeDecreaseNanos = nowNanos;
+        }
+    }
+
+    private boolean mayDecreaseConcurrency(@Nullable String nodeId, long nowNanos) {
+        Long lastDecreaseNanos = lastDecreaseByNode.get(nodeId);
+        if (lastDecreaseNanos == null || nowNanos - lastDecreaseNanos >= decreaseWindowNanos()) {
+            lastDecreaseByNode.put(nodeId, nowNanos);
+            return true;
+        }
+        return false;
+    }
+}
@@ -42,6 +42,7 @@ public final class ShardedRequests<TReq extends ShardRequest<TReq, TItem>, TItem
     private final Function<ShardId, TReq> requestFactory;
 
     private int location = -1;
+    private int numItems = 0;
     private long usedMemoryEstimate = 0L;
 
     /**
@@ -56,12 +57,14 @@ public final class ShardedRequests<TReq extends ShardRequest<TReq, TItem>, TItem
      */
     public void add(TItem item, long itemSizeInBytes, String indexName, String routing, RowSourceInfo rowSourceInfo) {
         usedMemoryEstimate += itemSizeInBytes;
+        numItems++;
         List<ItemAndRoutingAndSourceInfo<TItem>> items = itemsByMissingIndex.computeIfAbsent(indexName, k -> new ArrayList<>());
         items.add(new ItemAndRoutingAndSourceInfo<>(item, routing, rowSourceInfo));
     }
 
     public void add(TItem item, long itemSizeInBytes, ShardLocation shardLocation, RowSourceInfo rowSourceInfo) {
         usedMemoryEstimate += itemSizeInBytes;
+        numItems++;
         TReq req = itemsByShard.get(shardLocation);
         if (req == null) {
             req = requestFactory.apply(shardLocation.shardId);
@@ -87,6 +90,13 @@ public final class ShardedRequests<TReq extends ShardRequest<TReq, TItem>, TItem
         return usedMemoryEstimate;
     }
 
+    /**
+     * @return the number of items added, including items for indices which don't exist yet
+     */
+    int numItems() {
+        return numItems;
+    }
+
     public Map<String, List<ItemAndRoutingAndSourceInfo<TItem>>> itemsByMissingIndex() {
         return itemsByMissingIndex;
     }
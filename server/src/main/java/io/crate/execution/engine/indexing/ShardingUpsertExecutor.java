@@ -65,8 +65,6 @@ import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.function.ToLongFunction;
 
-import static io.crate.execution.jobs.NodeJobsCounter.MAX_NODE_CONCURRENT_OPERATIONS;
-
 public class ShardingUpsertExecutor
     implements Function<BatchIterator<Row>, CompletableFuture<? extends Iterable<? extends Row>>> {
 
@@ -87,6 +85,7 @@ public class ShardingUpsertExecutor
     private final BulkRequestExecutor<ShardUpsertRequest> requestExecutor;
     private final TransportCreatePartitionsAction createPartitionsAction;
     private final BulkShardCreationLimiter bulkShardCreationLimiter;
+    private final AdaptiveBulkLimiter adaptiveBulkLimiter;
     private final IsUsedBytesOverThreshold isUsedBytesOverThreshold;
     private final UpsertResultCollector resultCollector;
     private final boolean isDebugEnabled;
@@ -132,6 +131,7 @@ public class ShardingUpsertExecutor
             targetTableNumReplicas,
             clusterService.state().nodes().getDataNodes().size());
         isUsedBytesOverThreshold = new IsUsedBytesOverThreshold();
+        adaptiveBulkLimiter = new AdaptiveBulkLimiter(bulkSize);
         this.resultCollector = upsertResultContext.getResultCollector();
         isDebugEnabled = LOGGER.isDebugEnabled();
     }
@@ -188,9 +188,10 @@ public class ShardingUpsertExecutor
 
             String nodeId = entry.getKey().nodeId;
             nodeJobsCounter.increment(nodeId);
-            ActionListener<ShardResponse> listener =
+            ShardResponseActionListener responseListener =
                 new ShardResponseActionListener(
                     nodeId,
+                    System.nanoTime(),
                     numRequests,
                     interrupt,
                     upsertResults,
@@ -198,15 +199,18 @@ public class ShardingUpsertExecutor
                     rowSourceInfos,
                     resultFuture);
 
-            listener = new RetryListener<>(
+            ActionListener<ShardResponse> listener = new RetryListener<>(
                 scheduler,
                 l -> {
                     if (isDebugEnabled) {
                         LOGGER.debug("Executing retry Listener for nodeId: {} request: {}", nodeId, request);
                     }
+                    // RetryListener only retries on rejected executions
+                    adaptiveBulkLimiter.onRejection(nodeId);
+                    responseListener.startedNanos(System.nanoTime());
                     requestExecutor.execute(request, l);
                 },
-                listener,
+                responseListener,
                 BACKOFF_POLICY
             );
             requestExecutor.execute(request, listener);
@@ -226,7 +230,7 @@ public class ShardingUpsertExecutor
     private boolean shouldPauseOnTargetNodeJobsCounter(ShardedRequests<ShardUpsertRequest, ShardUpsertRequest.Item> requests) {
         for (ShardLocation shardLocation : requests.itemsByShard.keySet()) {
             String requestNodeId = shardLocation.nodeId;
-            if (nodeJobsCounter.getInProgressJobsForNode(requestNodeId) >= MAX_NODE_CONCURRENT_OPERATIONS) {
+            if (nodeJobsCounter.getInProgressJobsForNode(requestNodeId) >= adaptiveBulkLimiter.maxConcurrency(requestNodeId)) {
                 if (isDebugEnabled) {
                     LOGGER.debug("reached maximum concurrent operations for node {}", requestNodeId);
                 }
@@ -254,7 +258,7 @@ public class ShardingUpsertExecutor
             bulkSize,
             () -> new ShardedRequests<>(requestFactory),
             grouper,
-            bulkShardCreationLimiter.or(isUsedBytesOverThreshold)
+            bulkShardCreationLimiter.or(isUsedBytesOverThreshold).or(adaptiveBulkLimiter)
         );
 
         // If IO is involved the source iterator should pause when the target node reaches a concurrent job counter limit.
@@ -283,6 +287,7 @@ public class ShardingUpsertExecutor
 
     private class ShardResponseActionListener implements ActionListener<ShardResponse> {
         private final String operationNodeId;
+        private volatile long startedNanos;
         private final UpsertResultCollector.Accumulator resultAccumulator;
         private final List<RowSourceInfo> rowSourceInfos;
         private final UpsertResults upsertResults;
@@ -291,6 +296,7 @@ public class ShardingUpsertExecutor
         private final CompletableFuture<UpsertResults> upsertResultFuture;
 
         ShardResponseActionListener(String operationNodeId,
+                                    long startedNanos,
                                     AtomicInteger numRequests,
                                     AtomicReference<Exception> interrupt,
                                     UpsertResults upsertResults,
@@ -298,6 +304,7 @@ public class ShardingUpsertExecutor
                                     List<RowSourceInfo> rowSourceInfos,
                                     CompletableFuture<UpsertResults> upsertResultFuture) {
             this.operationNodeId = operationNodeId;
+            this.startedNanos = startedNanos;
             this.numRequests = numRequests;
             this.interrupt = interrupt;
             this.upsertResults = upsertResults;
@@ -306,9 +313,23 @@ public class ShardingUpsertExecutor
             this.upsertResultFuture = upsertResultFuture;
         }
 
+        /**
+         * Must be called if the request is retried, so that only the response time of the last attempt is measured.
+         */
+        void startedNanos(long startedNanos) {
+            this.startedNanos = startedNanos;
+        }
+
         @Override
         public void onResponse(ShardResponse shardResponse) {
             nodeJobsCounter.decrement(operationNodeId);
+            adaptiveBulkLimiter.onResponse(
+                operationNodeId,
+                System.nanoTime() - startedNanos,
+                shardResponse.itemIndices().size(),
+                shardResponse.writeQueueSize(),
+                shardResponse.writeQueueCapacity()
+            );
             resultAccumulator.accept(upsertResults, shardResponse, rowSourceInfos);
             maybeSetInterrupt(shardResponse.failure());
             countdown();
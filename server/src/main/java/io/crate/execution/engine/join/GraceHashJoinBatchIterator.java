@@ -0,0 +1,609 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.join;
+
+import io.crate.Streamer;
+import io.crate.breaker.RowAccounting;
+import io.crate.common.io.IOUtils;
+import io.crate.data.BatchIterator;
+import io.crate.data.Row;
+import io.crate.data.UnsafeArrayRow;
+import io.crate.data.join.CombinedRow;
+import io.crate.data.join.JoinBatchIterator;
+import io.netty.util.collection.IntObjectHashMap;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.io.PathUtils;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Inner hash join which partitions both sides by the hash of the join keys (a "grace" hash join).
+ *
+ * <pre>
+ *     Build Phase:
+ *     for (leftRow in left) {
+ *         add leftRow to its partition
+ *         if (circuit breaker trips or more than blockSize rows are in memory) {
+ *             write the largest in-memory partition to disk,
+ *             subsequent rows of that partition are directly written to disk
+ *         }
+ *     }
+ *     build a hash table out of all partitions which are still in memory
+ *
+ *     Probe Phase:
+ *     for (rightRow in right) {
+ *         if (partition of rightRow has been spilled) {
+ *             write rightRow to disk
+ *         } else {
+ *             emit(rightRow + matches in hash table)
+ *         }
+ *     }
+ *
+ *     Probe Spilled Phase:
+ *     for (spilled partition) {
+ *         if (left rows of the partition don't fit into memory) {
+ *             split both sides of the partition into sub-partitions using the next bits of the hash
+ *         } else {
+ *             build a hash table out of the spilled left rows
+ *             for (spilled right rows of the partition) {
+ *                 emit(rightRow + matches in hash table)
+ *             }
+ *         }
+ *     }
+ * </pre>
+ *
+ * <p>
+ * Unlike {@link HashInnerJoinBatchIterator} both sides are consumed exactly once, regardless of the size of the
+ * left side. At most {@code blockSize} rows of the left side are kept in memory, the block size is re-calculated
+ * for each partition. If the rows of a partition share the same hash, so that it can't be split any further,
+ * the partition is joined block by block, reading its right rows once per block.
+ * </p>
+ */
+public class GraceHashJoinBatchIterator extends JoinBatchIterator<Row, Row, Row> {
+
+    static final int NUM_PARTITIONS = 32;
+
+    private static final int BITS_PER_LEVEL = 5;
+
+    /**
+     * Deepest level of partitioning; each level uses the next {@link #BITS_PER_LEVEL} bits of the mixed hash.
+     */
+    static final int MAX_LEVEL = (Integer.SIZE - BITS_PER_LEVEL) / BITS_PER_LEVEL;
+
+    private enum Phase {
+        BUILD,
+        PROBE,
+        PROBE_SPILLED,
+        DONE
+    }
+
+    private final RowAccounting<Object[]> leftRowAccounting;
+    private final Predicate<Row> joinCondition;
+    private final ToIntFunction<Row> hashBuilderForLeft;
+    private final ToIntFunction<Row> hashBuilderForRight;
+    private final IntSupplier calculateBlockSize;
+    private final Streamer<?>[] leftStreamers;
+    private final Streamer<?>[] rightStreamers;
+    private final Path spillDirectory;
+
+    private final UnsafeArrayRow leftRow = new UnsafeArrayRow();
+    private final UnsafeArrayRow rightRow = new UnsafeArrayRow();
+    private final UnsafeArrayRow unsafeArrayRow = new UnsafeArrayRow();
+
+    /**
+     * In-memory rows of each left partition; null once a partition has been spilled.
+     */
+    private final List<List<Object[]>> leftPartitions = new ArrayList<>(NUM_PARTITIONS);
+    private final RowSpillFile[] leftSpills = new RowSpillFile[NUM_PARTITIONS];
+    private final RowSpillFile[] rightSpills = new RowSpillFile[NUM_PARTITIONS];
+    private final IntObjectHashMap<List<Object[]>> buffer = new IntObjectHashMap<>();
+
+    /**
+     * Spilled partitions which still need to be joined. Sub-partitions are added to the front.
+     */
+    private final Deque<SpilledPartition> spilledPartitions = new ArrayDeque<>();
+
+    private Phase phase;
+    private int blockSize;
+    private int numRowsInMemory;
+    private Iterator<Object[]> leftMatchingRowsIterator;
+
+    @Nullable
+    private SpilledPartition spilledPartition;
+    @Nullable
+    private Iterator<Object[]> spilledLeftRows;
+    @Nullable
+    private Object[] pendingLeftRow;
+    @Nullable
+    private Iterator<Object[]> spilledRightRows;
+
+    public GraceHashJoinBatchIterator(BatchIterator<Row> left,
+                                      BatchIterator<Row> right,
+                                      RowAccounting<Object[]> leftRowAccounting,
+                                      CombinedRow combiner,
+                                      Predicate<Row> joinCondition,
+                                      ToIntFunction<Row> hashBuilderForLeft,
+                                      ToIntFunction<Row> hashBuilderForRight,
+                                      IntSupplier calculateBlockSize,
+                                      Streamer<?>[] leftStreamers,
+                                      Streamer<?>[] rightStreamers,
+                                      @Nullable Path spillDirectory) {
+        super(left, right, combiner);
+        this.leftRowAccounting = leftRowAccounting;
+        this.joinCondition = joinCondition;
+        this.hashBuilderForLeft = hashBuilderForLeft;
+        this.hashBuilderForRight = hashBuilderForRight;
+        this.calculateBlockSize = calculateBlockSize;
+        this.leftStreamers = leftStreamers;
+        this.rightStreamers = rightStreamers;
+        this.spillDirectory = spillDirectory == null
+            ? PathUtils.get(System.getProperty("java.io.tmpdir"))
+            : spillDirectory;
+        reset();
+    }
+
+    private void reset() {
+        closeSpillFiles();
+        leftPartitions.clear();
+        for (int i = 0; i < NUM_PARTITIONS; i++) {
+            leftPartitions.add(new ArrayList<>());
+        }
+        buffer.clear();
+        leftRowAccounting.release();
+        blockSize = Math.max(1, calculateBlockSize.getAsInt());
+        numRowsInMemory = 0;
+        leftMatchingRowsIterator = null;
+        phase = Phase.BUILD;
+        activeIt = left;
+    }
+
+    @Override
+    public Row currentElement() {
+        return combiner.currentElement();
+    }
+
+    @Override
+    public void moveToStart() {
+        left.moveToStart();
+        right.moveToStart();
+        reset();
+    }
+
+    @Override
+    public boolean moveNext() {
+        switch (phase) {
+            case BUILD:
+                if (!buildPartitions()) {
+                    return false;
+                }
+                buildHashTableOfInMemoryPartitions();
+                phase = Phase.PROBE;
+                activeIt = right;
+                // fall through
+            case PROBE:
+                if (probe()) {
+                    return true;
+                }
+                if (!right.allLoaded()) {
+                    return false;
+                }
+                collectSpilledPartitions();
+                phase = Phase.PROBE_SPILLED;
+                // fall through
+            case PROBE_SPILLED:
+                if (probeSpilled()) {
+                    return true;
+                }
+                phase = Phase.DONE;
+                return false;
+
+            case DONE:
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public CompletionStage<?> loadNextBatch() throws Exception {
+        if (phase == Phase.PROBE_SPILLED || phase == Phase.DONE) {
+            return CompletableFuture.failedFuture(new IllegalStateException("BatchIterator already fully loaded"));
+        }
+        return super.loadNextBatch();
+    }
+
+    @Override
+    public boolean allLoaded() {
+        switch (phase) {
+            case BUILD:
+                return left.allLoaded() && right.allLoaded();
+            case PROBE:
+                return right.allLoaded();
+            default:
+                return true;
+        }
+    }
+
+    @Override
+    public void close() {
+        closeSpillFiles();
+        super.close();
+    }
+
+    /**
+     * @return true if the left side has been fully consumed
+     */
+    private boolean buildPartitions() {
+        while (left.moveNext()) {
+            Object[] row = left.currentElement().materialize();
+            int partition = partition(hashBuilderForLeft.applyAsInt(unsafeArrayRow.cells(row)), 0);
+            List<Object[]> rows = leftPartitions.get(partition);
+            if (rows == null) {
+                leftSpills[partition].write(row);
+            } else {
+                rows.add(row);
+                numRowsInMemory++;
+                try {
+                    leftRowAccounting.accountForAndMaybeBreak(row);
+                    if (numRowsInMemory > blockSize) {
+                        spillLargestPartition();
+                        accountForInMemoryRows();
+                    }
+                } catch (CircuitBreakingException e) {
+                    spillUntilAccounted(e);
+                }
+            }
+        }
+        return left.allLoaded();
+    }
+
+    /**
+     * Spills the largest in-memory partitions until the remaining in-memory rows can be accounted for.
+     */
+    private void spillUntilAccounted(CircuitBreakingException e) {
+        while (true) {
+            if (!spillLargestPartition()) {
+                throw e;
+            }
+            try {
+                accountForInMemoryRows();
+                return;
+            } catch (CircuitBreakingException ex) {
+                e = ex;
+            }
+        }
+    }
+
+    private void accountForInMemoryRows() {
+        leftRowAccounting.release();
+        for (List<Object[]> rows : leftPartitions) {
+            if (rows != null) {
+                for (Object[] row : rows) {
+                    leftRowAccounting.accountForAndMaybeBreak(row);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return false if there was no partition with rows left that could be spilled
+     */
+    private boolean spillLargestPartition() {
+        int largest = -1;
+        for (int i = 0; i < NUM_PARTITIONS; i++) {
+            List<Object[]> rows = leftPartitions.get(i);
+            if (rows != null && (largest == -1 || rows.size() > leftPartitions.get(largest).size())) {
+                largest = i;
+            }
+        }
+        if (largest == -1 || leftPartitions.get(largest).isEmpty()) {
+            return false;
+        }
+        RowSpillFile spillFile = new RowSpillFile(spillDirectory, leftStreamers);
+        List<Object[]> rows = leftPartitions.get(largest);
+        for (Object[] row : rows) {
+            spillFile.write(row);
+        }
+        numRowsInMemory -= rows.size();
+        leftSpills[largest] = spillFile;
+        rightSpills[largest] = new RowSpillFile(spillDirectory, rightStreamers);
+        leftPartitions.set(largest, null);
+        return true;
+    }
+
+    private void buildHashTableOfInMemoryPartitions() {
+        for (List<Object[]> rows : leftPartitions) {
+            if (rows != null) {
+                for (Object[] row : rows) {
+                    addToBuffer(row, hashBuilderForLeft.applyAsInt(unsafeArrayRow.cells(row)));
+                }
+            }
+        }
+        leftPartitions.clear();
+    }
+
+    private void addToBuffer(Object[] row, int hash) {
+        List<Object[]> existingRows = buffer.get(hash);
+        if (existingRows == null) {
+            existingRows = new ArrayList<>();
+            buffer.put(hash, existingRows);
+        }
+        existingRows.add(row);
+    }
+
+    private boolean probe() {
+        // In case of multiple matches on the left side (duplicate values or hash collisions)
+        if (leftMatchingRowsIterator != null && findMatchingRows()) {
+            return true;
+        }
+        leftMatchingRowsIterator = null;
+        while (right.moveNext()) {
+            Row row = right.currentElement();
+            int hash = hashBuilderForRight.applyAsInt(row);
+            RowSpillFile rightSpill = rightSpills[partition(hash, 0)];
+            if (rightSpill != null) {
+                rightSpill.write(row.materialize());
+                continue;
+            }
+            List<Object[]> leftMatchingRows = buffer.get(hash);
+            if (leftMatchingRows != null) {
+                leftMatchingRowsIterator = leftMatchingRows.iterator();
+                combiner.setRight(row);
+                if (findMatchingRows()) {
+                    return true;
+                }
+            }
+        }
+        leftMatchingRowsIterator = null;
+        return false;
+    }
+
+    /**
+     * Moves the spill files of the build and probe phase to {@link #spilledPartitions}
+     */
+    private void collectSpilledPartitions() {
+        for (int i = 0; i < NUM_PARTITIONS; i++) {
+            if (leftSpills[i] != null) {
+                spilledPartitions.add(new SpilledPartition(leftSpills[i], rightSpills[i], 0));
+                leftSpills[i] = null;
+                rightSpills[i] = null;
+            }
+        }
+    }
+
+    private boolean probeSpilled() {
+        while (true) {
+            if (leftMatchingRowsIterator != null && findMatchingRows()) {
+                return true;
+            }
+            leftMatchingRowsIterator = null;
+            if (spilledRightRows != null && spilledRightRows.hasNext()) {
+                rightRow.cells(spilledRightRows.next());
+                List<Object[]> leftMatchingRows = buffer.get(hashBuilderForRight.applyAsInt(rightRow));
+                if (leftMatchingRows != null) {
+                    leftMatchingRowsIterator = leftMatchingRows.iterator();
+                    combiner.setRight(rightRow);
+                }
+                continue;
+            }
+            if (!loadNextBlockOfSpilledPartition() && !loadNextSpilledPartition()) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Loads the next block of left rows of a partition which had to be joined block by block.
+     * The right rows of the partition are read again for each block.
+     */
+    private boolean loadNextBlockOfSpilledPartition() {
+        if (spilledPartition == null || (pendingLeftRow == null && !spilledLeftRows.hasNext())) {
+            return false;
+        }
+        clearBuffer();
+        loadBlock();
+        spilledRightRows = spilledPartition.right.read();
+        return true;
+    }
+
+    private boolean loadNextSpilledPartition() {
+        closeSpilledPartition();
+        SpilledPartition partition;
+        while ((partition = spilledPartitions.poll()) != null) {
+            if (partition.left.numRows() == 0 || partition.right.numRows() == 0) {
+                partition.close();
+                continue;
+            }
+            blockSize = Math.max(1, calculateBlockSize.getAsInt());
+            boolean canRepartition = partition.level < MAX_LEVEL;
+            if (canRepartition && partition.left.numRows() > blockSize) {
+                repartition(partition);
+                continue;
+            }
+            spilledPartition = partition;
+            spilledLeftRows = partition.left.read();
+            boolean loadedAll = loadBlock();
+            if (!loadedAll && canRepartition) {
+                clearBuffer();
+                spilledPartition = null;
+                spilledLeftRows = null;
+                pendingLeftRow = null;
+                repartition(partition);
+                continue;
+            }
+            spilledRightRows = partition.right.read();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Loads left rows of the current spilled partition into the hash table,
+     * until all are loaded, the block size is reached or the circuit breaker trips.
+     *
+     * @return true if all left rows of the partition have been loaded.
+     */
+    private boolean loadBlock() {
+        int numRows = 0;
+        while (numRows < blockSize && (pendingLeftRow != null || spilledLeftRows.hasNext())) {
+            Object[] row = pendingLeftRow == null ? spilledLeftRows.next() : pendingLeftRow;
+            pendingLeftRow = null;
+            try {
+                leftRowAccounting.accountForAndMaybeBreak(row);
+            } catch (CircuitBreakingException e) {
+                if (numRows == 0) {
+                    throw e;
+                }
+                pendingLeftRow = row;
+                return false;
+            }
+            addToBuffer(row, hashBuilderForLeft.applyAsInt(unsafeArrayRow.cells(row)));
+            numRows++;
+        }
+        return pendingLeftRow == null && !spilledLeftRows.hasNext();
+    }
+
+    /**
+     * Splits a partition into sub-partitions using the next bits of the hash.
+     */
+    private void repartition(SpilledPartition partition) {
+        int level = partition.level + 1;
+        RowSpillFile[] lefts = new RowSpillFile[NUM_PARTITIONS];
+        RowSpillFile[] rights = new RowSpillFile[NUM_PARTITIONS];
+        try {
+            Iterator<Object[]> leftRows = partition.left.read();
+            while (leftRows.hasNext()) {
+                Object[] row = leftRows.next();
+                int p = partition(hashBuilderForLeft.applyAsInt(unsafeArrayRow.cells(row)), level);
+                if (lefts[p] == null) {
+                    lefts[p] = new RowSpillFile(spillDirectory, leftStreamers);
+                    rights[p] = new RowSpillFile(spillDirectory, rightStreamers);
+                }
+                lefts[p].write(row);
+            }
+            Iterator<Object[]> rightRows = partition.right.read();
+            while (rightRows.hasNext()) {
+                Object[] row = rightRows.next();
+                int p = partition(hashBuilderForRight.applyAsInt(unsafeArrayRow.cells(row)), level);
+                if (rights[p] != null) {
+                    rights[p].write(row);
+                }
+            }
+        } catch (RuntimeException e) {
+            IOUtils.closeWhileHandlingException(lefts);
+            IOUtils.closeWhileHandlingException(rights);
+            throw e;
+        } finally {
+            partition.close();
+        }
+        for (int i = NUM_PARTITIONS - 1; i >= 0; i--) {
+            if (lefts[i] != null) {
+                spilledPartitions.addFirst(new SpilledPartition(lefts[i], rights[i], level));
+            }
+        }
+    }
+
+    private void clearBuffer() {
+        buffer.clear();
+        leftRowAccounting.release();
+    }
+
+    private void closeSpilledPartition() {
+        clearBuffer();
+        if (spilledPartition != null) {
+            spilledPartition.close();
+            spilledPartition = null;
+        }
+        spilledLeftRows = null;
+        pendingLeftRow = null;
+        spilledRightRows = null;
+    }
+
+    private boolean findMatchingRows() {
+        while (leftMatchingRowsIterator.hasNext()) {
+            leftRow.cells(leftMatchingRowsIterator.next());
+            combiner.setLeft(leftRow);
+            if (joinCondition.test(combiner.currentElement())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Takes {@link #BITS_PER_LEVEL} bits of the mixed hash, starting with the upper bits on level 0.
+     */
+    static int partition(int hash, int level) {
+        int h = hash * 0x9E3779B9;
+        h ^= h >>> 16;
+        return (h >>> (Integer.SIZE - BITS_PER_LEVEL * (level + 1))) & (NUM_PARTITIONS - 1);
+    }
+
+    private void closeSpillFiles() {
+        for (int i = 0; i < NUM_PARTITIONS; i++) {
+            if (leftSpills[i] != null) {
+                leftSpills[i].close();
+                leftSpills[i] = null;
+            }
+            if (rightSpills[i] != null) {
+                rightSpills[i].close();
+                rightSpills[i] = null;
+            }
+        }
+        closeSpilledPartition();
+        SpilledPartition partition;
+        while ((partition = spilledPartitions.poll()) != null) {
+            partition.close();
+        }
+    }
+
+    private static final class SpilledPartition implements Closeable {
+
+        private final RowSpillFile left;
+        private final RowSpillFile right;
+        private final int level;
+
+        SpilledPartition(RowSpillFile left, RowSpillFile right, int level) {
+            this.left = left;
+            this.right = right;
+            this.level = level;
+        }
+
+        @Override
+        public void close() {
+            left.close();
+            right.close();
+        }
+    }
+}
@@ -22,6 +22,7 @@
 
 package io.crate.execution.engine.join;
 
+import io.crate.Streamer;
 import io.crate.breaker.RowAccounting;
 import io.crate.concurrent.CompletionListenable;
 import io.crate.data.BatchIterator;
@@ -34,8 +35,11 @@ import io.crate.execution.engine.collect.CollectExpression;
 import io.crate.expression.InputFactory;
 import io.crate.expression.symbol.Symbol;
 import io.crate.metadata.TransactionContext;
+import io.crate.planner.node.dql.join.JoinType;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 
+import javax.annotation.Nullable;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Predicate;
@@ -50,6 +54,7 @@ public class HashJoinOperation implements CompletionListenable {
     public HashJoinOperation(int numLeftCols,
                              int numRightCols,
                              RowConsumer nlResultConsumer,
+                             JoinType joinType,
                              Predicate<Row> joinPredicate,
                              List<Symbol> joinLeftInputs,
                              List<Symbol> joinRightInputs,
@@ -58,7 +63,10 @@ public class HashJoinOperation implements CompletionListenable {
                              InputFactory inputFactory,
                              CircuitBreaker circuitBreaker,
                              long estimatedRowSizeForLeft,
-                             long numberOfRowsForLeft) {
+                             long numberOfRowsForLeft,
+                             Streamer<?>[] leftStreamers,
+                             @Nullable Streamer<?>[] rightStreamers,
+                             @Nullable Path spillDirectory) {
 
         this.resultConsumer = nlResultConsumer;
         this.leftConsumer = new CapturingRowConsumer(false, nlResultConsumer.completionFuture());
@@ -73,6 +81,7 @@ public class HashJoinOperation implements CompletionListenable {
                             numLeftCols,
                             rightConsumer.capturedBatchIterator().join(),
                             numRightCols,
+                            joinType,
                             joinPredicate,
                             getHashBuilderFromSymbols(txnCtx, inputFactory, joinLeftInputs),
                             getHashBuilderFromSymbols(txnCtx, inputFactory, joinRightInputs),
@@ -82,7 +91,10 @@ public class HashJoinOperation implements CompletionListenable {
                                 circuitBreaker,
                                 estimatedRowSizeForLeft,
                                 numberOfRowsForLeft
-                            )
+                            ),
+                            leftStreamers,
+                            rightStreamers,
+                            spillDirectory
                         );
                         nlResultConsumer.accept(joinIterator, null);
                     } catch (Exception e) {
@@ -130,12 +142,46 @@ public class HashJoinOperation implements CompletionListenable {
                                                              int leftNumCols,
                                                              BatchIterator<Row> right,
                                                              int rightNumCols,
+                                                             JoinType joinType,
                                                              Predicate<Row> joinCondition,
                                                              ToIntFunction<Row> hashBuilderForLeft,
                                                              ToIntFunction<Row> hashBuilderForRight,
                                                              RowAccounting<Object[]> rowAccounting,
-                                                             RamBlockSizeCalculator blockSizeCalculator) {
+                                                             RamBlockSizeCalculator blockSizeCalculator,
+                                                             Streamer<?>[] leftStreamers,
+                                                             @Nullable Streamer<?>[] rightStreamers,
+                                                             @Nullable Path spillDirectory) {
         CombinedRow combiner = new CombinedRow(leftNumCols, rightNumCols);
+        if (joinType.isOuter()) {
+            return new HashOuterJoinBatchIterator(
+                left,
+                right,
+                rowAccounting,
+                combiner,
+                joinCondition,
+                hashBuilderForLeft,
+                hashBuilderForRight,
+                blockSizeCalculator,
+                joinType == JoinType.LEFT || joinType == JoinType.FULL,
+                joinType == JoinType.RIGHT || joinType == JoinType.FULL);
+        }
+        assert joinType == JoinType.INNER : "Hash joins are only planned for INNER and OUTER joins, got: " + joinType;
+        if (rightStreamers != null) {
+            return new GraceHashJoinBatchIterator(
+                left,
+                right,
+                rowAccounting,
+                combiner,
+                joinCondition,
+                hashBuilderForLeft,
+                hashBuilderForRight,
+                blockSizeCalculator,
+                leftStreamers,
+                rightStreamers,
+                spillDirectory);
+        }
+        // The phase was created by a node which doesn't provide the types of the right side,
+        // so we cannot spill and have to fall back to the block based hash join.
         return new HashInnerJoinBatchIterator(
             left,
             right,
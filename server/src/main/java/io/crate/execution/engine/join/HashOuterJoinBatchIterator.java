@@ -0,0 +1,277 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.join;
+
+import com.carrotsearch.hppc.IntArrayList;
+import io.crate.breaker.RowAccounting;
+import io.crate.data.BatchIterator;
+import io.crate.data.Row;
+import io.crate.data.UnsafeArrayRow;
+import io.crate.data.join.CombinedRow;
+import io.crate.data.join.JoinBatchIterator;
+import io.netty.util.collection.IntObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Hash join for LEFT, RIGHT and FULL OUTER joins.
+ *
+ * <pre>
+ *     Build Phase:
+ *     for (leftRow in left) {
+ *         calculate hash and put in Buffer (HashMap) until the blockSize is reached
+ *     }
+ *
+ *     Probe Phase:
+ *     for (rightRow in right) {
+ *         for (leftRow in matchedInBuffer) {
+ *             if (joinCondition matches) {
+ *                 mark leftRow as matched
+ *                 mark rightRow as matched
+ *                 emit(combinedRow)
+ *             }
+ *         }
+ *         if (emitUnmatchedRight && isLastBlock && rightRow was never marked as matched) {
+ *             emit(combinedRow) // with left side null
+ *         }
+ *     }
+ *
+ *     if (emitUnmatchedLeft) {
+ *         for (leftRow in Buffer not marked as matched) {
+ *             emit(combinedRow) // with right side null
+ *         }
+ *     }
+ *
+ *     Repeat with the next block of the left side and the right side moved to start, until the left side is
+ *     consumed completely.
+ * </pre>
+ * <p>
+ * Like the {@link HashInnerJoinBatchIterator} only a block of the left side is kept in memory.
+ * A left row can only be matched by the rows of the right side, so the unmatched rows of a block are known once the
+ * right side has been consumed for that block. Right rows are identified by their position and the matched ones are
+ * tracked across the blocks, so the unmatched right rows can be emitted while probing the last block.
+ */
+public class HashOuterJoinBatchIterator extends JoinBatchIterator<Row, Row, Row> {
+
+    private final RowAccounting<Object[]> leftRowAccounting;
+    private final Predicate<Row> joinCondition;
+    private final ToIntFunction<Row> hashBuilderForLeft;
+    private final ToIntFunction<Row> hashBuilderForRight;
+    private final boolean emitUnmatchedLeft;
+    private final boolean emitUnmatchedRight;
+    private final IntSupplier calculateBlockSize;
+
+    private final List<Object[]> leftRows = new ArrayList<>();
+    private final BitSet matchedLeftRows = new BitSet();
+    private final BitSet matchedRightRows = new BitSet();
+    private final IntObjectHashMap<IntArrayList> buffer = new IntObjectHashMap<>();
+    private final UnsafeArrayRow leftRow = new UnsafeArrayRow();
+    private final UnsafeArrayRow unsafeArrayRow = new UnsafeArrayRow();
+
+    private IntArrayList leftMatchingRows;
+    private int leftMatchingRowsIdx;
+    private boolean rightRowMatched;
+    private int rightRowIdx;
+    private boolean probeDone;
+    private int unmatchedLeftRowIdx;
+    private int blockSize;
+    private boolean lastBlock;
+
+    public HashOuterJoinBatchIterator(BatchIterator<Row> left,
+                                      BatchIterator<Row> right,
+                                      RowAccounting<Object[]> leftRowAccounting,
+                                      CombinedRow combiner,
+                                      Predicate<Row> joinCondition,
+                                      ToIntFunction<Row> hashBuilderForLeft,
+                                      ToIntFunction<Row> hashBuilderForRight,
+                                      IntSupplier calculateBlockSize,
+                                      boolean emitUnmatchedLeft,
+                                      boolean emitUnmatchedRight) {
+        super(left, right, combiner);
+        this.leftRowAccounting = leftRowAccounting;
+        this.joinCondition = joinCondition;
+        this.hashBuilderForLeft = hashBuilderForLeft;
+        this.hashBuilderForRight = hashBuilderForRight;
+        this.emitUnmatchedLeft = emitUnmatchedLeft;
+        this.emitUnmatchedRight = emitUnmatchedRight;
+        this.calculateBlockSize = calculateBlockSize;
+        resetBlock();
+    }
+
+    @Override
+    public Row currentElement() {
+        return combiner.currentElement();
+    }
+
+    @Override
+    public void moveToStart() {
+        left.moveToStart();
+        right.moveToStart();
+        matchedRightRows.clear();
+        lastBlock = false;
+        resetBlock();
+    }
+
+    @Override
+    public boolean moveNext() {
+        while (true) {
+            if (activeIt == left) {
+                if (buildBuffer() == false) {
+                    // left needs the next batch loaded
+                    return false;
+                }
+                activeIt = right;
+            }
+            if (probeDone == false) {
+                if (probe()) {
+                    return true;
+                }
+                if (right.allLoaded() == false) {
+                    return false;
+                }
+                probeDone = true;
+            }
+            if (emitUnmatchedLeft && nextUnmatchedLeftRow()) {
+                return true;
+            }
+            if (lastBlock) {
+                return false;
+            }
+            right.moveToStart();
+            resetBlock();
+        }
+    }
+
+    private void resetBlock() {
+        activeIt = left;
+        blockSize = calculateBlockSize.getAsInt();
+        leftRows.clear();
+        matchedLeftRows.clear();
+        buffer.clear();
+        leftRowAccounting.release();
+        leftMatchingRows = null;
+        rightRowIdx = -1;
+        probeDone = false;
+        unmatchedLeftRowIdx = 0;
+    }
+
+    private boolean buildBuffer() {
+        while (leftRows.size() < blockSize) {
+            if (left.moveNext() == false) {
+                lastBlock = left.allLoaded();
+                return lastBlock;
+            }
+            Object[] row = left.currentElement().materialize();
+            leftRowAccounting.accountForAndMaybeBreak(row);
+            int hash = hashBuilderForLeft.applyAsInt(unsafeArrayRow.cells(row));
+            IntArrayList rowsWithSameHash = buffer.get(hash);
+            if (rowsWithSameHash == null) {
+                rowsWithSameHash = new IntArrayList(1);
+                buffer.put(hash, rowsWithSameHash);
+            }
+            rowsWithSameHash.add(leftRows.size());
+            leftRows.add(row);
+        }
+        return true;
+    }
+
+    private boolean probe() {
+        // In case of multiple matches on the left side (duplicate values or hash collisions)
+        if (leftMatchingRows != null) {
+            if (findMatchingRows()) {
+                return true;
+            }
+            leftMatchingRows = null;
+            if (mustEmitUnmatchedRightRow()) {
+                combiner.nullLeft();
+                return true;
+            }
+        }
+        while (right.moveNext()) {
+            Row row = right.currentElement();
+            combiner.setRight(row);
+            rightRowMatched = false;
+            rightRowIdx++;
+            IntArrayList matchingRows = buffer.get(hashBuilderForRight.applyAsInt(row));
+            if (matchingRows != null) {
+                leftMatchingRows = matchingRows;
+                leftMatchingRowsIdx = 0;
+                if (findMatchingRows()) {
+                    return true;
+                }
+                leftMatchingRows = null;
+            }
+            if (mustEmitUnmatchedRightRow()) {
+                combiner.nullLeft();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Called once the current right row has been probed against all rows of the block.
+     * A right row is only unmatched if it didn't match any row of any block, which is known on the last block.
+     */
+    private boolean mustEmitUnmatchedRightRow() {
+        if (emitUnmatchedRight == false) {
+            return false;
+        }
+        if (rightRowMatched) {
+            matchedRightRows.set(rightRowIdx);
+            return false;
+        }
+        return lastBlock && matchedRightRows.get(rightRowIdx) == false;
+    }
+
+    private boolean findMatchingRows() {
+        while (leftMatchingRowsIdx < leftMatchingRows.size()) {
+            int idx = leftMatchingRows.get(leftMatchingRowsIdx++);
+            leftRow.cells(leftRows.get(idx));
+            combiner.setLeft(leftRow);
+            if (joinCondition.test(combiner.currentElement())) {
+                rightRowMatched = true;
+                matchedLeftRows.set(idx);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean nextUnmatchedLeftRow() {
+        unmatchedLeftRowIdx = matchedLeftRows.nextClearBit(unmatchedLeftRowIdx);
+        if (unmatchedLeftRowIdx < leftRows.size()) {
+            leftRow.cells(leftRows.get(unmatchedLeftRowIdx));
+            unmatchedLeftRowIdx++;
+            combiner.setLeft(leftRow);
+            combiner.nullRight();
+            return true;
+        }
+        return false;
+    }
+}
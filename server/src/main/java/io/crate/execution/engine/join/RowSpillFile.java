@@ -0,0 +1,144 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.join;
+
+import io.crate.Streamer;
+import io.crate.common.io.IOUtils;
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A temporary file in the spill directory to which rows can be appended and which can be read back afterwards.
+ * Cells are serialized with the {@link Streamer}s of the column types.
+ *
+ * The file is deleted on {@link #close()}.
+ */
+final class RowSpillFile implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Streamer[] streamers;
+    private final Path file;
+
+    @Nullable
+    private StreamOutput out;
+    @Nullable
+    private StreamInput in;
+    private long numRows = 0;
+
+    RowSpillFile(Path directory, Streamer<?>[] streamers) {
+        this.streamers = streamers;
+        try {
+            Files.createDirectories(directory);
+            this.file = Files.createTempFile(directory, "join-", ".spill");
+            this.out = new OutputStreamStreamOutput(
+                new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    long numRows() {
+        return numRows;
+    }
+
+    @SuppressWarnings("unchecked")
+    void write(Object[] cells) {
+        assert out != null : "Cannot write to a RowSpillFile after it has been read";
+        try {
+            for (int i = 0; i < streamers.length; i++) {
+                streamers[i].writeValueTo(out, cells[i]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        numRows++;
+    }
+
+    /**
+     * Finishes writing and returns an iterator over the rows in the order they were written.
+     * Each call starts reading from the beginning; iterators returned by previous calls must not be used anymore.
+     */
+    Iterator<Object[]> read() {
+        try {
+            if (out != null) {
+                out.close();
+                out = null;
+            }
+            if (in != null) {
+                in.close();
+            }
+            in = new InputStreamStreamInput(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        StreamInput input = in;
+        return new Iterator<>() {
+
+            long remaining = numRows;
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0;
+            }
+
+            @Override
+            public Object[] next() {
+                if (remaining == 0) {
+                    throw new NoSuchElementException("No more rows in spill file");
+                }
+                Object[] cells = new Object[streamers.length];
+                try {
+                    for (int i = 0; i < cells.length; i++) {
+                        cells[i] = streamers[i].readValueFrom(input);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                remaining--;
+                return cells;
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        IOUtils.closeWhileHandlingException(out, in);
+        out = null;
+        in = null;
+        IOUtils.deleteFilesIgnoringExceptions(file);
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.DoublePredicate;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+
+import io.crate.data.Row;
+import io.crate.data.columnar.ColumnVector;
+import io.crate.data.columnar.ColumnarBatch;
+import io.crate.data.columnar.DoubleColumnVector;
+import io.crate.data.columnar.IntColumnVector;
+import io.crate.data.columnar.LongColumnVector;
+import io.crate.data.columnar.ObjectColumnVector;
+import io.crate.expression.InputFactory;
+import io.crate.expression.RowFilter;
+import io.crate.expression.operator.AndOperator;
+import io.crate.expression.operator.EqOperator;
+import io.crate.expression.operator.GtOperator;
+import io.crate.expression.operator.GteOperator;
+import io.crate.expression.operator.LtOperator;
+import io.crate.expression.operator.LteOperator;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.InputColumn;
+import io.crate.expression.symbol.Literal;
+import io.crate.expression.symbol.Symbol;
+import io.crate.metadata.TransactionContext;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+
+/**
+ * Evaluates a filter on {@link ColumnarBatch}es.
+ *
+ * <p>
+ * The filter is split into its conjunctions. Comparisons of an integer, long, timestamp or double column with
+ * a literal run as loops over the primitive values of the column, all other conjunctions are evaluated row by row.
+ * </p>
+ */
+public final class ColumnarFilter implements Consumer<ColumnarBatch> {
+
+    /**
+     * Number of rows per batch created by {@link #batchFactory(List)}
+     */
+    public static final int BATCH_SIZE = 1024;
+
+    private final List<Conjunction> conjunctions;
+
+    private ColumnarFilter(List<Conjunction> conjunctions) {
+        this.conjunctions = conjunctions;
+    }
+
+    public static ColumnarFilter create(TransactionContext txnCtx, InputFactory inputFactory, Symbol query) {
+        List<Symbol> parts = AndOperator.split(query);
+        ArrayList<Conjunction> conjunctions = new ArrayList<>(parts.size());
+        for (Symbol part : parts) {
+            conjunctions.add(new Conjunction(part, RowFilter.create(txnCtx, inputFactory, part)));
+        }
+        return new ColumnarFilter(conjunctions);
+    }
+
+    /**
+     * @return true if at least one conjunction of the query runs as a loop over primitive values.
+     *         Otherwise evaluating the query on batches is only overhead compared to evaluating it row by row.
+     */
+    public static boolean canVectorize(Symbol query) {
+        for (Symbol part : AndOperator.split(query)) {
+            if (new Conjunction(part, null).isTyped()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates batches for rows of the given types, using primitive vectors for the types supported by the filter.
+     */
+    public static Supplier<ColumnarBatch> batchFactory(List<? extends DataType<?>> types) {
+        return () -> {
+            ColumnVector[] columns = new ColumnVector[types.size()];
+            for (int i = 0; i < columns.length; i++) {
+                DataType<?> type = types.get(i);
+                if (type.equals(DataTypes.INTEGER)) {
+                    columns[i] = new IntColumnVector(BATCH_SIZE);
+                } else if (isLongType(type)) {
+                    columns[i] = new LongColumnVector(BATCH_SIZE);
+                } else if (type.equals(DataTypes.DOUBLE)) {
+                    columns[i] = new DoubleColumnVector(BATCH_SIZE);
+                } else {
+                    columns[i] = new ObjectColumnVector(BATCH_SIZE);
+                }
+            }
+            return new ColumnarBatch(columns);
+        };
+    }
+
+    private static boolean isLongType(DataType<?> type) {
+        return type.equals(DataTypes.LONG) || type.equals(DataTypes.TIMESTAMPZ) || type.equals(DataTypes.TIMESTAMP);
+    }
+
+    @Override
+    public void accept(ColumnarBatch batch) {
+        for (int i = 0; i < conjunctions.size() && batch.size() > 0; i++) {
+            conjunctions.get(i).apply(batch);
+        }
+    }
+
+    private static final class Conjunction {
+
+        @Nullable
+        private final Predicate<Row> rowFilter;
+        private int column = -1;
+        @Nullable
+        private LongPredicate longPredicate;
+        @Nullable
+        private IntPredicate intPredicate;
+        @Nullable
+        private DoublePredicate doublePredicate;
+
+        Conjunction(Symbol symbol, @Nullable Predicate<Row> rowFilter) {
+            this.rowFilter = rowFilter;
+            if (symbol instanceof Function) {
+                Function function = (Function) symbol;
+                List<Symbol> args = function.arguments();
+                if (args.size() == 2) {
+                    if (args.get(0) instanceof InputColumn && args.get(1) instanceof Literal) {
+                        initTyped(function.name(), (InputColumn) args.get(0), (Literal<?>) args.get(1));
+                    } else if (args.get(0) instanceof Literal && args.get(1) instanceof InputColumn) {
+                        String flipped = flip(function.name());
+                        if (flipped != null) {
+                            initTyped(flipped, (InputColumn) args.get(1), (Literal<?>) args.get(0));
+                        }
+                    }
+                }
+            }
+        }
+
+        private void initTyped(String operator, InputColumn column, Literal<?> literal) {
+            Object value = literal.value();
+            DataType<?> type = column.valueType();
+            if (value == null || !literal.valueType().equals(type)) {
+                return;
+            }
+            if (type.equals(DataTypes.INTEGER)) {
+                intPredicate = intPredicate(operator, (Integer) value);
+            } else if (isLongType(type)) {
+                longPredicate = longPredicate(operator, (Long) value);
+            } else if (type.equals(DataTypes.DOUBLE)) {
+                doublePredicate = doublePredicate(operator, (Double) value);
+            }
+            if (intPredicate != null || longPredicate != null || doublePredicate != null) {
+                this.column = column.index();
+            }
+        }
+
+        @Nullable
+        private static IntPredicate intPredicate(String operator, int x) {
+            switch (operator) {
+                case EqOperator.NAME:
+                    return v -> v == x;
+                case GtOperator.NAME:
+                    return v -> v > x;
+                case GteOperator.NAME:
+                    return v -> v >= x;
+                case LtOperator.NAME:
+                    return v -> v < x;
+                case LteOperator.NAME:
+                    return v -> v <= x;
+                default:
+                    return null;
+            }
+        }
+
+        @Nullable
+        private static LongPredicate longPredicate(String operator, long x) {
+            switch (operator) {
+                case EqOperator.NAME:
+                    return v -> v == x;
+                case GtOperator.NAME:
+                    return v -> v > x;
+                case GteOperator.NAME:
+                    return v -> v >= x;
+                case LtOperator.NAME:
+                    return v -> v < x;
+                case LteOperator.NAME:
+                    return v -> v <= x;
+                default:
+                    return null;
+            }
+        }
+
+        @Nullable
+        private static DoublePredicate doublePredicate(String operator, double x) {
+            switch (operator) {
+                case EqOperator.NAME:
+                    return v -> v == x;
+                case GtOperator.NAME:
+                    return v -> v > x;
+                case GteOperator.NAME:
+                    return v -> v >= x;
+                case LtOperator.NAME:
+                    return v -> v < x;
+                case LteOperator.NAME:
+                    return v -> v <= x;
+                default:
+                    return null;
+            }
+        }
+
+        @Nullable
+        private static String flip(String operator) {
+            switch (operator) {
+                case EqOperator.NAME:
+                    return EqOperator.NAME;
+                case GtOperator.NAME:
+                    return LtOperator.NAME;
+                case GteOperator.NAME:
+                    return LteOperator.NAME;
+                case LtOperator.NAME:
+                    return GtOperator.NAME;
+                case LteOperator.NAME:
+                    return GteOperator.NAME;
+                default:
+                    return null;
+            }
+        }
+
+        boolean isTyped() {
+            return column >= 0;
+        }
+
+        void apply(ColumnarBatch batch) {
+            if (column >= 0) {
+                ColumnVector vector = batch.column(column);
+                if (intPredicate != null && vector instanceof IntColumnVector) {
+                    batch.filterInts(column, intPredicate);
+                    return;
+                } else if (longPredicate != null && vector instanceof LongColumnVector) {
+                    batch.filterLongs(column, longPredicate);
+                    return;
+                } else if (doublePredicate != null && vector instanceof DoubleColumnVector) {
+                    batch.filterDoubles(column, doublePredicate);
+                    return;
+                }
+            }
+            batch.filter(rowFilter);
+        }
+    }
+}
@@ -27,19 +27,40 @@ import io.crate.data.BatchIterator;
 import io.crate.data.FilteringBatchIterator;
 import io.crate.data.Projector;
 import io.crate.data.Row;
+import io.crate.data.columnar.ColumnarBatch;
+import io.crate.data.columnar.ColumnarBatches;
 
+import javax.annotation.Nullable;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 class FilterProjector implements Projector {
 
     private final Predicate<Row> rowFilterPredicate;
+    @Nullable
+    private final Consumer<ColumnarBatch> columnarFilter;
 
     FilterProjector(Predicate<Row> rowFilterPredicate) {
+        this(rowFilterPredicate, null);
+    }
+
+    /**
+     * @param columnarFilter used instead of {@code rowFilterPredicate} if the source is backed by
+     *                       {@link ColumnarBatch}es
+     */
+    FilterProjector(Predicate<Row> rowFilterPredicate, @Nullable Consumer<ColumnarBatch> columnarFilter) {
         this.rowFilterPredicate = rowFilterPredicate;
+        this.columnarFilter = columnarFilter;
     }
 
     @Override
     public BatchIterator<Row> apply(BatchIterator<Row> batchIterator) {
+        if (columnarFilter != null) {
+            BatchIterator<ColumnarBatch> batches = ColumnarBatches.unwrap(batchIterator);
+            if (batches != null) {
+                return ColumnarBatches.toRows(ColumnarBatches.filter(batches, columnarFilter));
+            }
+        }
         return new FilteringBatchIterator<>(batchIterator, rowFilterPredicate);
     }
 
@@ -97,6 +97,7 @@ import io.crate.metadata.RowGranularity;
 import io.crate.metadata.TransactionContext;
 import io.crate.metadata.sys.SysNodeChecksTableInfo;
 import io.crate.planner.operators.SubQueryResults;
+import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 import io.crate.types.StringType;
 import org.elasticsearch.Version;
@@ -110,6 +111,7 @@ import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import javax.annotation.Nullable;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -151,6 +153,8 @@ public class ProjectionToProjectorVisitor
     private final Version indexVersionCreated;
     @Nullable
     private final ShardId shardId;
+    @Nullable
+    private final Path spillDirectory;
     private final int numProcessors;
 
     public ProjectionToProjectorVisitor(ClusterService clusterService,
@@ -164,7 +168,8 @@ public class ProjectionToProjectorVisitor
                                         Function<RelationName, SysRowUpdater<?>> sysUpdaterGetter,
                                         Function<RelationName, StaticTableDefinition<?>> staticTableDefinitionGetter,
                                         Version indexVersionCreated,
-                                        @Nullable ShardId shardId) {
+                                        @Nullable ShardId shardId,
+                                        @Nullable Path spillDirectory) {
         this.clusterService = clusterService;
         this.nodeJobsCounter = nodeJobsCounter;
         this.functions = functions;
@@ -177,6 +182,7 @@ public class ProjectionToProjectorVisitor
         this.staticTableDefinitionGetter = staticTableDefinitionGetter;
         this.indexVersionCreated = indexVersionCreated;
         this.shardId = shardId;
+        this.spillDirectory = spillDirectory;
         this.numProcessors = EsExecutors.numberOfProcessors(settings);
     }
 
@@ -200,11 +206,41 @@ public class ProjectionToProjectorVisitor
             normalizer,
             sysUpdaterGetter,
             staticTableDefinitionGetter,
-            Version.CURRENT,
             null
         );
     }
 
+    /**
+     * @param spillDirectory directory used by projectors to spill data which doesn't fit into memory.
+     *                       If null, the directory of the JVM for temporary files is used.
+     */
+    public ProjectionToProjectorVisitor(ClusterService clusterService,
+                                        NodeJobsCounter nodeJobsCounter,
+                                        Functions functions,
+                                        ThreadPool threadPool,
+                                        Settings settings,
+                                        TransportActionProvider transportActionProvider,
+                                        InputFactory inputFactory,
+                                        EvaluatingNormalizer normalizer,
+                                        Function<RelationName, SysRowUpdater<?>> sysUpdaterGetter,
+                                        Function<RelationName, StaticTableDefinition<?>> staticTableDefinitionGetter,
+                                        @Nullable Path spillDirectory) {
+        this(clusterService,
+            nodeJobsCounter,
+            functions,
+            threadPool,
+            settings,
+            transportActionProvider,
+            inputFactory,
+            normalizer,
+            sysUpdaterGetter,
+            staticTableDefinitionGetter,
+            Version.CURRENT,
+            null,
+            spillDirectory
+        );
+    }
+
     @Override
     public RowGranularity supportedGranularity() {
         if (this.shardId == null) {
@@ -304,7 +340,8 @@ public class ProjectionToProjectorVisitor
             context.ramAccounting,
             context.memoryManager,
             clusterService.state().getNodes().getMinNodeVersion(),
-            indexVersionCreated
+            indexVersionCreated,
+            spillDirectory
         );
     }
 
@@ -333,9 +370,11 @@ public class ProjectionToProjectorVisitor
         InputFactory.Context<CollectExpression<Row, ?>> ctx = inputFactory.ctxForInputColumns(context.txnCtx);
 
         List<Input<?>> inputs = null;
+        List<DataType<?>> inputTypes = null;
         if (!projection.inputs().isEmpty()) {
             ctx.add(projection.inputs());
             inputs = ctx.topLevelInputs();
+            inputTypes = Symbols.typeView(projection.inputs());
         }
 
         projection = projection.normalize(normalizer, context.txnCtx);
@@ -367,6 +406,7 @@ public class ProjectionToProjectorVisitor
             uri,
             projection.compressionType(),
             inputs,
+            inputTypes,
             ctx.expressions(),
             overwrites,
             projection.outputNames(),
@@ -495,7 +535,8 @@ public class ProjectionToProjectorVisitor
     @Override
     public Projector visitFilterProjection(FilterProjection projection, Context context) {
         Predicate<Row> rowFilter = RowFilter.create(context.txnCtx, inputFactory, projection.query());
-        return new FilterProjector(rowFilter);
+        ColumnarFilter columnarFilter = ColumnarFilter.create(context.txnCtx, inputFactory, projection.query());
+        return new FilterProjector(rowFilter, columnarFilter);
     }
 
     @Override
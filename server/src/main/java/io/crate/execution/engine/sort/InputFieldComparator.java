@@ -22,6 +22,7 @@
 
 package io.crate.execution.engine.sort;
 
+import io.crate.common.annotations.VisibleForTesting;
 import io.crate.data.Input;
 import io.crate.expression.reference.doc.lucene.LuceneCollectorExpression;
 import org.apache.lucene.index.LeafReaderContext;
@@ -59,6 +60,11 @@ class InputFieldComparator extends FieldComparator<Object> implements LeafFieldC
         this.input = input;
     }
 
+    @VisibleForTesting
+    List<? extends LuceneCollectorExpression<?>> collectorExpressions() {
+        return collectorExpressions;
+    }
+
     @Override
     public LeafFieldComparator getLeafComparator(LeafReaderContext context) throws IOException {
         for (int i = 0; i < collectorExpressions.size(); i++) {
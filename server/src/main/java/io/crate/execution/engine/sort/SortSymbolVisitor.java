@@ -28,13 +28,9 @@ import java.util.List;
 import org.apache.lucene.search.FieldComparator;
 import org.apache.lucene.search.FieldComparatorSource;
 import org.apache.lucene.search.SortField;
-import org.apache.lucene.search.SortedNumericSelector;
-import org.apache.lucene.search.SortedNumericSortField;
-import org.apache.lucene.search.SortedSetSelector;
-import org.apache.lucene.search.SortedSetSortField;
+import org.elasticsearch.index.IndexSortConfig;
 import org.elasticsearch.index.fielddata.NullValueOrder;
 import org.elasticsearch.index.mapper.MappedFieldType;
-import org.elasticsearch.search.MultiValueMode;
 
 import io.crate.data.Input;
 import io.crate.execution.engine.collect.DocInputFactory;
@@ -52,18 +48,8 @@ import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.Reference;
 import io.crate.metadata.TransactionContext;
 import io.crate.metadata.doc.DocSysColumns;
-import io.crate.types.BooleanType;
-import io.crate.types.ByteType;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
-import io.crate.types.DoubleType;
-import io.crate.types.FloatType;
-import io.crate.types.GeoPointType;
-import io.crate.types.IntegerType;
-import io.crate.types.LongType;
-import io.crate.types.ShortType;
-import io.crate.types.StringType;
-import io.crate.types.TimestampType;
 
 public class SortSymbolVisitor extends SymbolVisitor<SortSymbolVisitor.SortSymbolContext, SortField> {
 
@@ -160,68 +146,7 @@ public class SortSymbolVisitor extends SymbolVisitor<SortSymbolVisitor.SortSymbo
                                              MappedFieldType fieldType,
                                              boolean reverse,
                                              NullValueOrder nullValueOrder) {
-        String fieldName = symbol.column().fqn();
-        MultiValueMode sortMode = reverse ? MultiValueMode.MAX : MultiValueMode.MIN;
-        switch (symbol.valueType().id()) {
-            case StringType.ID: {
-                SortField sortField = new SortedSetSortField(
-                    fieldName,
-                    reverse,
-                    sortMode == MultiValueMode.MAX
-                        ? SortedSetSelector.Type.MAX
-                        : SortedSetSelector.Type.MIN
-                );
-                sortField.setMissingValue(
-                    nullValueOrder == NullValueOrder.LAST ^ reverse
-                        ? SortedSetSortField.STRING_LAST
-                        : SortedSetSortField.STRING_FIRST
-                );
-                return sortField;
-            }
-            case BooleanType.ID:
-            case ByteType.ID:
-            case ShortType.ID:
-            case IntegerType.ID:
-            case LongType.ID:
-            case TimestampType.ID_WITHOUT_TZ:
-            case TimestampType.ID_WITH_TZ: {
-                SortedNumericSelector.Type selectorType = sortMode == MultiValueMode.MAX
-                    ? SortedNumericSelector.Type.MAX
-                    : SortedNumericSelector.Type.MIN;
-                var reducedType = SortField.Type.LONG;
-                var sortField = new SortedNumericSortField(fieldName, SortField.Type.LONG, reverse, selectorType);
-                sortField.setMissingValue(
-                        NullSentinelValues.nullSentinelForReducedType(reducedType, nullValueOrder, reverse));
-                return sortField;
-            }
-
-            case FloatType.ID: {
-                SortedNumericSelector.Type selectorType = sortMode == MultiValueMode.MAX
-                    ? SortedNumericSelector.Type.MAX
-                    : SortedNumericSelector.Type.MIN;
-                var reducedType = SortField.Type.FLOAT;
-                var sortField = new SortedNumericSortField(fieldName, SortField.Type.FLOAT, reverse, selectorType);
-                sortField.setMissingValue(
-                        NullSentinelValues.nullSentinelForReducedType(reducedType, nullValueOrder, reverse));
-                return sortField;
-            }
-            case DoubleType.ID: {
-                SortedNumericSelector.Type selectorType = sortMode == MultiValueMode.MAX
-                    ? SortedNumericSelector.Type.MAX
-                    : SortedNumericSelector.Type.MIN;
-                var reducedType = SortField.Type.DOUBLE;
-                var sortField = new SortedNumericSortField(fieldName, SortField.Type.DOUBLE, reverse, selectorType);
-                sortField.setMissingValue(
-                        NullSentinelValues.nullSentinelForReducedType(reducedType, nullValueOrder, reverse));
-                return sortField;
-            }
-            case GeoPointType.ID:
-                throw new IllegalArgumentException(
-                        "can't sort on geo_point field without using specific sorting feature, like geo_distance");
-
-            default:
-                throw new UnsupportedOperationException("Cannot order on " + symbol + "::" + symbol.valueType());
-        }
+        return IndexSortConfig.sortField(symbol.column().fqn(), symbol.valueType(), reverse, nullValueOrder);
     }
 
     @Override
@@ -243,15 +168,19 @@ public class SortSymbolVisitor extends SymbolVisitor<SortSymbolVisitor.SortSymbo
     private SortField customSortField(String name,
                                       final Symbol symbol,
                                       final SortSymbolContext context) {
-        InputFactory.Context<? extends LuceneCollectorExpression<?>> inputContext = docInputFactory.getCtx(context.txnCtx);
-        final Input<?> input = inputContext.add(symbol);
-        final List<? extends LuceneCollectorExpression<?>> expressions = inputContext.expressions();
-        final CollectorContext collectorContext = context.context;
+        final TransactionContext txnCtx = context.txnCtx;
+        final int jobSearchContextId = context.context.jobSearchContextId();
         final boolean nullFirst = context.nullFirst;
 
         return new SortField(name, new FieldComparatorSource() {
             @Override
             public FieldComparator<?> newComparator(String fieldName, int numHits, int sortPos, boolean reversed) {
+                // The slices of a shard may be searched concurrently, each with its own comparator.
+                // The expressions and their source lookup are stateful and must not be shared between comparators.
+                InputFactory.Context<? extends LuceneCollectorExpression<?>> inputContext = docInputFactory.getCtx(txnCtx);
+                Input<?> input = inputContext.add(symbol);
+                List<? extends LuceneCollectorExpression<?>> expressions = inputContext.expressions();
+                CollectorContext collectorContext = new CollectorContext(jobSearchContextId);
                 for (int i = 0; i < expressions.size(); i++) {
                     expressions.get(i).startCollect(collectorContext);
                 }
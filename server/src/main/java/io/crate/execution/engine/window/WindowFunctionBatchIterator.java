@@ -28,14 +28,13 @@ import io.crate.data.BatchIterator;
 import io.crate.data.BatchIterators;
 import io.crate.data.Buckets;
 import io.crate.data.CollectingBatchIterator;
-import io.crate.data.Input;
 import io.crate.data.Row;
-import io.crate.execution.engine.collect.CollectExpression;
 import io.crate.execution.engine.sort.Sort;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.common.logging.Loggers;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
@@ -48,6 +47,7 @@ import java.util.function.IntSupplier;
 import java.util.stream.Collectors;
 
 import static io.crate.common.collections.Lists2.findFirstNonPeer;
+import static io.crate.concurrent.CompletableFutures.supplyAsync;
 
 /**
  * BatchIterator which computes window functions (incl. partitioning + ordering)
@@ -71,11 +71,19 @@ import static io.crate.common.collections.Lists2.findFirstNonPeer;
  *                      - Determine window frame
  *                      - Compute window function over the frame and output tuple
  * </pre>
+ *
+ * <p>
+ * Partitions are independent of each other. If there are enough rows and the {@link WindowFunctions} can be
+ * instantiated multiple times, the sorted rows are split into ranges of complete partitions which are computed
+ * concurrently.
+ * </p>
  */
 public final class WindowFunctionBatchIterator {
 
     private static final Logger LOGGER = Loggers.getLogger(WindowFunctionBatchIterator.class);
 
+    private static final int MIN_ROWS_PER_THREAD = 1 << 13; // Same as Arrays.MIN_ARRAY_SORT_GRAN
+
     public static BatchIterator<Row> of(BatchIterator<Row> source,
                                         RowAccounting<Row> rowAccounting,
                                         ComputeFrameBoundary<Object[]> computeFrameStart,
@@ -85,9 +93,7 @@ public final class WindowFunctionBatchIterator {
                                         int numCellsInSourceRow,
                                         IntSupplier numAvailableThreads,
                                         Executor executor,
-                                        List<WindowFunction> windowFunctions,
-                                        List<? extends CollectExpression<Row, ?>> argsExpressions,
-                                        Input[]... args) {
+                                        WindowFunctions windowFunctions) {
         // As optimization we use 1 list that acts both as inputs(source) and as outputs.
         // The window function results are injected during the computation into spare cells that are eagerly created
         Function<Row, Object[]> materialize = row -> {
@@ -107,9 +113,7 @@ public final class WindowFunctionBatchIterator {
                     numCellsInSourceRow,
                     numAvailableThreads,
                     executor,
-                    windowFunctions,
-                    argsExpressions,
-                    args
+                    windowFunctions
                 ))
                 .thenApply(rows -> Iterables.transform(rows, Buckets.arrayToSharedRow()::apply)),
             source.hasLazyResultSet()
@@ -133,49 +137,133 @@ public final class WindowFunctionBatchIterator {
         int numCellsInSourceRow,
         IntSupplier numAvailableThreads,
         Executor executor,
-        List<WindowFunction> windowFunctions,
-        List<? extends CollectExpression<Row, ?>> argsExpressions,
-        Input[]... args) {
-
-        Function<List<Object[]>, Iterable<Object[]>> computeWindowsFn = sortedRows -> computeWindowFunctions(
-            sortedRows,
-            computeFrameStart,
-            computeFrameEnd,
-            cmpPartitionBy,
-            numCellsInSourceRow,
-            windowFunctions,
-            argsExpressions,
-            args);
+        WindowFunctions windowFunctions) {
+
+        Function<List<Object[]>, CompletableFuture<Iterable<Object[]>>> computeWindowsFn = sortedRows -> {
+            List<int[]> ranges = partitionRanges(sortedRows, cmpPartitionBy, numAvailableThreads.getAsInt());
+            ArrayList<WindowFunctions> functionsPerRange = new ArrayList<>(ranges.size());
+            functionsPerRange.add(windowFunctions);
+            for (int i = 1; i < ranges.size(); i++) {
+                WindowFunctions copy = windowFunctions.newInstance();
+                if (copy == null) {
+                    break;
+                }
+                functionsPerRange.add(copy);
+            }
+            if (ranges.size() == 1 || functionsPerRange.size() < ranges.size()) {
+                return CompletableFuture.completedFuture(computeWindowFunctions(
+                    sortedRows,
+                    0,
+                    sortedRows.size(),
+                    computeFrameStart,
+                    computeFrameEnd,
+                    cmpPartitionBy,
+                    numCellsInSourceRow,
+                    windowFunctions
+                ));
+            }
+            return computeWindowFunctionsConcurrently(
+                sortedRows,
+                ranges,
+                computeFrameStart,
+                computeFrameEnd,
+                cmpPartitionBy,
+                numCellsInSourceRow,
+                executor,
+                functionsPerRange
+            );
+        };
         Comparator<Object[]> cmpPartitionThenOrderBy = joinCmp(cmpPartitionBy, cmpOrderBy);
         if (cmpPartitionThenOrderBy == null) {
-            return CompletableFuture.completedFuture(computeWindowsFn.apply(rows));
+            return computeWindowsFn.apply(rows);
         } else {
-            int minItemsPerThread = 1 << 13; // Same as Arrays.MIN_ARRAY_SORT_GRAN
             return Sort
-                .parallelSort(rows, cmpPartitionThenOrderBy, minItemsPerThread, numAvailableThreads.getAsInt(), executor)
-                .thenApply(computeWindowsFn);
+                .parallelSort(rows, cmpPartitionThenOrderBy, MIN_ROWS_PER_THREAD, numAvailableThreads.getAsInt(), executor)
+                .thenCompose(computeWindowsFn);
+        }
+    }
+
+    /**
+     * Splits the sorted rows into at most {@code numThreads} ranges of {@code [start, end)} which never split a
+     * partition, so that each range can be computed independently.
+     */
+    static List<int[]> partitionRanges(List<Object[]> sortedRows,
+                                       @Nullable Comparator<Object[]> cmpPartitionBy,
+                                       int numThreads) {
+        int numRows = sortedRows.size();
+        int rowsPerThread = numRows / Math.max(1, numThreads);
+        if (cmpPartitionBy == null || numThreads <= 1 || rowsPerThread < MIN_ROWS_PER_THREAD) {
+            return List.of(new int[] { 0, numRows });
+        }
+        ArrayList<int[]> ranges = new ArrayList<>(numThreads);
+        int start = 0;
+        while (start < numRows) {
+            int end = start + rowsPerThread;
+            if (end >= numRows) {
+                end = numRows;
+            } else {
+                // Extend the range up to the end of the partition of its last row
+                end = findFirstNonPeer(sortedRows, end - 1, numRows, cmpPartitionBy);
+            }
+            ranges.add(new int[] { start, end });
+            start = end;
         }
+        return ranges;
+    }
+
+    private static CompletableFuture<Iterable<Object[]>> computeWindowFunctionsConcurrently(
+        List<Object[]> sortedRows,
+        List<int[]> ranges,
+        ComputeFrameBoundary<Object[]> computeFrameStart,
+        ComputeFrameBoundary<Object[]> computeFrameEnd,
+        @Nullable Comparator<Object[]> cmpPartitionBy,
+        int numCellsInSourceRow,
+        Executor executor,
+        List<WindowFunctions> functionsPerRange) {
+
+        ArrayList<CompletableFuture<Void>> futures = new ArrayList<>(ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            int start = ranges.get(i)[0];
+            int end = ranges.get(i)[1];
+            WindowFunctions functions = functionsPerRange.get(i);
+            futures.add(supplyAsync(() -> {
+                Iterator<Object[]> it = computeWindowFunctions(
+                    sortedRows,
+                    start,
+                    end,
+                    computeFrameStart,
+                    computeFrameEnd,
+                    cmpPartitionBy,
+                    numCellsInSourceRow,
+                    functions
+                ).iterator();
+                while (it.hasNext()) {
+                    it.next();
+                }
+                return null;
+            }, executor));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+            .thenApply(ignored -> sortedRows);
     }
 
     private static Iterable<Object[]> computeWindowFunctions(List<Object[]> sortedRows,
+                                                             int start,
+                                                             int end,
                                                              ComputeFrameBoundary<Object[]> computeFrameStart,
                                                              ComputeFrameBoundary<Object[]> computeFrameEnd,
                                                              @Nullable Comparator<Object[]> cmpPartitionBy,
                                                              int numCellsInSourceRow,
-                                                             List<WindowFunction> windowFunctions,
-                                                             List<? extends CollectExpression<Row, ?>> argsExpressions,
-                                                             Input[]... args) {
+                                                             WindowFunctions windowFunctions) {
         return () -> new Iterator<>() {
 
             private boolean isTraceEnabled = LOGGER.isTraceEnabled();
 
-            private final int start = 0;
-            private final int end = sortedRows.size();
             private final WindowFrameState frame = new WindowFrameState(start, end, sortedRows);
 
             private int pStart = start;
             private int pEnd = findFirstNonPeer(sortedRows, pStart, end, cmpPartitionBy);
-            private int i = 0;
+            private int i = start;
 
             private int idxInPartition = 0;
 
@@ -197,8 +285,8 @@ public final class WindowFunctionBatchIterator {
                 int wBegin = computeFrameStart.apply(pStart, pEnd, i, sortedRows);
                 int wEnd = computeFrameEnd.apply(pStart, pEnd, i, sortedRows);
                 frame.updateBounds(pStart, pEnd, wBegin, wEnd);
-                final Object[] row = computeAndInjectResults(
-                    sortedRows, numCellsInSourceRow, windowFunctions, frame, i, idxInPartition, argsExpressions, args);
+                final Object[] row = sortedRows.get(i);
+                windowFunctions.computeAndInjectResults(row, numCellsInSourceRow, frame, idxInPartition);
 
                 if (isTraceEnabled) {
                     LOGGER.trace(
@@ -223,21 +311,4 @@ public final class WindowFunctionBatchIterator {
         }
         return cmpPartitionBy.thenComparing(cmpOrderBy);
     }
-
-    private static Object[] computeAndInjectResults(List<Object[]> rows,
-                                                    int numCellsInSourceRow,
-                                                    List<WindowFunction> windowFunctions,
-                                                    WindowFrameState frame,
-                                                    int idx,
-                                                    int idxInPartition,
-                                                    List<? extends CollectExpression<Row, ?>> argsExpressions,
-                                                    Input[]... args) {
-        Object[] row = rows.get(idx);
-        for (int c = 0; c < windowFunctions.size(); c++) {
-            WindowFunction windowFunction = windowFunctions.get(c);
-            Object result = windowFunction.execute(idxInPartition, frame, argsExpressions, args[c]);
-            row[numCellsInSourceRow + c] = result;
-        }
-        return row;
-    }
 }
@@ -0,0 +1,90 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.window;
+
+import io.crate.data.Input;
+import io.crate.data.Row;
+import io.crate.execution.engine.collect.CollectExpression;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * The {@link WindowFunction}s of a window definition together with the expressions and inputs of their arguments.
+ *
+ * <p>
+ * Window functions and their argument expressions are stateful, so an instance must only be used by a single thread.
+ * Instances which know how to create independent copies of themselves allow the partitions of a window to be
+ * computed concurrently, see {@link #newInstance()}.
+ * </p>
+ */
+public final class WindowFunctions {
+
+    private final List<WindowFunction> functions;
+    private final List<? extends CollectExpression<Row, ?>> argsExpressions;
+    private final Input[][] args;
+
+    @Nullable
+    private final Supplier<WindowFunctions> newInstance;
+
+    public WindowFunctions(List<WindowFunction> functions,
+                           List<? extends CollectExpression<Row, ?>> argsExpressions,
+                           Input[]... args) {
+        this(functions, argsExpressions, args, null);
+    }
+
+    public WindowFunctions(List<WindowFunction> functions,
+                           List<? extends CollectExpression<Row, ?>> argsExpressions,
+                           Input[][] args,
+                           @Nullable Supplier<WindowFunctions> newInstance) {
+        this.functions = functions;
+        this.argsExpressions = argsExpressions;
+        this.args = args;
+        this.newInstance = newInstance;
+    }
+
+    public int size() {
+        return functions.size();
+    }
+
+    /**
+     * @return a new instance that doesn't share any state with this instance or
+     *         null if the window functions can only be computed by a single thread.
+     */
+    @Nullable
+    public WindowFunctions newInstance() {
+        return newInstance == null ? null : newInstance.get();
+    }
+
+    void computeAndInjectResults(Object[] row,
+                                 int numCellsInSourceRow,
+                                 WindowFrameState frame,
+                                 int idxInPartition) {
+        for (int c = 0; c < functions.size(); c++) {
+            WindowFunction windowFunction = functions.get(c);
+            Object result = windowFunction.execute(idxInPartition, frame, argsExpressions, args[c]);
+            row[numCellsInSourceRow + c] = result;
+        }
+    }
+}
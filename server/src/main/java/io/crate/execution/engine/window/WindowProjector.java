@@ -46,6 +46,7 @@ import io.crate.metadata.TransactionContext;
 import io.crate.sql.tree.WindowFrame;
 import io.crate.types.DataType;
 import io.crate.types.IntervalType;
+import io.netty.buffer.ByteBuf;
 import org.elasticsearch.Version;
 
 import javax.annotation.Nullable;
@@ -54,6 +55,7 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.function.IntSupplier;
 import java.util.function.Supplier;
 
@@ -72,6 +74,78 @@ public class WindowProjector {
                                            Version indexVersionCreated,
                                            IntSupplier numThreads,
                                            Executor executor) {
+        // The partitions of a window can be computed concurrently by different instances of the window functions,
+        // they share the memory accounting of this projection
+        Object accountingLock = new Object();
+        RamAccounting sharedRamAccounting = new SynchronizedRamAccounting(ramAccounting, accountingLock);
+        MemoryManager sharedMemoryManager = new SynchronizedMemoryManager(memoryManager, accountingLock);
+        Supplier<WindowFunctions> createWindowFunctions = new Supplier<>() {
+
+            @Override
+            public WindowFunctions get() {
+                return createWindowFunctions(
+                    projection,
+                    functions,
+                    inputFactory,
+                    txnCtx,
+                    sharedRamAccounting,
+                    sharedMemoryManager,
+                    minNodeVersion,
+                    indexVersionCreated,
+                    this
+                );
+            }
+        };
+        WindowFunctions windowFunctions = createWindowFunctions.get();
+        var windowDefinition = projection.windowDefinition();
+        var partitions = windowDefinition.partitions();
+        Supplier<InputFactory.Context<CollectExpression<Row, ?>>> createInputFactoryContext =
+            () -> inputFactory.ctxForInputColumns(txnCtx);
+        int arrayListElementOverHead = 32;
+        RowAccountingWithEstimators accounting = new RowAccountingWithEstimators(
+            Symbols.typeView(projection.standalone()), ramAccounting, arrayListElementOverHead);
+        Comparator<Object[]> cmpPartitionBy = partitions.isEmpty()
+            ? null
+            : createComparator(createInputFactoryContext, new OrderBy(windowDefinition.partitions()));
+        Comparator<Object[]> cmpOrderBy = createComparator(createInputFactoryContext, windowDefinition.orderBy());
+        int numCellsInSourceRow = projection.standalone().size();
+        ComputeFrameBoundary<Object[]> computeFrameStart = createComputeStartFrameBoundary(
+            numCellsInSourceRow,
+            functions,
+            txnCtx,
+            windowDefinition,
+            cmpOrderBy
+        );
+        ComputeFrameBoundary<Object[]> computeFrameEnd = createComputeEndFrameBoundary(
+            numCellsInSourceRow,
+            functions,
+            txnCtx,
+            windowDefinition,
+            cmpOrderBy
+        );
+        return sourceRows -> WindowFunctionBatchIterator.of(
+            sourceRows,
+            accounting,
+            computeFrameStart,
+            computeFrameEnd,
+            cmpPartitionBy,
+            cmpOrderBy,
+            numCellsInSourceRow,
+            numThreads,
+            executor,
+            windowFunctions
+        );
+    }
+
+    private static WindowFunctions createWindowFunctions(WindowAggProjection projection,
+                                                         Functions functions,
+                                                         InputFactory inputFactory,
+                                                         TransactionContext txnCtx,
+                                                         RamAccounting ramAccounting,
+                                                         MemoryManager memoryManager,
+                                                         Version minNodeVersion,
+                                                         Version indexVersionCreated,
+                                                         Supplier<WindowFunctions> newInstance) {
         var windowFunctionSymbols = projection.windowFunctions();
         var numWindowFunctions = windowFunctionSymbols.size();
 
@@ -121,46 +195,7 @@ public class WindowProjector {
             windowFuncArgsExpressions.addAll(ctx.expressions());
             windowFuncArgsInputs[idx] = ctx.topLevelInputs().toArray(new Input[0]);
         }
-        var windowDefinition = projection.windowDefinition();
-        var partitions = windowDefinition.partitions();
-        Supplier<InputFactory.Context<CollectExpression<Row, ?>>> createInputFactoryContext =
-            () -> inputFactory.ctxForInputColumns(txnCtx);
-        int arrayListElementOverHead = 32;
-        RowAccountingWithEstimators accounting = new RowAccountingWithEstimators(
-            Symbols.typeView(projection.standalone()), ramAccounting, arrayListElementOverHead);
-        Comparator<Object[]> cmpPartitionBy = partitions.isEmpty()
-            ? null
-            : createComparator(createInputFactoryContext, new OrderBy(windowDefinition.partitions()));
-        Comparator<Object[]> cmpOrderBy = createComparator(createInputFactoryContext, windowDefinition.orderBy());
-        int numCellsInSourceRow = projection.standalone().size();
-        ComputeFrameBoundary<Object[]> computeFrameStart = createComputeStartFrameBoundary(
-            numCellsInSourceRow,
-            functions,
-            txnCtx,
-            windowDefinition,
-            cmpOrderBy
-        );
-        ComputeFrameBoundary<Object[]> computeFrameEnd = createComputeEndFrameBoundary(
-            numCellsInSourceRow,
-            functions,
-            txnCtx,
-            windowDefinition,
-            cmpOrderBy
-        );
-        return sourceRows -> WindowFunctionBatchIterator.of(
-            sourceRows,
-            accounting,
-            computeFrameStart,
-            computeFrameEnd,
-            cmpPartitionBy,
-            cmpOrderBy,
-            numCellsInSourceRow,
-            numThreads,
-            executor,
-            windowFunctions,
-            windowFuncArgsExpressions,
-            windowFuncArgsInputs
-        );
+        return new WindowFunctions(windowFunctions, windowFuncArgsExpressions, windowFuncArgsInputs, newInstance);
     }
 
     static ComputeFrameBoundary<Object[]> createComputeEndFrameBoundary(int numCellsInSourceRow,
@@ -173,21 +208,15 @@ public class WindowProjector {
         var framingMode = frameDefinition.mode();
         DataType offsetType = frameBoundEnd.value().valueType();
         Object offsetValue = evaluateWithoutParams(txnCtx, functions, frameBoundEnd.value());
-        Object[] endProbeValues = new Object[numCellsInSourceRow];
-        BiFunction<Object[], Object[], Object[]> updateProbeValues;
-        if (offsetValue != null && framingMode == WindowFrame.Mode.RANGE) {
-            updateProbeValues = createUpdateProbeValueFunction(
-                windowDefinition, ArithmeticOperatorsFactory::getAddFunction, offsetValue, offsetType);
-        } else {
-            updateProbeValues = (currentRow, x) -> x;
-        }
+        Function<Object[], Object[]> endProbeValues = createProbeValuesFunction(
+            numCellsInSourceRow, windowDefinition, ArithmeticOperatorsFactory::getAddFunction, offsetValue, offsetType);
         return (partitionStart, partitionEnd, currentIndex, sortedRows) -> frameBoundEnd.type().getEnd(
             framingMode,
             partitionStart,
             partitionEnd,
             currentIndex,
             offsetValue,
-            updateProbeValues.apply(sortedRows.get(currentIndex), endProbeValues),
+            endProbeValues.apply(sortedRows.get(currentIndex)),
             cmpOrderBy,
             sortedRows
         );
@@ -203,26 +232,39 @@ public class WindowProjector {
         var framingMode = frameDefinition.mode();
         DataType offsetType = frameBoundStart.value().valueType();
         Object offsetValue = evaluateWithoutParams(txnCtx, functions, frameBoundStart.value());
-        Object[] startProbeValues = new Object[numCellsInSourceRow];
-        BiFunction<Object[], Object[], Object[]> updateStartProbeValue;
-        if (offsetValue != null && framingMode == WindowFrame.Mode.RANGE) {
-            updateStartProbeValue = createUpdateProbeValueFunction(
-                windowDefinition, ArithmeticOperatorsFactory::getSubtractFunction, offsetValue, offsetType);
-        } else {
-            updateStartProbeValue = (currentRow, x) -> x;
-        }
+        Function<Object[], Object[]> startProbeValues = createProbeValuesFunction(
+            numCellsInSourceRow, windowDefinition, ArithmeticOperatorsFactory::getSubtractFunction, offsetValue, offsetType);
         return (partitionStart, partitionEnd, currentIndex, sortedRows) -> frameBoundStart.type().getStart(
             framingMode,
             partitionStart,
             partitionEnd,
             currentIndex,
             offsetValue,
-            updateStartProbeValue.apply(sortedRows.get(currentIndex), startProbeValues),
+            startProbeValues.apply(sortedRows.get(currentIndex)),
             cmpOrderBy,
             sortedRows
         );
     }
 
+    /**
+     * Creates the function to compute the probe values used to find the frame boundary of the current row.
+     * The frame boundaries of different partitions can be computed concurrently, so the probe values are never shared.
+     */
+    private static Function<Object[], Object[]> createProbeValuesFunction(int numCellsInSourceRow,
+                                                                          WindowDefinition windowDefinition,
+                                                                          BiFunction<DataType<?>, DataType<?>, BiFunction> getOffsetApplicationFunction,
+                                                                          Object offsetValue,
+                                                                          DataType offsetType) {
+        var framingMode = windowDefinition.windowFrameDefinition().mode();
+        if (offsetValue != null && framingMode == WindowFrame.Mode.RANGE) {
+            var updateProbeValues = createUpdateProbeValueFunction(
+                windowDefinition, getOffsetApplicationFunction, offsetValue, offsetType);
+            return currentRow -> updateProbeValues.apply(currentRow, new Object[numCellsInSourceRow]);
+        }
+        Object[] probeValues = new Object[numCellsInSourceRow];
+        return currentRow -> probeValues;
+    }
+
     private static BiFunction<Object[], Object[], Object[]> createUpdateProbeValueFunction(WindowDefinition windowDefinition,
                                                                                            BiFunction<DataType<?>, DataType<?>, BiFunction> getOffsetApplicationFunction,
                                                                                            Object offsetValue,
@@ -255,4 +297,68 @@ public class WindowProjector {
             return x;
         };
     }
+
+    private static final class SynchronizedRamAccounting implements RamAccounting {
+
+        private final RamAccounting delegate;
+        private final Object lock;
+
+        SynchronizedRamAccounting(RamAccounting delegate, Object lock) {
+            this.delegate = delegate;
+            this.lock = lock;
+        }
+
+        @Override
+        public void addBytes(long bytes) {
+            synchronized (lock) {
+                delegate.addBytes(bytes);
+            }
+        }
+
+        @Override
+        public long totalBytes() {
+            synchronized (lock) {
+                return delegate.totalBytes();
+            }
+        }
+
+        @Override
+        public void release() {
+            synchronized (lock) {
+                delegate.release();
+            }
+        }
+
+        @Override
+        public void close() {
+            synchronized (lock) {
+                delegate.close();
+            }
+        }
+    }
+
+    private static final class SynchronizedMemoryManager implements MemoryManager {
+
+        private final MemoryManager delegate;
+        private final Object lock;
+
+        SynchronizedMemoryManager(MemoryManager delegate, Object lock) {
+            this.delegate = delegate;
+            this.lock = lock;
+        }
+
+        @Override
+        public ByteBuf allocate(int capacity) {
+            synchronized (lock) {
+                return delegate.allocate(capacity);
+            }
+        }
+
+        @Override
+        public void close() {
+            synchronized (lock) {
+                delegate.close();
+            }
+        }
+    }
 }
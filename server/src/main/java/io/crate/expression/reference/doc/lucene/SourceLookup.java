@@ -23,12 +23,14 @@
 package io.crate.expression.reference.doc.lucene;
 
 
+import org.apache.lucene.codecs.StoredFieldsReader;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentType;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -38,9 +40,15 @@ import java.util.RandomAccess;
 public final class SourceLookup {
 
     private final SourceFieldVisitor fieldsVisitor = new SourceFieldVisitor();
+    private final SourceParser sourceParser = new SourceParser();
     private LeafReader reader;
+    @Nullable
+    private StoredFieldsReader storedFieldsReader;
+    @Nullable
+    private LeafReader storedFieldsReaderOwner;
     private int doc;
     private Map<String, Object> source;
+    private Map<String, Object> partialSource;
     private boolean docVisited = false;
 
     SourceLookup() {
@@ -54,11 +62,44 @@ public final class SourceLookup {
         fieldsVisitor.reset();
         this.docVisited = false;
         this.source = null;
+        this.partialSource = null;
         this.reader = context.reader();
         this.doc = doc;
     }
 
+    /**
+     * Loads the source of documents within {@code context} using {@code storedFieldsReader}
+     * instead of {@link LeafReader#document(int, org.apache.lucene.index.StoredFieldVisitor)}.
+     * This allows to use a reader optimized for sequential access, see {@link StoredFieldsReader#getMergeInstance()}.
+     * Passing {@code null} restores the default.
+     */
+    public void setStoredFieldsReader(@Nullable LeafReaderContext context, @Nullable StoredFieldsReader storedFieldsReader) {
+        if (context == null || storedFieldsReader == null) {
+            this.storedFieldsReader = null;
+            this.storedFieldsReaderOwner = null;
+        } else {
+            this.storedFieldsReader = storedFieldsReader;
+            this.storedFieldsReaderOwner = context.reader();
+        }
+    }
+
+    /**
+     * Registers a column path which will be retrieved using {@link #get(List)}.
+     * Values of registered paths are extracted from the source without parsing the whole source.
+     */
+    public void register(List<String> path) {
+        sourceParser.register(path);
+        partialSource = null;
+    }
+
     public Object get(List<String> path) {
+        if (source == null && sourceParser.contains(path)) {
+            if (partialSource == null) {
+                ensureDocVisited();
+                partialSource = sourceParser.parse(fieldsVisitor.source());
+            }
+            return extractValue(partialSource, path, 0);
+        }
         ensureSourceParsed();
         return extractValue(source, path, 0);
     }
@@ -85,7 +126,11 @@ public final class SourceLookup {
             return;
         }
         try {
-            reader.document(doc, fieldsVisitor);
+            if (storedFieldsReader != null && reader == storedFieldsReaderOwner) {
+                storedFieldsReader.visitDocument(doc, fieldsVisitor);
+            } else {
+                reader.document(doc, fieldsVisitor);
+            }
             docVisited = true;
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -0,0 +1,163 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.expression.reference.doc.lucene;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses only the registered column paths out of a JSON source.
+ * Sub-trees which aren't required are skipped by the parser without being materialized.
+ * <p>
+ * The result has the same structure as a fully parsed source, restricted to the required columns,
+ * so that values can be retrieved using {@link SourceLookup#extractValue(Map, List, int)}.
+ */
+final class SourceParser {
+
+    /**
+     * Tree of the required columns. A node without children means that the whole sub-tree is required.
+     */
+    private final Map<String, Object> requiredColumns = new HashMap<>();
+
+    @SuppressWarnings("unchecked")
+    void register(List<String> path) {
+        Map<String, Object> node = requiredColumns;
+        for (int i = 0; i < path.size() - 1; i++) {
+            String name = path.get(i);
+            Map<String, Object> child = (Map<String, Object>) node.get(name);
+            if (child == null) {
+                child = new HashMap<>();
+                node.put(name, child);
+            } else if (child.isEmpty()) {
+                // the whole sub-tree is already required
+                return;
+            }
+            node = child;
+        }
+        node.put(path.get(path.size() - 1), new HashMap<>());
+    }
+
+    /**
+     * @return true if the value for the path is fully contained in the result of {@link #parse(BytesReference)}
+     */
+    @SuppressWarnings("unchecked")
+    boolean contains(List<String> path) {
+        Map<String, Object> node = requiredColumns;
+        for (int i = 0; i < path.size(); i++) {
+            node = (Map<String, Object>) node.get(path.get(i));
+            if (node == null) {
+                return false;
+            }
+            if (node.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    Map<String, Object> parse(BytesReference source) {
+        try (XContentParser parser = XContentHelper.createParser(
+            NamedXContentRegistry.EMPTY,
+            DeprecationHandler.THROW_UNSUPPORTED_OPERATION,
+            source,
+            XContentType.JSON)) {
+
+            parser.nextToken();
+            return parseObject(parser, requiredColumns, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> parseObject(XContentParser parser,
+                                                   Map<String, Object> required,
+                                                   boolean isTopLevel) throws IOException {
+        HashMap<String, Object> values = new HashMap<>();
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) == XContentParser.Token.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            token = parser.nextToken();
+            Map<String, Object> requiredChildren = (Map<String, Object>) required.get(fieldName);
+            if (requiredChildren == null) {
+                parser.skipChildren();
+            } else {
+                values.put(fieldName, parseValue(parser, token, requiredChildren));
+                if (isTopLevel && values.size() == required.size()) {
+                    // Nothing left to look for, the rest of the source can be ignored
+                    break;
+                }
+            }
+        }
+        return values;
+    }
+
+    private static Object parseValue(XContentParser parser,
+                                     XContentParser.Token token,
+                                     Map<String, Object> requiredChildren) throws IOException {
+        if (requiredChildren.isEmpty()) {
+            return readValue(parser, token);
+        }
+        if (token == XContentParser.Token.START_OBJECT) {
+            return parseObject(parser, requiredChildren, false);
+        }
+        if (token == XContentParser.Token.START_ARRAY) {
+            ArrayList<Object> values = new ArrayList<>();
+            while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
+                values.add(parseValue(parser, token, requiredChildren));
+            }
+            return values;
+        }
+        return readValue(parser, token);
+    }
+
+    private static Object readValue(XContentParser parser, XContentParser.Token token) throws IOException {
+        switch (token) {
+            case VALUE_STRING:
+                return parser.text();
+            case VALUE_NUMBER:
+                return parser.numberValue();
+            case VALUE_BOOLEAN:
+                return parser.booleanValue();
+            case START_OBJECT:
+                return parser.map();
+            case START_ARRAY:
+                return parser.list();
+            case VALUE_EMBEDDED_OBJECT:
+                return parser.binaryValue();
+            default:
+                return null;
+        }
+    }
+}
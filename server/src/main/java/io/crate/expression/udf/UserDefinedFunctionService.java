@@ -46,12 +46,15 @@ import org.elasticsearch.common.inject.Singleton;
 
 import javax.annotation.Nullable;
 import javax.script.ScriptException;
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 
@@ -64,6 +67,14 @@ public class UserDefinedFunctionService {
     private final Functions functions;
     private final Map<String, UDFLanguage> languageRegistry = new HashMap<>();
 
+    /**
+     * The function implementations by schema.
+     * Implementations are re-used as long as the definition of the function doesn't change,
+     * and closed once the function is dropped or replaced.
+     */
+    private final Map<String, Map<UserDefinedFunctionMetadata, Scalar<?, ?>>> implementationsBySchema =
+        new ConcurrentHashMap<>();
+
     @Inject
     public UserDefinedFunctionService(ClusterService clusterService, Functions functions) {
         this.clusterService = clusterService;
@@ -202,25 +213,60 @@ public class UserDefinedFunctionService {
 
     public void updateImplementations(String schema, Stream<UserDefinedFunctionMetadata> userDefinedFunctions) {
         final Map<FunctionName, List<FunctionProvider>> implementations = new HashMap<>();
+        Map<UserDefinedFunctionMetadata, Scalar<?, ?>> previousScalars =
+            implementationsBySchema.getOrDefault(schema, Map.of());
+        Map<UserDefinedFunctionMetadata, Scalar<?, ?>> scalars = new HashMap<>();
         Iterator<UserDefinedFunctionMetadata> it = userDefinedFunctions.iterator();
         while (it.hasNext()) {
             UserDefinedFunctionMetadata udf = it.next();
-            FunctionProvider resolver = buildFunctionResolver(udf);
-            if (resolver == null) {
-                continue;
+            Signature signature = signatureOf(udf);
+            Scalar<?, ?> scalar = previousScalars.get(udf);
+            if (scalar == null) {
+                scalar = createImplementation(udf, signature);
+                if (scalar == null) {
+                    continue;
+                }
             }
+            scalars.put(udf, scalar);
             var functionName = new FunctionName(udf.schema(), udf.name());
             var resolvers = implementations.computeIfAbsent(
                 functionName, k -> new ArrayList<>());
-            resolvers.add(resolver);
+            resolvers.add(newFunctionProvider(signature, scalar));
         }
         functions.registerUdfFunctionImplementationsForSchema(schema, implementations);
+        implementationsBySchema.put(schema, scalars);
+        for (var entry : previousScalars.entrySet()) {
+            if (scalars.containsKey(entry.getKey()) == false) {
+                closeImplementation(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Close the implementations of all functions of a schema, to be called once the schema is removed.
+     */
+    public void closeImplementations(String schema) {
+        Map<UserDefinedFunctionMetadata, Scalar<?, ?>> scalars = implementationsBySchema.remove(schema);
+        if (scalars != null) {
+            for (var entry : scalars.entrySet()) {
+                closeImplementation(entry.getKey(), entry.getValue());
+            }
+        }
     }
 
     @Nullable
     public FunctionProvider buildFunctionResolver(UserDefinedFunctionMetadata udf) {
+        Signature signature = signatureOf(udf);
+        Scalar<?, ?> scalar = createImplementation(udf, signature);
+        if (scalar == null) {
+            return null;
+        }
+        return newFunctionProvider(signature, scalar);
+    }
+
+    private static Signature signatureOf(UserDefinedFunctionMetadata udf) {
         var functionName = new FunctionName(udf.schema(), udf.name());
-        var signature = Signature.builder()
+        return Signature.builder()
             .name(functionName)
             .kind(FunctionType.SCALAR)
             .argumentTypes(
@@ -229,15 +275,29 @@ public class UserDefinedFunctionService {
                     DataType::getTypeSignature))
             .returnType(udf.returnType().getTypeSignature())
             .build();
+    }
+
+    private static FunctionProvider newFunctionProvider(Signature signature, Scalar<?, ?> scalar) {
+        return new FunctionProvider(signature, (s, args) -> scalar);
+    }
 
-        final Scalar<?, ?> scalar;
+    @Nullable
+    private Scalar<?, ?> createImplementation(UserDefinedFunctionMetadata udf, Signature signature) {
         try {
-            scalar = getLanguage(udf.language()).createFunctionImplementation(udf, signature);
+            return getLanguage(udf.language()).createFunctionImplementation(udf, signature);
         } catch (ScriptException | IllegalArgumentException e) {
             LOGGER.warn("Can't create user defined function: " + udf.specificName(), e);
             return null;
         }
+    }
 
-        return new FunctionProvider(signature, (s, args) -> scalar);
+    private static void closeImplementation(UserDefinedFunctionMetadata udf, Scalar<?, ?> scalar) {
+        if (scalar instanceof Closeable) {
+            try {
+                ((Closeable) scalar).close();
+            } catch (IOException e) {
+                LOGGER.warn("Can't close user defined function: " + udf.specificName(), e);
+            }
+        }
     }
 }
@@ -0,0 +1,284 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.lucene;
+
+import java.io.IOException;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
+import org.elasticsearch.index.mapper.MappedFieldType;
+
+import io.crate.expression.operator.AndOperator;
+import io.crate.expression.operator.EqOperator;
+import io.crate.expression.operator.GtOperator;
+import io.crate.expression.operator.GteOperator;
+import io.crate.expression.operator.LtOperator;
+import io.crate.expression.operator.LteOperator;
+import io.crate.expression.operator.OrOperator;
+import io.crate.expression.predicate.IsNullPredicate;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.Literal;
+import io.crate.expression.symbol.Symbol;
+import io.crate.metadata.Reference;
+import io.crate.metadata.RowGranularity;
+import io.crate.types.ByteType;
+import io.crate.types.DataType;
+import io.crate.types.DoubleType;
+import io.crate.types.FloatType;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.TimestampType;
+
+/**
+ * Decides if a query can match any document of an index reader by comparing the ranges of values in the query
+ * with the smallest and largest value and the number of values of each segment.
+ *
+ * These statistics are written into the points index of a segment when it is flushed or merged,
+ * so reading them doesn't visit any document.
+ * Only comparisons of numeric and timestamp columns with literals, `IS NULL`, `AND` and `OR` are looked at,
+ * everything else is assumed to match.
+ *
+ * This is a shard-local check: the statistics are read from the segments of the shard that is about to be searched,
+ * they aren't published to the coordinator and don't take part in the routing or the partition pruning
+ * of the {@link io.crate.analyze.where.WhereClauseAnalyzer}.
+ */
+public final class PointValuesFilter {
+
+    private PointValuesFilter() {
+    }
+
+    /**
+     * @return false if the query can't match any document of the reader, true if it can or if it can't be decided.
+     */
+    public static boolean canMatch(Symbol query, IndexReader reader, FieldTypeLookup fieldTypeLookup) throws IOException {
+        if (query instanceof Function) {
+            return canMatch((Function) query, reader, fieldTypeLookup);
+        }
+        return true;
+    }
+
+    private static boolean canMatch(Function function, IndexReader reader, FieldTypeLookup fieldTypeLookup) throws IOException {
+        List<Symbol> args = function.arguments();
+        switch (function.name()) {
+            case AndOperator.NAME:
+                for (Symbol arg : args) {
+                    if (!canMatch(arg, reader, fieldTypeLookup)) {
+                        return false;
+                    }
+                }
+                return true;
+
+            case OrOperator.NAME:
+                for (Symbol arg : args) {
+                    if (canMatch(arg, reader, fieldTypeLookup)) {
+                        return true;
+                    }
+                }
+                return false;
+
+            case IsNullPredicate.NAME: {
+                Range range = args.get(0) instanceof Reference
+                    ? range(reader, fieldTypeLookup, (Reference) args.get(0))
+                    : null;
+                return range == null || range.hasNulls;
+            }
+
+            case EqOperator.NAME:
+            case GtOperator.NAME:
+            case GteOperator.NAME:
+            case LtOperator.NAME:
+            case LteOperator.NAME:
+                if (args.get(0) instanceof Reference && args.get(1) instanceof Literal) {
+                    return canMatchComparison(
+                        function.name(), (Reference) args.get(0), (Literal<?>) args.get(1), reader, fieldTypeLookup);
+                }
+                if (args.get(0) instanceof Literal && args.get(1) instanceof Reference) {
+                    return canMatchComparison(
+                        flip(function.name()), (Reference) args.get(1), (Literal<?>) args.get(0), reader, fieldTypeLookup);
+                }
+                return true;
+
+            default:
+                return true;
+        }
+    }
+
+    private static String flip(String operator) {
+        switch (operator) {
+            case GtOperator.NAME:
+                return LtOperator.NAME;
+            case GteOperator.NAME:
+                return LteOperator.NAME;
+            case LtOperator.NAME:
+                return GtOperator.NAME;
+            case LteOperator.NAME:
+                return GteOperator.NAME;
+            default:
+                return operator;
+        }
+    }
+
+    private static boolean canMatchComparison(String operator,
+                                              Reference ref,
+                                              Literal<?> literal,
+                                              IndexReader reader,
+                                              FieldTypeLookup fieldTypeLookup) throws IOException {
+        Object value = literal.value();
+        if (!(value instanceof Number) || ref.valueType().id() != literal.valueType().id()) {
+            return true;
+        }
+        if ((value instanceof Double && ((Double) value).isNaN()) || (value instanceof Float && ((Float) value).isNaN())) {
+            return true;
+        }
+        Range range = range(reader, fieldTypeLookup, ref);
+        if (range == null) {
+            return true;
+        }
+        if (range.isEmpty()) {
+            // A comparison with null is never true
+            return false;
+        }
+        int cmpMin = range.compareToMin((Number) value);
+        int cmpMax = range.compareToMax((Number) value);
+        switch (operator) {
+            case EqOperator.NAME:
+                return cmpMin >= 0 && cmpMax <= 0;
+            case GtOperator.NAME:
+                return cmpMax < 0;
+            case GteOperator.NAME:
+                return cmpMax <= 0;
+            case LtOperator.NAME:
+                return cmpMin > 0;
+            case LteOperator.NAME:
+                return cmpMin >= 0;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * @return the range of values of the column within the reader or null if it's unknown
+     */
+    @Nullable
+    private static Range range(IndexReader reader, FieldTypeLookup fieldTypeLookup, Reference ref) throws IOException {
+        if (ref.granularity() != RowGranularity.DOC) {
+            return null;
+        }
+        Boolean floatingPoint = isFloatingPoint(ref.valueType());
+        if (floatingPoint == null) {
+            return null;
+        }
+        MappedFieldType fieldType = fieldTypeLookup.get(ref.column().fqn());
+        if (fieldType == null) {
+            return null;
+        }
+        String field = fieldType.name();
+        Range range = new Range(floatingPoint);
+        for (LeafReaderContext leaf : reader.leaves()) {
+            LeafReader leafReader = leaf.reader();
+            FieldInfo fieldInfo = leafReader.getFieldInfos().fieldInfo(field);
+            if (fieldInfo == null) {
+                // None of the documents of the segment has a value
+                range.hasNulls |= leafReader.maxDoc() > 0;
+                continue;
+            }
+            PointValues values = PointValuesRange.get(leafReader, field);
+            if (values == null) {
+                // The column isn't indexed
+                return null;
+            }
+            range.add(values);
+            range.hasNulls |= values.getDocCount() < leafReader.maxDoc();
+        }
+        return range;
+    }
+
+    @Nullable
+    private static Boolean isFloatingPoint(DataType<?> type) {
+        switch (type.id()) {
+            case ByteType.ID:
+            case ShortType.ID:
+            case IntegerType.ID:
+            case LongType.ID:
+            case TimestampType.ID_WITH_TZ:
+            case TimestampType.ID_WITHOUT_TZ:
+                return false;
+
+            case FloatType.ID:
+            case DoubleType.ID:
+                return true;
+
+            default:
+                return null;
+        }
+    }
+
+    private static class Range {
+
+        private final boolean floatingPoint;
+        private boolean empty = true;
+        private boolean hasNulls = false;
+        private long minLong = Long.MAX_VALUE;
+        private long maxLong = Long.MIN_VALUE;
+        private double minDouble = Double.POSITIVE_INFINITY;
+        private double maxDouble = Double.NEGATIVE_INFINITY;
+
+        Range(boolean floatingPoint) {
+            this.floatingPoint = floatingPoint;
+        }
+
+        boolean isEmpty() {
+            return empty;
+        }
+
+        void add(PointValues values) throws IOException {
+            if (floatingPoint) {
+                minDouble = Math.min(minDouble, PointValuesRange.toDouble(values, values.getMinPackedValue()));
+                maxDouble = Math.max(maxDouble, PointValuesRange.toDouble(values, values.getMaxPackedValue()));
+            } else {
+                minLong = Math.min(minLong, PointValuesRange.toLong(values, values.getMinPackedValue()));
+                maxLong = Math.max(maxLong, PointValuesRange.toLong(values, values.getMaxPackedValue()));
+            }
+            empty = false;
+        }
+
+        int compareToMin(Number value) {
+            return floatingPoint
+                ? Double.compare(value.doubleValue(), minDouble)
+                : Long.compare(value.longValue(), minLong);
+        }
+
+        int compareToMax(Number value) {
+            return floatingPoint
+                ? Double.compare(value.doubleValue(), maxDouble)
+                : Long.compare(value.longValue(), maxLong);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.lucene;
+
+import java.io.IOException;
+
+import javax.annotation.Nullable;
+
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.util.NumericUtils;
+
+/**
+ * Reads the smallest and the largest value of a numeric column within a segment from its points index.
+ *
+ * Integer, short, float and date columns are indexed with 4 or 8 byte points using the same sortable
+ * encoding as their doc values. The points of deleted documents are only removed on merge, so the range
+ * of a segment with deletions may be wider than the range of its live documents.
+ */
+public final class PointValuesRange {
+
+    private PointValuesRange() {
+    }
+
+    /**
+     * @return the points of the column or null if the column isn't indexed in the segment.
+     */
+    @Nullable
+    public static PointValues get(LeafReader reader, String columnName) throws IOException {
+        PointValues values = reader.getPointValues(columnName);
+        if (values == null || values.getNumIndexDimensions() != 1) {
+            return null;
+        }
+        int bytesPerDimension = values.getBytesPerDimension();
+        if (bytesPerDimension != Integer.BYTES && bytesPerDimension != Long.BYTES) {
+            return null;
+        }
+        return values;
+    }
+
+    public static long toLong(PointValues values, byte[] packedValue) {
+        if (values.getBytesPerDimension() == Integer.BYTES) {
+            return NumericUtils.sortableBytesToInt(packedValue, 0);
+        }
+        return NumericUtils.sortableBytesToLong(packedValue, 0);
+    }
+
+    public static double toDouble(PointValues values, byte[] packedValue) {
+        if (values.getBytesPerDimension() == Integer.BYTES) {
+            return NumericUtils.sortableIntToFloat(NumericUtils.sortableBytesToInt(packedValue, 0));
+        }
+        return NumericUtils.sortableLongToDouble(NumericUtils.sortableBytesToLong(packedValue, 0));
+    }
+}
@@ -334,5 +334,6 @@ public class DocSchemaInfo implements SchemaInfo {
     @Override
     public void close() throws Exception {
         functions.deregisterUdfResolversForSchema(schemaName);
+        udfService.closeImplementations(schemaName);
     }
 }
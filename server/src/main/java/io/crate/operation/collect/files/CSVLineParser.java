@@ -43,7 +43,11 @@ public class CSVLineParser {
     private final ByteArrayOutputStream out = new ByteArrayOutputStream();
 
     public void parseHeader(String header) throws IOException {
-        MappingIterator<String> iterator = csvReader.readValues(header.getBytes(StandardCharsets.UTF_8));
+        parseHeader(header.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void parseHeader(byte[] header) throws IOException {
+        MappingIterator<String> iterator = csvReader.readValues(header);
         iterator.readAll(keyList);
         HashSet<String> keySet = new HashSet<>(keyList);
         keySet.remove("");
@@ -53,7 +57,11 @@ public class CSVLineParser {
     }
 
     public byte[] parse(String row) throws IOException {
-        MappingIterator<Object> iterator = csvReader.readValues(row.getBytes(StandardCharsets.UTF_8));
+        return parse(row.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public byte[] parse(byte[] row) throws IOException {
+        MappingIterator<Object> iterator = csvReader.readValues(row);
         out.reset();
         XContentBuilder jsonBuilder = new XContentBuilder(JsonXContent.JSON_XCONTENT, out).startObject();
         int i = 0;
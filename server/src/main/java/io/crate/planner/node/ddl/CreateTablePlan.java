@@ -36,6 +36,7 @@ import io.crate.data.InMemoryBatchIterator;
 import io.crate.data.Row;
 import io.crate.data.Row1;
 import io.crate.data.RowConsumer;
+import io.crate.exceptions.UnsupportedFeatureException;
 import io.crate.execution.ddl.tables.TableCreator;
 import io.crate.execution.support.OneRowActionListener;
 import io.crate.expression.symbol.Symbol;
@@ -54,8 +55,10 @@ import io.crate.sql.tree.ClusteredBy;
 import io.crate.sql.tree.CreateTable;
 import io.crate.sql.tree.GenericProperties;
 import io.crate.sql.tree.PartitionedBy;
+import org.elasticsearch.Version;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexSortConfig;
 
 import javax.annotation.Nullable;
 import java.util.Locale;
@@ -68,6 +71,11 @@ public class CreateTablePlan implements Plan {
 
     private static final String CLUSTERED_BY_IN_PARTITIONED_ERROR = "Cannot use CLUSTERED BY column in PARTITIONED BY clause";
 
+    public static final String SORT_BY_VERSION_ERROR_MSG =
+        "The 'sort_by' table parameter is only supported when all nodes in the cluster running at least version 4.3.0";
+
+    private static final String SORT_BY = TableParameters.stripIndexPrefix(IndexSortConfig.INDEX_SORT_BY_SETTING.getKey());
+
     private final AnalyzedCreateTable createTable;
     private final NumberOfShards numberOfShards;
     private final TableCreator tableCreator;
@@ -76,7 +84,13 @@ public class CreateTablePlan implements Plan {
     public CreateTablePlan(AnalyzedCreateTable createTable,
                            NumberOfShards numberOfShards,
                            TableCreator tableCreator,
-                           Schemas schemas) {
+                           Schemas schemas,
+                           Version minNodeVersion) {
+        // older nodes don't know the index sort setting and can't allocate the shards of the table
+        if (createTable.createTable().properties().keys().contains(SORT_BY)
+            && !minNodeVersion.onOrAfter(Version.V_4_3_0)) {
+            throw new UnsupportedFeatureException(SORT_BY_VERSION_ERROR_MSG);
+        }
         this.createTable = createTable;
         this.numberOfShards = numberOfShards;
         this.tableCreator = tableCreator;
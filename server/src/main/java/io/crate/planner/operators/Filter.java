@@ -33,6 +33,8 @@ import io.crate.expression.symbol.SymbolVisitors;
 import io.crate.metadata.RowGranularity;
 import io.crate.planner.ExecutionPlan;
 import io.crate.planner.PlannerContext;
+import io.crate.planner.selectivity.SelectivityFunctions;
+import io.crate.statistics.Stats;
 import io.crate.statistics.TableStats;
 import io.crate.types.DataTypes;
 
@@ -106,6 +108,17 @@ public final class Filter extends ForwardingLogicalPlan {
         return new Filter(Lists2.getOnlyElement(sources), query);
     }
 
+    @Override
+    public long numExpectedRows() {
+        long numSourceRows = source.numExpectedRows();
+        if (numSourceRows == -1) {
+            return -1;
+        }
+        // The query can refer to columns of multiple relations (e.g. on top of a join), so there are no column
+        // statistics available and only the default selectivities apply.
+        return (long) (numSourceRows * SelectivityFunctions.selectivity(Stats.EMPTY, query, null));
+    }
+
     @Override
     public <C, R> R accept(LogicalPlanVisitor<C, R> visitor, C context) {
         return visitor.visitFilter(this, context);
@@ -65,31 +65,53 @@ import static io.crate.planner.operators.LogicalPlanner.NO_LIMIT;
 public class HashJoin implements LogicalPlan {
 
     private final Symbol joinCondition;
+    private final JoinType joinType;
     @VisibleForTesting
     final AnalyzedRelation concreteRelation;
     private final List<Symbol> outputs;
     final LogicalPlan rhs;
     final LogicalPlan lhs;
+    private final boolean rewriteFilterOnOuterJoinToInnerJoinDone;
 
     public HashJoin(LogicalPlan lhs,
                     LogicalPlan rhs,
+                    JoinType joinType,
                     Symbol joinCondition,
                     AnalyzedRelation concreteRelation) {
+        this(lhs, rhs, joinType, joinCondition, concreteRelation, false);
+    }
+
+    public HashJoin(LogicalPlan lhs,
+                    LogicalPlan rhs,
+                    JoinType joinType,
+                    Symbol joinCondition,
+                    AnalyzedRelation concreteRelation,
+                    boolean rewriteFilterOnOuterJoinToInnerJoinDone) {
         this.outputs = Lists2.concat(lhs.outputs(), rhs.outputs());
+        this.joinType = joinType;
         this.lhs = lhs;
         this.rhs = rhs;
         this.concreteRelation = concreteRelation;
         this.joinCondition = joinCondition;
+        this.rewriteFilterOnOuterJoinToInnerJoinDone = rewriteFilterOnOuterJoinToInnerJoinDone;
+    }
+
+    public boolean isRewriteFilterOnOuterJoinToInnerJoinDone() {
+        return rewriteFilterOnOuterJoinToInnerJoinDone;
     }
 
     public JoinType joinType() {
-        return JoinType.INNER;
+        return joinType;
     }
 
     public Symbol joinCondition() {
         return joinCondition;
     }
 
+    public AnalyzedRelation concreteRelation() {
+        return concreteRelation;
+    }
+
     public LogicalPlan lhs() {
         return lhs;
     }
@@ -125,11 +147,18 @@ public class HashJoin implements LogicalPlan {
         LogicalPlan leftLogicalPlan = lhs;
         LogicalPlan rightLogicalPlan = rhs;
 
+        JoinType joinType = this.joinType;
         boolean tablesSwitched = false;
         // We move smaller table to the right side since benchmarking
         // revealed that this improves performance in most cases.
-        if (lhs.numExpectedRows() < rhs.numExpectedRows()) {
+        // Outer joins are the exception: they keep the whole left side in memory,
+        // so the smaller table must be on the left side.
+        boolean switchTables = joinType.isOuter()
+            ? lhs.numExpectedRows() > rhs.numExpectedRows()
+            : lhs.numExpectedRows() < rhs.numExpectedRows();
+        if (switchTables) {
             tablesSwitched = true;
+            joinType = joinType.invert();
             leftLogicalPlan = rhs;
             rightLogicalPlan = lhs;
 
@@ -192,10 +221,12 @@ public class HashJoin implements LogicalPlan {
             leftOutputs.size(),
             rightOutputs.size(),
             joinExecutionNodes,
+            joinType,
             InputColumns.create(paramBinder.apply(joinCondition), joinOutputs),
             InputColumns.create(Lists2.map(hashSymbols.v1(), paramBinder), new InputColumns.SourceSymbols(leftOutputs)),
             InputColumns.create(Lists2.map(hashSymbols.v2(), paramBinder), new InputColumns.SourceSymbols(rightOutputs)),
             Symbols.typeView(leftOutputs),
+            Symbols.typeView(rightOutputs),
             leftLogicalPlan.estimatedRowSize(),
             leftLogicalPlan.numExpectedRows());
         return new Join(
@@ -230,8 +261,10 @@ public class HashJoin implements LogicalPlan {
         return new HashJoin(
             sources.get(0),
             sources.get(1),
+            joinType,
             joinCondition,
-            concreteRelation
+            concreteRelation,
+            rewriteFilterOnOuterJoinToInnerJoinDone
         );
     }
 
@@ -253,8 +286,10 @@ public class HashJoin implements LogicalPlan {
         return new HashJoin(
             newLhs,
             newRhs,
+            joinType,
             joinCondition,
-            concreteRelation
+            concreteRelation,
+            rewriteFilterOnOuterJoinToInnerJoinDone
         );
     }
 
@@ -284,8 +319,10 @@ public class HashJoin implements LogicalPlan {
             new HashJoin(
                 lhsFetchRewrite.newPlan(),
                 rhsFetchRewrite.newPlan(),
+                joinType,
                 joinCondition,
-                concreteRelation
+                concreteRelation,
+                rewriteFilterOnOuterJoinToInnerJoinDone
             )
         );
     }
@@ -326,7 +363,13 @@ public class HashJoin implements LogicalPlan {
     @Override
     public void print(PrintContext printContext) {
         printContext
-            .text("HashJoin[")
+            .text("HashJoin[");
+        if (joinType != JoinType.INNER) {
+            printContext
+                .text(joinType.toString())
+                .text(" | ");
+        }
+        printContext
             .text(joinCondition.toString())
             .text("]")
             .nest(
@@ -31,6 +31,7 @@ import io.crate.expression.operator.AndOperator;
 import io.crate.expression.symbol.Symbol;
 import io.crate.metadata.RelationName;
 import io.crate.planner.node.dql.join.JoinType;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.util.set.Sets;
 
 import javax.annotation.Nullable;
@@ -63,7 +64,8 @@ public class JoinPlanBuilder {
                                      Symbol whereClause,
                                      List<JoinPair> joinPairs,
                                      Function<AnalyzedRelation, LogicalPlan> plan,
-                                     boolean hashJoinEnabled) {
+                                     boolean hashJoinEnabled,
+                                     Version minNodeVersion) {
         if (from.size() == 1) {
             return Filter.create(plan.apply(from.get(0)), whereClause);
         }
@@ -112,7 +114,8 @@ public class JoinPlanBuilder {
             lhs,
             rhs,
             query,
-            hashJoinEnabled
+            hashJoinEnabled,
+            minNodeVersion
         );
 
         joinPlan = Filter.create(joinPlan, query);
@@ -126,7 +129,8 @@ public class JoinPlanBuilder {
                 joinPairsByRelations,
                 queryParts,
                 lhs,
-                hashJoinEnabled
+                hashJoinEnabled,
+                minNodeVersion
             );
             joinNames.add(nextRel.relationName());
         }
@@ -146,11 +150,15 @@ public class JoinPlanBuilder {
                                               AnalyzedRelation lhs,
                                               AnalyzedRelation rhs,
                                               Symbol query,
-                                              boolean hashJoinEnabled) {
-        if (hashJoinEnabled && isHashJoinPossible(joinType, joinCondition)) {
+                                              boolean hashJoinEnabled,
+                                              Version minNodeVersion) {
+        // Nodes < 4.3.0 ignore the join type of a HashJoinPhase and would run every hash join as an inner join
+        boolean joinTypeSupported = joinType == JoinType.INNER || minNodeVersion.onOrAfter(Version.V_4_3_0);
+        if (hashJoinEnabled && joinTypeSupported && isHashJoinPossible(joinType, joinCondition)) {
             return new HashJoin(
                 lhsPlan,
                 rhsPlan,
+                joinType,
                 joinCondition,
                 rhs);
         } else {
@@ -182,7 +190,8 @@ public class JoinPlanBuilder {
                                             Map<Set<RelationName>, JoinPair> joinPairs,
                                             Map<Set<RelationName>, Symbol> queryParts,
                                             AnalyzedRelation leftRelation,
-                                            boolean hashJoinEnabled) {
+                                            boolean hashJoinEnabled,
+                                            Version minNodeVersion) {
         RelationName nextName = nextRel.relationName();
 
         JoinPair joinPair = removeMatch(joinPairs, joinNames, nextName);
@@ -212,7 +221,8 @@ public class JoinPlanBuilder {
                 leftRelation,
                 nextRel,
                 query,
-                hashJoinEnabled),
+                hashJoinEnabled,
+                minNodeVersion),
             query
         );
     }
@@ -136,10 +136,12 @@ public class Limit extends ForwardingLogicalPlan {
 
     @Override
     public long numExpectedRows() {
+        long numSourceRows = source.numExpectedRows();
         if (limit instanceof Literal) {
-            return DataTypes.LONG.value(((Literal) limit).value());
+            long limitVal = DataTypes.LONG.value(((Literal) limit).value());
+            return numSourceRows == -1 ? limitVal : Math.min(limitVal, numSourceRows);
         }
-        return source.numExpectedRows();
+        return numSourceRows;
     }
 
     @Override
@@ -114,6 +114,7 @@ public class LogicalPlanner {
     private final Visitor statementVisitor = new Visitor();
     private final Optimizer writeOptimizer;
     private final Optimizer fetchOptimizer;
+    private final Supplier<Version> minNodeVersionInCluster;
 
     public LogicalPlanner(Functions functions, TableStats tableStats, Supplier<Version> minNodeVersionInCluster, LoadedRules loadedRules) {
         this.optimizer = new Optimizer(
@@ -160,6 +161,7 @@ public class LogicalPlanner {
             )
         );
         this.tableStats = tableStats;
+        this.minNodeVersionInCluster = minNodeVersionInCluster;
     }
 
     public LogicalPlan plan(AnalyzedStatement statement, PlannerContext plannerContext) {
@@ -191,7 +193,8 @@ public class LogicalPlanner {
             txnCtx,
             Set.of(),
             tableStats,
-            subSelectPlannerContext.params()
+            subSelectPlannerContext.params(),
+            minNodeVersionInCluster.get()
         );
 
         plan = tryOptimizeForInSubquery(selectSymbol, relation, plan);
@@ -229,7 +232,8 @@ public class LogicalPlanner {
             coordinatorTxnCtx,
             hints,
             tableStats,
-            plannerContext.params());
+            plannerContext.params(),
+            minNodeVersionInCluster.get());
         LogicalPlan optimizedPlan = optimizer.optimize(logicalPlan, tableStats, coordinatorTxnCtx);
         return fetchOptimizer.optimize(
             optimizedPlan.pruneOutputsExcept(tableStats, relation.outputs()),
@@ -243,13 +247,15 @@ public class LogicalPlanner {
                             CoordinatorTxnCtx txnCtx,
                             Set<PlanHint> hints,
                             TableStats tableStats,
-                            Row params) {
+                            Row params,
+                            Version minNodeVersion) {
         var planBuilder = new PlanBuilder(
             subqueryPlanner,
             txnCtx,
             hints,
             tableStats,
-            params
+            params,
+            minNodeVersion
         );
         return relation.accept(planBuilder, relation.outputs());
     }
@@ -261,17 +267,20 @@ public class LogicalPlanner {
         private final Set<PlanHint> hints;
         private final TableStats tableStats;
         private final Row params;
+        private final Version minNodeVersion;
 
         private PlanBuilder(SubqueryPlanner subqueryPlanner,
                             CoordinatorTxnCtx txnCtx,
                             Set<PlanHint> hints,
                             TableStats tableStats,
-                            Row params) {
+                            Row params,
+                            Version minNodeVersion) {
             this.subqueryPlanner = subqueryPlanner;
             this.txnCtx = txnCtx;
             this.hints = hints;
             this.tableStats = tableStats;
             this.params = params;
+            this.minNodeVersion = minNodeVersion;
         }
 
         @Override
@@ -377,7 +386,8 @@ public class LogicalPlanner {
                         return rel.accept(this, List.copyOf(toCollect));
                     }
                 },
-                txnCtx.sessionContext().isHashJoinEnabled()
+                txnCtx.sessionContext().isHashJoinEnabled(),
+                minNodeVersion
             );
             return MultiPhase.createIfNeeded(
                 Eval.create(
@@ -25,7 +25,13 @@ package io.crate.planner.selectivity;
 import io.crate.data.Row;
 import io.crate.expression.operator.AndOperator;
 import io.crate.expression.operator.EqOperator;
+import io.crate.expression.operator.GtOperator;
+import io.crate.expression.operator.GteOperator;
+import io.crate.expression.operator.LikeOperators;
+import io.crate.expression.operator.LtOperator;
+import io.crate.expression.operator.LteOperator;
 import io.crate.expression.operator.OrOperator;
+import io.crate.expression.operator.any.AnyOperators;
 import io.crate.expression.predicate.IsNullPredicate;
 import io.crate.expression.predicate.NotPredicate;
 import io.crate.expression.symbol.Function;
@@ -37,10 +43,15 @@ import io.crate.expression.symbol.SymbolVisitor;
 import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.Reference;
 import io.crate.statistics.ColumnStats;
+import io.crate.statistics.MostCommonValues;
 import io.crate.statistics.Stats;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
 
 import javax.annotation.Nullable;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 
 /**
@@ -58,9 +69,31 @@ public class SelectivityFunctions {
      */
     private static final double MAGIC_SEL = 0.333;
 
+    /**
+     * Default selectivity for range queries (`x > 10`) if there are no statistics available.
+     */
+    private static final double DEFAULT_INEQ_SEL = 0.3333333333333333;
+
+    /**
+     * Default selectivity for `LIKE` if there are no statistics available or the pattern has no fixed prefix.
+     */
+    private static final double DEFAULT_MATCH_SEL = 0.005;
+
+    /**
+     * Marker for operands which don't have a value at planning time (e.g. a column or a sub-query)
+     */
+    private static final Object NO_VALUE = new Object();
+
     public static long estimateNumRows(Stats stats, Symbol query, @Nullable Row params) {
+        return (long) (stats.numDocs() * selectivity(stats, query, params));
+    }
+
+    /**
+     * @return the fraction (0.0 - 1.0) of rows which are expected to match the query.
+     */
+    public static double selectivity(Stats stats, Symbol query, @Nullable Row params) {
         var estimator = new SelectivityEstimator(stats, params);
-        return (long) (stats.numDocs() * query.accept(estimator, null));
+        return query.accept(estimator, null);
     }
 
     static class SelectivityEstimator extends SymbolVisitor<Void, Double> {
@@ -126,7 +159,24 @@ public class SelectivityFunctions {
                     return isNullSelectivity(arguments.get(0), stats);
                 }
 
+                case LtOperator.NAME:
+                case LteOperator.NAME:
+                case GtOperator.NAME:
+                case GteOperator.NAME: {
+                    List<Symbol> arguments = function.arguments();
+                    return rangeSelectivity(function.name(), arguments.get(0), arguments.get(1), stats, params);
+                }
+
+                case LikeOperators.OP_LIKE: {
+                    List<Symbol> arguments = function.arguments();
+                    return likeSelectivity(arguments.get(0), arguments.get(1), stats, params);
+                }
+
                 default:
+                    if (function.name().equals(AnyOperators.Type.EQ.opName())) {
+                        List<Symbol> arguments = function.arguments();
+                        return anyEqSelectivity(arguments.get(0), arguments.get(1), stats, params);
+                    }
                     return MAGIC_SEL;
             }
         }
@@ -178,6 +228,253 @@ public class SelectivityFunctions {
         }
     }
 
+    /**
+     * Selectivity of `x = ANY([...])` which is also used for `x IN (...)`.
+     * This is the sum of the selectivity of `x = value` for each distinct value.
+     */
+    private static double anyEqSelectivity(Symbol leftArg, Symbol rightArg, Stats stats, @Nullable Row params) {
+        ColumnIdent column = getColumn(leftArg);
+        Object values = getValue(rightArg, params);
+        if (column == null || !(values instanceof Collection)) {
+            return MAGIC_SEL;
+        }
+        var columnStats = stats.statsByColumn().get(column);
+        HashSet<Object> distinctValues = new HashSet<>((Collection<?>) values);
+        double selectivity = 0.0;
+        for (Object value : distinctValues) {
+            if (columnStats == null) {
+                selectivity += value == null ? 0.0 : DEFAULT_EQ_SEL;
+            } else {
+                selectivity += eqSelectivityFromValueAndStats(value, columnStats);
+            }
+        }
+        return Math.min(1.0, selectivity);
+    }
+
+    /**
+     * Selectivity of `x < value`, `x <= value`, `x > value` or `x >= value`.
+     *
+     * Like in PostgreSQL (`scalarineqsel`) the selectivity is the sum of the frequencies of the matching
+     * most common values plus the fraction of the histogram (which excludes the most common values) that matches,
+     * scaled by the fraction of rows which are neither null nor a most common value.
+     */
+    private static double rangeSelectivity(String operator,
+                                           Symbol leftArg,
+                                           Symbol rightArg,
+                                           Stats stats,
+                                           @Nullable Row params) {
+        ColumnIdent column = getColumn(leftArg);
+        Object value = getValue(rightArg, params);
+        if (column == null) {
+            // `10 < x` is equal to `x > 10`
+            column = getColumn(rightArg);
+            value = getValue(leftArg, params);
+            operator = swapOperator(operator);
+        }
+        if (column == null || value == NO_VALUE) {
+            return DEFAULT_INEQ_SEL;
+        }
+        if (value == null) {
+            // x < null -> is always false
+            return 0.0;
+        }
+        ColumnStats<?> columnStats = stats.statsByColumn().get(column);
+        if (columnStats == null) {
+            return DEFAULT_INEQ_SEL;
+        }
+        boolean lessThan = operator.equals(LtOperator.NAME) || operator.equals(LteOperator.NAME);
+        boolean inclusive = operator.equals(LteOperator.NAME) || operator.equals(GteOperator.NAME);
+        return rangeSelectivity(columnStats, value, lessThan, inclusive);
+    }
+
+    private static <T> double rangeSelectivity(ColumnStats<T> columnStats,
+                                               Object rawValue,
+                                               boolean lessThan,
+                                               boolean inclusive) {
+        DataType<T> type = columnStats.type();
+        T value;
+        try {
+            value = type.implicitCast(rawValue);
+        } catch (ClassCastException | IllegalArgumentException e) {
+            return DEFAULT_INEQ_SEL;
+        }
+        MostCommonValues mcv = columnStats.mostCommonValues();
+        Object[] mcvValues = mcv.values();
+        double[] frequencies = mcv.frequencies();
+        double mcvSelectivity = 0.0;
+        double sumMcvFrequencies = 0.0;
+        for (int i = 0; i < mcvValues.length; i++) {
+            //noinspection unchecked
+            int cmp = type.compare((T) mcvValues[i], value);
+            if ((lessThan && cmp < 0) || (!lessThan && cmp > 0) || (inclusive && cmp == 0)) {
+                mcvSelectivity += frequencies[i];
+            }
+            sumMcvFrequencies += frequencies[i];
+        }
+        List<T> histogram = columnStats.histogram();
+        double histSelectivity;
+        if (histogram.size() < 2) {
+            histSelectivity = DEFAULT_INEQ_SEL;
+        } else {
+            double fractionBelow = histogramFractionBelow(histogram, type, value);
+            histSelectivity = lessThan ? fractionBelow : 1.0 - fractionBelow;
+        }
+        double otherFraction = Math.max(0.0, 1.0 - sumMcvFrequencies - columnStats.nullFraction());
+        return clamp(mcvSelectivity + histSelectivity * otherFraction);
+    }
+
+    /**
+     * Selectivity of `x LIKE pattern`.
+     *
+     * If the pattern doesn't contain any wildcards this is the same as `x = pattern`.
+     * Otherwise the fixed prefix of the pattern is used to estimate the selectivity as a range query:
+     * `x >= prefix AND x < upper(prefix)`
+     */
+    private static double likeSelectivity(Symbol leftArg, Symbol rightArg, Stats stats, @Nullable Row params) {
+        ColumnIdent column = getColumn(leftArg);
+        Object pattern = getValue(rightArg, params);
+        if (column == null || !(pattern instanceof String)) {
+            return pattern == null ? 0.0 : DEFAULT_MATCH_SEL;
+        }
+        var columnStats = stats.statsByColumn().get(column);
+        if (columnStats == null || columnStats.type().id() != DataTypes.STRING.id()) {
+            return DEFAULT_MATCH_SEL;
+        }
+        String patternStr = (String) pattern;
+        String prefix = likePrefix(patternStr);
+        if (prefix.length() == patternStr.length()) {
+            return eqSelectivityFromValueAndStats(prefix, columnStats);
+        }
+        if (prefix.isEmpty()) {
+            return DEFAULT_MATCH_SEL;
+        }
+        //noinspection unchecked
+        return prefixSelectivity((ColumnStats<String>) columnStats, prefix);
+    }
+
+    private static double prefixSelectivity(ColumnStats<String> columnStats, String prefix) {
+        MostCommonValues mcv = columnStats.mostCommonValues();
+        Object[] mcvValues = mcv.values();
+        double[] frequencies = mcv.frequencies();
+        double mcvSelectivity = 0.0;
+        double sumMcvFrequencies = 0.0;
+        for (int i = 0; i < mcvValues.length; i++) {
+            if (((String) mcvValues[i]).startsWith(prefix)) {
+                mcvSelectivity += frequencies[i];
+            }
+            sumMcvFrequencies += frequencies[i];
+        }
+        List<String> histogram = columnStats.histogram();
+        double histSelectivity;
+        if (histogram.size() < 2) {
+            histSelectivity = DEFAULT_MATCH_SEL;
+        } else {
+            DataType<String> type = columnStats.type();
+            char lastChar = prefix.charAt(prefix.length() - 1);
+            double fractionBelowUpper = lastChar == Character.MAX_VALUE
+                ? 1.0
+                : histogramFractionBelow(
+                    histogram, type, prefix.substring(0, prefix.length() - 1) + (char) (lastChar + 1));
+            histSelectivity = fractionBelowUpper - histogramFractionBelow(histogram, type, prefix);
+        }
+        double otherFraction = Math.max(0.0, 1.0 - sumMcvFrequencies - columnStats.nullFraction());
+        return clamp(mcvSelectivity + histSelectivity * otherFraction);
+    }
+
+    /**
+     * @return the fixed part of a LIKE pattern up to the first wildcard.
+     */
+    static String likePrefix(String pattern) {
+        StringBuilder prefix = new StringBuilder(pattern.length());
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '%' || c == '_') {
+                break;
+            }
+            if (c == LikeOperators.DEFAULT_ESCAPE) {
+                i++;
+                if (i == pattern.length()) {
+                    break;
+                }
+                c = pattern.charAt(i);
+            }
+            prefix.append(c);
+        }
+        return prefix.toString();
+    }
+
+    /**
+     * Estimates the fraction of the histogram values which are lower than the given value.
+     * The histogram contains the boundaries of buckets which each contain the same number of values.
+     * Within a bucket the position is interpolated linearly for numeric values, otherwise the middle of the
+     * bucket is assumed.
+     */
+    static <T> double histogramFractionBelow(List<T> histogram, DataType<T> type, T value) {
+        int numBounds = histogram.size();
+        assert numBounds >= 2 : "histogram must have at least 2 bounds";
+        if (type.compare(value, histogram.get(0)) <= 0) {
+            return 0.0;
+        }
+        if (type.compare(value, histogram.get(numBounds - 1)) > 0) {
+            return 1.0;
+        }
+        // binary search for the bucket with lower <= value < upper
+        int low = 0;
+        int high = numBounds - 1;
+        while (high - low > 1) {
+            int mid = (low + high) >>> 1;
+            if (type.compare(histogram.get(mid), value) < 0) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        T lower = histogram.get(low);
+        T upper = histogram.get(high);
+        double binFraction = 0.5;
+        if (lower instanceof Number && upper instanceof Number && value instanceof Number) {
+            double lowerVal = ((Number) lower).doubleValue();
+            double upperVal = ((Number) upper).doubleValue();
+            if (upperVal > lowerVal) {
+                binFraction = (((Number) value).doubleValue() - lowerVal) / (upperVal - lowerVal);
+            }
+        }
+        return clamp((low + binFraction) / (numBounds - 1));
+    }
+
+    private static String swapOperator(String operator) {
+        switch (operator) {
+            case LtOperator.NAME:
+                return GtOperator.NAME;
+            case LteOperator.NAME:
+                return GteOperator.NAME;
+            case GtOperator.NAME:
+                return LtOperator.NAME;
+            case GteOperator.NAME:
+                return LteOperator.NAME;
+            default:
+                return operator;
+        }
+    }
+
+    private static double clamp(double selectivity) {
+        return Math.max(0.0, Math.min(1.0, selectivity));
+    }
+
+    /**
+     * @return the value of a literal or parameter or {@link #NO_VALUE} if the value is not known at planning time
+     */
+    @Nullable
+    private static Object getValue(Symbol symbol, @Nullable Row params) {
+        if (symbol instanceof Literal) {
+            return ((Literal<?>) symbol).value();
+        }
+        if (symbol instanceof ParameterSymbol && params != null) {
+            return params.get(((ParameterSymbol) symbol).index());
+        }
+        return NO_VALUE;
+    }
+
     @Nullable
     private static ColumnIdent getColumn(Symbol symbol) {
         if (symbol instanceof Reference) {
@@ -23,6 +23,7 @@
 package io.crate.protocols.postgres;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 import javax.annotation.Nonnull;
@@ -31,6 +32,7 @@ import javax.annotation.Nullable;
 import io.crate.action.sql.BaseResultReceiver;
 import io.crate.data.Row;
 import io.crate.protocols.postgres.types.PGType;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 
 class ResultSetReceiver extends BaseResultReceiver {
@@ -69,6 +71,28 @@ class ResultSetReceiver extends BaseResultReceiver {
         }
     }
 
+    /**
+     * Pauses the result consumption if the outbound buffer of the channel exceeds its high water mark,
+     * so that rows of slow clients don't pile up in memory.
+     */
+    @Nullable
+    @Override
+    public CompletableFuture<?> readyForMoreRows() {
+        if (channel.isWritable()) {
+            return null;
+        }
+        // Writes complete in order, once the empty buffer is written all pending rows have been sent
+        CompletableFuture<Void> ready = new CompletableFuture<>();
+        channel.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(f -> {
+            if (f.isSuccess()) {
+                ready.complete(null);
+            } else {
+                ready.completeExceptionally(f.cause());
+            }
+        });
+        return ready;
+    }
+
     @Override
     public void batchFinished() {
         Messages.sendPortalSuspended(channel);
@@ -73,6 +73,11 @@ public class RetryOnFailureResultReceiver implements ResultReceiver {
         delegate.setNextRow(row);
     }
 
+    @Override
+    public CompletableFuture<?> readyForMoreRows() {
+        return delegate.readyForMoreRows();
+    }
+
     @Override
     public void batchFinished() {
         delegate.batchFinished();
@@ -23,6 +23,7 @@
 package io.crate.protocols.postgres.types;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.xcontent.DeprecationHandler;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
@@ -64,26 +65,24 @@ class JsonType extends PGType<Object> {
 
     @Override
     public int writeAsBinary(ByteBuf buffer, @Nonnull Object value) {
-        byte[] bytes = encodeAsUTF8Text(value);
-        buffer.writeInt(bytes.length);
-        buffer.writeBytes(bytes);
-        return INT32_BYTE_SIZE + bytes.length;
+        // The JSON is written directly into the buffer to avoid an intermediate byte array per value
+        final int startWriterIndex = buffer.writerIndex();
+        buffer.writeInt(0); // reserve space for the length of the value; updated later
+        try (XContentBuilder builder = new XContentBuilder(JsonXContent.JSON_XCONTENT, new ByteBufOutputStream(buffer))) {
+            toXContent(builder, value);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        int length = buffer.writerIndex() - startWriterIndex - INT32_BYTE_SIZE;
+        buffer.setInt(startWriterIndex, length);
+        return INT32_BYTE_SIZE + length;
     }
 
     @Override
     protected byte[] encodeAsUTF8Text(@Nonnull Object value) {
         try {
             XContentBuilder builder = JsonXContent.contentBuilder();
-            if (value instanceof List) {
-                List values = ((List) value);
-                builder.startArray();
-                for (Object o : values) {
-                    builder.value(o);
-                }
-                builder.endArray();
-            } else {
-                builder.map((Map) value);
-            }
+            toXContent(builder, value);
             builder.close();
             return BytesReference.toBytes(BytesReference.bytes(builder));
         } catch (IOException e) {
@@ -91,6 +90,20 @@ class JsonType extends PGType<Object> {
         }
     }
 
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void toXContent(XContentBuilder builder, Object value) throws IOException {
+        if (value instanceof List) {
+            List values = ((List) value);
+            builder.startArray();
+            for (Object o : values) {
+                builder.value(o);
+            }
+            builder.endArray();
+        } else {
+            builder.map((Map) value);
+        }
+    }
+
     @Override
     public Object readBinaryValue(ByteBuf buffer, int valueLength) {
         byte[] bytes = new byte[valueLength];
@@ -103,8 +116,8 @@ class JsonType extends PGType<Object> {
         try {
             XContentParser parser = JsonXContent.JSON_XCONTENT.createParser(
                 NamedXContentRegistry.EMPTY, DeprecationHandler.THROW_UNSUPPORTED_OPERATION, bytes);
-            if (bytes.length > 1 && bytes[0] == '[') {
-                parser.nextToken();
+            // The array check must not rely on the first byte, the JSON may start with whitespace
+            if (parser.nextToken() == XContentParser.Token.START_ARRAY) {
                 return parser.list();
             }
             return parser.map();
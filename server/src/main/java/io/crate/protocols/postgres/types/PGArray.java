@@ -109,8 +109,8 @@ public class PGArray extends PGType<List<Object>> {
         buffer.writeInt(typElem());
 
         for (Integer dim : dimensionsList) {
-            buffer.writeInt(dim); // upper bound
-            buffer.writeInt(dim); // lower bound
+            buffer.writeInt(dim); // number of elements in the dimension
+            buffer.writeInt(1); // lower bound, PostgreSQL arrays are 1-based
             bytesWritten += 8;
         }
         int len = bytesWritten + writeArrayAsBinary(buffer, value, dimensionsList, 1);
@@ -24,9 +24,12 @@ package io.crate.protocols.postgres.types;
 
 import com.carrotsearch.hppc.ByteArrayList;
 import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.types.DataType;
 import io.netty.buffer.ByteBuf;
 
 import java.util.List;
+import java.util.Locale;
 
 public class RecordType extends PGType<Row> {
 
@@ -73,6 +76,7 @@ public class RecordType extends PGType<Row> {
             var value = record.get(i);
             if (value == null) {
                 buffer.writeInt(-1); // -1 data length signals a NULL
+                bytesWritten += 4;
                 continue;
             }
 
@@ -84,7 +88,33 @@ public class RecordType extends PGType<Row> {
 
     @Override
     public Row readBinaryValue(ByteBuf buffer, int valueLength) {
-        throw new UnsupportedOperationException("Input of anonymous record type values is not implemented");
+        // See PostgreSQL src/backend/utils/adt/rowtypes.c record_recv(PG_FUNCTION_ARGS)
+        int numFields = buffer.readInt();
+        Object[] values = new Object[numFields];
+        for (int i = 0; i < numFields; i++) {
+            int fieldOid = buffer.readInt();
+            int fieldLength = buffer.readInt();
+            if (fieldLength == -1) {
+                continue;
+            }
+            values[i] = fieldType(i, fieldOid).readBinaryValue(buffer, fieldLength);
+        }
+        return new RowN(values);
+    }
+
+    /**
+     * Returns the type of a field; anonymous records don't know their field types upfront so they're resolved by oid
+     */
+    private PGType<?> fieldType(int idx, int oid) {
+        if (idx < fieldTypes.size()) {
+            return fieldTypes.get(idx);
+        }
+        DataType<?> dataType = PGTypes.fromOID(oid);
+        if (dataType == null) {
+            throw new IllegalArgumentException(
+                String.format(Locale.ENGLISH, "Unsupported type oid %d in record field %d", oid, idx));
+        }
+        return PGTypes.get(dataType);
     }
 
     @SuppressWarnings({"unchecked", "rawtypes"})
@@ -24,6 +24,7 @@ package io.crate.protocols.postgres.types;
 
 import io.crate.types.DataTypes;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 
 import javax.annotation.Nonnull;
 import java.nio.charset.StandardCharsets;
@@ -66,10 +67,13 @@ class VarCharType extends PGType<Object> {
 
     @Override
     public int writeAsBinary(ByteBuf buffer, @Nonnull Object value) {
-        byte[] bytes = DataTypes.STRING.value(value).getBytes(StandardCharsets.UTF_8);
-        buffer.writeInt(bytes.length);
-        buffer.writeBytes(bytes);
-        return INT32_BYTE_SIZE + bytes.length;
+        String str = DataTypes.STRING.value(value);
+        // Encode directly into the buffer instead of creating an intermediate byte array per value
+        final int lengthIndex = buffer.writerIndex();
+        buffer.writeInt(0); // reserve space for the length; updated later
+        int length = ByteBufUtil.writeUtf8(buffer, str);
+        buffer.setInt(lengthIndex, length);
+        return INT32_BYTE_SIZE + length;
     }
 
     @Override
@@ -84,9 +88,9 @@ class VarCharType extends PGType<Object> {
 
     @Override
     public String readBinaryValue(ByteBuf buffer, int valueLength) {
-        byte[] utf8 = new byte[valueLength];
-        buffer.readBytes(utf8);
-        return new String(utf8, StandardCharsets.UTF_8);
+        String value = buffer.toString(buffer.readerIndex(), valueLength, StandardCharsets.UTF_8);
+        buffer.skipBytes(valueLength);
+        return value;
     }
 
     @Override
@@ -0,0 +1,261 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.rest.action;
+
+import io.crate.action.sql.SQLActionException;
+import io.crate.data.Row;
+import io.crate.expression.symbol.Symbol;
+import io.crate.expression.symbol.Symbols;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.io.stream.BytesStream;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Formats in which the rows of a result set can be written to a streamed HTTP response.
+ *
+ * <ul>
+ *     <li>JSON: the same document as the buffered response, written incrementally</li>
+ *     <li>NDJSON: one JSON object per row, keyed by the column names</li>
+ *     <li>CSV: a header line with the column names followed by one line per row</li>
+ * </ul>
+ */
+enum ResponseFormat {
+
+    JSON(XContentType.JSON.mediaType()) {
+        @Override
+        RowWriter newRowWriter(BytesStream out,
+                               List<Symbol> fields,
+                               boolean includeTypes,
+                               long startTimeNs) throws IOException {
+            XContentBuilder xContentBuilder = new XContentBuilder(
+                JsonXContent.JSON_XCONTENT, Streams.flushOnCloseStream(out));
+            ResultToXContentBuilder builder = ResultToXContentBuilder.builder(xContentBuilder).cols(fields);
+            if (includeTypes) {
+                builder.colTypes(fields);
+            }
+            builder.startRows();
+            int numCols = fields.size();
+            return new RowWriter() {
+
+                @Override
+                public void addRow(Row row) throws IOException {
+                    builder.addRow(row, numCols);
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    xContentBuilder.flush();
+                }
+
+                @Override
+                public void finish(long rowCount) throws IOException {
+                    builder
+                        .finishRows()
+                        .rowCount(rowCount)
+                        .duration(startTimeNs)
+                        .build()
+                        .close();
+                }
+            };
+        }
+    },
+
+    NDJSON("application/x-ndjson; charset=UTF-8") {
+        @Override
+        RowWriter newRowWriter(BytesStream out,
+                               List<Symbol> fields,
+                               boolean includeTypes,
+                               long startTimeNs) {
+            String[] columnNames = columnNames(fields);
+            BytesStream target = Streams.flushOnCloseStream(out);
+            return new RowWriter() {
+
+                @Override
+                public void addRow(Row row) throws IOException {
+                    try (XContentBuilder builder = new XContentBuilder(JsonXContent.JSON_XCONTENT, target)) {
+                        builder.startObject();
+                        for (int i = 0; i < columnNames.length; i++) {
+                            builder.field(columnNames[i], row.get(i));
+                        }
+                        builder.endObject();
+                    }
+                    out.writeByte((byte) '\n');
+                }
+
+                @Override
+                public void flush() {
+                }
+
+                @Override
+                public void finish(long rowCount) {
+                }
+            };
+        }
+    },
+
+    CSV("text/csv; charset=UTF-8") {
+        @Override
+        RowWriter newRowWriter(BytesStream out,
+                               List<Symbol> fields,
+                               boolean includeTypes,
+                               long startTimeNs) throws IOException {
+            String[] columnNames = columnNames(fields);
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < columnNames.length; i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                appendCsvValue(line, columnNames[i]);
+            }
+            writeLine(out, line);
+            return new RowWriter() {
+
+                @Override
+                public void addRow(Row row) throws IOException {
+                    line.setLength(0);
+                    for (int i = 0; i < columnNames.length; i++) {
+                        if (i > 0) {
+                            line.append(',');
+                        }
+                        appendCsvValue(line, row.get(i));
+                    }
+                    writeLine(out, line);
+                }
+
+                @Override
+                public void flush() {
+                }
+
+                @Override
+                public void finish(long rowCount) {
+                }
+            };
+        }
+    };
+
+    /**
+     * Writes rows into the {@link BytesStream} it was created with.
+     * The bytes written up to {@link #flush()} can be sent to the client and removed from the stream.
+     */
+    interface RowWriter {
+
+        void addRow(Row row) throws IOException;
+
+        /**
+         * Makes sure all rows added so far are written to the stream.
+         */
+        void flush() throws IOException;
+
+        /**
+         * Writes the remaining content of the response; no more rows must be added afterwards.
+         */
+        void finish(long rowCount) throws IOException;
+    }
+
+    private final String mediaType;
+
+    ResponseFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    String mediaType() {
+        return mediaType;
+    }
+
+    abstract RowWriter newRowWriter(BytesStream out,
+                                    List<Symbol> fields,
+                                    boolean includeTypes,
+                                    long startTimeNs) throws IOException;
+
+    static ResponseFormat of(@Nullable String format) {
+        if (format == null || format.isEmpty()) {
+            return JSON;
+        }
+        try {
+            return valueOf(format.toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            throw new SQLActionException(
+                "Invalid response format '" + format + "', supported formats are: json, ndjson, csv",
+                4000,
+                HttpResponseStatus.BAD_REQUEST);
+        }
+    }
+
+    private static String[] columnNames(List<Symbol> fields) {
+        String[] columnNames = new String[fields.size()];
+        for (int i = 0; i < columnNames.length; i++) {
+            columnNames[i] = Symbols.pathFromSymbol(fields.get(i)).sqlFqn();
+        }
+        return columnNames;
+    }
+
+    private static void writeLine(BytesStream out, StringBuilder line) throws IOException {
+        line.append('\n');
+        byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+        out.writeBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Appends a value to a CSV line, quoting it if necessary (RFC 4180).
+     * Objects and arrays are written as JSON.
+     */
+    static void appendCsvValue(StringBuilder line, @Nullable Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String str;
+        if (value instanceof String) {
+            str = (String) value;
+        } else if (value instanceof Number || value instanceof Boolean) {
+            line.append(value);
+            return;
+        } else {
+            try (XContentBuilder builder = JsonXContent.contentBuilder()) {
+                str = Strings.toString(builder.value(value));
+            }
+        }
+        if (str.indexOf(',') >= 0 || str.indexOf('"') >= 0 || str.indexOf('\n') >= 0 || str.indexOf('\r') >= 0) {
+            line.append('"');
+            for (int i = 0; i < str.length(); i++) {
+                char c = str.charAt(i);
+                if (c == '"') {
+                    line.append('"');
+                }
+                line.append(c);
+            }
+            line.append('"');
+        } else {
+            line.append(str);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.rest.action;
+
+import io.crate.action.sql.ResultReceiver;
+import io.crate.breaker.RowAccounting;
+import io.crate.data.Row;
+import io.crate.expression.symbol.Symbol;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpResponse;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Writes a result set as a chunked HTTP response.
+ *
+ * <p>
+ * The statement is executed with a {@code maxRows} limit, so that the receiver gets a {@link #batchFinished()}
+ * call after each batch of rows. The batch is then written to the channel as a {@link io.netty.handler.codec.http.HttpContent}
+ * chunk and the next batch is only requested once the chunk has been written and the channel is writable again.
+ * This keeps at most one batch per request in memory, no matter how large the result set is.
+ * </p>
+ *
+ * <p>
+ * The response head is sent together with the first chunk. Failures before that are propagated via the
+ * {@link #completionFuture()} so that a regular error response can be sent. Once the head has been sent the
+ * status can no longer change, so the connection is closed instead, which lets the client detect the truncated
+ * response.
+ * </p>
+ *
+ * <p>
+ * The completion future is completed with {@code null} if the receiver wrote the response itself.
+ * </p>
+ */
+class RestStreamingResultSetReceiver implements ResultReceiver<XContentBuilder> {
+
+    private static final Logger LOGGER = LogManager.getLogger(RestStreamingResultSetReceiver.class);
+
+    private final Channel channel;
+    private final HttpResponse responseHead;
+    private final boolean closeConnection;
+    private final RowAccounting<Row> rowAccounting;
+    private final Consumer<ResultReceiver<?>> fetchNextBatch;
+    private final BytesStreamOutput out = new BytesStreamOutput();
+    private final ResponseFormat.RowWriter rowWriter;
+    private final CompletableFuture<XContentBuilder> result = new CompletableFuture<>();
+
+    private long rowCount;
+    private boolean headSent = false;
+    private boolean waitingForWritability = false;
+
+    /**
+     * @param fetchNextBatch called with this receiver to resume the suspended execution once the channel
+     *                       is ready to accept more data.
+     */
+    RestStreamingResultSetReceiver(Channel channel,
+                                   HttpResponse responseHead,
+                                   boolean closeConnection,
+                                   ResponseFormat format,
+                                   List<Symbol> outputFields,
+                                   long startTimeNs,
+                                   RowAccounting<Row> rowAccounting,
+                                   boolean includeTypesOnResponse,
+                                   Consumer<ResultReceiver<?>> fetchNextBatch) throws IOException {
+        this.channel = channel;
+        this.responseHead = responseHead;
+        this.closeConnection = closeConnection;
+        this.rowAccounting = rowAccounting;
+        this.fetchNextBatch = fetchNextBatch;
+        this.rowWriter = format.newRowWriter(out, outputFields, includeTypesOnResponse, startTimeNs);
+    }
+
+    @Override
+    public void setNextRow(Row row) {
+        rowAccounting.accountForAndMaybeBreak(row);
+        try {
+            rowWriter.addRow(row);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        rowCount++;
+    }
+
+    @Override
+    public void batchFinished() {
+        ChannelFuture writeFuture;
+        try {
+            rowWriter.flush();
+            writeFuture = writeChunk(false);
+        } catch (Throwable t) {
+            fail(t);
+            return;
+        }
+        writeFuture.addListener(f -> {
+            rowAccounting.release();
+            if (!f.isSuccess()) {
+                // Closing the channel closes the session, which finishes the suspended execution
+                channel.close();
+                return;
+            }
+            if (channel.isWritable()) {
+                // Resume in a new task; the listener may be invoked while the batch is still being written
+                channel.eventLoop().execute(this::resume);
+            } else {
+                waitingForWritability = true;
+            }
+        });
+    }
+
+    /**
+     * Must be called on the event loop of the channel if its writability changed.
+     */
+    void channelWritabilityChanged() {
+        if (waitingForWritability && channel.isWritable()) {
+            waitingForWritability = false;
+            resume();
+        }
+    }
+
+    private void resume() {
+        try {
+            fetchNextBatch.accept(this);
+        } catch (Throwable t) {
+            fail(t);
+        }
+    }
+
+    @Override
+    public void allFinished(boolean interrupted) {
+        if (interrupted) {
+            // The execution was closed before it could finish, e.g. because the client disconnected
+            closeAndRelease();
+            result.complete(null);
+            return;
+        }
+        ChannelFuture writeFuture;
+        try {
+            rowWriter.finish(rowCount);
+            writeFuture = writeChunk(true);
+        } catch (Throwable t) {
+            fail(t);
+            return;
+        }
+        if (closeConnection) {
+            writeFuture.addListener(ChannelFutureListener.CLOSE);
+        }
+        writeFuture.addListener(f -> {
+            closeAndRelease();
+            result.complete(null);
+        });
+    }
+
+    @Override
+    public void fail(@Nonnull Throwable t) {
+        closeAndRelease();
+        if (headSent) {
+            LOGGER.warn("Error while streaming the result, closing the connection", t);
+            channel.close();
+            result.complete(null);
+        } else {
+            result.completeExceptionally(t);
+        }
+    }
+
+    private ChannelFuture writeChunk(boolean last) throws IOException {
+        if (!headSent) {
+            channel.write(responseHead);
+            headSent = true;
+        }
+        BytesReference bytes = out.bytes();
+        ByteBuf content = channel.alloc().buffer(bytes.length());
+        // The bytes must be copied, the pages of the stream are re-used for the next batch
+        bytes.writeTo(new ByteBufOutputStream(content));
+        out.reset();
+        if (last) {
+            return channel.writeAndFlush(new DefaultLastHttpContent(content));
+        }
+        return channel.writeAndFlush(new DefaultHttpContent(content));
+    }
+
+    private void closeAndRelease() {
+        rowAccounting.release();
+        out.close();
+    }
+
+    @Override
+    public CompletableFuture<XContentBuilder> completionFuture() {
+        return result;
+    }
+}
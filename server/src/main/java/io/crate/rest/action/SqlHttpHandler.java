@@ -48,9 +48,13 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.QueryStringDecoder;
 import org.apache.logging.log4j.LogManager;
@@ -87,6 +91,11 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
     private static final String REQUEST_HEADER_USER = "User";
     private static final String REQUEST_HEADER_SCHEMA = "Default-Schema";
 
+    /**
+     * Number of rows written per chunk if the response is streamed
+     */
+    static final int STREAM_BATCH_SIZE = 1000;
+
     private final Settings settings;
     private final SQLOperations sqlOperations;
     private final Function<String, CircuitBreaker> circuitBreakerProvider;
@@ -96,6 +105,9 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
 
     private Session session;
 
+    @Nullable
+    private RestStreamingResultSetReceiver activeStream;
+
     SqlHttpHandler(Settings settings,
                    SQLOperations sqlOperations,
                    Function<String, CircuitBreaker> circuitBreakerProvider,
@@ -117,10 +129,13 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
             Session session = ensureSession(request);
             Map<String, List<String>> parameters = new QueryStringDecoder(request.uri()).parameters();
             ByteBuf content = request.content();
-            handleSQLRequest(session, content, paramContainFlag(parameters, "types"))
+            handleSQLRequest(session, ctx, request, content, parameters)
                 .whenComplete((result, t) -> {
                     try {
-                        sendResponse(session, ctx, request, parameters, result, t);
+                        // A streamed response has already been written by its receiver, which completes with null
+                        if (result != null || t != null) {
+                            sendResponse(session, ctx, request, parameters, result, t);
+                        }
                     } catch (Throwable ex) {
                         LOGGER.error("Error sending response", ex);
                         throw ex;
@@ -141,6 +156,15 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
         return values != null && (values.equals(singletonList("")) || values.equals(singletonList("true")));
     }
 
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        RestStreamingResultSetReceiver stream = activeStream;
+        if (stream != null) {
+            stream.channelWritabilityChanged();
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
     @Override
     public void channelUnregistered(ChannelHandlerContext ctx) throws Exception {
         if (session != null) {
@@ -177,25 +201,46 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
             resp = new DefaultFullHttpResponse(httpVersion, sqlActionException.status(), content);
             resp.headers().add(HttpHeaderNames.CONTENT_TYPE, mediaType);
         }
-        Netty4CorsHandler.setCorsResponseHeaders(request, resp, corsConfig);
         resp.headers().add(HttpHeaderNames.CONTENT_LENGTH, String.valueOf(content.readableBytes()));
-        boolean closeConnection = isCloseConnection(request);
+        boolean closeConnection = setConnectionHeaders(request, resp);
         ChannelPromise promise = ctx.newPromise();
         if (closeConnection) {
             promise.addListener(ChannelFutureListener.CLOSE);
-        } else {
-            Headers.setKeepAlive(httpVersion, resp);
         }
         ctx.writeAndFlush(resp, promise);
     }
 
-    private CompletableFuture<XContentBuilder> handleSQLRequest(Session session, ByteBuf content, boolean includeTypes) {
+    /**
+     * Adds the CORS and keep-alive headers to the response
+     *
+     * @return true if the connection must be closed after the response has been sent
+     */
+    private boolean setConnectionHeaders(FullHttpRequest request, HttpResponse resp) {
+        Netty4CorsHandler.setCorsResponseHeaders(request, resp, corsConfig);
+        boolean closeConnection = isCloseConnection(request);
+        if (!closeConnection) {
+            Headers.setKeepAlive(request.protocolVersion(), resp);
+        }
+        return closeConnection;
+    }
+
+    private CompletableFuture<XContentBuilder> handleSQLRequest(Session session,
+                                                                ChannelHandlerContext ctx,
+                                                                FullHttpRequest request,
+                                                                ByteBuf content,
+                                                                Map<String, List<String>> parameters) {
         SQLRequestParseContext parseContext;
+        ResponseFormat format;
         try {
             parseContext = SQLRequestParser.parseSource(Netty4Utils.toBytesReference(content));
+            List<String> formatValues = parameters.get("format");
+            format = ResponseFormat.of(formatValues == null ? null : formatValues.get(0));
         } catch (Throwable t) {
             return CompletableFuture.failedFuture(t);
         }
+        boolean includeTypes = paramContainFlag(parameters, "types");
+        // Formats other than JSON are meant for bulk extraction and are always streamed
+        boolean stream = format != ResponseFormat.JSON || paramContainFlag(parameters, "stream");
         List<Object> args = parseContext.args();
         List<List<Object>> bulkArgs = parseContext.bulkArgs();
         if (bothProvided(args, bulkArgs)) {
@@ -204,7 +249,8 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
         }
         try {
             if (args != null || bulkArgs == null) {
-                return executeSimpleRequest(session, parseContext.stmt(), args, includeTypes);
+                return executeSimpleRequest(
+                    session, parseContext.stmt(), args, includeTypes, stream ? format : null, ctx, request);
             } else {
                 return executeBulkRequest(session, parseContext.stmt(), bulkArgs);
             }
@@ -243,15 +289,58 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
     private CompletableFuture<XContentBuilder> executeSimpleRequest(Session session,
                                                                     String stmt,
                                                                     List<Object> args,
-                                                                    boolean includeTypes) throws IOException {
+                                                                    boolean includeTypes,
+                                                                    @Nullable ResponseFormat streamFormat,
+                                                                    ChannelHandlerContext ctx,
+                                                                    FullHttpRequest request) throws IOException {
         long startTimeInNs = System.nanoTime();
         session.parse(UNNAMED, stmt, emptyList());
         session.bind(UNNAMED, UNNAMED, args == null ? emptyList() : args, null);
         DescribeResult description = session.describe('P', UNNAMED);
         List<Symbol> resultFields = description.getFields();
         ResultReceiver<XContentBuilder> resultReceiver;
+        int maxRows = 0;
         if (resultFields == null) {
             resultReceiver = new RestRowCountReceiver(JsonXContent.contentBuilder(), startTimeInNs, includeTypes);
+        } else if (streamFormat != null) {
+            CircuitBreaker breaker = circuitBreakerProvider.apply(HierarchyCircuitBreakerService.QUERY);
+            RamAccounting ramAccounting = new BlockBasedRamAccounting(
+                b -> breaker.addEstimateBytesAndMaybeBreak(b, "http-result"),
+                MAX_BLOCK_SIZE_IN_BYTES);
+            HttpResponse responseHead = new DefaultHttpResponse(request.protocolVersion(), HttpResponseStatus.OK);
+            responseHead.headers().add(HttpHeaderNames.CONTENT_TYPE, streamFormat.mediaType());
+            boolean closeConnection = setConnectionHeaders(request, responseHead);
+            if (request.protocolVersion().equals(HttpVersion.HTTP_1_0)) {
+                // HTTP/1.0 has no chunked transfer encoding, the end of the response is marked by closing the connection
+                closeConnection = true;
+                responseHead.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+            } else {
+                HttpUtil.setTransferEncodingChunked(responseHead, true);
+            }
+            RestStreamingResultSetReceiver streamingReceiver = new RestStreamingResultSetReceiver(
+                ctx.channel(),
+                responseHead,
+                closeConnection,
+                streamFormat,
+                resultFields,
+                startTimeInNs,
+                new RowAccountingWithEstimators(
+                    Symbols.typeView(resultFields),
+                    ramAccounting
+                ),
+                includeTypes,
+                receiver -> {
+                    session.execute(UNNAMED, STREAM_BATCH_SIZE, receiver);
+                    session.sync();
+                }
+            );
+            activeStream = streamingReceiver;
+            streamingReceiver.completionFuture().whenComplete((result, error) -> {
+                activeStream = null;
+                ramAccounting.close();
+            });
+            resultReceiver = streamingReceiver;
+            maxRows = STREAM_BATCH_SIZE;
         } else {
             CircuitBreaker breaker = circuitBreakerProvider.apply(HierarchyCircuitBreakerService.QUERY);
             RamAccounting ramAccounting = new BlockBasedRamAccounting(
@@ -269,7 +358,7 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
             );
             resultReceiver.completionFuture().whenComplete((result, error) -> ramAccounting.close());
         }
-        session.execute(UNNAMED, 0, resultReceiver);
+        session.execute(UNNAMED, maxRows, resultReceiver);
         return session.sync()
             .thenCompose(ignored -> resultReceiver.completionFuture());
     }
@@ -63,6 +63,7 @@ import org.elasticsearch.env.Environment;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexNotFoundException;
 import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.IndexSortConfig;
 import org.elasticsearch.index.mapper.DocumentMapper;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.MapperService.MergeReason;
@@ -448,6 +449,13 @@ public class MetadataCreateIndexService {
                     removalExtraInfo = "failed on parsing default mapping/mappings on index creation";
                     throw e;
                 }
+                // now that the mapping is merged we can validate the index sort configuration
+                try {
+                    IndexSortConfig.buildIndexSort(indexService.getIndexSettings().getSettings(), mapperService::fullName);
+                } catch (IllegalArgumentException e) {
+                    removalExtraInfo = "failed on validating the index sort";
+                    throw e;
+                }
 
                 // now, update the mappings with the actual source
                 Map<String, MappingMetadata> mappingsMetadata = new HashMap<>();
@@ -23,6 +23,7 @@ import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.CloseableThreadLocal;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 
@@ -147,6 +148,48 @@ public final class VersionsAndSeqNoResolver {
         return null;
     }
 
+    /**
+     * Load the internal doc IDs and versions for many uids from the reader, like
+     * {@link #loadDocIdAndVersion(IndexReader, Term, boolean)} does for a single uid.
+     * The uids must be sorted so that the terms of each segment are visited in order.
+     *
+     * @return the doc ID and version of {@code uids.get(i)} at position {@code i}, or null if the uid wasn't found
+     */
+    public static DocIdAndVersion[] loadDocIdAndVersions(IndexReader reader,
+                                                         String uidField,
+                                                         List<BytesRef> uids,
+                                                         boolean loadSeqNo) throws IOException {
+        assert isSorted(uids) : "uids must be sorted";
+        PerThreadIDVersionAndSeqNoLookup[] lookups = getLookupState(reader, uidField);
+        List<LeafReaderContext> leaves = reader.leaves();
+        DocIdAndVersion[] results = new DocIdAndVersion[uids.size()];
+        int remaining = uids.size();
+        // iterate backwards to optimize for the frequently updated documents
+        // which are likely to be in the last segments
+        for (int i = leaves.size() - 1; i >= 0 && remaining > 0; i--) {
+            final LeafReaderContext leaf = leaves.get(i);
+            PerThreadIDVersionAndSeqNoLookup lookup = lookups[leaf.ord];
+            for (int j = 0; j < results.length; j++) {
+                if (results[j] == null) {
+                    results[j] = lookup.lookupVersion(uids.get(j), loadSeqNo, leaf);
+                    if (results[j] != null) {
+                        remaining--;
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private static boolean isSorted(List<BytesRef> uids) {
+        for (int i = 1; i < uids.size(); i++) {
+            if (uids.get(i - 1).compareTo(uids.get(i)) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Loads the internal docId and sequence number of the latest copy for a given uid from the provided reader.
      * The flag {@link DocIdAndSeqNo#isLive} indicates whether the returned document is live or (soft)deleted.
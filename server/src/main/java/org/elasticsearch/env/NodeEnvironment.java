@@ -57,6 +57,7 @@ import org.elasticsearch.monitor.fs.FsProbe;
 import org.elasticsearch.monitor.jvm.JvmInfo;
 import org.elasticsearch.node.Node;
 
+import javax.annotation.Nullable;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.UncheckedIOException;
@@ -151,6 +152,8 @@ public final class NodeEnvironment implements Closeable {
     private final Logger logger = LogManager.getLogger(NodeEnvironment.class);
     private final NodePath[] nodePaths;
     private final Path sharedDataPath;
+    @Nullable
+    private final Path spillPath;
     private final Lock[] locks;
 
     private final int nodeLockId;
@@ -181,6 +184,7 @@ public final class NodeEnvironment implements Closeable {
 
     public static final String NODES_FOLDER = "nodes";
     public static final String INDICES_FOLDER = "indices";
+    public static final String SPILL_FOLDER = "spill";
     public static final String NODE_LOCK_FILENAME = "node.lock";
 
     public static class NodeLock implements Releasable {
@@ -248,6 +252,7 @@ public final class NodeEnvironment implements Closeable {
         if (!DiscoveryNode.nodeRequiresLocalStorage(settings)) {
             nodePaths = null;
             sharedDataPath = null;
+            spillPath = null;
             locks = null;
             nodeLockId = -1;
             nodeMetadata = new NodeMetadata(generateNodeId(settings));
@@ -323,6 +328,11 @@ public final class NodeEnvironment implements Closeable {
                 ensureNoShardData(nodePaths);
             }
 
+            // spill files are only used while a query is running, left-overs are from a previous run
+            spillPath = nodePaths[0].path.resolve(SPILL_FOLDER);
+            IOUtils.rm(spillPath);
+            Files.createDirectories(spillPath);
+
             success = true;
         } finally {
             if (success == false) {
@@ -762,6 +772,16 @@ public final class NodeEnvironment implements Closeable {
         return paths;
     }
 
+    /**
+     * Returns the directory for temporary files of queries that don't fit into memory,
+     * or null if the node doesn't store data locally.
+     * The directory is emptied when the node starts.
+     */
+    @Nullable
+    public Path spillPath() {
+        return spillPath;
+    }
+
     /**
      * Returns shared data path for this node environment
      */
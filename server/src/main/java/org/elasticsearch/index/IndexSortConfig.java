@@ -0,0 +1,242 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package org.elasticsearch.index;
+
+import io.crate.expression.reference.doc.lucene.NullSentinelValues;
+import io.crate.types.BooleanType;
+import io.crate.types.ByteType;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import io.crate.types.DoubleType;
+import io.crate.types.FloatType;
+import io.crate.types.GeoPointType;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.StringType;
+import io.crate.types.TimestampType;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSelector;
+import org.apache.lucene.search.SortedNumericSortField;
+import org.apache.lucene.search.SortedSetSelector;
+import org.apache.lucene.search.SortedSetSortField;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.fielddata.NullValueOrder;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.search.MultiValueMode;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Holds the index sort of a table, defined via the {@code sort_by} table parameter.
+ * <p>
+ * The value is a comma separated list of columns, each optionally followed by {@code ASC} or {@code DESC}
+ * and {@code NULLS FIRST} or {@code NULLS LAST}, e.g. {@code 'ts DESC, id'}.
+ * The defaults are the same as for an {@code ORDER BY} clause, so that a query ordered by a prefix of the
+ * index sort allows Lucene to stop collecting a segment once enough documents are found.
+ * <p>
+ * The index sort can only be set on table creation.
+ */
+public final class IndexSortConfig {
+
+    public static final Setting<String> INDEX_SORT_BY_SETTING = Setting.simpleString(
+        "index.sort_by",
+        IndexSortConfig::parse,
+        Property.IndexScope,
+        Property.Final
+    );
+
+    private IndexSortConfig() {
+    }
+
+    static final class SortColumn {
+
+        final String column;
+        final boolean reverse;
+        final boolean nullsFirst;
+
+        SortColumn(String column, boolean reverse, boolean nullsFirst) {
+            this.column = column;
+            this.reverse = reverse;
+            this.nullsFirst = nullsFirst;
+        }
+    }
+
+    static List<SortColumn> parse(String value) {
+        ArrayList<SortColumn> columns = new ArrayList<>();
+        if (value.isBlank()) {
+            return columns;
+        }
+        for (String item : value.split(",")) {
+            String[] parts = item.trim().split("\\s+");
+            if (parts[0].isEmpty()) {
+                throw invalidValue(value);
+            }
+            boolean reverse = false;
+            int idx = 1;
+            if (idx < parts.length && (parts[idx].equalsIgnoreCase("asc") || parts[idx].equalsIgnoreCase("desc"))) {
+                reverse = parts[idx].equalsIgnoreCase("desc");
+                idx++;
+            }
+            boolean nullsFirst = reverse;
+            if (idx < parts.length) {
+                if (idx + 2 != parts.length || !parts[idx].equalsIgnoreCase("nulls")) {
+                    throw invalidValue(value);
+                }
+                String nullOrder = parts[idx + 1].toLowerCase(Locale.ENGLISH);
+                if (nullOrder.equals("first")) {
+                    nullsFirst = true;
+                } else if (nullOrder.equals("last")) {
+                    nullsFirst = false;
+                } else {
+                    throw invalidValue(value);
+                }
+            }
+            columns.add(new SortColumn(parts[0], reverse, nullsFirst));
+        }
+        return columns;
+    }
+
+    private static IllegalArgumentException invalidValue(String value) {
+        return new IllegalArgumentException(String.format(
+            Locale.ENGLISH,
+            "Invalid value for argument 'sort_by': '%s', expected a comma separated list of " +
+            "'<column> [ASC | DESC] [NULLS { FIRST | LAST }]'",
+            value
+        ));
+    }
+
+    /**
+     * @return the index sort or null if the index isn't sorted.
+     * @throws IllegalArgumentException if a column doesn't exist or can't be used to sort the index.
+     */
+    @Nullable
+    public static Sort buildIndexSort(Settings indexSettings, Function<String, MappedFieldType> fieldTypeLookup) {
+        List<SortColumn> columns = parse(INDEX_SORT_BY_SETTING.get(indexSettings));
+        if (columns.isEmpty()) {
+            return null;
+        }
+        SortField[] sortFields = new SortField[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            SortColumn column = columns.get(i);
+            MappedFieldType fieldType = fieldTypeLookup.apply(column.column);
+            DataType<?> dataType = fieldType == null ? null : DataTypes.ofMappingName(fieldType.typeName());
+            if (dataType == null || !fieldType.hasDocValues()) {
+                throw new IllegalArgumentException(
+                    "Cannot use column [" + column.column + "] in 'sort_by', it must be an existing primitive column with a column store");
+            }
+            try {
+                sortFields[i] = sortField(
+                    column.column,
+                    dataType,
+                    column.reverse,
+                    NullValueOrder.fromFlag(column.nullsFirst)
+                );
+            } catch (UnsupportedOperationException e) {
+                throw new IllegalArgumentException(
+                    "Cannot use column [" + column.column + "] of type [" + dataType.getName() + "] in 'sort_by'", e);
+            }
+        }
+        return new Sort(sortFields);
+    }
+
+    /**
+     * Creates the SortField for a column which is stored with doc values.
+     * <p>
+     * This is used for the index sort and for {@code ORDER BY} on columns, so that a query ordered by a prefix
+     * of the index sort results in equal SortFields and Lucene can terminate the collection of a segment early.
+     */
+    public static SortField sortField(String fieldName,
+                                      DataType<?> valueType,
+                                      boolean reverse,
+                                      NullValueOrder nullValueOrder) {
+        MultiValueMode sortMode = reverse ? MultiValueMode.MAX : MultiValueMode.MIN;
+        switch (valueType.id()) {
+            case StringType.ID: {
+                SortField sortField = new SortedSetSortField(
+                    fieldName,
+                    reverse,
+                    sortMode == MultiValueMode.MAX
+                        ? SortedSetSelector.Type.MAX
+                        : SortedSetSelector.Type.MIN
+                );
+                sortField.setMissingValue(
+                    nullValueOrder == NullValueOrder.LAST ^ reverse
+                        ? SortedSetSortField.STRING_LAST
+                        : SortedSetSortField.STRING_FIRST
+                );
+                return sortField;
+            }
+            case BooleanType.ID:
+            case ByteType.ID:
+            case ShortType.ID:
+            case IntegerType.ID:
+            case LongType.ID:
+            case TimestampType.ID_WITHOUT_TZ:
+            case TimestampType.ID_WITH_TZ: {
+                SortedNumericSelector.Type selectorType = sortMode == MultiValueMode.MAX
+                    ? SortedNumericSelector.Type.MAX
+                    : SortedNumericSelector.Type.MIN;
+                var reducedType = SortField.Type.LONG;
+                var sortField = new SortedNumericSortField(fieldName, SortField.Type.LONG, reverse, selectorType);
+                sortField.setMissingValue(
+                        NullSentinelValues.nullSentinelForReducedType(reducedType, nullValueOrder, reverse));
+                return sortField;
+            }
+
+            case FloatType.ID: {
+                SortedNumericSelector.Type selectorType = sortMode == MultiValueMode.MAX
+                    ? SortedNumericSelector.Type.MAX
+                    : SortedNumericSelector.Type.MIN;
+                var reducedType = SortField.Type.FLOAT;
+                var sortField = new SortedNumericSortField(fieldName, SortField.Type.FLOAT, reverse, selectorType);
+                sortField.setMissingValue(
+                        NullSentinelValues.nullSentinelForReducedType(reducedType, nullValueOrder, reverse));
+                return sortField;
+            }
+            case DoubleType.ID: {
+                SortedNumericSelector.Type selectorType = sortMode == MultiValueMode.MAX
+                    ? SortedNumericSelector.Type.MAX
+                    : SortedNumericSelector.Type.MIN;
+                var reducedType = SortField.Type.DOUBLE;
+                var sortField = new SortedNumericSortField(fieldName, SortField.Type.DOUBLE, reverse, selectorType);
+                sortField.setMissingValue(
+                        NullSentinelValues.nullSentinelForReducedType(reducedType, nullValueOrder, reverse));
+                return sortField;
+            }
+            case GeoPointType.ID:
+                throw new IllegalArgumentException(
+                        "can't sort on geo_point field without using specific sorting feature, like geo_distance");
+
+            default:
+                throw new UnsupportedOperationException("Cannot order on " + fieldName + "::" + valueType);
+        }
+    }
+}
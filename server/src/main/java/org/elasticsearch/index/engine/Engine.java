@@ -792,6 +792,14 @@ public abstract class Engine implements Closeable {
      */
     public abstract List<Segment> segments(boolean verbose);
 
+    /**
+     * Returns {@code true} if all operations of this engine are visible to an {@link SearcherScope#INTERNAL} searcher.
+     * Gets can then be served by such a searcher without consulting the version map or the translog.
+     */
+    public boolean isFullyRefreshed() {
+        return false;
+    }
+
     public final boolean refreshNeeded() {
         if (store.tryIncRef()) {
             /*
@@ -25,6 +25,7 @@ import org.apache.lucene.index.MergePolicy;
 import org.apache.lucene.search.QueryCache;
 import org.apache.lucene.search.QueryCachingPolicy;
 import org.apache.lucene.search.ReferenceManager;
+import org.apache.lucene.search.Sort;
 import javax.annotation.Nullable;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
@@ -74,6 +75,8 @@ public final class EngineConfig {
     private final LongSupplier globalCheckpointSupplier;
     private final LongSupplier primaryTermSupplier;
     private final TombstoneDocSupplier tombstoneDocSupplier;
+    @Nullable
+    private final Sort indexSort;
 
     /**
      * Index setting to change the low level lucene codec used for writing new segments.
@@ -130,6 +133,37 @@ public final class EngineConfig {
                         LongSupplier globalCheckpointSupplier,
                         LongSupplier primaryTermSupplier,
                         TombstoneDocSupplier tombstoneDocSupplier) {
+        this(shardId, allocationId, threadPool, indexSettings, store, mergePolicy, analyzer, codecService, eventListener,
+             queryCache, queryCachingPolicy, translogConfig, flushMergesAfter, externalRefreshListener,
+             internalRefreshListener, circuitBreakerService, globalCheckpointSupplier, primaryTermSupplier,
+             tombstoneDocSupplier, null);
+    }
+
+    /**
+     * Creates a new {@link org.elasticsearch.index.engine.EngineConfig}
+     *
+     * @param indexSort the sort applied to the documents within a segment, null if the index isn't sorted
+     */
+    public EngineConfig(ShardId shardId,
+                        String allocationId,
+                        ThreadPool threadPool,
+                        IndexSettings indexSettings,
+                        Store store,
+                        MergePolicy mergePolicy,
+                        Analyzer analyzer,
+                        CodecService codecService,
+                        Engine.EventListener eventListener,
+                        QueryCache queryCache,
+                        QueryCachingPolicy queryCachingPolicy,
+                        TranslogConfig translogConfig,
+                        TimeValue flushMergesAfter,
+                        List<ReferenceManager.RefreshListener> externalRefreshListener,
+                        List<ReferenceManager.RefreshListener> internalRefreshListener,
+                        CircuitBreakerService circuitBreakerService,
+                        LongSupplier globalCheckpointSupplier,
+                        LongSupplier primaryTermSupplier,
+                        TombstoneDocSupplier tombstoneDocSupplier,
+                        @Nullable Sort indexSort) {
         this.shardId = shardId;
         this.allocationId = allocationId;
         this.indexSettings = indexSettings;
@@ -164,6 +198,7 @@ public final class EngineConfig {
         this.globalCheckpointSupplier = globalCheckpointSupplier;
         this.primaryTermSupplier = primaryTermSupplier;
         this.tombstoneDocSupplier = tombstoneDocSupplier;
+        this.indexSort = indexSort;
     }
 
     /**
@@ -367,4 +402,12 @@ public final class EngineConfig {
     public TombstoneDocSupplier getTombstoneDocSupplier() {
         return tombstoneDocSupplier;
     }
+
+    /**
+     * Returns the sort of the documents within a segment, or null if the index isn't sorted.
+     */
+    @Nullable
+    public Sort getIndexSort() {
+        return indexSort;
+    }
 }
@@ -2270,6 +2270,9 @@ public class InternalEngine extends Engine {
         iwc.setRAMBufferSizeMB(engineConfig.getIndexingBufferSize().getMbFrac());
         iwc.setCodec(engineConfig.getCodec());
         iwc.setUseCompoundFile(true); // always use compound on flush - reduces # of file-handles on refresh
+        if (config().getIndexSort() != null) {
+            iwc.setIndexSort(config().getIndexSort());
+        }
         return iwc;
     }
 
@@ -2495,6 +2498,13 @@ public class InternalEngine extends Engine {
         return localCheckpointTracker.getProcessedCheckpoint();
     }
 
+    @Override
+    public boolean isFullyRefreshed() {
+        // Uses the max seq_no instead of the processed checkpoint;
+        // operations above a gap may already be acknowledged but not yet refreshed.
+        return lastRefreshedCheckpoint() >= localCheckpointTracker.getMaxSeqNo();
+    }
+
     @Override
     public long getPersistedLocalCheckpoint() {
         return localCheckpointTracker.getPersistedCheckpoint();
@@ -24,6 +24,7 @@ import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.xcontent.XContentType;
 
+import java.util.Map;
 import java.util.Objects;
 
 public class SourceToParse {
@@ -38,7 +39,25 @@ public class SourceToParse {
 
     private final XContentType xContentType;
 
+    @Nullable
+    private final Map<String, Object> parsedSource;
+
     public SourceToParse(String index, String id, BytesReference source, XContentType xContentType, @Nullable String routing) {
+        this(index, id, source, null, xContentType, routing);
+    }
+
+    /**
+     * @param parsedSource the already available map representation of {@code source}.
+     *                     If present, the document is parsed from it instead of re-parsing the {@code source} bytes.
+     *                     The map must only contain values supported by
+     *                     {@link org.elasticsearch.common.xcontent.support.MapXContentParser}.
+     */
+    public SourceToParse(String index,
+                         String id,
+                         BytesReference source,
+                         @Nullable Map<String, Object> parsedSource,
+                         XContentType xContentType,
+                         @Nullable String routing) {
         this.index = Objects.requireNonNull(index);
         this.id = Objects.requireNonNull(id);
         // we always convert back to byte array, since we store it and Field only supports bytes..
@@ -46,6 +65,7 @@ public class SourceToParse {
         this.source = new BytesArray(Objects.requireNonNull(source).toBytesRef());
         this.xContentType = Objects.requireNonNull(xContentType);
         this.routing = routing;
+        this.parsedSource = parsedSource;
     }
 
     public SourceToParse(String index, String id, BytesReference source, XContentType xContentType) {
@@ -68,6 +88,11 @@ public class SourceToParse {
         return this.routing;
     }
 
+    @Nullable
+    public Map<String, Object> parsedSource() {
+        return this.parsedSource;
+    }
+
     public XContentType getXContentType() {
         return this.xContentType;
     }
@@ -33,6 +33,7 @@ import org.apache.lucene.index.Term;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.QueryCachingPolicy;
 import org.apache.lucene.search.ReferenceManager;
+import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.UsageTrackingQueryCachingPolicy;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.util.BytesRef;
@@ -68,6 +69,7 @@ import org.elasticsearch.index.IndexModule;
 import org.elasticsearch.index.IndexNotFoundException;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.IndexSortConfig;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.cache.IndexCache;
 import org.elasticsearch.index.codec.CodecService;
@@ -842,6 +844,20 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return getEngine().get(get, this::acquireSearcher);
     }
 
+    /**
+     * Acquires a searcher to look up many documents by id with the same realtime guarantees as {@link #get(Engine.Get)}.
+     * Returns {@code null} if some operations are not yet visible to searchers, the documents must then be looked up
+     * using {@link #get(Engine.Get)}.
+     */
+    @Nullable
+    public Engine.Searcher acquireRealtimeGetSearcher(String source) {
+        readAllowed();
+        if (getEngine().isFullyRefreshed() == false) {
+            return null;
+        }
+        return acquireSearcher(source, Engine.SearcherScope.INTERNAL);
+    }
+
     /**
      * Writes all indexing changes to disk and opens a new searcher reflecting all changes.  This can throw {@link AlreadyClosedException}.
      */
@@ -2218,10 +2234,19 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             circuitBreakerService,
             replicationTracker,
             () -> operationPrimaryTerm,
-            tombstoneDocSupplier()
+            tombstoneDocSupplier(),
+            getIndexSort()
         );
     }
 
+    /**
+     * Returns the sort of the documents within a segment, or null if the index isn't sorted.
+     */
+    @Nullable
+    public Sort getIndexSort() {
+        return IndexSortConfig.buildIndexSort(indexSettings.getSettings(), mapperService::fullName);
+    }
+
     /**
      * Acquire a primary operation permit whenever the shard is ready for indexing. If a permit is directly available, the provided
      * ActionListener will be called on the calling thread. During relocation hand-off, permit acquisition can be delayed. The provided
@@ -0,0 +1,67 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.action.sql;
+
+import io.crate.sql.parser.ParsingException;
+import io.crate.sql.tree.Statement;
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class ParsedStatementCacheTest extends CrateUnitTest {
+
+    @Test
+    public void testRepeatedStatementIsParsedOnce() {
+        ParsedStatementCache cache = new ParsedStatementCache(10);
+        Statement first = cache.parse("select 1");
+        Statement second = cache.parse("select 1");
+
+        assertThat(second, sameInstance(first));
+        assertThat(cache.stats().missCount(), is(1L));
+        assertThat(cache.stats().hitCount(), is(1L));
+    }
+
+    @Test
+    public void testInvalidStatementIsNotCached() {
+        ParsedStatementCache cache = new ParsedStatementCache(10);
+        expectThrows(ParsingException.class, () -> cache.parse("selec 1"));
+        expectThrows(ParsingException.class, () -> cache.parse("selec 1"));
+
+        assertThat(cache.size(), is(0L));
+        assertThat(cache.stats().hitCount(), is(0L));
+    }
+
+    @Test
+    public void testStatementAboveTheMaxLengthIsNotCached() {
+        ParsedStatementCache cache = new ParsedStatementCache(10);
+        String query = "select '" + "x".repeat(ParsedStatementCache.MAX_STATEMENT_LENGTH) + "'";
+        Statement first = cache.parse(query);
+        Statement second = cache.parse(query);
+
+        assertThat(second, not(sameInstance(first)));
+        assertThat(cache.size(), is(0L));
+    }
+}
@@ -31,6 +31,7 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -70,6 +71,49 @@ public class RowConsumerToResultReceiverTest {
         assertThat(collectedRows, Matchers.contains(expectedResult.toArray(new Object[0])));
     }
 
+    @Test
+    public void test_consumption_pauses_until_receiver_is_ready_for_more_rows() throws Exception {
+        final List<Object[]> collectedRows = new ArrayList<>();
+        final CompletableFuture<Void> ready = new CompletableFuture<>();
+        BaseResultReceiver resultReceiver = new BaseResultReceiver() {
+            @Override
+            public void setNextRow(Row row) {
+                super.setNextRow(row);
+                collectedRows.add(row.materialize());
+            }
+
+            @Override
+            public CompletableFuture<?> readyForMoreRows() {
+                return collectedRows.size() == 3 ? ready : null;
+            }
+        };
+        RowConsumerToResultReceiver consumer = new RowConsumerToResultReceiver(resultReceiver, 0, t -> {});
+
+        consumer.accept(TestingBatchIterators.range(0, 10), null);
+        assertThat(collectedRows.size(), is(3));
+        assertThat(resultReceiver.completionFuture().isDone(), is(false));
+
+        ready.complete(null);
+        resultReceiver.completionFuture().get(10, TimeUnit.SECONDS);
+        assertThat(collectedRows.size(), is(10));
+    }
+
+    @Test
+    public void test_failure_while_waiting_for_receiver_is_forwarded_to_result_receiver() throws Exception {
+        final CompletableFuture<Void> ready = new CompletableFuture<>();
+        BaseResultReceiver resultReceiver = new BaseResultReceiver() {
+            @Override
+            public CompletableFuture<?> readyForMoreRows() {
+                return ready;
+            }
+        };
+        RowConsumerToResultReceiver consumer = new RowConsumerToResultReceiver(resultReceiver, 0, t -> {});
+
+        consumer.accept(TestingBatchIterators.range(0, 10), null);
+        ready.completeExceptionally(new IllegalStateException("channel closed"));
+        assertThat(resultReceiver.completionFuture().isCompletedExceptionally(), is(true));
+    }
+
     @Test
     public void testExceptionOnAllLoadedCallIsForwardedToResultReceiver() throws Exception {
         BaseResultReceiver resultReceiver = new BaseResultReceiver();
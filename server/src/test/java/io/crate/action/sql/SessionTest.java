@@ -27,8 +27,11 @@ import io.crate.analyze.ParamTypeHints;
 import io.crate.analyze.Relations;
 import io.crate.analyze.TableDefinitions;
 import io.crate.auth.user.AccessControl;
+import io.crate.data.InMemoryBatchIterator;
 import io.crate.data.Row;
+import io.crate.data.Row1;
 import io.crate.data.RowConsumer;
+import io.crate.data.SentinelRow;
 import io.crate.execution.engine.collect.stats.JobsLogs;
 import io.crate.expression.symbol.Literal;
 import io.crate.expression.symbol.ParameterSymbol;
@@ -54,6 +57,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
@@ -176,14 +180,14 @@ public class SessionTest extends CrateDummyClusterServiceUnitTest {
 
         assertThat(session.portals.size(), is(1));
         assertThat(session.preparedStatements.size(), is(1));
-        assertThat(session.deferredExecutionsByStmt.size(), is(0));
+        assertThat(session.deferredExecutions.size(), is(0));
         assertThat(session.activeExecution, is(activeExecutionFuture));
 
         session.close();
 
         assertThat(session.portals.size(), is(0));
         assertThat(session.preparedStatements.size(), is(0));
-        assertThat(session.deferredExecutionsByStmt.size(), is(0));
+        assertThat(session.deferredExecutions.size(), is(0));
         assertThat(session.activeExecution, is(nullValue()));
     }
 
@@ -344,13 +348,13 @@ public class SessionTest extends CrateDummyClusterServiceUnitTest {
 
         assertThat(session.portals.size(), is(2));
         assertThat(session.preparedStatements.size(), is(2));
-        assertThat(session.deferredExecutionsByStmt.size(), is(0));
+        assertThat(session.deferredExecutions.size(), is(0));
 
         session.close();
 
         assertThat(session.portals.size(), is(0));
         assertThat(session.preparedStatements.size(), is(0));
-        assertThat(session.deferredExecutionsByStmt.size(), is(0));
+        assertThat(session.deferredExecutions.size(), is(0));
         assertThat(session.activeExecution, is(nullValue()));
     }
 
@@ -505,4 +509,105 @@ public class SessionTest extends CrateDummyClusterServiceUnitTest {
         session.sync().get(5, TimeUnit.SECONDS);
         assertThat(jobsLogs.metrics().iterator().next().totalCount(), is(1L));
     }
+
+    @Test
+    public void test_consecutive_executions_of_the_same_statement_are_grouped_and_groups_run_in_order() throws Exception {
+        SQLExecutor sqlExecutor = SQLExecutor.builder(clusterService)
+            .addTable("create table t1 (x int)")
+            .addTable("create table t2 (x int)")
+            .build();
+        DependencyCarrier executor = mock(DependencyCarrier.class, Answers.RETURNS_MOCKS);
+        List<String> executions = Collections.synchronizedList(new ArrayList<>());
+        Planner planner = mock(Planner.class);
+        when(planner.plan(any(AnalyzedStatement.class), any(PlannerContext.class)))
+            .thenReturn(newInsertPlan(executions));
+        Session session = new Session(
+            sqlExecutor.analyzer,
+            planner,
+            new JobsLogs(() -> false),
+            false,
+            executor,
+            AccessControl.DISABLED,
+            SessionContext.systemSessionContext());
+
+        session.parse("S_1", "INSERT INTO t1 (x) VALUES (?)", List.of());
+        session.parse("S_2", "INSERT INTO t2 (x) VALUES (?)", List.of());
+        for (var stmt : List.of("S_1", "S_1", "S_2", "S_1")) {
+            session.bind("P_1", stmt, List.of(1), null);
+            session.execute("P_1", 0, new BaseResultReceiver());
+        }
+        assertThat(session.deferredExecutions.size(), is(3));
+        assertThat(session.deferredExecutions.get(0).size(), is(2));
+
+        session.sync().get(5, TimeUnit.SECONDS);
+        assertThat(executions, Matchers.contains("bulk-2", "single", "single"));
+        assertThat(session.deferredExecutions.size(), is(0));
+    }
+
+    private static Plan newInsertPlan(List<String> executions) {
+        return new Plan() {
+            @Override
+            public StatementType type() {
+                return StatementType.INSERT;
+            }
+
+            @Override
+            public void executeOrFail(DependencyCarrier dependencies, PlannerContext plannerContext, RowConsumer consumer, Row params, SubQueryResults subQueryResults) throws Exception {
+                executions.add("single");
+                consumer.accept(InMemoryBatchIterator.of(new Row1(1L), SentinelRow.SENTINEL), null);
+            }
+
+            @Override
+            public List<CompletableFuture<Long>> executeBulk(DependencyCarrier executor, PlannerContext plannerContext, List<Row> bulkParams, SubQueryResults subQueryResults) {
+                executions.add("bulk-" + bulkParams.size());
+                List<CompletableFuture<Long>> rowCounts = new ArrayList<>();
+                for (int i = 0; i < bulkParams.size(); i++) {
+                    rowCounts.add(completedFuture(1L));
+                }
+                return rowCounts;
+            }
+        };
+    }
+
+    @Test
+    public void test_planning_failure_of_a_group_fails_its_receivers_and_the_next_groups_still_run() throws Exception {
+        SQLExecutor sqlExecutor = SQLExecutor.builder(clusterService)
+            .addTable("create table t1 (x int)")
+            .addTable("create table t2 (x int)")
+            .build();
+        DependencyCarrier executor = mock(DependencyCarrier.class, Answers.RETURNS_MOCKS);
+        List<String> executions = Collections.synchronizedList(new ArrayList<>());
+        Plan plan = newInsertPlan(executions);
+        Planner planner = mock(Planner.class);
+        when(planner.plan(any(AnalyzedStatement.class), any(PlannerContext.class)))
+            .thenReturn(plan)
+            .thenThrow(new IllegalStateException("planning failed"))
+            .thenReturn(plan);
+        Session session = new Session(
+            sqlExecutor.analyzer,
+            planner,
+            new JobsLogs(() -> false),
+            false,
+            executor,
+            AccessControl.DISABLED,
+            SessionContext.systemSessionContext());
+
+        session.parse("S_1", "INSERT INTO t1 (x) VALUES (?)", List.of());
+        session.parse("S_2", "INSERT INTO t2 (x) VALUES (?)", List.of());
+        List<BaseResultReceiver> resultReceivers = new ArrayList<>();
+        for (var stmt : List.of("S_1", "S_2", "S_1")) {
+            session.bind("P_1", stmt, List.of(1), null);
+            BaseResultReceiver resultReceiver = new BaseResultReceiver();
+            resultReceivers.add(resultReceiver);
+            session.execute("P_1", 0, resultReceiver);
+        }
+
+        CompletableFuture<?> sync = session.sync();
+        expectThrows(ExecutionException.class, () -> sync.get(5, TimeUnit.SECONDS));
+        assertThat(executions, Matchers.contains("single", "single"));
+        assertThat(resultReceivers.get(0).completionFuture().isCompletedExceptionally(), is(false));
+        assertThat(resultReceivers.get(1).completionFuture().isCompletedExceptionally(), is(true));
+        assertThat(resultReceivers.get(2).completionFuture().isCompletedExceptionally(), is(false));
+        assertThat(session.deferredExecutions.size(), is(0));
+    }
 }
@@ -23,6 +23,9 @@
 package io.crate.execution.dml;
 
 import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.junit.Test;
 
 import static org.hamcrest.core.Is.is;
@@ -48,4 +51,27 @@ public class ShardResponseTest extends CrateUnitTest {
         assertThat(result.successfulWrites(2), is(false));
         assertThat(result.failed(2), is(true));
     }
+
+    @Test
+    public void testWriteQueueIsStreamedToNodesOnOrAfter4_3() throws Exception {
+        ShardResponse shardResponse = new ShardResponse();
+        shardResponse.add(0);
+        shardResponse.writeQueue(12, 200);
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        shardResponse.writeTo(out);
+        StreamInput in = out.bytes().streamInput();
+        ShardResponse streamed = new ShardResponse(in);
+        assertThat(streamed.writeQueueSize(), is(12));
+        assertThat(streamed.writeQueueCapacity(), is(200));
+
+        out = new BytesStreamOutput();
+        out.setVersion(Version.V_4_2_0);
+        shardResponse.writeTo(out);
+        in = out.bytes().streamInput();
+        in.setVersion(Version.V_4_2_0);
+        streamed = new ShardResponse(in);
+        assertThat(streamed.itemIndices().size(), is(1));
+        assertThat(streamed.writeQueueCapacity(), is(0));
+    }
 }
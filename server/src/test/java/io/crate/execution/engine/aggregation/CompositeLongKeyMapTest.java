@@ -0,0 +1,123 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class CompositeLongKeyMapTest extends CrateUnitTest {
+
+    @Test
+    public void testLookupWithReusedKeyAndResize() {
+        CompositeLongKeyMap<Object[]> map = new CompositeLongKeyMap<>(2);
+        CompositeLongKey key = new CompositeLongKey(2);
+        for (int i = 0; i < 1000; i++) {
+            key.set(0, i);
+            key.set(1, (long) i * 10);
+            map.put(key, new Object[]{i});
+        }
+        assertThat(map.size(), is(1000));
+        for (int i = 0; i < 1000; i++) {
+            key.set(0, i);
+            key.set(1, (long) i * 10);
+            assertThat(map.get(key)[0], is(i));
+        }
+        key.set(0, 1);
+        key.set(1, 20L);
+        assertThat(map.get(key), nullValue());
+    }
+
+    @Test
+    public void testNullColumnsAreDistinctFromZero() {
+        CompositeLongKeyMap<Object[]> map = new CompositeLongKeyMap<>(2);
+        CompositeLongKey key = new CompositeLongKey(2);
+        key.set(0, 0);
+        key.set(1, 0);
+        map.put(key, new Object[]{"zero"});
+        key.set(1, null);
+        map.put(key, new Object[]{"null"});
+
+        assertThat(map.size(), is(2));
+        assertThat(map.get(key)[0], is("null"));
+        key.set(1, 0);
+        assertThat(map.get(key)[0], is("zero"));
+    }
+
+    @Test
+    public void testEntriesContainCopiesOfTheKeys() {
+        CompositeLongKeyMap<Object[]> map = new CompositeLongKeyMap<>(3);
+        CompositeLongKey key = new CompositeLongKey(3);
+        Map<List<Object>, Object> expected = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            key.set(0, (byte) (i % 3));
+            key.set(1, i % 2 == 0 ? null : i);
+            key.set(2, (long) i);
+            map.put(key, new Object[]{i});
+            expected.put(List.of(i % 3, i % 2 == 0 ? "null" : i, i), i);
+        }
+
+        Map<List<Object>, Object> actual = new HashMap<>();
+        for (Map.Entry<CompositeLongKey, Object[]> entry : map.entrySet()) {
+            CompositeLongKey k = entry.getKey();
+            Object second = k.get(1, DataTypes.INTEGER);
+            actual.put(
+                List.of(
+                    ((Byte) k.get(0, DataTypes.BYTE)).intValue(),
+                    second == null ? "null" : second,
+                    ((Long) k.get(2, DataTypes.LONG)).intValue()),
+                entry.getValue()[0]
+            );
+        }
+        assertThat(actual, is(expected));
+    }
+
+    @Test
+    public void testKeyStreaming() throws Exception {
+        CompositeLongKey key = new CompositeLongKey(2);
+        key.set(0, -42L);
+        key.set(1, null);
+        CompositeLongKey.KeyStreamer streamer = new CompositeLongKey.KeyStreamer(2);
+        BytesStreamOutput out = new BytesStreamOutput();
+        streamer.writeValueTo(out, key);
+
+        CompositeLongKey read = streamer.readValueFrom(out.bytes().streamInput());
+        assertThat(read, is(key));
+        assertThat(read.hashCode(), is(key.hashCode()));
+    }
+
+    @Test
+    public void testSupportedTypes() {
+        assertThat(CompositeLongKey.supportsTypes(List.of(DataTypes.INTEGER, DataTypes.TIMESTAMPZ)), is(true));
+        assertThat(CompositeLongKey.supportsTypes(List.of(DataTypes.LONG)), is(false));
+        assertThat(CompositeLongKey.supportsTypes(List.of(DataTypes.LONG, DataTypes.STRING)), is(false));
+    }
+}
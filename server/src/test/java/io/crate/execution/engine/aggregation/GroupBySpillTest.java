@@ -0,0 +1,102 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import io.crate.Streamer;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+public class GroupBySpillTest extends CrateUnitTest {
+
+    private GroupBySpill<Integer> newSpill() throws Exception {
+        return new GroupBySpill<>(
+            createTempDir(),
+            DataTypes.INTEGER.streamer(),
+            new Streamer[] { DataTypes.LONG.streamer() }
+        );
+    }
+
+    @Test
+    public void test_entries_are_read_back_from_their_partition() throws Exception {
+        try (GroupBySpill<Integer> spill = newSpill()) {
+            Map<Integer, Object[]> statesByKey = new TreeMap<>();
+            for (int i = 0; i < 100; i++) {
+                statesByKey.put(i, new Object[] { (long) i });
+            }
+            spill.write(statesByKey);
+            spill.write(Map.of(1, new Object[] { 10L }));
+
+            List<Object> keys = new ArrayList<>();
+            for (int partition : spill.partitions()) {
+                spill.read(partition, (key, states) -> {
+                    assertThat(GroupBySpill.partition(key, 0), is(partition));
+                    keys.add(key);
+                });
+            }
+            assertThat(keys.size(), is(101));
+            assertThat(new HashSet<>(keys).size(), is(100));
+        }
+    }
+
+    @Test
+    public void test_repartition_distributes_the_entries_of_a_partition() throws Exception {
+        try (GroupBySpill<Integer> spill = newSpill()) {
+            Map<Integer, Object[]> partitionZero = new TreeMap<>();
+            for (int i = 0; partitionZero.size() < 500; i++) {
+                if (GroupBySpill.partition(i, 0) == 0) {
+                    partitionZero.put(i, new Object[] { 1L });
+                }
+            }
+            spill.write(partitionZero);
+            assertThat(spill.partitions(), containsInAnyOrder(0));
+            assertThat(spill.canRepartition(), is(true));
+
+            try (GroupBySpill<Integer> subPartitions = spill.repartition()) {
+                subPartitions.write(partitionZero);
+                assertThat(subPartitions.partitions().size(), greaterThan(1));
+            }
+        }
+    }
+
+    @Test
+    public void test_repartitioning_stops_once_all_bits_of_the_hash_are_used() throws Exception {
+        GroupBySpill<Integer> spill = newSpill();
+        int level = 0;
+        while (spill.canRepartition()) {
+            spill = spill.repartition();
+            level++;
+        }
+        assertThat(level, is(GroupBySpill.MAX_LEVEL));
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import io.crate.breaker.BlockBasedRamAccounting;
+import io.crate.breaker.RamAccounting;
+import io.crate.data.BatchIterator;
+import io.crate.data.InMemoryBatchIterator;
+import io.crate.data.Row;
+import io.crate.data.Row1;
+import io.crate.data.RowN;
+import io.crate.data.SentinelRow;
+import io.crate.execution.engine.aggregation.impl.CollectSetAggregation;
+import io.crate.execution.engine.aggregation.impl.CountAggregation;
+import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.expression.InputFactory;
+import io.crate.expression.symbol.AggregateMode;
+import io.crate.expression.symbol.Aggregation;
+import io.crate.expression.symbol.InputColumn;
+import io.crate.expression.symbol.Symbol;
+import io.crate.memory.OnHeapMemoryManager;
+import io.crate.metadata.CoordinatorTxnCtx;
+import io.crate.metadata.functions.Signature;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.ArrayType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+import static io.crate.testing.TestingHelpers.getFunctions;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class GroupingCollectorTest extends CrateUnitTest {
+
+    private static final int BLOCK_SIZE = 256;
+
+    private final AtomicLong reservedBytes = new AtomicLong();
+    private Path spillDirectory;
+    private GroupingCollector<Object> collector;
+
+    @Before
+    public void setupSpillDirectory() throws Exception {
+        spillDirectory = createTempDir();
+    }
+
+    @After
+    public void closeCollector() {
+        if (collector != null) {
+            collector.close();
+        }
+    }
+
+    /**
+     * Creates a collector for {@code select x, count(*) ... group by x} with a breaker limited to {@code limit}
+     */
+    private GroupingCollector<Object> countPerKeyCollector(long limit) {
+        Aggregation count = new Aggregation(
+            CountAggregation.COUNT_STAR_SIGNATURE,
+            DataTypes.LONG,
+            List.of()
+        );
+        return projector(limit, count).getCollector();
+    }
+
+    /**
+     * Creates a projector for {@code select x, <aggregation> ... group by x} with a breaker limited to {@code limit}.
+     * {@code x} is the first input column.
+     */
+    private GroupingProjector projector(long limit, Aggregation aggregation) {
+        RamAccounting ramAccounting = new BlockBasedRamAccounting(
+            bytes -> {
+                if (reservedBytes.addAndGet(bytes) > limit) {
+                    reservedBytes.addAndGet(-bytes);
+                    throw new CircuitBreakingException("dummy breaker", bytes, limit);
+                }
+            },
+            BLOCK_SIZE
+        );
+        List<Symbol> keys = List.of(new InputColumn(0, DataTypes.INTEGER));
+        InputFactory.Context<CollectExpression<Row, ?>> ctx =
+            new InputFactory(getFunctions()).ctxForAggregations(CoordinatorTxnCtx.systemTransactionContext());
+        ctx.add(keys);
+        ctx.add(List.of(aggregation));
+        GroupingProjector projector = new GroupingProjector(
+            keys,
+            ctx.topLevelInputs(),
+            ctx.expressions().toArray(new CollectExpression[0]),
+            AggregateMode.ITER_FINAL,
+            ctx.aggregations().toArray(new AggregationContext[0]),
+            ramAccounting,
+            new OnHeapMemoryManager(bytes -> {}),
+            Version.CURRENT,
+            Version.CURRENT,
+            spillDirectory
+        );
+        collector = projector.getCollector();
+        return projector;
+    }
+
+    private static Map<Object, Long> collect(GroupingCollector<Object> collector, int numGroups, int rowsPerGroup) {
+        Map<Object, Object[]> statesByKey = collector.supplier().get();
+        BiConsumer<Map<Object, Object[]>, Row> accumulator = collector.accumulator();
+        Object[] cells = new Object[1];
+        RowN row = new RowN(cells);
+        for (int r = 0; r < rowsPerGroup; r++) {
+            for (int i = 0; i < numGroups; i++) {
+                cells[0] = i;
+                accumulator.accept(statesByKey, row);
+            }
+        }
+        HashMap<Object, Long> countsByKey = new HashMap<>();
+        for (Row result : collector.finisher().apply(statesByKey)) {
+            Long previous = countsByKey.put(result.get(0), (Long) result.get(1));
+            assertThat("Each key must be emitted once", previous, is((Long) null));
+        }
+        return countsByKey;
+    }
+
+    private long numSpillFiles() throws Exception {
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    public void test_groups_are_spilled_and_merged_if_circuit_breaker_trips() throws Exception {
+        int numGroups = 2000;
+        Map<Object, Long> countsByKey = collect(countPerKeyCollector(4096), numGroups, 2);
+
+        assertThat(countsByKey.size(), is(numGroups));
+        for (long count : countsByKey.values()) {
+            assertThat(count, is(2L));
+        }
+        assertThat(numSpillFiles() > 0, is(true));
+    }
+
+    @Test
+    public void test_partitions_that_do_not_fit_into_memory_are_repartitioned() throws Exception {
+        // 16 partitions with ~1250 groups each, a lot more than fit into memory
+        int numGroups = 20_000;
+        Map<Object, Long> countsByKey = collect(countPerKeyCollector(4096), numGroups, 3);
+
+        assertThat(countsByKey.size(), is(numGroups));
+        for (long count : countsByKey.values()) {
+            assertThat(count, is(3L));
+        }
+    }
+
+    @Test
+    public void test_close_removes_spill_files_and_releases_only_bytes_of_the_collector() throws Exception {
+        GroupingCollector<Object> collector = countPerKeyCollector(4096);
+        collect(collector, 2000, 1);
+
+        collector.close();
+        assertThat(numSpillFiles(), is(0L));
+        assertThat(reservedBytes.get(), lessThanOrEqualTo((long) BLOCK_SIZE));
+    }
+
+    @Test
+    public void test_spilled_result_can_be_read_again_after_move_to_start() throws Exception {
+        int numGroups = 2000;
+        GroupingProjector projector = projector(
+            4096,
+            new Aggregation(CountAggregation.COUNT_STAR_SIGNATURE, DataTypes.LONG, List.of())
+        );
+        List<Row> rows = new ArrayList<>();
+        for (int r = 0; r < 2; r++) {
+            for (int i = 0; i < numGroups; i++) {
+                rows.add(new Row1(i));
+            }
+        }
+        BatchIterator<Row> it = projector.apply(InMemoryBatchIterator.of(rows, SentinelRow.SENTINEL, true));
+
+        Map<Object, Object> countsByKey = readAll(it);
+        assertThat(numSpillFiles() > 0, is(true));
+        assertThat(countsByKey.size(), is(numGroups));
+        for (Object count : countsByKey.values()) {
+            assertThat(count, is(2L));
+        }
+
+        it.moveToStart();
+        assertThat(readAll(it), is(countsByKey));
+        it.close();
+        assertThat(numSpillFiles(), is(0L));
+    }
+
+    @Test
+    public void test_groups_are_spilled_if_the_state_of_an_existing_group_trips_the_circuit_breaker() throws Exception {
+        // only the first row of a group adds a new entry, all other rows grow the collect_set state
+        int numGroups = 40;
+        int valuesPerGroup = 50;
+        GroupingProjector projector = projector(
+            32 * 1024,
+            new Aggregation(
+                Signature.aggregate(
+                    CollectSetAggregation.NAME,
+                    DataTypes.INTEGER.getTypeSignature(),
+                    new ArrayType<>(DataTypes.INTEGER).getTypeSignature()),
+                new ArrayType<>(DataTypes.INTEGER),
+                List.of(new InputColumn(1, DataTypes.INTEGER))
+            )
+        );
+        List<Row> rows = new ArrayList<>();
+        for (int value = 0; value < numGroups * valuesPerGroup; value++) {
+            rows.add(new RowN(value % numGroups, value));
+        }
+        BatchIterator<Row> it = projector.apply(InMemoryBatchIterator.of(rows, SentinelRow.SENTINEL, true));
+
+        Map<Object, Object> valuesByKey = readAll(it);
+        assertThat(numSpillFiles() > 0, is(true));
+        assertThat(valuesByKey.size(), is(numGroups));
+        for (Object values : valuesByKey.values()) {
+            assertThat(((List<?>) values).size(), is(valuesPerGroup));
+        }
+        it.close();
+    }
+
+    private static Map<Object, Object> readAll(BatchIterator<Row> it) throws Exception {
+        HashMap<Object, Object> valuesByKey = new HashMap<>();
+        while (true) {
+            while (it.moveNext()) {
+                Row row = it.currentElement();
+                Object previous = valuesByKey.put(row.get(0), row.get(1));
+                assertThat("Each key must be emitted once", previous, is((Object) null));
+            }
+            if (it.allLoaded()) {
+                return valuesByKey;
+            }
+            it.loadNextBatch().toCompletableFuture().get(10, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -93,6 +93,17 @@ public class CollectTaskTest extends RandomizedTest {
         }
     }
 
+    @Test
+    public void test_adding_the_same_shared_searcher_twice_keeps_one_reference() throws Exception {
+        Engine.Searcher searcher = mock(Engine.Searcher.class);
+        collectTask.addSearcher(1, searcher);
+        collectTask.addSearcher(1, searcher);
+        verify(searcher, times(1)).close();
+
+        collectTask.innerClose();
+        verify(searcher, times(2)).close();
+    }
+
     @Test
     public void testInnerCloseClosesSearchContexts() throws Exception {
         Engine.Searcher mock1 = mock(Engine.Searcher.class);
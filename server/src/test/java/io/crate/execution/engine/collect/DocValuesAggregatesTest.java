@@ -0,0 +1,145 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect;
+
+import io.crate.breaker.RamAccounting;
+import io.crate.data.Row;
+import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.execution.engine.aggregation.DocValueAggregator;
+import io.crate.execution.engine.aggregation.impl.CountAggregation;
+import io.crate.expression.symbol.Literal;
+import io.crate.metadata.functions.Signature;
+import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DoublePoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.crate.testing.TestingHelpers.getFunctions;
+import static org.hamcrest.Matchers.is;
+
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class DocValuesAggregatesTest extends CrateDummyClusterServiceUnitTest {
+
+    private IndexSearcher indexSearcher;
+
+    @Before
+    public void prepare() throws Exception {
+        IndexWriterConfig config = new IndexWriterConfig(new StandardAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE);
+        IndexWriter iw = new IndexWriter(new ByteBuffersDirectory(), config);
+        for (long x = 1; x <= 10; x++) {
+            addDocument(iw, x);
+        }
+        iw.commit();
+        for (long x = 20; x <= 25; x++) {
+            addDocument(iw, x);
+        }
+        iw.commit();
+        // The points of deleted documents are still part of the segment
+        iw.deleteDocuments(LongPoint.newExactQuery("x", 25));
+        iw.commit();
+        indexSearcher = new IndexSearcher(DirectoryReader.open(iw));
+        assertThat(indexSearcher.getIndexReader().leaves().size(), is(2));
+    }
+
+    private static void addDocument(IndexWriter iw, long x) throws Exception {
+        Document doc = new Document();
+        doc.add(new LongPoint("x", x));
+        doc.add(new SortedNumericDocValuesField("x", x));
+        double y = x * 1.5;
+        doc.add(new DoublePoint("y", y));
+        doc.add(new SortedNumericDocValuesField("y", NumericUtils.doubleToSortableLong(y)));
+        iw.addDocument(doc);
+    }
+
+    private static MappedFieldType fieldType(String name, NumberFieldMapper.NumberType type) {
+        NumberFieldMapper.NumberFieldType fieldType = new NumberFieldMapper.NumberFieldType(type);
+        fieldType.setName(name);
+        return fieldType;
+    }
+
+    private Object[] aggregate(Query query) throws Exception {
+        AggregationFunction count = (AggregationFunction) getFunctions().getQualified(
+            CountAggregation.COUNT_STAR_SIGNATURE,
+            List.of(),
+            DataTypes.LONG
+        );
+        List<DocValueAggregator> aggregators = List.of(
+            count.getDocValueAggregator(List.of(), List.of(), List.of()),
+            docValueAggregator("min", DataTypes.LONG, fieldType("x", NumberFieldMapper.NumberType.LONG)),
+            docValueAggregator("max", DataTypes.LONG, fieldType("x", NumberFieldMapper.NumberType.LONG)),
+            docValueAggregator("max", DataTypes.DOUBLE, fieldType("y", NumberFieldMapper.NumberType.DOUBLE))
+        );
+        Iterable<Row> rows = DocValuesAggregates.getRow(
+            new AtomicReference<>(),
+            new Engine.Searcher("dummy", indexSearcher, () -> {}),
+            query,
+            aggregators
+        );
+        Object[] cells = rows.iterator().next().materialize();
+        cells[0] = count.terminatePartial(RamAccounting.NO_ACCOUNTING, cells[0]);
+        return cells;
+    }
+
+    private static DocValueAggregator docValueAggregator(String name, DataType<?> type, MappedFieldType fieldType) {
+        AggregationFunction function = (AggregationFunction) getFunctions().getQualified(
+            Signature.aggregate(name, type.getTypeSignature(), type.getTypeSignature()),
+            List.of(type),
+            type
+        );
+        return function.getDocValueAggregator(List.of(type), List.of(fieldType), Arrays.<Literal<?>>asList((Literal<?>) null));
+    }
+
+    @Test
+    public void test_min_max_and_count_without_filter_skip_deleted_documents() throws Exception {
+        Object[] result = aggregate(new MatchAllDocsQuery());
+        assertThat(result, is(new Object[] { 15L, 1L, 24L, 36.0 }));
+    }
+
+    @Test
+    public void test_min_max_and_count_with_filter() throws Exception {
+        Object[] result = aggregate(LongPoint.newRangeQuery("x", 5, 22));
+        assertThat(result, is(new Object[] { 9L, 5L, 22L, 33.0 }));
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect;
+
+import io.crate.breaker.ConcurrentRamAccounting;
+import io.crate.breaker.RamAccounting;
+import io.crate.data.BatchIterator;
+import io.crate.data.Row;
+import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.execution.engine.aggregation.DocValueAggregator;
+import io.crate.execution.engine.aggregation.impl.CountAggregation;
+import io.crate.expression.reference.doc.lucene.BytesRefColumnReference;
+import io.crate.expression.reference.doc.lucene.CollectorContext;
+import io.crate.expression.reference.doc.lucene.LongColumnReference;
+import io.crate.expression.reference.doc.lucene.LuceneCollectorExpression;
+import io.crate.expression.symbol.AggregateMode;
+import io.crate.expression.symbol.Literal;
+import io.crate.metadata.functions.Signature;
+import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
+import io.crate.testing.BatchIteratorTester;
+import io.crate.testing.TestingRowConsumer;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static io.crate.testing.TestingHelpers.getFunctions;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+@SuppressWarnings("rawtypes")
+public class DocValuesGroupByOptimizedIteratorTest extends CrateDummyClusterServiceUnitTest {
+
+    private IndexSearcher indexSearcher;
+    private List<AggregationFunction> aggregationFunctions;
+    private List<DocValueAggregator> aggregators;
+    private Path spillDirectory;
+
+    @Before
+    public void prepare() throws Exception {
+        spillDirectory = createTempDir();
+        IndexWriter iw = new IndexWriter(new ByteBuffersDirectory(), new IndexWriterConfig(new StandardAnalyzer()));
+        for (long i = 0; i < 20; i++) {
+            Document doc = new Document();
+            doc.add(new SortedNumericDocValuesField("x", i % 4));
+            doc.add(new SortedNumericDocValuesField("w", i % 2));
+            doc.add(new SortedSetDocValuesField("z", new BytesRef(i % 2 == 0 ? "even" : "odd")));
+            doc.add(new SortedNumericDocValuesField("y", i));
+            iw.addDocument(doc);
+        }
+        iw.commit();
+        indexSearcher = new IndexSearcher(DirectoryReader.open(iw));
+
+        AggregationFunction count = (AggregationFunction) getFunctions().getQualified(
+            CountAggregation.COUNT_STAR_SIGNATURE,
+            List.of(),
+            DataTypes.LONG
+        );
+        AggregationFunction sum = (AggregationFunction) getFunctions().getQualified(
+            Signature.aggregate("sum", DataTypes.LONG.getTypeSignature(), DataTypes.LONG.getTypeSignature()),
+            List.of(DataTypes.LONG),
+            DataTypes.LONG
+        );
+        NumberFieldMapper.NumberFieldType yFieldType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+        yFieldType.setName("y");
+        aggregationFunctions = List.of(count, sum);
+        aggregators = List.of(
+            count.getDocValueAggregator(List.of(), List.of(), List.of()),
+            sum.getDocValueAggregator(
+                List.<DataType<?>>of(DataTypes.LONG),
+                List.<MappedFieldType>of(yFieldType),
+                Arrays.<Literal<?>>asList((Literal<?>) null))
+        );
+    }
+
+    private BatchIterator<Row> createBatchIterator(List<? extends LuceneCollectorExpression<?>> keyExpressions,
+                                                   List<DataType<?>> keyTypes) {
+        return createBatchIterator(keyExpressions, keyTypes, RamAccounting.NO_ACCOUNTING, new MatchAllDocsQuery());
+    }
+
+    private BatchIterator<Row> createBatchIterator(List<? extends LuceneCollectorExpression<?>> keyExpressions,
+                                                   List<DataType<?>> keyTypes,
+                                                   RamAccounting ramAccounting,
+                                                   Query query) {
+        return DocValuesGroupByOptimizedIterator.getIterator(
+            aggregators,
+            aggregationFunctions,
+            indexSearcher,
+            keyExpressions,
+            keyTypes,
+            keyExpressions,
+            ramAccounting,
+            query,
+            new CollectorContext(),
+            AggregateMode.ITER_FINAL,
+            spillDirectory
+        );
+    }
+
+    @Test
+    public void test_group_by_single_numeric_key() throws Exception {
+        List<Object[]> expectedResult = new ArrayList<>();
+        expectedResult.add(new Object[] { 0L, 5L, 40L });
+        expectedResult.add(new Object[] { 1L, 5L, 45L });
+        expectedResult.add(new Object[] { 2L, 5L, 50L });
+        expectedResult.add(new Object[] { 3L, 5L, 55L });
+
+        BatchIteratorTester tester = new BatchIteratorTester(
+            () -> createBatchIterator(List.of(new LongColumnReference("x")), List.of(DataTypes.LONG)));
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
+
+    @Test
+    public void test_group_by_multiple_keys() throws Exception {
+        BatchIterator<Row> it = createBatchIterator(
+            List.of(new LongColumnReference("x"), new BytesRefColumnReference("z")),
+            List.of(DataTypes.LONG, DataTypes.STRING)
+        );
+        TestingRowConsumer consumer = new TestingRowConsumer();
+        consumer.accept(it, null);
+
+        assertThat(consumer.getResult(), containsInAnyOrder(
+            new Object[] { 0L, "even", 5L, 40L },
+            new Object[] { 1L, "odd", 5L, 45L },
+            new Object[] { 2L, "even", 5L, 50L },
+            new Object[] { 3L, "odd", 5L, 55L }
+        ));
+    }
+
+    @Test
+    public void test_group_by_multiple_integral_keys() throws Exception {
+        BatchIterator<Row> it = createBatchIterator(
+            List.of(new LongColumnReference("x"), new LongColumnReference("w")),
+            List.of(DataTypes.LONG, DataTypes.LONG)
+        );
+        TestingRowConsumer consumer = new TestingRowConsumer();
+        consumer.accept(it, null);
+
+        assertThat(consumer.getResult(), containsInAnyOrder(
+            new Object[] { 0L, 0L, 5L, 40L },
+            new Object[] { 1L, 1L, 5L, 45L },
+            new Object[] { 2L, 0L, 5L, 50L },
+            new Object[] { 3L, 1L, 5L, 55L }
+        ));
+    }
+
+    @Test
+    public void test_growth_of_percentile_states_is_accounted() throws Exception {
+        AggregationFunction percentile = (AggregationFunction) getFunctions().getQualified(
+            Signature.aggregate(
+                "percentile",
+                DataTypes.LONG.getTypeSignature(),
+                DataTypes.DOUBLE.getTypeSignature(),
+                DataTypes.DOUBLE.getTypeSignature()),
+            List.of(DataTypes.LONG, DataTypes.DOUBLE),
+            DataTypes.DOUBLE
+        );
+        NumberFieldMapper.NumberFieldType yFieldType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+        yFieldType.setName("y");
+        aggregationFunctions = List.of(percentile);
+        aggregators = List.of(
+            percentile.getDocValueAggregator(
+                List.<DataType<?>>of(DataTypes.LONG, DataTypes.DOUBLE),
+                Arrays.<MappedFieldType>asList(yFieldType, null),
+                Arrays.<Literal<?>>asList(null, Literal.of(0.5)))
+        );
+
+        // both queries result in the same 4 groups, but with 1 or 5 values per group
+        long bytesForOneValuePerGroup = accountedBytes(SortedNumericDocValuesField.newSlowRangeQuery("y", 0, 3));
+        long bytesForAllValues = accountedBytes(new MatchAllDocsQuery());
+        assertThat(bytesForAllValues, greaterThan(bytesForOneValuePerGroup));
+    }
+
+    private long accountedBytes(Query query) throws Exception {
+        ConcurrentRamAccounting ramAccounting = new ConcurrentRamAccounting(bytes -> {}, bytes -> {});
+        BatchIterator<Row> it = createBatchIterator(
+            List.of(new LongColumnReference("x")),
+            List.of(DataTypes.LONG),
+            ramAccounting,
+            query
+        );
+        TestingRowConsumer consumer = new TestingRowConsumer();
+        consumer.accept(it, null);
+        assertThat(consumer.getResult().size(), is(4));
+        return ramAccounting.totalBytes();
+    }
+
+    @Test
+    public void test_groups_are_spilled_and_merged_if_circuit_breaker_trips() throws Exception {
+        // each of the 20 documents has its own group, only a few of them fit into memory
+        long limit = 256;
+        AtomicLong reservedBytes = new AtomicLong();
+        ConcurrentRamAccounting ramAccounting = new ConcurrentRamAccounting(
+            bytes -> {
+                if (reservedBytes.addAndGet(bytes) > limit) {
+                    reservedBytes.addAndGet(-bytes);
+                    throw new CircuitBreakingException("dummy breaker", bytes, limit);
+                }
+            },
+            bytes -> reservedBytes.addAndGet(-bytes)
+        );
+        List<Object[]> expectedResult = new ArrayList<>();
+        for (long y = 0; y < 20; y++) {
+            expectedResult.add(new Object[] { y, 1L, y });
+        }
+        BatchIterator<Row> it = createBatchIterator(
+            List.of(new LongColumnReference("y")),
+            List.of(DataTypes.LONG),
+            ramAccounting,
+            new MatchAllDocsQuery()
+        );
+        TestingRowConsumer consumer = new TestingRowConsumer();
+        consumer.accept(it, null);
+
+        assertThat(consumer.getResult(), containsInAnyOrder(expectedResult.toArray()));
+        // the iterator is closed by the consumer which removes the spill files and releases the merged groups
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            assertThat(files.count(), is(0L));
+        }
+        assertThat(reservedBytes.get(), is(0L));
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.execution.engine.collect;
+
+import io.crate.data.BatchIterator;
+import io.crate.data.Row;
+import io.crate.data.Row1;
+import io.crate.metadata.CoordinatorTxnCtx;
+import io.crate.planner.operators.PKAndVersion;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.testing.TestingRowConsumer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.lucene.uid.Versions;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.engine.VersionConflictEngineException;
+import org.elasticsearch.index.mapper.IdFieldMapper;
+import org.elasticsearch.index.mapper.SeqNoFieldMapper;
+import org.elasticsearch.index.mapper.SourceFieldMapper;
+import org.elasticsearch.index.mapper.Uid;
+import org.elasticsearch.index.mapper.VersionFieldMapper;
+import org.elasticsearch.index.seqno.SequenceNumbers;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.IndicesService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PKLookupOperationTest extends CrateUnitTest {
+
+    private final ShardId shardId = new ShardId(new Index("t", UUID.randomUUID().toString()), 0);
+    private final AtomicBoolean searcherClosed = new AtomicBoolean(false);
+    private DirectoryReader reader;
+    private IndexShard shard;
+    private PKLookupOperation pkLookupOperation;
+
+    @Before
+    public void prepare() throws Exception {
+        IndexWriter iw = new IndexWriter(new ByteBuffersDirectory(), new IndexWriterConfig(new StandardAnalyzer()));
+        iw.addDocument(createDoc("1", 1L, 0L));
+        iw.addDocument(createDoc("2", 1L, 1L));
+        iw.commit();
+        reader = DirectoryReader.open(iw);
+        iw.close();
+
+        shard = mock(IndexShard.class);
+        when(shard.shardId()).thenReturn(shardId);
+        when(shard.acquireRealtimeGetSearcher(any())).thenReturn(
+            new Engine.Searcher("pk_lookup", new IndexSearcher(reader), () -> searcherClosed.set(true)));
+        IndexService indexService = mock(IndexService.class);
+        when(indexService.getShardOrNull(shardId.id())).thenReturn(shard);
+        IndicesService indicesService = mock(IndicesService.class);
+        when(indicesService.indexService(shardId.getIndex())).thenReturn(indexService);
+        pkLookupOperation = new PKLookupOperation(indicesService, null);
+    }
+
+    @After
+    public void closeReader() throws Exception {
+        reader.close();
+    }
+
+    private static Document createDoc(String id, long version, long seqNo) {
+        Document doc = new Document();
+        doc.add(new Field(IdFieldMapper.NAME, Uid.encodeId(id), IdFieldMapper.Defaults.FIELD_TYPE));
+        doc.add(new NumericDocValuesField(VersionFieldMapper.NAME, version));
+        doc.add(new NumericDocValuesField(SeqNoFieldMapper.NAME, seqNo));
+        doc.add(new NumericDocValuesField(SeqNoFieldMapper.PRIMARY_TERM_NAME, 1L));
+        doc.add(new StoredField(
+            SourceFieldMapper.NAME,
+            new BytesRef("{\"id\": \"" + id + "\"}".getBytes(StandardCharsets.UTF_8))));
+        return doc;
+    }
+
+    private static PKAndVersion pk(String id) {
+        return new PKAndVersion(id, Versions.MATCH_ANY, SequenceNumbers.UNASSIGNED_SEQ_NO, SequenceNumbers.UNASSIGNED_PRIMARY_TERM);
+    }
+
+    private BatchIterator<Row> lookup(List<PKAndVersion> pkAndVersions) {
+        return pkLookupOperation.lookup(
+            UUID.randomUUID(),
+            CoordinatorTxnCtx.systemTransactionContext(),
+            () -> null,
+            () -> null,
+            false,
+            Map.of(shardId, pkAndVersions),
+            List.of(),
+            false,
+            doc -> new Row1(doc.getId())
+        );
+    }
+
+    @Test
+    public void test_batched_lookup_releases_the_searcher_once_the_iterator_is_closed() throws Exception {
+        BatchIterator<Row> it = lookup(List.of(pk("2"), pk("3"), pk("1")));
+        assertThat(searcherClosed.get(), is(false));
+
+        TestingRowConsumer consumer = new TestingRowConsumer();
+        consumer.accept(it, null);
+        assertThat(consumer.getResult(), contains(new Object[] { "1" }, new Object[] { "2" }));
+        assertThat(searcherClosed.get(), is(true));
+    }
+
+    @Test
+    public void test_version_conflict_fails_the_lookup_and_releases_the_searcher() throws Exception {
+        PKAndVersion outdated = new PKAndVersion(
+            "1", 2L, SequenceNumbers.UNASSIGNED_SEQ_NO, SequenceNumbers.UNASSIGNED_PRIMARY_TERM);
+        expectThrows(VersionConflictEngineException.class, () -> lookup(List.of(outdated, pk("2"))));
+        assertThat(searcherClosed.get(), is(true));
+    }
+
+    @Test
+    public void test_seq_no_conflict_fails_the_lookup_and_releases_the_searcher() throws Exception {
+        PKAndVersion outdated = new PKAndVersion("2", Versions.MATCH_ANY, 0L, 1L);
+        expectThrows(VersionConflictEngineException.class, () -> lookup(List.of(pk("1"), outdated)));
+        assertThat(searcherClosed.get(), is(true));
+    }
+
+    @Test
+    public void test_lookup_falls_back_to_realtime_gets_if_the_shard_is_not_fully_refreshed() throws Exception {
+        when(shard.acquireRealtimeGetSearcher(any())).thenReturn(null);
+        when(shard.get(any())).thenReturn(Engine.GetResult.NOT_EXISTS);
+
+        TestingRowConsumer consumer = new TestingRowConsumer();
+        consumer.accept(lookup(List.of(pk("1"), pk("2"))), null);
+        assertThat(consumer.getResult(), empty());
+        verify(shard, times(2)).get(any());
+    }
+}
@@ -32,6 +32,7 @@ import io.crate.execution.engine.distribution.merge.KeyIterable;
 import io.crate.expression.reference.doc.lucene.CollectorContext;
 import io.crate.expression.reference.doc.lucene.LuceneCollectorExpression;
 import io.crate.expression.reference.doc.lucene.NullSentinelValues;
+import io.crate.expression.reference.doc.lucene.OrderByCollectorExpression;
 import io.crate.expression.reference.doc.lucene.ScoreCollectorExpression;
 import io.crate.metadata.Reference;
 import io.crate.metadata.ReferenceIdent;
@@ -44,11 +45,14 @@ import org.apache.lucene.analysis.core.KeywordAnalyzer;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
@@ -75,9 +79,15 @@ import org.junit.Test;
 import javax.annotation.Nullable;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
@@ -373,6 +383,90 @@ public class LuceneOrderedDocCollectorTest extends RandomizedTest {
         assertThat(values.next().get(0), Matchers.is(1.0F));
     }
 
+    @Test
+    public void testSegmentParallelSearchReturnsSameResultAsSequentialSearch() throws Exception {
+        IndexWriterConfig config = new IndexWriterConfig(new StandardAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE);
+        IndexWriter w = new IndexWriter(new ByteBuffersDirectory(), config);
+        for (int segment = 0; segment < 6; segment++) {
+            for (int i = 0; i < 10; i++) {
+                Document doc = new Document();
+                // duplicate values across segments to make sure ties are paged correctly
+                doc.add(new NumericDocValuesField("value", (segment * 10 + i) % 7));
+                w.addDocument(doc);
+            }
+            w.commit();
+        }
+        IndexSearcher searcher = new IndexSearcher(DirectoryReader.open(w));
+        assertThat(searcher.getIndexReader().leaves().size(), is(6));
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Long> sequential = collectAll(orderedCollector(searcher, Runnable::run, () -> 1));
+            LuceneOrderedDocCollector parallelCollector = orderedCollector(searcher, executor, () -> 3);
+            parallelCollector.minDocsPerSlice(1);
+            List<Long> parallel = collectAll(parallelCollector);
+
+            assertThat(sequential.size(), is(60));
+            assertThat(parallel, is(sequential));
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testSlicesAreConsecutiveLeavesWithMinimumNumberOfDocs() throws Exception {
+        IndexWriterConfig config = new IndexWriterConfig(new StandardAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE);
+        IndexWriter w = new IndexWriter(new ByteBuffersDirectory(), config);
+        for (int segment = 0; segment < 5; segment++) {
+            for (int i = 0; i < 10; i++) {
+                w.addDocument(new Document());
+            }
+            w.commit();
+        }
+        List<LeafReaderContext> leaves = DirectoryReader.open(w).leaves();
+
+        assertThat(LuceneOrderedDocCollector.slices(leaves, 1, 1), is(List.of(leaves)));
+        assertThat(LuceneOrderedDocCollector.slices(leaves, 4, 100), is(List.of(leaves)));
+
+        List<List<LeafReaderContext>> slices = LuceneOrderedDocCollector.slices(leaves, 2, 1);
+        assertThat(slices, is(List.of(leaves.subList(0, 3), leaves.subList(3, 5))));
+    }
+
+    private static List<Long> collectAll(LuceneOrderedDocCollector collector) {
+        ArrayList<Long> values = new ArrayList<>();
+        while (!collector.exhausted()) {
+            for (Row row : collector.collect()) {
+                values.add((Long) row.get(0));
+            }
+        }
+        return values;
+    }
+
+    private static LuceneOrderedDocCollector orderedCollector(IndexSearcher searcher,
+                                                              Executor executor,
+                                                              IntSupplier availableThreads) {
+        OrderBy orderBy = new OrderBy(List.of(REFERENCE), new boolean[]{true}, new boolean[]{false});
+        List<LuceneCollectorExpression<?>> expressions = List.of(
+            new OrderByCollectorExpression(REFERENCE, orderBy, o -> o));
+        return new LuceneOrderedDocCollector(
+            new ShardId("dummy", UUIDs.base64UUID(), 0),
+            searcher,
+            new MatchAllDocsQuery(),
+            null,
+            false,
+            7,
+            RamAccounting.NO_ACCOUNTING,
+            new CollectorContext(),
+            f -> null,
+            new Sort(new SortedNumericSortField("value", SortField.Type.LONG, true)),
+            expressions,
+            expressions,
+            executor,
+            availableThreads
+        );
+    }
+
     private static void addDoc(IndexWriter w, KeywordFieldMapper.KeywordFieldType fieldType, String value) throws IOException {
         Document doc = new Document();
         Field field = new Field(fieldType.name(), value, fieldType);
@@ -396,7 +490,9 @@ public class LuceneOrderedDocCollectorTest extends RandomizedTest {
             f -> null,
             new Sort(SortField.FIELD_SCORE),
             columnReferences,
-            columnReferences
+            columnReferences,
+            Runnable::run,
+            () -> 1
         );
     }
 }
@@ -237,7 +237,9 @@ public class OrderedLuceneBatchIteratorFactoryTest extends CrateUnitTest {
             f -> null,
             new Sort(new SortedNumericSortField(columnName, SortField.Type.LONG, reverseFlags[0])),
             expressions,
-            expressions
+            expressions,
+            Runnable::run,
+            () -> 1
         );
     }
 }
@@ -3,12 +3,11 @@ package io.crate.execution.engine.collect.files;
 import org.junit.Before;
 import org.junit.Test;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.Reader;
-import java.io.StringReader;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 
 import static io.crate.execution.dsl.phases.FileUriCollectPhase.InputFormat.CSV;
 import static io.crate.execution.dsl.phases.FileUriCollectPhase.InputFormat.JSON;
@@ -20,7 +19,7 @@ public class LineProcessorTest {
 
     private LineProcessor subjectUnderTest;
     private URI uri;
-    private BufferedReader bufferedReader;
+    private LineReader lineReader;
 
     @Before
     public void setup() {
@@ -30,44 +29,40 @@ public class LineProcessorTest {
     @Test
     public void readFirstLine_givenFileExtensionIsCsv_AndDefaultJSONFileFormat_thenReadsLine() throws URISyntaxException, IOException {
         uri = new URI ("file.csv");
-        Reader reader = new StringReader("some/string");
-        bufferedReader = new BufferedReader(reader);
+        lineReader = new LineReader(new ByteArrayInputStream("some/string".getBytes(StandardCharsets.UTF_8)));
 
-        subjectUnderTest.readFirstLine(uri, JSON, bufferedReader);
+        subjectUnderTest.readFirstLine(uri, JSON, lineReader);
 
-        assertThat(bufferedReader.readLine(), is(nullValue()));;
+        assertThat(lineReader.readLine(), is(nullValue()));;
     }
 
     @Test
     public void readFirstLine_givenFileFormatIsCsv_thenReadsLine() throws URISyntaxException, IOException {
         uri = new URI ("file.any");
-        Reader reader = new StringReader("some/string");
-        bufferedReader = new BufferedReader(reader);
+        lineReader = new LineReader(new ByteArrayInputStream("some/string".getBytes(StandardCharsets.UTF_8)));
 
-        subjectUnderTest.readFirstLine(uri, CSV, bufferedReader);
+        subjectUnderTest.readFirstLine(uri, CSV, lineReader);
 
-        assertThat(bufferedReader.readLine(), is(nullValue()));;
+        assertThat(lineReader.readLine(), is(nullValue()));;
     }
 
     @Test
     public void readFirstLine_givenFileExtensionIsJson__AndDefaultJSONFileFormat_thenDoesNotReadLine() throws URISyntaxException, IOException {
         uri = new URI ("file.json");
-        Reader reader = new StringReader("some/string");
-        bufferedReader = new BufferedReader(reader);
+        lineReader = new LineReader(new ByteArrayInputStream("some/string".getBytes(StandardCharsets.UTF_8)));
 
-        subjectUnderTest.readFirstLine(uri, JSON, bufferedReader);
+        subjectUnderTest.readFirstLine(uri, JSON, lineReader);
 
-        assertThat(bufferedReader.readLine(), is("some/string"));
+        assertThat(new String(lineReader.readLine(), StandardCharsets.UTF_8), is("some/string"));
     }
 
     @Test
     public void readFirstLine_givenFileFormatIsJson_thenDoesNotReadLine() throws URISyntaxException, IOException {
         uri = new URI ("file.any");
-        Reader reader = new StringReader("some/string");
-        bufferedReader = new BufferedReader(reader);
+        lineReader = new LineReader(new ByteArrayInputStream("some/string".getBytes(StandardCharsets.UTF_8)));
 
-        subjectUnderTest.readFirstLine(uri, JSON, bufferedReader);
+        subjectUnderTest.readFirstLine(uri, JSON, lineReader);
 
-        assertThat(bufferedReader.readLine(), is("some/string"));
+        assertThat(new String(lineReader.readLine(), StandardCharsets.UTF_8), is("some/string"));
     }
 }
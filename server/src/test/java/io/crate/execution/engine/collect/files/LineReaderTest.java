@@ -0,0 +1,94 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect.files;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class LineReaderTest extends CrateUnitTest {
+
+    private static List<String> readLines(String input, int bufferSize) throws IOException {
+        return readLines(input.getBytes(StandardCharsets.UTF_8), bufferSize);
+    }
+
+    private static List<String> readLines(byte[] input, int bufferSize) throws IOException {
+        ArrayList<String> lines = new ArrayList<>();
+        try (LineReader reader = new LineReader(new ByteArrayInputStream(input), bufferSize)) {
+            byte[] line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(new String(line, StandardCharsets.UTF_8));
+            }
+            assertThat(reader.readLine(), nullValue());
+        }
+        return lines;
+    }
+
+    @Test
+    public void testLinesAreSplitOnAllLineTerminators() throws Exception {
+        assertThat(
+            readLines("{\"a\": 1}\n{\"a\": 2}\r\n{\"a\": 3}\r{\"a\": 4}", 1024),
+            contains("{\"a\": 1}", "{\"a\": 2}", "{\"a\": 3}", "{\"a\": 4}"));
+    }
+
+    @Test
+    public void testEmptyLinesAreReturned() throws Exception {
+        assertThat(readLines("a\n\nb\r\n\r\n", 1024), contains("a", "", "b", ""));
+    }
+
+    @Test
+    public void testLinesSpanningMultipleBuffers() throws Exception {
+        assertThat(
+            readLines("{\"name\": \"Ärger\"}\r\n{\"name\": \"€uro\"}\n", 3),
+            contains("{\"name\": \"Ärger\"}", "{\"name\": \"€uro\"}"));
+    }
+
+    @Test
+    public void testMalformedUtf8IsReplacedWithReplacementCharacter() throws Exception {
+        byte[] input = new byte[] {
+            'a', (byte) 0xFF, 'b', '\n',
+            'c', (byte) 0xC3, '\n',                    // truncated 2-byte sequence
+            (byte) 0xC3, (byte) 0x84, 'd', '\n'         // valid Ä
+        };
+        List<String> lines = readLines(input, 1024);
+        assertThat(lines, contains("a\uFFFDb", "c\uFFFD", "Äd"));
+    }
+
+    @Test
+    public void testOverlongEncodingsAndSurrogatesAreNotValidUtf8() {
+        assertThat(LineReader.isValidUtf8(new byte[] { (byte) 0xC0, (byte) 0x80 }), is(false));
+        assertThat(LineReader.isValidUtf8(new byte[] { (byte) 0xE0, (byte) 0x80, (byte) 0x80 }), is(false));
+        assertThat(LineReader.isValidUtf8(new byte[] { (byte) 0xED, (byte) 0xA0, (byte) 0x80 }), is(false));
+        assertThat(LineReader.isValidUtf8(new byte[] { (byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80 }), is(false));
+        assertThat(LineReader.isValidUtf8("Ärger €uro \uD83D\uDE00".getBytes(StandardCharsets.UTF_8)), is(true));
+    }
+}
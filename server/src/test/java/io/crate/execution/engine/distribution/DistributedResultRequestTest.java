@@ -24,9 +24,12 @@ package io.crate.execution.engine.distribution;
 
 import io.crate.Streamer;
 import io.crate.breaker.RamAccounting;
+import io.crate.data.Bucket;
+import io.crate.data.Row;
 import io.crate.data.RowN;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.types.DataTypes;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -39,6 +42,7 @@ import static io.crate.testing.TestingHelpers.isRow;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
 
 public class DistributedResultRequestTest extends CrateUnitTest {
 
@@ -65,6 +69,36 @@ public class DistributedResultRequestTest extends CrateUnitTest {
         assertThat(r2.readRows(streamers), contains(isRow("ab"), isNullRow(), isRow("cd")));
     }
 
+    @Test
+    public void testStreamingOfLargeBucketIsCompressed() throws Exception {
+        Streamer<?>[] streamers = new Streamer[]{DataTypes.STRING.streamer(), DataTypes.LONG.streamer()};
+
+        StreamBucket.Builder builder = new StreamBucket.Builder(streamers, RamAccounting.NO_ACCOUNTING);
+        int numRows = 1000;
+        for (int i = 0; i < numRows; i++) {
+            builder.add(new RowN(new Object[] {"value-" + (i % 10), (long) i}));
+        }
+        StreamBucket bucket = builder.build();
+        DistributedResultRequest r1 = new DistributedResultRequest(UUID.randomUUID(), 1, (byte) 3, 1, bucket, true);
+
+        BytesStreamOutput uncompressedOut = new BytesStreamOutput();
+        uncompressedOut.setVersion(Version.V_4_2_0);
+        r1.writeTo(uncompressedOut);
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        r1.writeTo(out);
+        assertThat(out.size(), lessThan(uncompressedOut.size()));
+
+        DistributedResultRequest r2 = new DistributedResultRequest(out.bytes().streamInput());
+        Bucket rows = r2.readRows(streamers);
+        assertThat(rows.size(), is(numRows));
+        int i = 0;
+        for (Row row : rows) {
+            assertThat(row, isRow("value-" + (i % 10), (long) i));
+            i++;
+        }
+    }
+
     @Test
     public void testStreamingOfFailure() throws Exception {
         UUID uuid = UUID.randomUUID();
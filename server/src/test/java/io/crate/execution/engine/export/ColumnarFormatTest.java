@@ -0,0 +1,127 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.export;
+
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.joda.time.Period;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+
+public class ColumnarFormatTest extends CrateUnitTest {
+
+    private static List<Map<String, Object>> roundTrip(List<Map<String, Object>> rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ColumnarFormat.Writer writer = new ColumnarFormat.Writer(out)) {
+            for (Map<String, Object> row : rows) {
+                writer.write(row);
+            }
+        }
+        ArrayList<Map<String, Object>> result = new ArrayList<>();
+        try (ColumnarFormat.Reader reader = new ColumnarFormat.Reader(new ByteArrayInputStream(out.toByteArray()))) {
+            Map<String, Object> row;
+            while ((row = reader.next()) != null) {
+                result.add(row);
+            }
+            assertThat(reader.next(), nullValue());
+        }
+        return result;
+    }
+
+    @Test
+    public void testRoundTripPreservesTypesNullsAndMissingColumns() throws Exception {
+        Map<String, Object> row1 = new HashMap<>();
+        row1.put("id", 1L);
+        row1.put("name", "Arthur");
+        row1.put("details", Map.of("age", 42, "tags", List.of("a", "b")));
+        Map<String, Object> row2 = new HashMap<>();
+        row2.put("id", 2L);
+        row2.put("name", null);
+        Map<String, Object> row3 = new HashMap<>();
+        row3.put("score", 1.5d);
+
+        List<Map<String, Object>> rows = List.of(row1, row2, row3);
+        assertThat(roundTrip(rows), is(rows));
+    }
+
+    @Test
+    public void testValuesAreWrittenWithTheStreamerOfTheColumnType() throws Exception {
+        Map<String, Object> row = new HashMap<>();
+        row.put("location", DataTypes.GEO_POINT.value(List.of(9.74, 47.41)));
+        row.put("duration", new Period(1, 2, 3, 4));
+        row.put("ids", List.of(1, 2L));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Map<String, DataType<?>> columnTypes = Map.of("location", DataTypes.GEO_POINT, "duration", DataTypes.INTERVAL);
+        try (ColumnarFormat.Writer writer = new ColumnarFormat.Writer(out, columnTypes)) {
+            writer.write(row);
+        }
+        try (ColumnarFormat.Reader reader = new ColumnarFormat.Reader(new ByteArrayInputStream(out.toByteArray()))) {
+            Map<String, Object> result = reader.next();
+            assertThat(result.get("location"), is(row.get("location")));
+            assertThat(result.get("duration"), is(row.get("duration")));
+            assertThat(result.get("ids"), is(List.of(1L, 2L)));
+            assertThat(reader.next(), nullValue());
+        }
+    }
+
+    @Test
+    public void testRowsAreSplitIntoMultipleRowGroups() throws Exception {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < ColumnarFormat.ROWS_PER_ROW_GROUP * 2 + 10; i++) {
+            rows.add(Map.of("x", i, "y", "value" + (i % 10)));
+        }
+        assertThat(roundTrip(rows), is(rows));
+    }
+
+    @Test
+    public void testRepetitiveColumnsAreCompressed() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int numRows = 1000;
+        try (ColumnarFormat.Writer writer = new ColumnarFormat.Writer(out)) {
+            for (int i = 0; i < numRows; i++) {
+                writer.write(Map.of("country", "Austria"));
+            }
+        }
+        assertThat(out.size(), lessThan(numRows));
+    }
+
+    @Test
+    public void testReaderRejectsOtherFormats() {
+        expectThrows(
+            IOException.class,
+            () -> new ColumnarFormat.Reader(new ByteArrayInputStream("{\"x\": 1}\n".getBytes(StandardCharsets.UTF_8))));
+    }
+}
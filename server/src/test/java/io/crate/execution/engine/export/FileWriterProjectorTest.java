@@ -64,7 +64,7 @@ public class FileWriterProjectorTest extends CrateUnitTest {
         Path file = createTempFile("out", "json");
 
         FileWriterProjector fileWriterProjector = new FileWriterProjector(executorService, file.toUri().toString(),
-            null, null, ImmutableSet.of(), new HashMap<>(),
+            null, null, null, ImmutableSet.of(), new HashMap<>(),
             null, WriterProjection.OutputFormat.JSON_OBJECT);
 
         new TestingRowConsumer().accept(fileWriterProjector.apply(sourceSupplier.get()), null);
@@ -84,7 +84,7 @@ public class FileWriterProjectorTest extends CrateUnitTest {
         Path directory = createTempDir();
 
         FileWriterProjector fileWriterProjector = new FileWriterProjector(executorService, directory.toUri().toString(),
-            null, null, ImmutableSet.of(), new HashMap<>(),
+            null, null, null, ImmutableSet.of(), new HashMap<>(),
             null, WriterProjection.OutputFormat.JSON_OBJECT);
 
         new TestingRowConsumer().accept(fileWriterProjector.apply(sourceSupplier.get()), null);
@@ -98,7 +98,7 @@ public class FileWriterProjectorTest extends CrateUnitTest {
         String uri = Paths.get(folder.newFile().toURI()).resolve("out.json").toUri().toString();
 
         FileWriterProjector fileWriterProjector = new FileWriterProjector(executorService, uri,
-            null, null, ImmutableSet.of(), new HashMap<>(),
+            null, null, null, ImmutableSet.of(), new HashMap<>(),
             null, WriterProjection.OutputFormat.JSON_OBJECT);
 
         new TestingRowConsumer().accept(fileWriterProjector.apply(sourceSupplier.get()), null);
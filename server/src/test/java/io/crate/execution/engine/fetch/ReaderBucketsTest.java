@@ -0,0 +1,90 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.fetch;
+
+import static com.carrotsearch.randomizedtesting.RandomizedTest.$;
+import static com.carrotsearch.randomizedtesting.RandomizedTest.$$;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.carrotsearch.hppc.IntContainer;
+import com.carrotsearch.hppc.IntHashSet;
+import com.carrotsearch.hppc.IntObjectHashMap;
+
+import org.junit.Test;
+
+import io.crate.data.ArrayBucket;
+import io.crate.data.Bucket;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.expression.symbol.FetchReference;
+import io.crate.expression.symbol.InputColumn;
+import io.crate.metadata.CoordinatorTxnCtx;
+import io.crate.metadata.Reference;
+import io.crate.planner.node.fetch.FetchSource;
+import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
+import io.crate.testing.SQLExecutor;
+import io.crate.types.DataTypes;
+
+public class ReaderBucketsTest extends CrateDummyClusterServiceUnitTest {
+
+    @Test
+    public void test_docs_to_fetch_are_sorted_and_results_are_mapped_in_that_order() throws Exception {
+        var e = SQLExecutor.builder(clusterService)
+            .addTable("create table t1 (x text)")
+            .build();
+        var t1 = e.resolveTableInfo("t1");
+        var x = (Reference) e.asSymbol("x");
+        var fetchSource = new FetchSource();
+        fetchSource.addFetchIdColumn(new InputColumn(0, DataTypes.LONG));
+        fetchSource.addRefToFetch(x);
+        var fetchRows = FetchRows.create(
+            CoordinatorTxnCtx.systemTransactionContext(),
+            e.functions(),
+            Map.of(t1.ident(), fetchSource),
+            List.of(new FetchReference(new InputColumn(0, DataTypes.LONG), x))
+        );
+        var readerBuckets = new ReaderBuckets(fetchRows);
+        readerBuckets.add(new RowN(FetchId.encode(1, 30)));
+        readerBuckets.add(new RowN(FetchId.encode(1, 10)));
+        readerBuckets.add(new RowN(FetchId.encode(1, 20)));
+        readerBuckets.add(new RowN(FetchId.encode(1, 10)));
+
+        IntObjectHashMap<IntContainer> toFetch = readerBuckets.generateToFetch(IntHashSet.from(1));
+        assertThat(toFetch.get(1).toArray(), is(new int[] { 10, 20, 30 }));
+
+        IntObjectHashMap<Bucket> results = new IntObjectHashMap<>();
+        results.put(1, new ArrayBucket($$($("doc-10"), $("doc-20"), $("doc-30"))));
+        var it = readerBuckets.getOutputRows(List.of(results));
+        List<Object> values = new ArrayList<>();
+        while (it.hasNext()) {
+            Row row = it.next();
+            values.add(row.get(0));
+        }
+        assertThat(values, contains("doc-30", "doc-10", "doc-20", "doc-10"));
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.indexing;
+
+import io.crate.execution.jobs.NodeJobsCounter;
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+
+public class AdaptiveBulkLimiterTest extends CrateUnitTest {
+
+    private static final int ITEMS = 1_000;
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long SLOW = FAST * 10;
+
+    @Test
+    public void testStartsWithConfiguredBulkSizeAndMaxConcurrency() {
+        AdaptiveBulkLimiter limiter = new AdaptiveBulkLimiter(10_000);
+        assertThat(limiter.bulkSize(), is(10_000));
+        assertThat(limiter.maxConcurrency("n1"), is((int) NodeJobsCounter.MAX_NODE_CONCURRENT_OPERATIONS));
+    }
+
+    private long nowNanos = 0L;
+
+    private AdaptiveBulkLimiter newLimiter(int maxBulkSize) {
+        return new AdaptiveBulkLimiter(maxBulkSize, () -> nowNanos);
+    }
+
+    private static void onResponse(AdaptiveBulkLimiter limiter, String nodeId, long tookNanos) {
+        limiter.onResponse(nodeId, tookNanos, ITEMS, 0, 200);
+    }
+
+    @Test
+    public void testSlowResponsesAndRejectionsReduceLimits() {
+        AdaptiveBulkLimiter limiter = newLimiter(10_000);
+        onResponse(limiter, "n1", FAST);
+        onResponse(limiter, "n1", SLOW);
+        assertThat(limiter.bulkSize(), is(5_000));
+        assertThat(limiter.maxConcurrency("n1"), is(4));
+        assertThat(limiter.maxConcurrency("n2"), is(5));
+
+        nowNanos += limiter.decreaseWindowNanos();
+        limiter.onRejection("n1");
+        assertThat(limiter.bulkSize(), is(2_500));
+        assertThat(limiter.maxConcurrency("n1"), is(2));
+
+        for (int i = 0; i < 20; i++) {
+            nowNanos += limiter.decreaseWindowNanos();
+            limiter.onRejection("n1");
+        }
+        assertThat(limiter.bulkSize(), is(AdaptiveBulkLimiter.MIN_BULK_SIZE));
+        assertThat(limiter.maxConcurrency("n1"), is(1));
+    }
+
+    @Test
+    public void testLimitsAreReducedAtMostOncePerWindow() {
+        AdaptiveBulkLimiter limiter = newLimiter(10_000);
+        onResponse(limiter, "n1", FAST);
+        onResponse(limiter, "n2", FAST);
+        limiter.onRejection("n1");
+        onResponse(limiter, "n1", SLOW);
+        limiter.onRejection("n1");
+        assertThat(limiter.bulkSize(), is(5_000));
+        assertThat(limiter.maxConcurrency("n1"), is(2));
+
+        // another node may still reduce its own concurrency, the shared bulk size stays
+        onResponse(limiter, "n2", SLOW);
+        assertThat(limiter.bulkSize(), is(5_000));
+        assertThat(limiter.maxConcurrency("n2"), is(4));
+
+        nowNanos += limiter.decreaseWindowNanos();
+        onResponse(limiter, "n1", SLOW);
+        assertThat(limiter.bulkSize(), is(2_500));
+        assertThat(limiter.maxConcurrency("n1"), is(1));
+    }
+
+    @Test
+    public void testFastResponsesIncreaseLimitsUpToTheirMaximum() {
+        AdaptiveBulkLimiter limiter = newLimiter(10_000);
+        limiter.onRejection("n1");
+        assertThat(limiter.bulkSize(), is(5_000));
+
+        onResponse(limiter, "n1", FAST);
+        assertThat(limiter.bulkSize(), is(6_000));
+        assertThat(limiter.maxConcurrency("n1"), is(3));
+
+        for (int i = 0; i < 20; i++) {
+            onResponse(limiter, "n1", FAST);
+        }
+        assertThat(limiter.bulkSize(), is(10_000));
+        assertThat(limiter.maxConcurrency("n1"), is((int) NodeJobsCounter.MAX_NODE_CONCURRENT_OPERATIONS));
+    }
+
+    @Test
+    public void testTargetResponseTimeIsDerivedFromObservedLatencyPerItem() {
+        AdaptiveBulkLimiter limiter = newLimiter(10_000);
+        limiter.onRejection("n1");
+        assertThat(limiter.bulkSize(), is(5_000));
+
+        // a node which is always slow is not congested
+        onResponse(limiter, "n1", SLOW);
+        onResponse(limiter, "n1", SLOW);
+        assertThat(limiter.bulkSize(), is(7_000));
+
+        // twice the items may take twice as long
+        limiter.onResponse("n1", SLOW * 2, ITEMS * 2, 0, 200);
+        assertThat(limiter.bulkSize(), is(8_000));
+
+        nowNanos += limiter.decreaseWindowNanos();
+        limiter.onResponse("n1", SLOW * 3, ITEMS, 0, 200);
+        assertThat(limiter.bulkSize(), is(4_000));
+    }
+
+    @Test
+    public void testResponsesWithinMinTargetResponseTimeAreNeverSlow() {
+        AdaptiveBulkLimiter limiter = newLimiter(10_000);
+        limiter.onRejection("n1");
+        long fastest = AdaptiveBulkLimiter.MIN_TARGET_RESPONSE_TIME_NANOS / 100;
+        limiter.onResponse("n1", fastest, 1, 0, 200);
+        limiter.onResponse("n1", AdaptiveBulkLimiter.MIN_TARGET_RESPONSE_TIME_NANOS, 1, 0, 200);
+        assertThat(limiter.bulkSize(), is(7_000));
+    }
+
+    @Test
+    public void testFilledWriteQueueReducesLimits() {
+        AdaptiveBulkLimiter limiter = newLimiter(10_000);
+        limiter.onResponse("n1", FAST, ITEMS, 100, 200);
+        assertThat(limiter.bulkSize(), is(5_000));
+        assertThat(limiter.maxConcurrency("n1"), is(4));
+
+        limiter.onResponse("n1", FAST, ITEMS, 99, 200);
+        assertThat(limiter.bulkSize(), is(6_000));
+        assertThat(limiter.maxConcurrency("n1"), is(5));
+
+        // unknown or unbounded queue capacity
+        nowNanos += limiter.decreaseWindowNanos();
+        limiter.onResponse("n1", FAST, ITEMS, 10_000, 0);
+        assertThat(limiter.bulkSize(), is(7_000));
+    }
+
+    @Test
+    public void testBulkIsCompleteOnceItReachesTheCurrentBulkSize() {
+        AdaptiveBulkLimiter limiter = new AdaptiveBulkLimiter(2);
+        ShardedRequests<BulkShardCreationLimiterTest.DummyShardRequest, BulkShardCreationLimiterTest.DummyRequestItem> requests =
+            new ShardedRequests<>(s -> new BulkShardCreationLimiterTest.DummyShardRequest());
+        requests.add(new BulkShardCreationLimiterTest.DummyRequestItem("1"), 10, "dummy", null, RowSourceInfo.EMPTY_INSTANCE);
+        assertThat(limiter.test(requests), is(false));
+        requests.add(new BulkShardCreationLimiterTest.DummyRequestItem("2"), 10, "dummy", null, RowSourceInfo.EMPTY_INSTANCE);
+        assertThat(limiter.test(requests), is(true));
+    }
+}
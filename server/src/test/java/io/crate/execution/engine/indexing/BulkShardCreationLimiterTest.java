@@ -33,10 +33,10 @@ import static org.hamcrest.Matchers.is;
 
 public class BulkShardCreationLimiterTest extends CrateUnitTest {
 
-    private static class DummyShardRequest extends ShardRequest<DummyShardRequest, DummyRequestItem> {
+    static class DummyShardRequest extends ShardRequest<DummyShardRequest, DummyRequestItem> {
     }
 
-    private static class DummyRequestItem extends ShardRequest.Item {
+    static class DummyRequestItem extends ShardRequest.Item {
         DummyRequestItem(String id) {
             super(id);
         }
@@ -0,0 +1,143 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.join;
+
+import com.carrotsearch.randomizedtesting.RandomizedRunner;
+import com.carrotsearch.randomizedtesting.annotations.Name;
+import com.carrotsearch.randomizedtesting.annotations.ParametersFactory;
+import com.carrotsearch.randomizedtesting.annotations.ThreadLeakScope;
+import io.crate.Streamer;
+import io.crate.breaker.RowAccounting;
+import io.crate.data.BatchIterator;
+import io.crate.data.Row;
+import io.crate.data.join.CombinedRow;
+import io.crate.testing.BatchIteratorTester;
+import io.crate.types.DataTypes;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+import static org.mockito.Mockito.mock;
+
+@RunWith(RandomizedRunner.class)
+@ThreadLeakScope(ThreadLeakScope.Scope.NONE)
+public class GraceHashJoinBatchIteratorTest {
+
+    private static final Streamer<?>[] STREAMERS = new Streamer[] { DataTypes.INTEGER.streamer() };
+
+    private final List<Object[]> expectedResult;
+    private final Supplier<BatchIterator<Row>> leftIterator;
+    private final Supplier<BatchIterator<Row>> rightIterator;
+
+    public GraceHashJoinBatchIteratorTest(@SuppressWarnings("unused") @Name("dataSetName") String testName,
+                                          @Name("dataForLeft") Supplier<BatchIterator<Row>> leftIterator,
+                                          @Name("dataForRight") Supplier<BatchIterator<Row>> rightIterator,
+                                          @Name("expectedResult") List<Object[]> expectedResult) {
+        this.leftIterator = leftIterator;
+        this.rightIterator = rightIterator;
+        this.expectedResult = expectedResult;
+    }
+
+    @ParametersFactory
+    public static Iterable<Object[]> testParameters() {
+        return HashInnerJoinBatchIteratorTest.testParameters();
+    }
+
+    private BatchIterator<Row> createIterator(RowAccounting<Object[]> rowAccounting,
+                                              int blockSize,
+                                              ToIntFunction<Row> hash) {
+        return new GraceHashJoinBatchIterator(
+            leftIterator.get(),
+            rightIterator.get(),
+            rowAccounting,
+            new CombinedRow(1, 1),
+            row -> Objects.equals(row.get(0), row.get(1)),
+            hash,
+            hash,
+            () -> blockSize,
+            STREAMERS,
+            STREAMERS,
+            null
+        );
+    }
+
+    @Test
+    public void testGraceHashJoinInMemory() throws Exception {
+        BatchIteratorTester tester = new BatchIteratorTester(
+            () -> createIterator(mock(RowAccounting.class), 100, row -> Objects.hash(row.get(0))));
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
+
+    @Test
+    public void testGraceHashJoinSpillsPartitionsIfCircuitBreakerTrips() throws Exception {
+        BatchIteratorTester tester = new BatchIteratorTester(
+            () -> createIterator(new MaxRowsAccounting(2), 100, row -> Objects.hash(row.get(0))));
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
+
+    @Test
+    public void testGraceHashJoinKeepsAtMostBlockSizeRowsInMemory() throws Exception {
+        BatchIteratorTester tester = new BatchIteratorTester(
+            () -> createIterator(new MaxRowsAccounting(1), 1, row -> Objects.hash(row.get(0))));
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
+
+    @Test
+    public void testGraceHashJoinJoinsPartitionsThatCannotBeSplitBlockByBlock() throws Exception {
+        // all rows have the same hash, so repartitioning doesn't help
+        BatchIteratorTester tester = new BatchIteratorTester(
+            () -> createIterator(new MaxRowsAccounting(2), 2, row -> 42));
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
+
+    /**
+     * Trips once more than {@code maxRows} rows are accounted for.
+     */
+    private static class MaxRowsAccounting implements RowAccounting<Object[]> {
+
+        private final int maxRows;
+        private int numRows = 0;
+
+        MaxRowsAccounting(int maxRows) {
+            this.maxRows = maxRows;
+        }
+
+        @Override
+        public void accountForAndMaybeBreak(Object[] row) {
+            if (numRows == maxRows) {
+                throw new CircuitBreakingException("Too many rows", numRows + 1, maxRows);
+            }
+            numRows++;
+        }
+
+        @Override
+        public void release() {
+            numRows = 0;
+        }
+    }
+}
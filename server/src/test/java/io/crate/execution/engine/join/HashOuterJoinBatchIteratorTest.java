@@ -0,0 +1,129 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.join;
+
+import io.crate.breaker.RowAccounting;
+import io.crate.data.BatchIterator;
+import io.crate.data.Row;
+import io.crate.data.join.CombinedRow;
+import io.crate.testing.BatchIteratorTester;
+import io.crate.testing.BatchSimulatingIterator;
+import io.crate.testing.TestingBatchIterators;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import static org.mockito.Mockito.mock;
+
+public class HashOuterJoinBatchIteratorTest {
+
+    private static final List<Object[]> LEFT_JOIN_RESULT = List.of(
+        new Object[] { 0, null },
+        new Object[] { 1, null },
+        new Object[] { 2, 2 },
+        new Object[] { 3, 3 }
+    );
+    private static final List<Object[]> RIGHT_JOIN_RESULT = List.of(
+        new Object[] { 2, 2 },
+        new Object[] { 3, 3 },
+        new Object[] { null, 4 },
+        new Object[] { null, 5 }
+    );
+    private static final List<Object[]> FULL_JOIN_RESULT = List.of(
+        new Object[] { 0, null },
+        new Object[] { 1, null },
+        new Object[] { 2, 2 },
+        new Object[] { 3, 3 },
+        new Object[] { null, 4 },
+        new Object[] { null, 5 }
+    );
+
+    private static Supplier<BatchIterator<Row>> outerJoin(boolean batchedSource,
+                                                          int blockSize,
+                                                          boolean emitUnmatchedLeft,
+                                                          boolean emitUnmatchedRight) {
+        return () -> new HashOuterJoinBatchIterator(
+            batchedSource
+                ? new BatchSimulatingIterator<>(TestingBatchIterators.range(0, 4), 2, 2, null)
+                : TestingBatchIterators.range(0, 4),
+            batchedSource
+                ? new BatchSimulatingIterator<>(TestingBatchIterators.range(2, 6), 2, 2, null)
+                : TestingBatchIterators.range(2, 6),
+            mock(RowAccounting.class),
+            new CombinedRow(1, 1),
+            row -> Objects.equals(row.get(0), row.get(1)),
+            row -> Objects.hash(row.get(0)),
+            row -> Objects.hash(row.get(0)),
+            () -> blockSize,
+            emitUnmatchedLeft,
+            emitUnmatchedRight
+        );
+    }
+
+    @Test
+    public void testLeftJoin() throws Exception {
+        new BatchIteratorTester(outerJoin(false, 100, true, false)).verifyResultAndEdgeCaseBehaviour(LEFT_JOIN_RESULT);
+    }
+
+    @Test
+    public void testLeftJoinBatchedSource() throws Exception {
+        new BatchIteratorTester(outerJoin(true, 100, true, false)).verifyResultAndEdgeCaseBehaviour(LEFT_JOIN_RESULT);
+    }
+
+    @Test
+    public void testRightJoin() throws Exception {
+        new BatchIteratorTester(outerJoin(false, 100, false, true)).verifyResultAndEdgeCaseBehaviour(RIGHT_JOIN_RESULT);
+    }
+
+    @Test
+    public void testRightJoinBatchedSource() throws Exception {
+        new BatchIteratorTester(outerJoin(true, 100, false, true)).verifyResultAndEdgeCaseBehaviour(RIGHT_JOIN_RESULT);
+    }
+
+    @Test
+    public void testFullOuterJoin() throws Exception {
+        new BatchIteratorTester(outerJoin(false, 100, true, true)).verifyResultAndEdgeCaseBehaviour(FULL_JOIN_RESULT);
+    }
+
+    @Test
+    public void testFullOuterJoinBatchedSource() throws Exception {
+        new BatchIteratorTester(outerJoin(true, 100, true, true)).verifyResultAndEdgeCaseBehaviour(FULL_JOIN_RESULT);
+    }
+
+    @Test
+    public void testLeftJoinWithSmallBlocks() throws Exception {
+        new BatchIteratorTester(outerJoin(true, 1, true, false)).verifyResultAndEdgeCaseBehaviour(LEFT_JOIN_RESULT);
+    }
+
+    @Test
+    public void testRightJoinWithSmallBlocks() throws Exception {
+        new BatchIteratorTester(outerJoin(true, 1, false, true)).verifyResultAndEdgeCaseBehaviour(RIGHT_JOIN_RESULT);
+    }
+
+    @Test
+    public void testFullOuterJoinWithSmallBlocks() throws Exception {
+        new BatchIteratorTester(outerJoin(false, 3, true, true)).verifyResultAndEdgeCaseBehaviour(FULL_JOIN_RESULT);
+    }
+}
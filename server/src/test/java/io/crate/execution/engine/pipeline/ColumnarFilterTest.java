@@ -0,0 +1,125 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.pipeline;
+
+import io.crate.analyze.relations.AnalyzedRelation;
+import io.crate.analyze.relations.DocTableRelation;
+import io.crate.data.BatchIterator;
+import io.crate.data.InMemoryBatchIterator;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.data.SentinelRow;
+import io.crate.data.columnar.ColumnarBatch;
+import io.crate.data.columnar.ColumnarBatches;
+import io.crate.data.columnar.IntColumnVector;
+import io.crate.data.columnar.ObjectColumnVector;
+import io.crate.execution.dsl.projection.builder.InputColumns;
+import io.crate.expression.InputFactory;
+import io.crate.expression.symbol.Symbol;
+import io.crate.expression.symbol.Symbols;
+import io.crate.metadata.CoordinatorTxnCtx;
+import io.crate.metadata.RelationName;
+import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
+import io.crate.testing.SqlExpressions;
+import io.crate.testing.T3;
+import io.crate.testing.TestingRowConsumer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static io.crate.testing.TestingHelpers.printedTable;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+public class ColumnarFilterTest extends CrateDummyClusterServiceUnitTest {
+
+    private SqlExpressions sqlExpressions;
+    private InputColumns.SourceSymbols sourceSymbols;
+    private List<Symbol> columns;
+
+    @Before
+    public void prepare() throws Exception {
+        Map<RelationName, AnalyzedRelation> sources = T3.sources(List.of(T3.T1), clusterService);
+        DocTableRelation tr1 = (DocTableRelation) sources.get(T3.T1);
+        sqlExpressions = new SqlExpressions(sources, tr1);
+        columns = List.of(sqlExpressions.asSymbol("a"), sqlExpressions.asSymbol("x"));
+        sourceSymbols = new InputColumns.SourceSymbols(columns);
+    }
+
+    private Symbol query(String expression) {
+        return InputColumns.create(sqlExpressions.normalize(sqlExpressions.asSymbol(expression)), sourceSymbols);
+    }
+
+    private static List<Row> rows() {
+        List<Row> rows = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            rows.add(new RowN(i % 2 == 0 ? "foo" : "bar", i == 5 ? null : i));
+        }
+        return rows;
+    }
+
+    @Test
+    public void testBatchFactoryUsesPrimitiveVectorsForSupportedTypes() {
+        ColumnarBatch batch = ColumnarFilter.batchFactory(Symbols.typeView(columns)).get();
+        assertThat(batch.column(0), instanceOf(ObjectColumnVector.class));
+        assertThat(batch.column(1), instanceOf(IntColumnVector.class));
+        assertThat(batch.capacity(), is(ColumnarFilter.BATCH_SIZE));
+    }
+
+    @Test
+    public void test_query_without_primitive_comparison_cannot_be_vectorized() {
+        assertThat(ColumnarFilter.canVectorize(query("a = 'foo'")), is(false));
+        assertThat(ColumnarFilter.canVectorize(query("x = a::integer")), is(false));
+        assertThat(ColumnarFilter.canVectorize(query("a = 'foo' and x > 1")), is(true));
+        assertThat(ColumnarFilter.canVectorize(query("1 < x")), is(true));
+    }
+
+    @Test
+    public void testColumnarFilterMatchesRowFilter() throws Exception {
+        Symbol query = query("x > 1 and 8 >= x and a = 'foo'");
+        InputFactory inputFactory = new InputFactory(sqlExpressions.functions());
+        CoordinatorTxnCtx txnCtx = CoordinatorTxnCtx.systemTransactionContext();
+        Predicate<Row> rowFilter = RowFilter.create(txnCtx, inputFactory, query);
+        FilterProjector projector = new FilterProjector(rowFilter, ColumnarFilter.create(txnCtx, inputFactory, query));
+
+        BatchIterator<Row> columnar = ColumnarBatches.toRows(ColumnarBatches.fromRows(
+            InMemoryBatchIterator.of(rows(), SentinelRow.SENTINEL, true),
+            ColumnarFilter.batchFactory(Symbols.typeView(columns))
+        ));
+        TestingRowConsumer consumer = new TestingRowConsumer();
+        consumer.accept(projector.apply(columnar), null);
+        assertThat(printedTable(consumer.getBucket()),
+            is("foo| 2\n" +
+               "foo| 4\n" +
+               "foo| 6\n" +
+               "foo| 8\n"));
+
+        TestingRowConsumer rowConsumer = new TestingRowConsumer();
+        rowConsumer.accept(projector.apply(InMemoryBatchIterator.of(rows(), SentinelRow.SENTINEL, true)), null);
+        assertThat(printedTable(rowConsumer.getBucket()), is(printedTable(consumer.getBucket())));
+    }
+}
@@ -22,14 +22,28 @@
 
 package io.crate.execution.engine.sort;
 
+import io.crate.execution.engine.collect.DocInputFactory;
+import io.crate.expression.reference.doc.lucene.CollectorContext;
+import io.crate.expression.reference.doc.lucene.LuceneReferenceResolver;
 import io.crate.expression.reference.doc.lucene.NullSentinelValues;
+import io.crate.expression.symbol.Symbol;
+import io.crate.metadata.CoordinatorTxnCtx;
+import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
+import io.crate.testing.SqlExpressions;
+import io.crate.testing.T3;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 
+import org.apache.lucene.search.SortField;
 import org.elasticsearch.index.fielddata.NullValueOrder;
 import org.junit.Test;
 
-public class SortSymbolVisitorTest {
+import java.util.List;
+
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class SortSymbolVisitorTest extends CrateDummyClusterServiceUnitTest {
 
     @Test
     public void test_missing_object_is_implemented_for_all_primitives() {
@@ -37,4 +51,27 @@ public class SortSymbolVisitorTest {
             NullSentinelValues.nullSentinel(primitiveType, NullValueOrder.FIRST, false);
         }
     }
+
+    @Test
+    public void test_comparators_of_a_function_sort_field_do_not_share_expressions() throws Exception {
+        SqlExpressions expressions = new SqlExpressions(T3.sources(clusterService));
+        Symbol sortSymbol = expressions.asSymbol("x + 1");
+        DocInputFactory docInputFactory = new DocInputFactory(
+            expressions.functions(),
+            new LuceneReferenceResolver(T3.T1.indexNameOrAlias(), fqn -> null, List.of())
+        );
+        SortSymbolVisitor visitor = new SortSymbolVisitor(docInputFactory, fqn -> null);
+        SortField[] sortFields = visitor.generateSortFields(
+            List.of(sortSymbol),
+            CoordinatorTxnCtx.systemTransactionContext(),
+            new CollectorContext(),
+            new boolean[] {false},
+            new boolean[] {false}
+        );
+
+        // comparators of concurrently searched slices must not share the stateful collector expressions
+        var comparator1 = (InputFieldComparator) sortFields[0].getComparator(10, 0);
+        var comparator2 = (InputFieldComparator) sortFields[0].getComparator(10, 0);
+        assertThat(comparator1.collectorExpressions().get(0), not(sameInstance(comparator2.collectorExpressions().get(0))));
+    }
 }
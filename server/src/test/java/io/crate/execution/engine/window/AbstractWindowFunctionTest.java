@@ -179,9 +179,11 @@ public abstract class AbstractWindowFunctionTest extends CrateDummyClusterServic
             numCellsInSourceRows,
             () -> 1,
             Runnable::run,
-            List.of(windowFunctionImpl),
-            argsCtx.expressions(),
-            argsCtx.topLevelInputs().toArray(new Input[0])
+            new WindowFunctions(
+                List.of(windowFunctionImpl),
+                argsCtx.expressions(),
+                argsCtx.topLevelInputs().toArray(new Input[0])
+            )
         );
         List<Object> actualResult;
         try {
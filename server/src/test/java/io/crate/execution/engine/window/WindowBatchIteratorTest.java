@@ -81,9 +81,10 @@ public class WindowBatchIteratorTest {
                     1,
                     () -> 1,
                     Runnable::run,
-                    Collections.singletonList(rowNumberWindowFunction()),
-                    Collections.emptyList(),
-                    new Input[0]);
+                    new WindowFunctions(
+                        Collections.singletonList(rowNumberWindowFunction()),
+                        Collections.emptyList(),
+                        new Input[0]));
             }
         );
         tester.verifyResultAndEdgeCaseBehaviour(expectedRowNumberResult);
@@ -104,9 +105,10 @@ public class WindowBatchIteratorTest {
                     1,
                     () -> 1,
                     Runnable::run,
-                    Collections.singletonList(rowNumberWindowFunction()),
-                    Collections.emptyList(),
-                    new Input[0]);
+                    new WindowFunctions(
+                        Collections.singletonList(rowNumberWindowFunction()),
+                        Collections.emptyList(),
+                        new Input[0]));
             }
         );
         tester.verifyResultAndEdgeCaseBehaviour(expectedRowNumberResult);
@@ -124,9 +126,7 @@ public class WindowBatchIteratorTest {
             1,
             () -> 1,
             Runnable::run,
-            List.of(frameBoundsWindowFunction()),
-            List.of(),
-            args
+            new WindowFunctions(List.of(frameBoundsWindowFunction()), List.of(), args)
         ).get(5, TimeUnit.SECONDS));
         var expectedBounds = tuple(0, 10);
         IntStream.range(0, 10).forEach(i -> assertThat(result.get(i), is(new Object[] { i, expectedBounds})));
@@ -145,9 +145,7 @@ public class WindowBatchIteratorTest {
             1,
             () -> 1,
             Runnable::run,
-            List.of(frameBoundsWindowFunction()),
-            List.of(),
-            args
+            new WindowFunctions(List.of(frameBoundsWindowFunction()), List.of(), args)
         ).get(5, TimeUnit.SECONDS);
         assertThat(
             result,
@@ -191,9 +189,7 @@ public class WindowBatchIteratorTest {
             2,
             () -> 1,
             Runnable::run,
-            List.of(frameBoundsWindowFunction()),
-            List.of(),
-            args
+            new WindowFunctions(List.of(frameBoundsWindowFunction()), List.of(), args)
         ).get(5, TimeUnit.SECONDS);
         assertThat(
             result,
@@ -238,9 +234,7 @@ public class WindowBatchIteratorTest {
             2,
             () -> 1,
             Runnable::run,
-            List.of(frameBoundsWindowFunction()),
-            List.of(),
-            args
+            new WindowFunctions(List.of(frameBoundsWindowFunction()), List.of(), args)
         ).get(5, TimeUnit.SECONDS);
         assertThat(
             result,
@@ -310,9 +304,7 @@ public class WindowBatchIteratorTest {
             1,
             () -> 1,
             Runnable::run,
-            List.of(frameBoundsWindowFunction()),
-            List.of(),
-            args
+            new WindowFunctions(List.of(frameBoundsWindowFunction()), List.of(), args)
         ).get(5, TimeUnit.SECONDS);
         assertThat(
             result,
@@ -344,9 +336,7 @@ public class WindowBatchIteratorTest {
             1,
             () -> 1,
             Runnable::run,
-            List.of(rowNumberWindowFunction()),
-            List.of(),
-            new Input[][]{new Input[0]}
+            new WindowFunctions(List.of(rowNumberWindowFunction()), List.of(), new Input[][]{new Input[0]})
         );
         TestingRowConsumer consumer = new TestingRowConsumer();
         consumer.accept(iterator, null);
@@ -369,9 +359,7 @@ public class WindowBatchIteratorTest {
             1,
             () -> 1,
             Runnable::run,
-            List.of(firstCellValue()),
-            List.of(),
-            args
+            new WindowFunctions(List.of(firstCellValue()), List.of(), args)
         ).get(5, TimeUnit.SECONDS);
         assertThat(
             result,
@@ -23,6 +23,7 @@
 package io.crate.execution.engine.window;
 
 import com.carrotsearch.randomizedtesting.annotations.Repeat;
+import com.google.common.collect.Lists;
 import io.crate.common.collections.Lists2;
 import io.crate.data.Input;
 import io.crate.data.Row;
@@ -38,6 +39,8 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import static io.crate.execution.engine.window.WindowFunctionBatchIterator.sortAndComputeWindowFunctions;
@@ -62,7 +65,7 @@ public class WindowFunctionBatchIteratorTest extends CrateUnitTest {
             2,
             () -> 1,
             Runnable::run,
-            List.of(new WindowFunction() {
+            new WindowFunctions(List.of(new WindowFunction() {
                 @Override
                 public Object execute(int idxInPartition,
                                       WindowFrameState currentFrame,
@@ -80,9 +83,7 @@ public class WindowFunctionBatchIteratorTest extends CrateUnitTest {
                 public Signature boundSignature() {
                     return null;
                 }
-            }),
-            Collections.emptyList(),
-            new Input[][] { new Input[0] }
+            }), Collections.emptyList(), new Input[][] { new Input[0] })
         ).get(5, TimeUnit.SECONDS);
         assertThat(
             result,
@@ -96,6 +97,123 @@ public class WindowFunctionBatchIteratorTest extends CrateUnitTest {
         );
     }
 
+    @Test
+    public void testPartitionRangesNeverSplitAPartition() {
+        ArrayList<Object[]> rows = new ArrayList<>();
+        for (int partition = 0; rows.size() < 40_000; partition++) {
+            int partitionSize = randomIntBetween(1, 3_000);
+            for (int i = 0; i < partitionSize; i++) {
+                rows.add(new Object[] { partition });
+            }
+        }
+        Comparator<Object[]> cmpPartitionBy = OrderingByPosition.arrayOrdering(0, false, false);
+
+        List<int[]> ranges = WindowFunctionBatchIterator.partitionRanges(rows, cmpPartitionBy, 4);
+
+        assertThat(ranges.size(), Matchers.greaterThan(1));
+        assertThat(ranges.size(), Matchers.lessThanOrEqualTo(4));
+        int expectedStart = 0;
+        for (int[] range : ranges) {
+            assertThat(range[0], Matchers.is(expectedStart));
+            assertThat(range[1], Matchers.greaterThan(range[0]));
+            if (range[0] > 0) {
+                assertThat(cmpPartitionBy.compare(rows.get(range[0] - 1), rows.get(range[0])), Matchers.not(0));
+            }
+            expectedStart = range[1];
+        }
+        assertThat(expectedStart, Matchers.is(rows.size()));
+    }
+
+    @Test
+    public void testPartitionRangesWithoutPartitionByOrTooFewRows() {
+        List<Object[]> rows = Collections.nCopies(40_000, new Object[] { 1 });
+        Comparator<Object[]> cmpPartitionBy = OrderingByPosition.arrayOrdering(0, false, false);
+
+        assertThat(WindowFunctionBatchIterator.partitionRanges(rows, null, 4), contains(new int[] { 0, 40_000 }));
+        assertThat(WindowFunctionBatchIterator.partitionRanges(rows, cmpPartitionBy, 1), contains(new int[] { 0, 40_000 }));
+        assertThat(
+            WindowFunctionBatchIterator.partitionRanges(rows.subList(0, 100), cmpPartitionBy, 4),
+            contains(new int[] { 0, 100 }));
+    }
+
+    @Test
+    public void testConcurrentComputationProducesSameResultAsSequentialComputation() throws Exception {
+        ArrayList<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 60_000; i++) {
+            rows.add(new Object[] { randomIntBetween(0, 500), i, null });
+        }
+        ArrayList<Object[]> rowsCopy = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            rowsCopy.add(row.clone());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            var sequential = sortAndComputeWindowFunctions(
+                rows,
+                (partitionStart, partitionEnd, currentIndex, sortedRows) -> partitionStart,
+                (partitionStart, partitionEnd, currentIndex, sortedRows) -> currentIndex + 1,
+                OrderingByPosition.arrayOrdering(0, false, false),
+                OrderingByPosition.arrayOrdering(1, false, false),
+                2,
+                () -> 1,
+                Runnable::run,
+                countingWindowFunctions()
+            ).get(5, TimeUnit.SECONDS);
+            var concurrent = sortAndComputeWindowFunctions(
+                rowsCopy,
+                (partitionStart, partitionEnd, currentIndex, sortedRows) -> partitionStart,
+                (partitionStart, partitionEnd, currentIndex, sortedRows) -> currentIndex + 1,
+                OrderingByPosition.arrayOrdering(0, false, false),
+                OrderingByPosition.arrayOrdering(1, false, false),
+                2,
+                () -> 4,
+                executor,
+                countingWindowFunctions()
+            ).get(5, TimeUnit.SECONDS);
+            assertThat(
+                Lists2.map(Lists.newArrayList(concurrent), Arrays::asList),
+                Matchers.is(Lists2.map(Lists.newArrayList(sequential), Arrays::asList)));
+        } finally {
+            executor.shutdown();
+            assertThat(executor.awaitTermination(5, TimeUnit.SECONDS), Matchers.is(true));
+        }
+    }
+
+    /**
+     * Window function which counts the rows of a partition in its own state.
+     */
+    private static WindowFunctions countingWindowFunctions() {
+        WindowFunction windowFunction = new WindowFunction() {
+
+            private int count = 0;
+
+            @Override
+            public Object execute(int idxInPartition,
+                                  WindowFrameState currentFrame,
+                                  List<? extends CollectExpression<Row, ?>> expressions,
+                                  Input... args) {
+                count = idxInPartition == 0 ? 1 : count + 1;
+                return count;
+            }
+
+            @Override
+            public Signature signature() {
+                return null;
+            }
+
+            @Override
+            public Signature boundSignature() {
+                return null;
+            }
+        };
+        return new WindowFunctions(
+            List.of(windowFunction),
+            List.of(),
+            new Input[][] { new Input[0] },
+            WindowFunctionBatchIteratorTest::countingWindowFunctions
+        );
+    }
+
     @Test
     @Repeat (iterations = 100)
     public void testOptimizedFindFirstNonPeerMatchesBehaviorOfTrivial() {
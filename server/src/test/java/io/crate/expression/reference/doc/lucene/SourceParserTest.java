@@ -0,0 +1,89 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.expression.reference.doc.lucene;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class SourceParserTest {
+
+    private static final BytesArray SOURCE = new BytesArray(
+        "{" +
+        "   \"x\": 10," +
+        "   \"s\": \"foo\"," +
+        "   \"obj\": {\"a\": 1, \"b\": {\"c\": [1, 2]}, \"d\": null}," +
+        "   \"objects\": [{\"a\": 1, \"b\": 2}, {\"a\": 3, \"b\": 4}]," +
+        "   \"y\": true" +
+        "}");
+
+    @Test
+    public void testParseOnlyRegisteredTopLevelColumns() {
+        SourceParser parser = new SourceParser();
+        parser.register(List.of("x"));
+        parser.register(List.of("y"));
+        Map<String, Object> result = parser.parse(SOURCE);
+        assertThat(result, is(Map.of("x", 10, "y", true)));
+    }
+
+    @Test
+    public void testParseRegisteredChildColumns() {
+        SourceParser parser = new SourceParser();
+        parser.register(List.of("obj", "b", "c"));
+        parser.register(List.of("objects", "b"));
+        Map<String, Object> result = parser.parse(SOURCE);
+        assertThat(result, is(Map.of(
+            "obj", Map.of("b", Map.of("c", List.of(1, 2))),
+            "objects", List.of(Map.of("b", 2), Map.of("b", 4))
+        )));
+        assertThat(SourceLookup.extractValue(result, List.of("objects", "b"), 0), is(List.of(2, 4)));
+    }
+
+    @Test
+    public void testParentColumnIncludesAllChildren() {
+        SourceParser parser = new SourceParser();
+        parser.register(List.of("obj", "a"));
+        parser.register(List.of("obj"));
+        parser.register(List.of("obj", "b"));
+        assertThat(parser.contains(List.of("obj")), is(true));
+        assertThat(parser.contains(List.of("obj", "b", "c")), is(true));
+        assertThat(parser.contains(List.of("x")), is(false));
+
+        Map<String, Object> result = parser.parse(SOURCE);
+        assertThat(SourceLookup.extractValue(result, List.of("obj", "a"), 0), is(1));
+        assertThat(SourceLookup.extractValue(result, List.of("obj", "b", "c"), 0), is(List.of(1, 2)));
+    }
+
+    @Test
+    public void testParentOfRegisteredColumnIsNotContained() {
+        SourceParser parser = new SourceParser();
+        parser.register(List.of("obj", "a"));
+        assertThat(parser.contains(List.of("obj", "a")), is(true));
+        assertThat(parser.contains(List.of("obj")), is(false));
+    }
+}
@@ -29,10 +29,18 @@ package io.crate.expression.udf;
 import com.google.common.collect.ImmutableList;
 import io.crate.exceptions.UserDefinedFunctionAlreadyExistsException;
 import io.crate.exceptions.UserDefinedFunctionUnknownException;
+import io.crate.metadata.Scalar;
 import io.crate.metadata.Schemas;
+import io.crate.metadata.functions.Signature;
 import io.crate.types.DataTypes;
 import org.junit.Test;
 
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.hasSize;
@@ -111,4 +119,60 @@ public class UserDefinedFunctionServiceTest extends UdfUnitTest {
         expectedException.expectMessage("User defined Function 'doc.same()' already exists.");
         udfService.putFunction(UserDefinedFunctionsMetadata.of(same1), same2, false);
     }
+
+    @Test
+    public void testImplementationsAreReusedUntilTheFunctionIsReplacedOrDropped() throws Exception {
+        List<CloseableFunction> created = new ArrayList<>();
+        udfService.registerLanguage(new UDFLanguage() {
+            @Override
+            public Scalar createFunctionImplementation(UserDefinedFunctionMetadata metadata, Signature signature) {
+                var function = new CloseableFunction(signature);
+                created.add(function);
+                return function;
+            }
+
+            @Nullable
+            @Override
+            public String validate(UserDefinedFunctionMetadata metadata) {
+                return null;
+            }
+
+            @Override
+            public String name() {
+                return "closeable";
+            }
+        });
+        var udf = new UserDefinedFunctionMetadata(
+            Schemas.DOC_SCHEMA_NAME, "f", ImmutableList.of(), DataTypes.INTEGER, "closeable", "1"
+        );
+        var replacedUdf = new UserDefinedFunctionMetadata(
+            Schemas.DOC_SCHEMA_NAME, "f", ImmutableList.of(), DataTypes.INTEGER, "closeable", "2"
+        );
+
+        udfService.updateImplementations(Schemas.DOC_SCHEMA_NAME, Stream.of(udf));
+        udfService.updateImplementations(Schemas.DOC_SCHEMA_NAME, Stream.of(udf));
+        assertThat(created, hasSize(1));
+        assertThat(created.get(0).closed, is(false));
+
+        udfService.updateImplementations(Schemas.DOC_SCHEMA_NAME, Stream.of(replacedUdf));
+        assertThat(created, hasSize(2));
+        assertThat(created.get(0).closed, is(true));
+
+        udfService.updateImplementations(Schemas.DOC_SCHEMA_NAME, Stream.of());
+        assertThat(created.get(1).closed, is(true));
+    }
+
+    private static class CloseableFunction extends DummyFunction implements Closeable {
+
+        private boolean closed = false;
+
+        CloseableFunction(Signature signature) {
+            super(signature);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
 }
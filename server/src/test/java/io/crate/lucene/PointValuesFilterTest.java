@@ -0,0 +1,129 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.lucene;
+
+import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
+import io.crate.testing.QueryTester;
+import org.apache.lucene.search.IndexSearcher;
+import org.elasticsearch.Version;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.is;
+
+public class PointValuesFilterTest extends CrateDummyClusterServiceUnitTest {
+
+    private QueryTester tester;
+
+    @Before
+    public void prepare() throws Exception {
+        tester = new QueryTester.Builder(
+            createTempDir(),
+            THREAD_POOL,
+            clusterService,
+            Version.CURRENT,
+            "create table t (" +
+            " x integer," +
+            " d double," +
+            " ts timestamp with time zone," +
+            " y integer index off," +
+            " z integer" +
+            ")"
+        )
+            .indexValues("x", 10, 20, 30)
+            .indexValues("d", 1.5, 2.5)
+            .indexValues("ts", "2020-01-01", "2020-02-01")
+            .indexValues("y", 1, 2)
+            .build();
+    }
+
+    @After
+    public void tearDownQueryTester() throws Exception {
+        tester.close();
+    }
+
+    private boolean canMatch(String expression) throws IOException {
+        IndexSearcher searcher = tester.searcher();
+        return PointValuesFilter.canMatch(tester.toSymbol(expression), searcher.getIndexReader(), tester.fieldTypeLookup());
+    }
+
+    @Test
+    public void test_comparisons_within_the_range_of_values_can_match() throws Exception {
+        assertThat(canMatch("x = 20"), is(true));
+        assertThat(canMatch("x = 25"), is(true));
+        assertThat(canMatch("x >= 30"), is(true));
+        assertThat(canMatch("x <= 10"), is(true));
+        assertThat(canMatch("d >= 2.5"), is(true));
+        assertThat(canMatch("ts < '2020-01-02'"), is(true));
+    }
+
+    @Test
+    public void test_comparisons_outside_of_the_range_of_values_cannot_match() throws Exception {
+        assertThat(canMatch("x = 5"), is(false));
+        assertThat(canMatch("x > 30"), is(false));
+        assertThat(canMatch("x < 10"), is(false));
+        assertThat(canMatch("10 > x"), is(false));
+        assertThat(canMatch("d > 2.5"), is(false));
+        assertThat(canMatch("ts >= '2021-01-01'"), is(false));
+    }
+
+    @Test
+    public void test_and_or_combine_the_ranges_of_their_arguments() throws Exception {
+        assertThat(canMatch("x > 5 and x > 35"), is(false));
+        assertThat(canMatch("x > 5 and d < 2"), is(true));
+        assertThat(canMatch("x > 35 or d < 1"), is(false));
+        assertThat(canMatch("x > 35 or d < 2"), is(true));
+    }
+
+    @Test
+    public void test_columns_without_values_or_points_index() throws Exception {
+        assertThat("z has no values at all", canMatch("z = 1"), is(false));
+        assertThat("y isn't indexed", canMatch("y > 100"), is(true));
+        assertThat(canMatch("z is null"), is(true));
+        assertThat(canMatch("x is null"), is(true));
+    }
+
+    @Test
+    public void test_is_null_cannot_match_if_all_documents_have_a_value() throws Exception {
+        QueryTester tester = new QueryTester.Builder(
+            createTempDir(),
+            THREAD_POOL,
+            clusterService,
+            Version.CURRENT,
+            "create table t (x integer)"
+        )
+            .indexValues("x", 10, 20, 30)
+            .build();
+        try {
+            IndexSearcher searcher = tester.searcher();
+            FieldTypeLookup fieldTypeLookup = tester.fieldTypeLookup();
+            assertThat(PointValuesFilter.canMatch(tester.toSymbol("x is null"), searcher.getIndexReader(), fieldTypeLookup), is(false));
+            assertThat(PointValuesFilter.canMatch(tester.toSymbol("x > 20"), searcher.getIndexReader(), fieldTypeLookup), is(true));
+        } finally {
+            tester.close();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.planner.node.ddl;
+
+import io.crate.exceptions.UnsupportedFeatureException;
+import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
+import io.crate.testing.SQLExecutor;
+import org.elasticsearch.Version;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.instanceOf;
+
+public class CreateTablePlanTest extends CrateDummyClusterServiceUnitTest {
+
+    @Test
+    public void test_sort_by_is_allowed_if_all_nodes_are_on_4_3() throws Exception {
+        SQLExecutor e = SQLExecutor.builder(clusterService).build();
+        assertThat(e.plan("create table t (ts timestamp with time zone) with (sort_by = 'ts DESC')"),
+            instanceOf(CreateTablePlan.class));
+    }
+
+    @Test
+    public void test_sort_by_throws_error_with_4_2_nodes() throws Exception {
+        // Make sure the former initialized cluster service is shutdown
+        cleanup();
+        this.clusterService = createClusterService(additionalClusterSettings(), Version.V_4_2_0);
+        SQLExecutor e = SQLExecutor.builder(clusterService).build();
+        expectedException.expect(UnsupportedFeatureException.class);
+        expectedException.expectMessage(CreateTablePlan.SORT_BY_VERSION_ERROR_MSG);
+        e.plan("create table t (ts timestamp with time zone) with (sort_by = 'ts DESC')");
+    }
+}
@@ -45,6 +45,7 @@ import io.crate.statistics.TableStats;
 import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
 import io.crate.testing.SQLExecutor;
 import io.crate.testing.T3;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.Randomness;
 import org.junit.After;
 import org.junit.Before;
@@ -100,6 +101,10 @@ public class JoinTest extends CrateDummyClusterServiceUnitTest {
     }
 
     private LogicalPlan createLogicalPlan(QueriedSelectRelation mss, TableStats tableStats) {
+        return createLogicalPlan(mss, tableStats, clusterService.state().nodes().getMinNodeVersion());
+    }
+
+    private LogicalPlan createLogicalPlan(QueriedSelectRelation mss, TableStats tableStats, Version minNodeVersion) {
         LogicalPlanner logicalPlanner = new LogicalPlanner(
             functions,
             tableStats,
@@ -112,7 +117,8 @@ public class JoinTest extends CrateDummyClusterServiceUnitTest {
             mss.where(),
             mss.joinPairs(),
             rel -> logicalPlanner.normalizeAndPlan(rel, plannerCtx, subqueryPlanner, Set.of()),
-            txnCtx.sessionContext().isHashJoinEnabled()
+            txnCtx.sessionContext().isHashJoinEnabled(),
+            minNodeVersion
         );
     }
 
@@ -203,7 +209,8 @@ public class JoinTest extends CrateDummyClusterServiceUnitTest {
             mss.where(),
             mss.joinPairs(),
             rel -> logicalPlanner.normalizeAndPlan(rel, plannerCtx, subqueryPlanner, Set.of()),
-            false
+            false,
+            clusterService.state().nodes().getMinNodeVersion()
         );
         Join nl = (Join) operator.build(
             context, projectionBuilder, -1, 0, null, null, Row.EMPTY, SubQueryResults.EMPTY);
@@ -277,6 +284,43 @@ public class JoinTest extends CrateDummyClusterServiceUnitTest {
         assertThat(((Collect) join.left()).collectPhase().toCollect().get(1), isReference("loc"));
     }
 
+    @Test
+    public void test_outer_hash_join_keeps_the_smaller_table_on_the_left_side() {
+        QueriedSelectRelation mss = e.analyze("select users.name, locations.id " +
+                                              "from users " +
+                                              "left join locations on users.id = locations.id");
+
+        TableStats tableStats = new TableStats();
+        Map<RelationName, Stats> rowCountByTable = new HashMap<>();
+        rowCountByTable.put(USER_TABLE_IDENT, new Stats(100, 0, Map.of()));
+        rowCountByTable.put(TEST_DOC_LOCATIONS_TABLE_IDENT, new Stats(10, 0, Map.of()));
+        tableStats.updateTableStats(rowCountByTable);
+
+        LogicalPlan operator = createLogicalPlan(mss, tableStats);
+        assertThat(operator, instanceOf(HashJoin.class));
+        assertThat(((HashJoin) operator).joinType(), is(JoinType.LEFT));
+
+        Join join = buildJoin(operator);
+        assertThat(join.joinPhase().joinType(), is(JoinType.RIGHT));
+        assertThat(((Collect) join.left()).collectPhase().toCollect().get(1), isReference("loc"));
+    }
+
+    @Test
+    public void test_outer_join_uses_nested_loop_if_a_node_does_not_support_outer_hash_joins() {
+        QueriedSelectRelation mss = e.analyze("select users.name, locations.id " +
+                                              "from users " +
+                                              "left join locations on users.id = locations.id");
+
+        LogicalPlan operator = createLogicalPlan(mss, new TableStats(), Version.V_4_2_0);
+        assertThat(operator, instanceOf(NestedLoopJoin.class));
+
+        mss = e.analyze("select users.name, locations.id " +
+                        "from users " +
+                        "join locations on users.id = locations.id");
+        operator = createLogicalPlan(mss, new TableStats(), Version.V_4_2_0);
+        assertThat(operator, instanceOf(HashJoin.class));
+    }
+
     @Test
     public void testMultipleHashJoins() {
         QueriedSelectRelation mss = e.analyze("select * " +
@@ -41,6 +41,9 @@ public class OuterJoinRewriteTest extends CrateDummyClusterServiceUnitTest {
             .addTable("create table t1 (x int)")
             .addTable("create table t2 (x int)")
             .build();
+
+        // Equi outer joins are planned as hash joins, the hash join variants are tested separately
+        sqlExecutor.getSessionContext().setHashJoinEnabled(false);
     }
 
     @Test
@@ -111,4 +114,33 @@ public class OuterJoinRewriteTest extends CrateDummyClusterServiceUnitTest {
             "    └ Collect[doc.t2 | [x] | (x > 5)]";
         assertThat(plan, isPlan(expectedPlan));
     }
+
+    @Test
+    public void test_filter_and_outer_hash_join_is_rewritten_to_inner_hash_join_if_filter_eliminates_null_row() {
+        sqlExecutor.getSessionContext().setHashJoinEnabled(true);
+        var plan = sqlExecutor.logicalPlan(
+            "SELECT * FROM t1 LEFT JOIN t2 ON t1.x = t2.x " +
+            "WHERE t2.x = '10'"
+        );
+        var expectedPlan =
+            "HashJoin[(x = x)]\n" +
+            "  ├ Collect[doc.t1 | [x] | true]\n" +
+            "  └ Collect[doc.t2 | [x] | (x = 10)]";
+        assertThat(plan, isPlan(expectedPlan));
+    }
+
+    @Test
+    public void test_filter_and_outer_hash_join_is_not_rewritten_to_inner_hash_join_if_filter_does_not() {
+        sqlExecutor.getSessionContext().setHashJoinEnabled(true);
+        var plan = sqlExecutor.logicalPlan(
+            "SELECT * FROM t1 LEFT JOIN t2 ON t1.x = t2.x " +
+            "WHERE coalesce(t2.x, 10) = 10 AND t1.x > 5"
+        );
+        var expectedPlan =
+            "Filter[(coalesce(x, 10) = 10)]\n" +
+            "  └ HashJoin[LEFT | (x = x)]\n" +
+            "    ├ Collect[doc.t1 | [x] | (x > 5)]\n" +
+            "    └ Collect[doc.t2 | [x] | true]";
+        assertThat(plan, isPlan(expectedPlan));
+    }
 }
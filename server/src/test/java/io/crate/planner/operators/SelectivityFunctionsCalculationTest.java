@@ -66,6 +66,21 @@ public class SelectivityFunctionsCalculationTest extends CrateDummyClusterServic
         assertThat(plan.numExpectedRows(), Matchers.is(1L));
     }
 
+    @Test
+    public void test_filter_operator_scales_expected_row_count_of_source_with_default_selectivity() throws Throwable {
+        TableStats tableStats = new TableStats();
+        tableStats.updateTableStats(
+            Map.of(new RelationName("doc", "tbl"), new Stats(20000, DataTypes.INTEGER.fixedSize(), Map.of())));
+        SQLExecutor e = SQLExecutor.builder(clusterService)
+            .setTableStats(tableStats)
+            .addTable("create table doc.tbl (x int)")
+            .build();
+
+        // The filter can't be pushed below the limit, so it ends up in a Filter operator on top of the Limit
+        LogicalPlan plan = e.logicalPlan("select * from (select * from doc.tbl limit 2000) t where x = 10");
+        assertThat(plan.numExpectedRows(), Matchers.is(10L));
+    }
+
 
     @Test
     public void test_group_operator_adapt_expected_row_count_based_on_column_stats() throws Throwable {
@@ -16,8 +16,10 @@ import io.crate.types.DataTypes;
 import org.hamcrest.Matchers;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -104,4 +106,81 @@ public class SelectivityFunctionsTest extends CrateDummyClusterServiceUnitTest {
         Stats stats = new Stats(100, 16, Map.of(new ColumnIdent("x"), columnStats));
         assertThat(SelectivityFunctions.estimateNumRows(stats, query, null), Matchers.is(50L));
     }
+
+    @Test
+    public void test_range_selectivity_is_based_on_histogram() {
+        SqlExpressions expressions = new SqlExpressions(T3.sources(clusterService));
+        var numbers = IntStream.range(1, 20_001)
+            .boxed()
+            .collect(Collectors.toList());
+        var columnStats = ColumnStats.fromSortedValues(numbers, DataTypes.INTEGER, 0, 20_000L);
+        Stats stats = new Stats(20_000, 16, Map.of(new ColumnIdent("x"), columnStats));
+
+        long numRows = SelectivityFunctions.estimateNumRows(stats, expressions.asSymbol("x < 10001"), null);
+        assertThat(numRows, Matchers.allOf(Matchers.greaterThan(9_800L), Matchers.lessThan(10_200L)));
+
+        numRows = SelectivityFunctions.estimateNumRows(stats, expressions.asSymbol("x >= 15001"), null);
+        assertThat(numRows, Matchers.allOf(Matchers.greaterThan(4_800L), Matchers.lessThan(5_200L)));
+
+        numRows = SelectivityFunctions.estimateNumRows(stats, expressions.asSymbol("5001 > x"), null);
+        assertThat(numRows, Matchers.allOf(Matchers.greaterThan(4_800L), Matchers.lessThan(5_200L)));
+
+        assertThat(SelectivityFunctions.estimateNumRows(stats, expressions.asSymbol("x > 30000"), null), Matchers.is(0L));
+        assertThat(SelectivityFunctions.estimateNumRows(stats, expressions.asSymbol("x < 0"), null), Matchers.is(0L));
+    }
+
+    @Test
+    public void test_range_selectivity_includes_matching_most_common_values() {
+        SqlExpressions expressions = new SqlExpressions(T3.sources(clusterService));
+        Symbol query = expressions.asSymbol("x <= 10");
+        var numbers = Lists2.concat(
+            List.of(1, 1, 1, 1, 1, 1, 1, 5, 5, 5, 10, 10, 10, 10, 10, 10, 10, 10),
+            IntStream.range(11, 15).boxed().collect(Collectors.toList())
+        );
+        var columnStats = ColumnStats.fromSortedValues(numbers, DataTypes.INTEGER, 0, numbers.size());
+        Stats stats = new Stats(numbers.size(), 16, Map.of(new ColumnIdent("x"), columnStats));
+        assertThat(SelectivityFunctions.selectivity(stats, query, null), Matchers.closeTo(18.0 / 22.0, 0.000001));
+    }
+
+    @Test
+    public void test_in_selectivity_is_sum_of_eq_selectivity_of_distinct_values() {
+        SqlExpressions expressions = new SqlExpressions(T3.sources(clusterService));
+        Symbol query = expressions.asSymbol("x in (1, 2, 3, 3)");
+        var numbers = IntStream.range(1, 20_001)
+            .boxed()
+            .collect(Collectors.toList());
+        var columnStats = ColumnStats.fromSortedValues(numbers, DataTypes.INTEGER, 0, 20_000L);
+        Stats stats = new Stats(20_000, 16, Map.of(new ColumnIdent("x"), columnStats));
+        assertThat(
+            SelectivityFunctions.selectivity(stats, query, null),
+            Matchers.closeTo(3.0 / columnStats.approxDistinct(), 0.000001));
+    }
+
+    @Test
+    public void test_like_with_prefix_uses_histogram_for_selectivity() {
+        SqlExpressions expressions = new SqlExpressions(T3.sources(clusterService));
+        List<String> values = new ArrayList<>();
+        for (char c = 'a'; c <= 'd'; c++) {
+            for (int i = 0; i < 1000; i++) {
+                values.add(c + String.format(Locale.ENGLISH, "%04d", i));
+            }
+        }
+        var columnStats = ColumnStats.fromSortedValues(values, DataTypes.STRING, 0, values.size());
+        Stats stats = new Stats(values.size(), 16, Map.of(new ColumnIdent("a"), columnStats));
+
+        long numRows = SelectivityFunctions.estimateNumRows(stats, expressions.asSymbol("a like 'b%'"), null);
+        assertThat(numRows, Matchers.allOf(Matchers.greaterThan(900L), Matchers.lessThan(1_100L)));
+
+        assertThat(
+            SelectivityFunctions.selectivity(stats, expressions.asSymbol("a like 'b0001'"), null),
+            Matchers.closeTo(1.0 / columnStats.approxDistinct(), 0.000001));
+    }
+
+    @Test
+    public void test_like_prefix_stops_at_first_wildcard_and_respects_escape() {
+        assertThat(SelectivityFunctions.likePrefix("abc%"), Matchers.is("abc"));
+        assertThat(SelectivityFunctions.likePrefix("ab_c%"), Matchers.is("ab"));
+        assertThat(SelectivityFunctions.likePrefix("a\\%b%"), Matchers.is("a%b"));
+        assertThat(SelectivityFunctions.likePrefix("%abc"), Matchers.is(""));
+    }
 }
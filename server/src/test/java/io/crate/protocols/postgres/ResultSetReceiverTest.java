@@ -25,11 +25,20 @@ package io.crate.protocols.postgres;
 import io.crate.data.Row1;
 import io.crate.protocols.postgres.types.PGTypes;
 import io.crate.types.DataTypes;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
 import org.junit.Test;
 import org.mockito.Answers;
 
 import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -54,4 +63,29 @@ public class ResultSetReceiverTest {
         }
         verify(channel, times(1)).flush();
     }
+
+    @Test
+    public void test_result_consumption_pauses_while_channel_is_not_writable() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ResultSetReceiver resultSetReceiver = new ResultSetReceiver(
+            "select * from t",
+            channel,
+            TransactionState.IDLE,
+            RuntimeException::new,
+            Collections.singletonList(PGTypes.get(DataTypes.INTEGER)),
+            null
+        );
+        assertThat(resultSetReceiver.readyForMoreRows(), nullValue());
+
+        channel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(1, 2));
+        channel.write(Unpooled.wrappedBuffer(new byte[10])); // not flushed, stays in the outbound buffer
+        assertThat(channel.isWritable(), is(false));
+
+        // the receiver flushes the pending rows and is ready once they've been written
+        CompletableFuture<?> ready = resultSetReceiver.readyForMoreRows();
+        assertThat(ready, notNullValue());
+        assertThat(ready.isDone(), is(true));
+        assertThat(channel.isWritable(), is(true));
+        channel.finishAndReleaseAll();
+    }
 }
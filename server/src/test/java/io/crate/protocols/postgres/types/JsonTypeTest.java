@@ -23,10 +23,16 @@
 package io.crate.protocols.postgres.types;
 
 import io.crate.common.collections.MapBuilder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Map;
 
+import static org.hamcrest.Matchers.is;
+
 public class JsonTypeTest extends BasePGTypeTest<Map<String, Object>> {
 
     private Map<String, Object> map = MapBuilder.<String, Object>newMapBuilder()
@@ -46,6 +52,26 @@ public class JsonTypeTest extends BasePGTypeTest<Map<String, Object>> {
         assertBytesWritten(map, expectedBytes, 24);
     }
 
+    @Test
+    public void test_read_array_with_leading_whitespace() throws Exception {
+        byte[] bytes = " [1, {\"x\": 2}]".getBytes(StandardCharsets.UTF_8);
+        assertThat(pgType.readBinaryValue(Unpooled.wrappedBuffer(bytes), bytes.length), is(List.of(1, Map.of("x", 2))));
+    }
+
+    @Test
+    public void test_binary_round_trip_of_array() throws Exception {
+        List<Object> value = List.of(1, Map.of("x", "ä"));
+        ByteBuf buffer = Unpooled.buffer();
+        try {
+            int bytesWritten = pgType.writeAsBinary(buffer, value);
+            assertThat(bytesWritten, is(buffer.readableBytes()));
+            int length = buffer.readInt();
+            assertThat(pgType.readBinaryValue(buffer, length), is(value));
+        } finally {
+            buffer.release();
+        }
+    }
+
     @Test
     public void testReadValue() throws Exception {
         byte[] bytes = new byte[]{
@@ -144,7 +144,7 @@ public class PGArrayTest extends BasePGTypeTest<PGArray> {
             0, 0, 0, 1,  // possible nulls flag as 4 byte int
             0, 0, 0, 23, // oid of inner type (here is integer) as 4 byte int
             0, 0, 0, 3,  // dimension max elements as 4 byte int
-            0, 0, 0, 3,  // dimension max elements as 4 byte int
+            0, 0, 0, 1,  // lower bound of the dimension as 4 byte int
             0, 0, 0, 4,  // length of inner type (here is integer) as 4 type int
             0, 0, 0, 1,  // value
             0, 0, 0, 4,  // length of inner type (here is integer) as 4 type int
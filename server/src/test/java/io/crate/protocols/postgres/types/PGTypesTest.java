@@ -183,6 +183,11 @@ public class PGTypesTest extends CrateUnitTest {
         assertEntryOfPgType(new Entry(DataTypes.STRING, "test"), VarCharType.INSTANCE);
     }
 
+    @Test
+    public void test_varchar_binary_round_trip_with_multi_byte_characters() {
+        assertEntryOfPgType(new Entry(DataTypes.STRING, "fö😀 ∑"), VarCharType.INSTANCE);
+    }
+
     @Test
     public void test_binary_oidvector_streaming_roundtrip() throws Exception {
         Entry entry = new Entry(DataTypes.OIDVECTOR, List.of(1, 2, 3, 4));
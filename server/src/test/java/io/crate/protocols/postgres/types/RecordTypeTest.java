@@ -30,6 +30,8 @@ import org.junit.Test;
 
 import io.crate.data.Row;
 import io.crate.data.RowN;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 
 public class RecordTypeTest extends BasePGTypeTest<RecordType> {
 
@@ -52,6 +54,37 @@ public class RecordTypeTest extends BasePGTypeTest<RecordType> {
         assertThat(str, Matchers.is("(10,\"\",foo,\"foo bar\")"));
     }
 
+    @Test
+    public void test_record_binary_round_trip_with_null_values() throws Exception {
+        Row record = new RowN(10, "", null, "foo", "föö bar");
+        ByteBuf buffer = Unpooled.buffer();
+        try {
+            int bytesWritten = pgType.writeAsBinary(buffer, record);
+            assertThat(bytesWritten, Matchers.is(buffer.readableBytes()));
+            int length = buffer.readInt();
+            Row readRecord = (Row) pgType.readBinaryValue(buffer, length);
+            assertThat(readRecord.materialize(), Matchers.is(record.materialize()));
+            assertThat(buffer.readableBytes(), Matchers.is(0));
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Test
+    public void test_anonymous_record_binary_input_resolves_field_types_by_oid() throws Exception {
+        Row record = new RowN(10, "foo");
+        RecordType recordType = new RecordType(List.of(IntegerType.INSTANCE, VarCharType.INSTANCE));
+        ByteBuf buffer = Unpooled.buffer();
+        try {
+            recordType.writeAsBinary(buffer, record);
+            int length = buffer.readInt();
+            Row readRecord = RecordType.EMPTY_RECORD.readBinaryValue(buffer, length);
+            assertThat(readRecord.materialize(), Matchers.is(record.materialize()));
+        } finally {
+            buffer.release();
+        }
+    }
+
     @Test
     public void test_record_null_value_text_encoding() throws Exception {
         Row record = new RowN(10, "", null, "foo");
@@ -0,0 +1,191 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.rest.action;
+
+import io.crate.action.sql.SQLActionException;
+import io.crate.breaker.RamAccounting;
+import io.crate.breaker.RowAccountingWithEstimators;
+import io.crate.data.RowN;
+import io.crate.expression.symbol.ScopedSymbol;
+import io.crate.expression.symbol.Symbol;
+import io.crate.expression.symbol.Symbols;
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.RelationName;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class RestStreamingResultSetReceiverTest extends CrateUnitTest {
+
+    private final List<Symbol> fields = List.of(
+        new ScopedSymbol(new RelationName("doc", "dummy"), ColumnIdent.fromPath("col_a"), DataTypes.STRING),
+        new ScopedSymbol(new RelationName("doc", "dummy"), ColumnIdent.fromPath("col_b"), DataTypes.INTEGER)
+    );
+
+    private RestStreamingResultSetReceiver newReceiver(EmbeddedChannel channel,
+                                                       HttpResponse head,
+                                                       ResponseFormat format,
+                                                       AtomicInteger fetches) throws Exception {
+        return new RestStreamingResultSetReceiver(
+            channel,
+            head,
+            false,
+            format,
+            fields,
+            0L,
+            new RowAccountingWithEstimators(Symbols.typeView(fields), RamAccounting.NO_ACCOUNTING),
+            false,
+            receiver -> fetches.incrementAndGet()
+        );
+    }
+
+    private static String readContent(Object msg) {
+        assertThat(msg, instanceOf(HttpContent.class));
+        ByteBuf content = ((HttpContent) msg).content();
+        try {
+            return content.toString(StandardCharsets.UTF_8);
+        } finally {
+            content.release();
+        }
+    }
+
+    @Test
+    public void test_rows_are_written_as_chunks_and_next_batch_is_fetched_after_write() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        HttpResponse head = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        AtomicInteger fetches = new AtomicInteger(0);
+        RestStreamingResultSetReceiver receiver = newReceiver(channel, head, ResponseFormat.NDJSON, fetches);
+
+        receiver.setNextRow(new RowN("foo", 1));
+        receiver.batchFinished();
+        channel.runPendingTasks();
+        assertThat(fetches.get(), is(1));
+
+        receiver.setNextRow(new RowN("bar", 2));
+        receiver.allFinished(false);
+
+        assertThat(channel.readOutbound(), sameInstance(head));
+        assertThat(readContent(channel.readOutbound()), is("{\"col_a\":\"foo\",\"col_b\":1}\n"));
+        Object last = channel.readOutbound();
+        assertThat(last, instanceOf(LastHttpContent.class));
+        assertThat(readContent(last), is("{\"col_a\":\"bar\",\"col_b\":2}\n"));
+        assertThat(receiver.completionFuture().isDone(), is(true));
+        assertThat(receiver.completionFuture().get(), nullValue());
+        assertThat(fetches.get(), is(1));
+    }
+
+    @Test
+    public void test_json_stream_has_the_same_structure_as_the_buffered_response() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        HttpResponse head = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        RestStreamingResultSetReceiver receiver = newReceiver(channel, head, ResponseFormat.JSON, new AtomicInteger());
+
+        receiver.setNextRow(new RowN("foo", 1));
+        receiver.batchFinished();
+        channel.runPendingTasks();
+        receiver.setNextRow(new RowN("bar", 2));
+        receiver.allFinished(false);
+
+        assertThat(channel.readOutbound(), sameInstance(head));
+        String json = readContent(channel.readOutbound()) + readContent(channel.readOutbound());
+        assertThat(
+            json.replaceAll(",\"duration\":[^,}]+", ""),
+            is("{\"cols\":[\"col_a\",\"col_b\"],\"rows\":[[\"foo\",1],[\"bar\",2]],\"rowcount\":2}"));
+    }
+
+    @Test
+    public void test_failure_before_first_chunk_is_propagated() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        HttpResponse head = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        RestStreamingResultSetReceiver receiver = newReceiver(channel, head, ResponseFormat.CSV, new AtomicInteger());
+
+        receiver.setNextRow(new RowN("foo", 1));
+        receiver.fail(new IllegalStateException("dummy"));
+
+        assertThat(receiver.completionFuture().isCompletedExceptionally(), is(true));
+        assertThat(channel.readOutbound(), nullValue());
+        assertThat(channel.isOpen(), is(true));
+    }
+
+    @Test
+    public void test_failure_after_first_chunk_closes_the_connection() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        HttpResponse head = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        RestStreamingResultSetReceiver receiver = newReceiver(channel, head, ResponseFormat.CSV, new AtomicInteger());
+
+        receiver.setNextRow(new RowN("foo", 1));
+        receiver.batchFinished();
+        receiver.fail(new IllegalStateException("dummy"));
+
+        assertThat(receiver.completionFuture().isCompletedExceptionally(), is(false));
+        assertThat(channel.isOpen(), is(false));
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void test_csv_values_are_quoted_if_necessary() throws Exception {
+        StringBuilder line = new StringBuilder();
+        List<Object> values = new ArrayList<>();
+        values.add("plain");
+        values.add("a,b");
+        values.add("say \"hi\"");
+        values.add(null);
+        values.add(12L);
+        values.add(true);
+        values.add(Map.of("x", 1));
+        values.add(List.of(1, 2));
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            ResponseFormat.appendCsvValue(line, values.get(i));
+        }
+        assertThat(line.toString(), is("plain,\"a,b\",\"say \"\"hi\"\"\",,12,true,\"{\"\"x\"\":1}\",\"[1,2]\""));
+    }
+
+    @Test
+    public void test_unknown_format_is_rejected() {
+        assertThat(ResponseFormat.of(null), is(ResponseFormat.JSON));
+        assertThat(ResponseFormat.of("csv"), is(ResponseFormat.CSV));
+        expectThrows(SQLActionException.class, () -> ResponseFormat.of("xml"));
+    }
+}
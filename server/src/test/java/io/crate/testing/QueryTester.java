@@ -35,6 +35,7 @@ import io.crate.expression.symbol.FunctionCopyVisitor;
 import io.crate.expression.symbol.Literal;
 import io.crate.expression.symbol.ParameterSymbol;
 import io.crate.expression.symbol.Symbol;
+import io.crate.lucene.FieldTypeLookup;
 import io.crate.lucene.LuceneQueryBuilder;
 import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.CoordinatorTxnCtx;
@@ -230,6 +231,14 @@ public final class QueryTester implements AutoCloseable {
         return symbolToQuery.apply(expression);
     }
 
+    public Symbol toSymbol(String expression) {
+        return expressionToSymbol.apply(expression, null);
+    }
+
+    public FieldTypeLookup fieldTypeLookup() {
+        return indexEnv.mapperService()::fullName;
+    }
+
 
 
     public List<Object> runQuery(String resultColumn, String expression) throws Exception {
@@ -0,0 +1,128 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.xcontent.support;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+
+public class MapXContentParserTests extends ESTestCase {
+
+    private static Map<String, Object> sampleSource() {
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("x", 10);
+        nested.put("tags", List.of("a", "b"));
+        Map<String, Object> source = new LinkedHashMap<>();
+        source.put("id", 1L);
+        source.put("name", "Arthur");
+        source.put("score", 4.2d);
+        source.put("active", true);
+        source.put("missing", null);
+        source.put("obj", nested);
+        source.put("arr", Arrays.asList(new HashMap<>(Map.of("y", 1)), null, List.of(1, 2)));
+        source.put("empty", Map.of());
+        return source;
+    }
+
+    public void testEmitsSameTokensAsJsonParser() throws IOException {
+        Map<String, Object> source = sampleSource();
+        BytesReference bytes = BytesReference.bytes(XContentFactory.jsonBuilder().map(source));
+        try (XContentParser jsonParser = JsonXContent.JSON_XCONTENT.createParser(
+                NamedXContentRegistry.EMPTY, DeprecationHandler.THROW_UNSUPPORTED_OPERATION, BytesReference.toBytes(bytes));
+             XContentParser mapParser = new MapXContentParser(
+                 NamedXContentRegistry.EMPTY, DeprecationHandler.THROW_UNSUPPORTED_OPERATION, source, XContentType.JSON)) {
+
+            XContentParser.Token token;
+            do {
+                token = jsonParser.nextToken();
+                assertThat(mapParser.nextToken(), is(token));
+                assertThat(mapParser.currentName(), is(jsonParser.currentName()));
+                if (token != null && token.isValue()) {
+                    assertThat(mapParser.text(), is(jsonParser.text()));
+                }
+            } while (token != null);
+        }
+    }
+
+    public void testMapRoundTrip() throws IOException {
+        Map<String, Object> source = sampleSource();
+        try (XContentParser parser = new MapXContentParser(
+                NamedXContentRegistry.EMPTY, DeprecationHandler.THROW_UNSUPPORTED_OPERATION, source, XContentType.JSON)) {
+            Map<String, Object> parsed = parser.map();
+            assertThat(parsed.get("id"), is(1L));
+            assertThat(parsed.get("score"), is(4.2d));
+            assertThat(parsed.get("obj"), is(source.get("obj")));
+            assertThat(parsed.get("arr"), is(source.get("arr")));
+            assertThat(parsed.containsKey("missing"), is(true));
+        }
+    }
+
+    public void testSkipChildrenMovesToEndOfContainer() throws IOException {
+        Map<String, Object> source = new LinkedHashMap<>();
+        source.put("obj", Map.of("a", List.of(1, 2)));
+        source.put("b", "foo");
+        try (XContentParser parser = new MapXContentParser(
+                NamedXContentRegistry.EMPTY, DeprecationHandler.THROW_UNSUPPORTED_OPERATION, source, XContentType.JSON)) {
+            assertThat(parser.nextToken(), is(XContentParser.Token.START_OBJECT));
+            assertThat(parser.nextToken(), is(XContentParser.Token.FIELD_NAME));
+            assertThat(parser.nextToken(), is(XContentParser.Token.START_OBJECT));
+            parser.skipChildren();
+            assertThat(parser.currentToken(), is(XContentParser.Token.END_OBJECT));
+            assertThat(parser.nextToken(), is(XContentParser.Token.FIELD_NAME));
+            assertThat(parser.currentName(), is("b"));
+            assertThat(parser.nextToken(), is(XContentParser.Token.VALUE_STRING));
+            assertThat(parser.text(), is("foo"));
+            assertThat(parser.nextToken(), is(XContentParser.Token.END_OBJECT));
+            assertThat(parser.nextToken(), is((XContentParser.Token) null));
+        }
+    }
+
+    public void testNumbersAreNotConvertedToText() throws IOException {
+        Map<String, Object> source = Map.of("f", 1.5f);
+        try (XContentParser parser = new MapXContentParser(
+                NamedXContentRegistry.EMPTY, DeprecationHandler.THROW_UNSUPPORTED_OPERATION, source, XContentType.JSON)) {
+            parser.nextToken();
+            parser.nextToken();
+            assertThat(parser.nextToken(), is(XContentParser.Token.VALUE_NUMBER));
+            assertThat(parser.numberType(), is(XContentParser.NumberType.FLOAT));
+            assertThat(parser.floatValue(), is(1.5f));
+        }
+    }
+
+    public void testIsSupported() {
+        assertThat(MapXContentParser.isSupported(sampleSource()), is(true));
+        assertThat(MapXContentParser.isSupported(Map.of("a", new Object[] {1, "b"})), is(true));
+        assertThat(MapXContentParser.isSupported(Map.of("a", new double[] {1.0, 2.0})), is(false));
+        assertThat(MapXContentParser.isSupported(Map.of("a", List.of(new Object()))), is(false));
+    }
+}
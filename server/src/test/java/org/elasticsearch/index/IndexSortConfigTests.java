@@ -0,0 +1,152 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package org.elasticsearch.index;
+
+import io.crate.types.DataTypes;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSelector;
+import org.apache.lucene.search.SortedNumericSortField;
+import org.apache.lucene.search.SortedSetSortField;
+import org.apache.lucene.search.TopFieldCollector;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.fielddata.NullValueOrder;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+
+public class IndexSortConfigTests extends ESTestCase {
+
+    private static Function<String, MappedFieldType> fieldTypes() {
+        NumberFieldMapper.NumberFieldType ts = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+        ts.setName("ts");
+        KeywordFieldMapper.KeywordFieldType name = new KeywordFieldMapper.KeywordFieldType();
+        name.setName("name");
+        name.setHasDocValues(true);
+        KeywordFieldMapper.KeywordFieldType noDocValues = new KeywordFieldMapper.KeywordFieldType();
+        noDocValues.setName("no_doc_values");
+        noDocValues.setHasDocValues(false);
+        return Map.<String, MappedFieldType>of("ts", ts, "name", name, "no_doc_values", noDocValues)::get;
+    }
+
+    private static Sort buildIndexSort(String sortBy) {
+        Settings settings = Settings.builder().put(IndexSortConfig.INDEX_SORT_BY_SETTING.getKey(), sortBy).build();
+        return IndexSortConfig.buildIndexSort(settings, fieldTypes());
+    }
+
+    public void testNoIndexSortIfSettingIsNotSet() {
+        assertThat(IndexSortConfig.buildIndexSort(Settings.EMPTY, fieldTypes()), is(nullValue()));
+    }
+
+    public void testIndexSortUsesOrderByDefaults() {
+        Sort sort = buildIndexSort("ts DESC, name");
+        SortField[] sortFields = sort.getSort();
+        assertThat(sortFields.length, is(2));
+
+        SortedNumericSortField ts = (SortedNumericSortField) sortFields[0];
+        assertThat(ts.getField(), is("ts"));
+        assertThat(ts.getReverse(), is(true));
+        assertThat(ts.getSelector(), is(SortedNumericSelector.Type.MAX));
+        // DESC defaults to NULLS FIRST, nulls are sorted as the largest value
+        assertThat(ts.getMissingValue(), is(Long.MAX_VALUE));
+
+        SortedSetSortField name = (SortedSetSortField) sortFields[1];
+        assertThat(name.getField(), is("name"));
+        assertThat(name.getReverse(), is(false));
+        assertThat(name.getMissingValue(), is(SortedSetSortField.STRING_LAST));
+    }
+
+    public void testIndexSortWithExplicitNullOrder() {
+        SortedNumericSortField ts = (SortedNumericSortField) buildIndexSort("ts asc nulls first").getSort()[0];
+        assertThat(ts.getReverse(), is(false));
+        assertThat(ts.getMissingValue(), is(Long.MIN_VALUE));
+    }
+
+    public void testInvalidValueIsRejectedBySetting() {
+        Settings settings = Settings.builder().put(IndexSortConfig.INDEX_SORT_BY_SETTING.getKey(), "ts DESC foo").build();
+        IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class, () -> IndexSortConfig.INDEX_SORT_BY_SETTING.get(settings));
+        assertThat(e.getMessage(), containsString("Invalid value for argument 'sort_by'"));
+    }
+
+    public void testUnknownColumnIsRejected() {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> buildIndexSort("unknown"));
+        assertThat(e.getMessage(), containsString("Cannot use column [unknown] in 'sort_by'"));
+    }
+
+    public void testColumnWithoutColumnStoreIsRejected() {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> buildIndexSort("no_doc_values"));
+        assertThat(e.getMessage(), containsString("Cannot use column [no_doc_values] in 'sort_by'"));
+    }
+
+    public void testQueryOrderedByPrefixOfIndexSortTerminatesEarly() throws Exception {
+        IndexWriterConfig config = new IndexWriterConfig(new StandardAnalyzer())
+            .setIndexSort(buildIndexSort("ts DESC, name"));
+        try (Directory directory = new ByteBuffersDirectory();
+             IndexWriter writer = new IndexWriter(directory, config)) {
+            for (int i = 0; i < 1000; i++) {
+                Document doc = new Document();
+                doc.add(new SortedNumericDocValuesField("ts", i));
+                doc.add(new SortedSetDocValuesField("name", new BytesRef("name" + (i % 10))));
+                writer.addDocument(doc);
+            }
+            writer.commit();
+
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                // the sort of `ORDER BY ts DESC`
+                Sort sort = new Sort(IndexSortConfig.sortField("ts", DataTypes.LONG, true, NullValueOrder.FIRST));
+                TopFieldCollector collector = TopFieldCollector.create(sort, 10, 10);
+                new IndexSearcher(reader).search(new MatchAllDocsQuery(), collector);
+
+                TopFieldDocs topDocs = collector.topDocs();
+                assertThat(topDocs.totalHits.relation, is(TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO));
+                assertThat(topDocs.totalHits.value, lessThan(1000L));
+                assertThat(((FieldDoc) topDocs.scoreDocs[0]).fields[0], is(999L));
+            }
+        }
+    }
+}
@@ -143,6 +143,7 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.BrokenBarrierException;
@@ -5370,6 +5371,48 @@ public class InternalEngineTests extends EngineTestCase {
         assertThat(message, engine.getNumDocDeletes(), equalTo(expectedDeletes));
     }
 
+    @Test
+    public void testLoadDocIdAndVersionsOnceFullyRefreshed() throws IOException {
+        assertThat(engine.isFullyRefreshed(), equalTo(true));
+        engine.index(indexForDoc(testParsedDocument("1", null, testDocumentWithTextField(), B_1, null)));
+        engine.index(indexForDoc(testParsedDocument("3", null, testDocumentWithTextField(), B_3, null)));
+        assertThat(engine.isFullyRefreshed(), equalTo(false));
+        engine.refresh("test");
+        assertThat(engine.isFullyRefreshed(), equalTo(true));
+
+        engine.index(indexForDoc(testParsedDocument("2", null, testDocumentWithTextField(), B_2, null)));
+        engine.delete(new Engine.Delete(
+            "default", "3", newUid("3"), UNASSIGNED_SEQ_NO,
+            primaryTerm.get(), Versions.MATCH_ANY, VersionType.INTERNAL,
+            Engine.Operation.Origin.PRIMARY, System.nanoTime(), UNASSIGNED_SEQ_NO, 0));
+        assertThat(engine.isFullyRefreshed(), equalTo(false));
+        engine.refresh("test");
+        assertThat(engine.isFullyRefreshed(), equalTo(true));
+
+        List<BytesRef> uids = List.of("4", "3", "2", "1").stream()
+            .map(id -> newUid(id).bytes())
+            .sorted()
+            .collect(Collectors.toList());
+        try (Searcher searcher = engine.acquireSearcher("test", Engine.SearcherScope.INTERNAL)) {
+            VersionsAndSeqNoResolver.DocIdAndVersion[] results =
+                VersionsAndSeqNoResolver.loadDocIdAndVersions(searcher.reader(), IdFieldMapper.NAME, uids, true);
+            assertThat(results.length, equalTo(uids.size()));
+            for (int i = 0; i < uids.size(); i++) {
+                VersionsAndSeqNoResolver.DocIdAndVersion expected = VersionsAndSeqNoResolver.loadDocIdAndVersion(
+                    searcher.reader(), new Term(IdFieldMapper.NAME, uids.get(i)), true);
+                if (expected == null) {
+                    assertThat(results[i], nullValue());
+                } else {
+                    assertThat(results[i].docBase + results[i].docId, equalTo(expected.docBase + expected.docId));
+                    assertThat(results[i].seqNo, equalTo(expected.seqNo));
+                    assertThat(results[i].version, equalTo(expected.version));
+                }
+            }
+            long found = Arrays.stream(results).filter(Objects::nonNull).count();
+            assertThat(found, equalTo(2L));
+        }
+    }
+
     public static <T> void assertThatIfAssertionEnabled(T actual, Matcher<? super T> matcher) {
         if (InternalEngineTests.class.desiredAssertionStatus()) {
             assertThat(actual, matcher);